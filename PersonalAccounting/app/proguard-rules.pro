@@ -18,4 +18,8 @@
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+#-renamesourcefileattribute SourceFile
+# 发布版日志级别为 WARN，开启混淆时连同参数求值一起去掉调试日志的调用点
+-assumenosideeffects class com.example.personalaccounting.model.AppLog {
+    public static void d(...);
+}
@@ -0,0 +1,129 @@
+package com.example.personalaccounting.model;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 组合查询执行计划测试
+ * <p>
+ * 在设备自带的 SQLite 上对每一种条件组合执行 EXPLAIN QUERY PLAN，
+ * 账单表必须通过索引或主键访问；不带备注关键字时排序也必须由索引完成。
+ * </p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class BillQueryPlanTest {
+    // 8个可选条件的全部组合
+    private static final int SHAPE_COUNT = 1 << 8;
+
+    private BillDbHelper mDbHelper;
+
+    @Before
+    public void setUp() {
+        // 内存数据库，不影响设备上的账本
+        mDbHelper = new BillDbHelper(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+    }
+
+    @After
+    public void tearDown() {
+        mDbHelper.close();
+    }
+
+    @Test
+    public void everyShape_usesAnIndex() {
+        for (int mask = 0; mask < SHAPE_COUNT; mask++) {
+            BillFilter filter = shape(mask);
+            List<String> plan = mDbHelper.explainQueryPlan(filter);
+            for (String detail : plan) {
+                if (detail.contains(BillDbHelper.TABLE_BILL)) {
+                    assertTrue("全表扫描，形状=" + mask + "，计划=" + plan, detail.contains("USING"));
+                }
+                if (filter.getRemarkKeyword() == null) {
+                    assertFalse("排序没有走索引，形状=" + mask + "，计划=" + plan, detail.contains("TEMP B-TREE"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void keysetPages_coverEveryMatchingBillOnce() {
+        List<Bill> bills = new ArrayList<>();
+        for (int i = 0; i < 95; i++) {
+            Bill bill = new Bill();
+            bill.setType(i % 3 == 0 ? "餐饮" : "交通");
+            bill.setAmount(10 + i);
+            bill.setBillType(0);
+            bill.setRemark(i % 5 == 0 ? "午餐外卖" : "地铁");
+            // 多条账单落在同一天、同一创建时间，考验键集的最后一级比较
+            bill.setDate(String.format("2024-03-%02d", 1 + i / 10));
+            bill.setCreateTime(1000 + i / 4);
+            bills.add(bill);
+        }
+        mDbHelper.insertBills(bills);
+
+        BillFilter filter = new BillFilter.Builder().dateBetween("2024-03-01", "2024-03-31")
+                .categories("餐饮").limit(7).build();
+        Set<Integer> seen = new HashSet<>();
+        String lastKey = null;
+        List<Bill> page = mDbHelper.queryBills(filter);
+        while (!page.isEmpty()) {
+            for (Bill bill : page) {
+                assertTrue(seen.add(bill.getId()));
+                String key = bill.getDate() + "/" + bill.getCreateTime();
+                assertTrue(lastKey == null || key.compareTo(lastKey) <= 0);
+                lastKey = key;
+            }
+            filter = filter.nextPage(page.get(page.size() - 1));
+            page = mDbHelper.queryBills(filter);
+        }
+        assertEquals(32, seen.size());
+
+        List<Bill> takeaway = mDbHelper.queryBills(new BillFilter.Builder().remarkContains("外卖")
+                .amountBetween(50.0, null).build());
+        assertEquals(11, takeaway.size());
+    }
+
+    /**
+     * 按位组合查询条件，每一位对应一个可选条件
+     */
+    private static BillFilter shape(int mask) {
+        BillFilter.Builder builder = new BillFilter.Builder();
+        builder.dateBetween((mask & 1) != 0 ? "2024-01-01" : null, (mask & 2) != 0 ? "2024-12-31" : null);
+        if ((mask & 4) != 0) {
+            builder.billType(0);
+        }
+        if ((mask & 8) != 0) {
+            builder.categories("餐饮", "交通", "购物");
+        }
+        if ((mask & 16) != 0) {
+            builder.amountBetween(1.0, 100.0);
+        }
+        if ((mask & 32) != 0) {
+            builder.remarkContains("外卖");
+        }
+        if ((mask & 64) != 0) {
+            Bill last = new Bill();
+            last.setId(5);
+            last.setDate("2024-03-01");
+            last.setCreateTime(100);
+            builder.after(last).limit(50);
+        }
+        if ((mask & 128) != 0) {
+            builder.sort(BillFilter.SORT_OLDEST_FIRST);
+        }
+        return builder.build();
+    }
+}
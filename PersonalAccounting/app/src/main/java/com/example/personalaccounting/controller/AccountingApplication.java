@@ -0,0 +1,29 @@
+package com.example.personalaccounting.controller;
+
+import android.app.Application;
+
+import com.example.personalaccounting.model.AppLog;
+import com.example.personalaccounting.model.BillRepository;
+
+/**
+ * 应用入口
+ * <p>
+ * 进程启动时先创建账单仓库，仓库在后台线程打开数据库并预热缓存；
+ * 第一个页面创建时仓库已经存在，发出的请求排在预热之后执行，主线程不等数据库。
+ * </p>
+ */
+public class AccountingApplication extends Application {
+    private static final String TAG = "AccountingApplication";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        AppLog.beginSection("AccountingApplication.onCreate");
+        try {
+            BillRepository.getInstance(this);
+        } finally {
+            AppLog.endSection();
+        }
+        AppLog.d(TAG, "onCreate: 已开始预热数据库");
+    }
+}
@@ -3,7 +3,6 @@ package com.example.personalaccounting.controller;
 import android.content.Intent;
 import android.os.Bundle;
 import android.text.TextUtils;
-import android.util.Log;
 import android.view.View;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
@@ -25,8 +24,11 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.AppLog;
 import com.example.personalaccounting.model.Bill;
 import com.example.personalaccounting.model.BillRepository;
+import com.example.personalaccounting.model.Budget;
+import com.example.personalaccounting.model.BudgetEngine;
 
 
 /**
@@ -55,6 +57,7 @@ public class BillEditActivity extends AppCompatActivity{
     private String mOriginalDate; // 编辑模式下的原日期
     private int mBillId; // 账单ID，编辑模式下有效
     private boolean mIsEditMode; // 是否为编辑模式
+    private BudgetEngine.AlertListener mBudgetAlertListener; // 保存后预算跨过提醒线时提示
 
     // 类型选项数据
     private List<String> mIncomeTypes; // 收入类型列表
@@ -107,6 +110,10 @@ public class BillEditActivity extends AppCompatActivity{
 
         // 初始化账单仓库（MVC的Model层）
         mBillRepository = BillRepository.getInstance(this);
+        // 提醒在保存回调之前到达，保存成功后页面随即关闭，所以用应用上下文弹出
+        mBudgetAlertListener = status -> runOnUiThread(() ->
+                Toast.makeText(getApplicationContext(), budgetAlertText(status), Toast.LENGTH_LONG).show());
+        mBillRepository.addBudgetAlertListener(mBudgetAlertListener);
 
         // 初始化类型选项数据
         mIncomeTypes = new ArrayList<>();
@@ -266,7 +273,7 @@ public class BillEditActivity extends AppCompatActivity{
 
             @Override
             public void onError(Exception e) {
-                Log.e("BillEditActivity", "加载账单失败: " + e.getMessage());
+                AppLog.e("BillEditActivity", "加载账单失败: {}", e.getMessage());
                 runOnUiThread(() -> {
                     Toast.makeText(BillEditActivity.this, "加载账单失败", Toast.LENGTH_SHORT).show();
                     finish();
@@ -334,7 +341,7 @@ public class BillEditActivity extends AppCompatActivity{
 
                 @Override
                 public void onError(Exception e) {
-                    Log.e("BillEditActivity", "更新账单失败: " + e.getMessage());
+                    AppLog.e("BillEditActivity", "更新账单失败: {}", e.getMessage());
                     runOnUiThread(() -> {
                         Toast.makeText(BillEditActivity.this, "更新失败，请重试", Toast.LENGTH_SHORT).show();
                     });
@@ -367,7 +374,7 @@ public class BillEditActivity extends AppCompatActivity{
 
                 @Override
                 public void onError(Exception e) {
-                    Log.e("BillEditActivity", "保存账单失败: " + e.getMessage());
+                    AppLog.e("BillEditActivity", "保存账单失败: {}", e.getMessage());
                     runOnUiThread(() -> {
                         Toast.makeText(BillEditActivity.this, "保存失败，请重试", Toast.LENGTH_SHORT).show();
                     });
@@ -376,9 +383,25 @@ public class BillEditActivity extends AppCompatActivity{
         }
     }
 
+    /**
+     * 预算提醒文案
+     */
+    private static String budgetAlertText(Budget.Status status) {
+        Budget budget = status.getBudget();
+        String name = budget.isOverall() ? "本月总预算" : "本月「" + budget.getCategory() + "」预算";
+        if (status.getLevel() == Budget.LEVEL_EXCEEDED) {
+            return String.format(Locale.getDefault(), "%s已超支%.2f元", name, -status.getRemainingCents() / 100.0);
+        }
+        return String.format(Locale.getDefault(), "%s已用%d%%，剩余%.2f元", name,
+                status.getSpentCents() * 100 / budget.getLimitCents(), status.getRemainingCents() / 100.0);
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
         // 资源由BillRepository单例统一管理，无需在此关闭
+        if (mBudgetAlertListener != null) {
+            mBillRepository.removeBudgetAlertListener(mBudgetAlertListener);
+        }
     }
 }
\ No newline at end of file
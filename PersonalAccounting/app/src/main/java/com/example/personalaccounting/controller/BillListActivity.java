@@ -1,10 +1,23 @@
 package com.example.personalaccounting.controller;
 
+import android.content.ClipData;
 import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+import android.database.Cursor;
+import android.net.Uri;
 import android.os.Bundle;
-import android.util.Log;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.provider.OpenableColumns;
+import android.text.Editable;
+import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.view.View;
+import android.widget.EditText;
 import android.widget.ImageButton;
+import android.widget.PopupMenu;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
 import android.widget.TextView;
@@ -15,19 +28,65 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.AppLog;
 import com.example.personalaccounting.model.Bill;
+import com.example.personalaccounting.model.BillCsvImporter;
+import com.example.personalaccounting.model.BillListItem;
 import com.example.personalaccounting.model.BillRepository;
+import com.example.personalaccounting.model.BillSyncEngine;
+import com.example.personalaccounting.model.EpochDays;
+import com.example.personalaccounting.model.FrameStats;
+import com.example.personalaccounting.model.HttpSyncTransport;
+import com.example.personalaccounting.model.LedgerGenerator;
+import com.example.personalaccounting.model.SyncTransport;
 import com.example.personalaccounting.view.BillListAdapter;
+import com.example.personalaccounting.view.StickyDayHeaderDecoration;
 
 
 public class BillListActivity extends AppCompatActivity implements RadioGroup.OnCheckedChangeListener {
 
+    // 每页加载的账单条数
+    private static final int PAGE_SIZE = 50;
+    // 距离列表底部还剩多少项时预加载下一页
+    private static final int PREFETCH_DISTANCE = 10;
+    // 选择导出文件的请求码
+    private static final int REQUEST_EXPORT_CSV = 2;
+    // 选择导入文件的请求码
+    private static final int REQUEST_IMPORT_CSV = 3;
+    // 选择备份文件的请求码
+    private static final int REQUEST_BACKUP = 4;
+    // 选择恢复文件的请求码
+    private static final int REQUEST_RESTORE = 5;
+    // 选择增量备份文件的保存位置
+    private static final int REQUEST_BACKUP_INCREMENTAL = 6;
+    // 选择要校验的备份文件
+    private static final int REQUEST_VERIFY_BACKUP = 7;
+    // 停止输入多久后开始搜索
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+    // 搜索结果最多显示条数
+    private static final int SEARCH_LIMIT = 100;
+    // 调试菜单生成测试账本用的固定种子
+    private static final long GENERATE_LEDGER_SEED = 20240101L;
+    // 同步服务器地址的保存位置
+    private static final String PREFS_SYNC = "sync";
+    private static final String KEY_SERVER_URL = "server_url";
+
     // 控件
     private ImageButton btnBack; // 返回按钮
+    private TextView tvTitle; // 标题
+    private ImageButton btnMore; // 更多操作按钮
+    private EditText etSearch; // 搜索框
     private RadioGroup rgFilter; // 筛选RadioGroup
     private RadioButton rbAll; // 全部账单
     private RadioButton rbIncome; // 收入账单
@@ -39,6 +98,21 @@ public class BillListActivity extends AppCompatActivity implements RadioGroup.On
     private BillRepository mBillRepository; // 账单仓库（MVC的Model层）
     private BillListAdapter mAdapter; // 账单列表适配器
     private int mCurrentFilter; // 当前筛选条件：0=全部，1=收入，2=支出
+    private StickyDayHeaderDecoration mHeaderDecoration; // 日期分组头吸顶装饰
+    private final List<BillListItem> mItems = new ArrayList<>(); // 已加载的列表项
+    private Bill mLastLoadedBill; // 已加载的最后一条账单，作为下一页的起点
+    private boolean mHasMore; // 是否还有下一页
+    private String mPageRequestId; // 当前分页请求ID
+    private String mExportRequestId; // 当前导出请求ID
+    private String mImportRequestId; // 当前导入请求ID
+    private String mGenerateRequestId; // 当前生成测试账本请求ID，仅调试版可用
+    private boolean mBackupRunning; // 是否正在备份或恢复
+    private boolean mSyncRunning; // 是否正在同步
+    private String mSearchKeyword = ""; // 当前搜索关键字，为空时显示分页列表
+    private String mSearchRequestId; // 当前搜索请求ID
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mSearchRunnable = this::loadBillData; // 防抖后执行的搜索
+    private FrameMetricsTracker mFrameTracker; // 逐帧耗时采集
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -48,6 +122,7 @@ public class BillListActivity extends AppCompatActivity implements RadioGroup.On
 
         // 初始化控件
         initViews();
+        mFrameTracker = new FrameMetricsTracker(this, "账单列表");
 
         // 初始化数据
         initData();
@@ -59,11 +134,26 @@ public class BillListActivity extends AppCompatActivity implements RadioGroup.On
         loadBillData();
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mFrameTracker.start();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        mFrameTracker.stop();
+    }
+
     /**
      * 初始化控件
      */
     private void initViews() {
         btnBack = findViewById(R.id.btn_back);
+        tvTitle = findViewById(R.id.tv_title);
+        btnMore = findViewById(R.id.btn_more);
+        etSearch = findViewById(R.id.et_search);
         rgFilter = findViewById(R.id.rg_filter);
         rbAll = findViewById(R.id.rb_all);
         rbIncome = findViewById(R.id.rb_income);
@@ -90,6 +180,34 @@ public class BillListActivity extends AppCompatActivity implements RadioGroup.On
         mAdapter = new BillListAdapter(this, new ArrayList<>());
         rvBillList.setAdapter(mAdapter);
 
+        // 日期分组头吸顶
+        mHeaderDecoration = new StickyDayHeaderDecoration(mAdapter);
+        rvBillList.addItemDecoration(mHeaderDecoration);
+
+        // 滚动接近底部时加载下一页
+        rvBillList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                // 拖动和惯性滑动期间的帧计入滚动
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    FrameMetricsTracker.endInteraction(FrameStats.INTERACTION_SCROLL);
+                } else {
+                    FrameMetricsTracker.beginInteraction(FrameStats.INTERACTION_SCROLL);
+                }
+            }
+
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) {
+                    return;
+                }
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= mAdapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+
         // 设置账单操作监听器
         mAdapter.setOnBillActionListener(new BillListAdapter.OnBillActionListener() {
             @Override
@@ -126,7 +244,7 @@ public class BillListActivity extends AppCompatActivity implements RadioGroup.On
 
                                 @Override
                                 public void onError(Exception e) {
-                                    Log.e("BillListActivity", "删除账单失败: " + e.getMessage());
+                                    AppLog.e("BillListActivity", "删除账单失败: {}", e.getMessage());
                                     runOnUiThread(() -> {
                                         Toast.makeText(BillListActivity.this, "删除失败，请重试", Toast.LENGTH_SHORT).show();
                                     });
@@ -144,53 +262,694 @@ public class BillListActivity extends AppCompatActivity implements RadioGroup.On
      */
     private void setListeners() {
         btnBack.setOnClickListener(v -> finish());
+        btnMore.setOnClickListener(v -> showMoreMenu());
+        // 输入停顿后再搜索，连续输入时只有最后一次会真正查询
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                onSearchTextChanged(s.toString().trim());
+            }
+        });
+        // 打开搜索框时先在后台刷新全文索引
+        etSearch.setOnFocusChangeListener((v, hasFocus) -> {
+            if (hasFocus) {
+                mBillRepository.prefetchSearchIndex();
+            }
+        });
         // 监听单选按钮组中选中项的变化事件
         rgFilter.setOnCheckedChangeListener(this);
     }
 
     /**
      * 加载账单数据（异步）
+     * 从第一页重新加载，替换当前列表；搜索框有内容时改为重新搜索
      */
     private void loadBillData() {
-        // 根据筛选条件调用对应的异步方法
-        BillRepository.Callback<List<Bill>> callback = new BillRepository.Callback<List<Bill>>() {
+        if (mPageRequestId != null) {
+            mBillRepository.cancelRequest(mPageRequestId);
+            mPageRequestId = null;
+        }
+        mItems.clear();
+        mLastLoadedBill = null;
+        if (!mSearchKeyword.isEmpty()) {
+            mHasMore = false;
+            searchBills();
+            return;
+        }
+        mHasMore = true;
+        loadNextPage();
+    }
+
+    /**
+     * 搜索框内容变化
+     * 有内容时延迟搜索，清空时立即恢复分页列表
+     * @param keyword 去掉首尾空白后的关键字
+     */
+    private void onSearchTextChanged(String keyword) {
+        mHandler.removeCallbacks(mSearchRunnable);
+        if (keyword.equals(mSearchKeyword)) {
+            return;
+        }
+        mSearchKeyword = keyword;
+        if (keyword.isEmpty()) {
+            cancelSearch();
+            loadBillData();
+        } else {
+            mHandler.postDelayed(mSearchRunnable, SEARCH_DEBOUNCE_MS);
+        }
+    }
+
+    /**
+     * 按当前关键字和筛选条件搜索（异步），结果不分组、不分页
+     */
+    private void searchBills() {
+        cancelSearch();
+        final String keyword = mSearchKeyword;
+        mSearchRequestId = mBillRepository.searchBillsAsync(keyword, getBillTypeForFilter(), SEARCH_LIMIT,
+                new BillRepository.Callback<List<Bill>>() {
             @Override
             public void onSuccess(List<Bill> bills) {
+                runOnUiThread(() -> {
+                    // 结果返回前关键字已经变化，丢弃
+                    if (!keyword.equals(mSearchKeyword)) {
+                        return;
+                    }
+                    mSearchRequestId = null;
+                    mItems.clear();
+                    for (Bill bill : bills) {
+                        mItems.add(BillListItem.bill(bill));
+                    }
+                    mAdapter.updateData(new ArrayList<>(mItems), BillListActivity.this::onListReplaced);
+                    updateEmptyView();
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                AppLog.e("BillListActivity", "搜索账单失败: {}", e.getMessage());
+                runOnUiThread(() -> mSearchRequestId = null);
+            }
+        });
+    }
+
+    /**
+     * 取消尚未返回的搜索
+     */
+    private void cancelSearch() {
+        if (mSearchRequestId != null) {
+            mBillRepository.cancelRequest(mSearchRequestId);
+            mSearchRequestId = null;
+        }
+        mBillRepository.cancelSearch();
+    }
+
+    /**
+     * 列表整体替换并生效后，让吸顶分组头按新列表重新绑定
+     */
+    private void onListReplaced() {
+        mHeaderDecoration.invalidateHeader();
+        rvBillList.invalidate();
+    }
+
+    /**
+     * 显示/隐藏空数据提示（Controller层只负责UI控制）
+     */
+    private void updateEmptyView() {
+        if (mItems.isEmpty()) {
+            tvEmpty.setText(mSearchKeyword.isEmpty() ? "暂无账单数据" : "没有找到相关账单");
+            rvBillList.setVisibility(View.GONE);
+            tvEmpty.setVisibility(View.VISIBLE);
+        } else {
+            rvBillList.setVisibility(View.VISIBLE);
+            tvEmpty.setVisibility(View.GONE);
+        }
+    }
+
+    /**
+     * 加载下一页账单（异步）
+     * 每页附带日期分组头和当日收支小计，直接追加到列表末尾
+     */
+    private void loadNextPage() {
+        if (mPageRequestId != null || !mHasMore) {
+            return;
+        }
+        final boolean isFirstPage = mLastLoadedBill == null;
+        mPageRequestId = mBillRepository.getBillPageAsync(getBillTypeForFilter(), mLastLoadedBill, PAGE_SIZE,
+                new BillRepository.Callback<List<BillListItem>>() {
+            @Override
+            public void onSuccess(List<BillListItem> items) {
                 // 在UI线程更新界面
                 runOnUiThread(() -> {
-                    // 直接更新适配器数据，AsyncListDiffer会自动计算差异
-                    mAdapter.updateData(bills);
+                    mPageRequestId = null;
+                    int billCount = 0;
+                    for (BillListItem item : items) {
+                        if (!item.isHeader()) {
+                            billCount++;
+                            mLastLoadedBill = item.getBill();
+                        }
+                    }
+                    mHasMore = billCount >= PAGE_SIZE;
+                    mItems.addAll(items);
+                    // 提交新列表，AsyncListDiffer会自动计算差异
+                    AppLog.beginSection("BillList.bindPage");
+                    try {
+                        if (isFirstPage) {
+                            mAdapter.updateData(new ArrayList<>(mItems), BillListActivity.this::onListReplaced);
+                        } else {
+                            mAdapter.updateData(new ArrayList<>(mItems));
+                        }
+                        updateEmptyView();
+                    } finally {
+                        AppLog.endSection();
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                AppLog.e("BillListActivity", "加载账单数据失败: {}", e.getMessage());
+                runOnUiThread(() -> mPageRequestId = null);
+            }
+        });
+    }
+
+    /**
+     * 通过存储访问框架选择导出文件
+     */
+    private void chooseExportFile() {
+        if (mExportRequestId != null) {
+            Toast.makeText(this, "正在导出，请稍候", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("text/csv");
+        intent.putExtra(Intent.EXTRA_TITLE, "账单导出.csv");
+        startActivityForResult(intent, REQUEST_EXPORT_CSV);
+    }
+
+    /**
+     * 按当前筛选条件导出账单（异步），标题栏显示进度
+     * @param uri 导出文件
+     */
+    private void exportBills(Uri uri) {
+        OutputStream out;
+        try {
+            out = getContentResolver().openOutputStream(uri, "w");
+        } catch (Exception e) {
+            AppLog.e("BillListActivity", "打开导出文件失败: {}", e.getMessage());
+            out = null;
+        }
+        if (out == null) {
+            Toast.makeText(this, "无法写入文件", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        final CharSequence title = tvTitle.getText();
+        mExportRequestId = mBillRepository.exportCsvAsync(out, null, null, getBillTypeForFilter(),
+                new BillRepository.ProgressCallback<Long>() {
+            @Override
+            public void onProgress(long done, long total) {
+                int percent = total > 0 ? (int) (done * 100 / total) : 100;
+                runOnUiThread(() -> tvTitle.setText("导出中 " + percent + "%"));
+            }
+
+            @Override
+            public void onSuccess(Long written) {
+                runOnUiThread(() -> {
+                    mExportRequestId = null;
+                    tvTitle.setText(title);
+                    Toast.makeText(BillListActivity.this, "已导出" + written + "条账单", Toast.LENGTH_SHORT).show();
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                AppLog.e("BillListActivity", "导出账单失败: {}", e.getMessage());
+                runOnUiThread(() -> {
+                    mExportRequestId = null;
+                    tvTitle.setText(title);
+                    Toast.makeText(BillListActivity.this, "导出失败，请重试", Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
+    }
+
+    /**
+     * 显示更多操作菜单
+     */
+    private void showMoreMenu() {
+        PopupMenu popupMenu = new PopupMenu(this, btnMore);
+        popupMenu.getMenuInflater().inflate(R.menu.menu_bill_list, popupMenu.getMenu());
+        popupMenu.getMenu().findItem(R.id.action_generate_ledger).setVisible(isDebuggable());
+        popupMenu.setOnMenuItemClickListener(item -> {
+            int itemId = item.getItemId();
+            if (itemId == R.id.action_budget) {
+                startActivity(new Intent(this, BudgetActivity.class));
+            } else if (itemId == R.id.action_import_csv) {
+                chooseImportFile();
+            } else if (itemId == R.id.action_export_csv) {
+                chooseExportFile();
+            } else if (itemId == R.id.action_backup) {
+                chooseBackupFile(false);
+            } else if (itemId == R.id.action_backup_incremental) {
+                chooseBackupFile(true);
+            } else if (itemId == R.id.action_restore) {
+                confirmRestore();
+            } else if (itemId == R.id.action_verify_backup) {
+                chooseVerifyFile();
+            } else if (itemId == R.id.action_sync) {
+                showSyncDialog();
+            } else if (itemId == R.id.action_diagnostics) {
+                startActivity(new Intent(this, DiagnosticsActivity.class));
+            } else if (itemId == R.id.action_generate_ledger) {
+                showGenerateLedgerDialog();
+            } else {
+                return false;
+            }
+            return true;
+        });
+        popupMenu.show();
+    }
+
+    /**
+     * 是否是可调试的构建，调试菜单只在调试版显示
+     */
+    private boolean isDebuggable() {
+        return (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    /**
+     * 选择合成账本的规模，账单分布在截至今天的最近三年
+     */
+    private void showGenerateLedgerDialog() {
+        if (mGenerateRequestId != null) {
+            Toast.makeText(this, "正在生成，请稍候", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        final int[] counts = {10000, 100000, 1000000};
+        new AlertDialog.Builder(this)
+                .setTitle("生成测试账本")
+                .setItems(new String[]{"1万条", "10万条", "100万条"}, (dialog, which) -> generateLedger(counts[which]))
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    /**
+     * 批量写入合成账本（异步），标题栏显示进度，完成后刷新列表
+     * 种子固定，同样的条数和日期生成相同的账本，便于复现问题
+     * @param count 账单条数
+     */
+    private void generateLedger(int count) {
+        int days = 3 * 365;
+        LedgerGenerator generator = new LedgerGenerator.Builder()
+                .seed(GENERATE_LEDGER_SEED)
+                .dateRange(EpochDays.today() - days + 1, days)
+                .billCount(count)
+                .build();
+        final CharSequence title = tvTitle.getText();
+        mGenerateRequestId = mBillRepository.generateLedgerAsync(generator, new BillRepository.ProgressCallback<Integer>() {
+            @Override
+            public void onProgress(long done, long total) {
+                String text = "生成中 " + (int) (done * 100 / total) + "%";
+                runOnUiThread(() -> tvTitle.setText(text));
+            }
+
+            @Override
+            public void onSuccess(Integer inserted) {
+                runOnUiThread(() -> {
+                    mGenerateRequestId = null;
+                    tvTitle.setText(title);
+                    Toast.makeText(BillListActivity.this, "已生成" + inserted + "条账单", Toast.LENGTH_SHORT).show();
+                    loadBillData();
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                AppLog.e("BillListActivity", "生成测试账本失败: {}", e.getMessage());
+                runOnUiThread(() -> {
+                    mGenerateRequestId = null;
+                    tvTitle.setText(title);
+                    Toast.makeText(BillListActivity.this, "生成失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    loadBillData();
+                });
+            }
+        });
+    }
 
-                    // 显示/隐藏空数据提示（Controller层只负责UI控制）
-                    if (bills == null || bills.isEmpty()) {
-                        rvBillList.setVisibility(View.GONE);
-                        tvEmpty.setVisibility(View.VISIBLE);
+    /**
+     * 选择备份文件的保存位置
+     * @param incremental 是否增量备份
+     */
+    private void chooseBackupFile(boolean incremental) {
+        if (mBackupRunning) {
+            Toast.makeText(this, "正在处理备份，请稍候", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("application/octet-stream");
+        String date = new SimpleDateFormat("yyyyMMdd", Locale.getDefault()).format(new Date());
+        intent.putExtra(Intent.EXTRA_TITLE, (incremental ? "账单增量备份-" : "账单备份-") + date + ".pabk");
+        startActivityForResult(intent, incremental ? REQUEST_BACKUP_INCREMENTAL : REQUEST_BACKUP);
+    }
+
+    /**
+     * 恢复会替换全部账单，先确认再选择文件
+     */
+    private void confirmRestore() {
+        if (mBackupRunning) {
+            Toast.makeText(this, "正在处理备份，请稍候", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("从备份恢复")
+                .setMessage("恢复会用备份内容替换当前全部账单，确定继续吗？\n请同时选中一个完整备份和它之后的全部增量备份。")
+                .setPositiveButton("确定", (dialog, which) -> {
+                    Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+                    intent.addCategory(Intent.CATEGORY_OPENABLE);
+                    intent.setType("*/*");
+                    intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
+                    startActivityForResult(intent, REQUEST_RESTORE);
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    /**
+     * 备份账单（异步）
+     * @param uri 备份文件
+     * @param incremental 是否增量备份
+     */
+    private void backupBills(Uri uri, boolean incremental) {
+        OutputStream out;
+        try {
+            out = getContentResolver().openOutputStream(uri, "w");
+        } catch (Exception e) {
+            AppLog.e("BillListActivity", "打开备份文件失败: {}", e.getMessage());
+            out = null;
+        }
+        if (out == null) {
+            Toast.makeText(this, "无法写入文件", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        mBackupRunning = true;
+        mBillRepository.backupAsync(out, incremental, new BillRepository.Callback<Long>() {
+            @Override
+            public void onSuccess(Long rows) {
+                runOnUiThread(() -> {
+                    mBackupRunning = false;
+                    Toast.makeText(BillListActivity.this, "已备份" + rows + "条记录", Toast.LENGTH_SHORT).show();
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() -> {
+                    mBackupRunning = false;
+                    Toast.makeText(BillListActivity.this, "备份失败，请重试", Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
+    }
+
+    /**
+     * 从备份恢复（异步），完成后刷新列表
+     * @param uris 一个完整备份及其后续增量
+     */
+    private void restoreBills(List<Uri> uris) {
+        List<FileInputStream> inputs = new ArrayList<>();
+        for (Uri uri : uris) {
+            FileInputStream in;
+            try {
+                ParcelFileDescriptor descriptor = getContentResolver().openFileDescriptor(uri, "r");
+                in = descriptor != null ? new ParcelFileDescriptor.AutoCloseInputStream(descriptor) : null;
+            } catch (Exception e) {
+                AppLog.e("BillListActivity", "打开备份文件失败: {}", e.getMessage());
+                in = null;
+            }
+            if (in == null) {
+                for (FileInputStream opened : inputs) {
+                    try {
+                        opened.close();
+                    } catch (IOException ignored) {
+                        // 只是释放文件句柄
+                    }
+                }
+                Toast.makeText(this, "无法读取文件", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            inputs.add(in);
+        }
+        mBackupRunning = true;
+        mBillRepository.restoreBackupAsync(inputs, new BillRepository.Callback<Long>() {
+            @Override
+            public void onSuccess(Long rows) {
+                runOnUiThread(() -> {
+                    mBackupRunning = false;
+                    Toast.makeText(BillListActivity.this, "已恢复" + rows + "条账单", Toast.LENGTH_SHORT).show();
+                    loadBillData();
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() -> {
+                    mBackupRunning = false;
+                    Toast.makeText(BillListActivity.this, "恢复失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
+    }
+
+    /**
+     * 选择要与当前账本比对的完整备份
+     */
+    private void chooseVerifyFile() {
+        if (mBackupRunning) {
+            Toast.makeText(this, "正在处理备份，请稍候", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("*/*");
+        startActivityForResult(intent, REQUEST_VERIFY_BACKUP);
+    }
+
+    /**
+     * 比对备份与当前账本（异步），提示不一致的月份
+     * @param uri 完整备份文件
+     */
+    private void verifyBackup(Uri uri) {
+        FileInputStream in;
+        try {
+            ParcelFileDescriptor descriptor = getContentResolver().openFileDescriptor(uri, "r");
+            in = descriptor != null ? new ParcelFileDescriptor.AutoCloseInputStream(descriptor) : null;
+        } catch (Exception e) {
+            AppLog.e("BillListActivity", "打开备份文件失败: {}", e.getMessage());
+            in = null;
+        }
+        if (in == null) {
+            Toast.makeText(this, "无法读取文件", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        mBackupRunning = true;
+        mBillRepository.compareWithBackupAsync(in, new BillRepository.Callback<List<String>>() {
+            @Override
+            public void onSuccess(List<String> months) {
+                runOnUiThread(() -> {
+                    mBackupRunning = false;
+                    if (months.isEmpty()) {
+                        Toast.makeText(BillListActivity.this, "备份与当前账本一致", Toast.LENGTH_SHORT).show();
                     } else {
-                        rvBillList.setVisibility(View.VISIBLE);
-                        tvEmpty.setVisibility(View.GONE);
+                        new AlertDialog.Builder(BillListActivity.this)
+                                .setTitle("有" + months.size() + "个月份不一致")
+                                .setMessage(TextUtils.join("、", months))
+                                .setPositiveButton("确定", null)
+                                .show();
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() -> {
+                    mBackupRunning = false;
+                    Toast.makeText(BillListActivity.this, "校验失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
+    }
+
+    /**
+     * 输入或确认同步服务器地址后开始同步
+     */
+    private void showSyncDialog() {
+        if (mSyncRunning) {
+            Toast.makeText(this, "正在同步，请稍候", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        SharedPreferences prefs = getSharedPreferences(PREFS_SYNC, MODE_PRIVATE);
+        EditText etServer = new EditText(this);
+        etServer.setHint("https://");
+        etServer.setSingleLine(true);
+        etServer.setText(prefs.getString(KEY_SERVER_URL, ""));
+        new AlertDialog.Builder(this)
+                .setTitle("同步账本")
+                .setMessage("服务器地址")
+                .setView(etServer)
+                .setPositiveButton("同步", (dialog, which) -> {
+                    String serverUrl = etServer.getText().toString().trim();
+                    if (serverUrl.isEmpty()) {
+                        Toast.makeText(this, "请输入服务器地址", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    prefs.edit().putString(KEY_SERVER_URL, serverUrl).apply();
+                    syncBills(serverUrl);
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    /**
+     * 与服务器同步（异步），拉取到变更时刷新列表
+     * @param serverUrl 服务器地址
+     */
+    private void syncBills(String serverUrl) {
+        SyncTransport transport;
+        try {
+            transport = new HttpSyncTransport(serverUrl);
+        } catch (Exception e) {
+            Toast.makeText(this, "服务器地址无效", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        mSyncRunning = true;
+        mBillRepository.syncAsync(transport, new BillRepository.Callback<BillSyncEngine.SyncResult>() {
+            @Override
+            public void onSuccess(BillSyncEngine.SyncResult result) {
+                runOnUiThread(() -> {
+                    mSyncRunning = false;
+                    Toast.makeText(BillListActivity.this, "同步完成：上传" + result.getPushed() + "条，下载" +
+                            result.getPulled() + "条", Toast.LENGTH_SHORT).show();
+                    if (result.getPulled() > 0) {
+                        loadBillData();
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() -> {
+                    mSyncRunning = false;
+                    Toast.makeText(BillListActivity.this, "同步失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
+    }
+
+    /**
+     * 通过存储访问框架选择要导入的CSV文件
+     */
+    private void chooseImportFile() {
+        if (mImportRequestId != null) {
+            Toast.makeText(this, "正在导入，请稍候", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("*/*");
+        intent.putExtra(Intent.EXTRA_MIME_TYPES, new String[]{"text/csv", "text/comma-separated-values", "text/plain"});
+        startActivityForResult(intent, REQUEST_IMPORT_CSV);
+    }
+
+    /**
+     * 导入CSV账单（异步），标题栏显示进度，完成后刷新列表
+     * @param uri 导入文件
+     */
+    private void importBills(Uri uri) {
+        InputStream in;
+        long totalBytes = -1;
+        try {
+            in = getContentResolver().openInputStream(uri);
+            try (Cursor cursor = getContentResolver().query(uri, new String[]{OpenableColumns.SIZE}, null, null, null)) {
+                if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                    totalBytes = cursor.getLong(0);
+                }
+            }
+        } catch (Exception e) {
+            AppLog.e("BillListActivity", "打开导入文件失败: {}", e.getMessage());
+            in = null;
+        }
+        if (in == null) {
+            Toast.makeText(this, "无法读取文件", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        final CharSequence title = tvTitle.getText();
+        mImportRequestId = mBillRepository.importCsvAsync(in, totalBytes,
+                new BillRepository.ProgressCallback<BillCsvImporter.ImportResult>() {
+            @Override
+            public void onProgress(long done, long total) {
+                String text = total > 0 ? "导入中 " + (int) (done * 100 / total) + "%" : "导入中";
+                runOnUiThread(() -> tvTitle.setText(text));
+            }
+
+            @Override
+            public void onSuccess(BillCsvImporter.ImportResult result) {
+                runOnUiThread(() -> {
+                    mImportRequestId = null;
+                    tvTitle.setText(title);
+                    StringBuilder message = new StringBuilder("导入").append(result.getImported())
+                            .append("条，跳过重复").append(result.getDuplicates())
+                            .append("条，无法识别").append(result.getInvalid()).append("条");
+                    List<Long> lines = result.getInvalidLines();
+                    if (!lines.isEmpty()) {
+                        // 只列出前几行，完整行号见日志
+                        message.append("（第");
+                        for (int i = 0; i < Math.min(lines.size(), 5); i++) {
+                            message.append(i == 0 ? "" : "、").append(lines.get(i));
+                        }
+                        message.append(lines.size() > 5 ? "行等）" : "行）");
                     }
+                    Toast.makeText(BillListActivity.this, message, Toast.LENGTH_LONG).show();
+                    loadBillData();
                 });
             }
 
             @Override
             public void onError(Exception e) {
-                Log.e("BillListActivity", "加载账单数据失败: " + e.getMessage());
+                AppLog.e("BillListActivity", "导入账单失败: {}", e.getMessage());
+                runOnUiThread(() -> {
+                    mImportRequestId = null;
+                    tvTitle.setText(title);
+                    Toast.makeText(BillListActivity.this, "导入失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    loadBillData();
+                });
             }
-        };
+        });
+    }
 
+    /**
+     * 将筛选条件转换为账单类型
+     * @return -1=全部，0=支出，1=收入
+     */
+    private int getBillTypeForFilter() {
         switch (mCurrentFilter) {
             case 1:
-                // 收入
-                mBillRepository.getBillsByTypeAsync(1, callback);
-                break;
+                return 1;
             case 2:
-                // 支出
-                mBillRepository.getBillsByTypeAsync(0, callback);
-                break;
+                return 0;
             default:
-                // 全部
-                mBillRepository.getAllBillsAsync(callback);
-                break;
+                return -1;
         }
     }
 
@@ -226,12 +985,54 @@ public class BillListActivity extends AppCompatActivity implements RadioGroup.On
         // 如果是从编辑页面返回且操作成功，重新加载数据
         if (requestCode == 1 && resultCode == RESULT_OK) {
             loadBillData();
+        } else if (requestCode == REQUEST_EXPORT_CSV && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            exportBills(data.getData());
+        } else if (requestCode == REQUEST_IMPORT_CSV && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            importBills(data.getData());
+        } else if (requestCode == REQUEST_BACKUP && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            backupBills(data.getData(), false);
+        } else if (requestCode == REQUEST_BACKUP_INCREMENTAL && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            backupBills(data.getData(), true);
+        } else if (requestCode == REQUEST_VERIFY_BACKUP && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            verifyBackup(data.getData());
+        } else if (requestCode == REQUEST_RESTORE && resultCode == RESULT_OK && data != null) {
+            // 多选时文件在ClipData中，单选时在Data中
+            List<Uri> uris = new ArrayList<>();
+            ClipData clipData = data.getClipData();
+            if (clipData != null) {
+                for (int i = 0; i < clipData.getItemCount(); i++) {
+                    uris.add(clipData.getItemAt(i).getUri());
+                }
+            } else if (data.getData() != null) {
+                uris.add(data.getData());
+            }
+            if (!uris.isEmpty()) {
+                restoreBills(uris);
+            }
         }
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        mHandler.removeCallbacks(mSearchRunnable);
+        cancelSearch();
+        if (mPageRequestId != null) {
+            mBillRepository.cancelRequest(mPageRequestId);
+            mPageRequestId = null;
+        }
+        if (mExportRequestId != null) {
+            mBillRepository.cancelRequest(mExportRequestId);
+            mExportRequestId = null;
+        }
+        if (mImportRequestId != null) {
+            mBillRepository.cancelRequest(mImportRequestId);
+            mImportRequestId = null;
+        }
+        if (mGenerateRequestId != null) {
+            mBillRepository.cancelRequest(mGenerateRequestId);
+            mGenerateRequestId = null;
+        }
         // 资源由BillRepository单例统一管理，无需在此关闭
     }
 }
\ No newline at end of file
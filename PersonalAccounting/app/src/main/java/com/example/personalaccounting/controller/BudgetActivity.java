@@ -0,0 +1,247 @@
+package com.example.personalaccounting.controller;
+
+import android.os.Bundle;
+import android.text.InputType;
+import android.view.View;
+import android.widget.EditText;
+import android.widget.ImageButton;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.AppLog;
+import com.example.personalaccounting.model.BillRepository;
+import com.example.personalaccounting.model.Budget;
+import com.example.personalaccounting.view.BudgetAdapter;
+import com.google.android.material.button.MaterialButton;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 预算页：查看本月各预算的执行情况，设置或删除总预算和分类预算
+ * <p>
+ * 点击已有预算修改限额或删除，修改时保留原来的提醒比例；新增的预算按默认比例提醒。
+ * </p>
+ */
+public class BudgetActivity extends AppCompatActivity {
+    private static final String TAG = "BudgetActivity";
+    // 可设预算的支出类型，与记账页的支出类型一致
+    private static final String[] EXPENSE_TYPES = {"餐饮", "水果", "零食", "美妆", "购物", "交通", "娱乐", "其他"};
+
+    // 控件
+    private ImageButton btnBack; // 返回按钮
+    private RecyclerView rvBudget; // 预算列表
+    private TextView tvEmpty; // 无数据提示
+    private MaterialButton btnAdd; // 添加预算
+
+    // 数据
+    private BillRepository mBillRepository; // 账单仓库
+    private BudgetAdapter mAdapter; // 预算列表适配器
+    private List<Budget.Status> mStatuses = new ArrayList<>(); // 当前显示的预算
+    private String mStatusRequestId; // 进行中的查询请求
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_budget);
+
+        mBillRepository = BillRepository.getInstance(this);
+        initViews();
+        setListeners();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        loadBudgets();
+    }
+
+    /**
+     * 初始化控件
+     */
+    private void initViews() {
+        btnBack = findViewById(R.id.btn_back);
+        rvBudget = findViewById(R.id.rv_budget);
+        tvEmpty = findViewById(R.id.tv_empty);
+        btnAdd = findViewById(R.id.btn_add);
+
+        rvBudget.setLayoutManager(new LinearLayoutManager(this));
+        mAdapter = new BudgetAdapter(this);
+        rvBudget.setAdapter(mAdapter);
+    }
+
+    /**
+     * 设置监听器
+     */
+    private void setListeners() {
+        btnBack.setOnClickListener(v -> finish());
+        btnAdd.setOnClickListener(v -> showAddDialog());
+        mAdapter.setOnBudgetClickListener(this::showEditDialog);
+    }
+
+    /**
+     * 查询本月预算执行情况（异步），总预算在最前
+     */
+    private void loadBudgets() {
+        if (mStatusRequestId != null) {
+            mBillRepository.cancelRequest(mStatusRequestId);
+        }
+        mStatusRequestId = mBillRepository.getBudgetStatusesAsync(new BillRepository.Callback<List<Budget.Status>>() {
+            @Override
+            public void onSuccess(List<Budget.Status> statuses) {
+                runOnUiThread(() -> {
+                    mStatusRequestId = null;
+                    mStatuses = statuses;
+                    mAdapter.updateData(statuses);
+                    tvEmpty.setVisibility(statuses.isEmpty() ? View.VISIBLE : View.GONE);
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() -> {
+                    mStatusRequestId = null;
+                    AppLog.e(TAG, "loadBudgets: 查询预算失败: {}", e.getMessage());
+                    Toast.makeText(BudgetActivity.this, "加载预算失败", Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
+    }
+
+    /**
+     * 选择还没有预算的总预算或支出类型，再输入限额
+     */
+    private void showAddDialog() {
+        Set<String> existing = new HashSet<>();
+        for (Budget.Status status : mStatuses) {
+            existing.add(status.getBudget().getCategory());
+        }
+        List<String> categories = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        if (!existing.contains(Budget.ALL_CATEGORIES)) {
+            categories.add(Budget.ALL_CATEGORIES);
+            names.add("总预算");
+        }
+        for (String type : EXPENSE_TYPES) {
+            if (!existing.contains(type)) {
+                categories.add(type);
+                names.add(type);
+            }
+        }
+        if (categories.isEmpty()) {
+            Toast.makeText(this, "所有类型都已设置预算", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("添加预算")
+                .setItems(names.toArray(new String[0]), (dialog, which) ->
+                        showLimitDialog(categories.get(which), null))
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    /**
+     * 修改或删除已有预算
+     * @param status 被点击的预算
+     */
+    private void showEditDialog(Budget.Status status) {
+        showLimitDialog(status.getBudget().getCategory(), status.getBudget());
+    }
+
+    /**
+     * 输入每月限额
+     * @param category 分类，{@link Budget#ALL_CATEGORIES} 表示总预算
+     * @param current 已有预算，新增时为null
+     */
+    private void showLimitDialog(String category, Budget current) {
+        EditText etLimit = new EditText(this);
+        etLimit.setHint("每月限额（元）");
+        etLimit.setSingleLine(true);
+        etLimit.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL);
+        if (current != null) {
+            etLimit.setText(String.format(Locale.US, "%.2f", current.getLimitCents() / 100.0));
+            etLimit.setSelection(etLimit.getText().length());
+        }
+        AlertDialog.Builder builder = new AlertDialog.Builder(this)
+                .setTitle(Budget.ALL_CATEGORIES.equals(category) ? "总预算" : "「" + category + "」预算")
+                .setView(etLimit)
+                .setPositiveButton("保存", (dialog, which) -> {
+                    long limitCents = parseCents(etLimit.getText().toString().trim());
+                    if (limitCents <= 0) {
+                        Toast.makeText(this, "请输入有效的金额", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    int warnPercent = current != null ? current.getWarnPercent() : Budget.DEFAULT_WARN_PERCENT;
+                    saveBudget(new Budget(category, limitCents, warnPercent));
+                })
+                .setNegativeButton("取消", null);
+        if (current != null) {
+            builder.setNeutralButton("删除", (dialog, which) -> removeBudget(category));
+        }
+        builder.show();
+    }
+
+    /**
+     * @return 金额（分），无效时返回0
+     */
+    private static long parseCents(String text) {
+        try {
+            return Math.round(Double.parseDouble(text) * 100);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 保存预算（异步），成功后刷新列表
+     */
+    private void saveBudget(Budget budget) {
+        mBillRepository.setBudgetAsync(budget, new BillRepository.Callback<Boolean>() {
+            @Override
+            public void onSuccess(Boolean result) {
+                runOnUiThread(() -> loadBudgets());
+            }
+
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() ->
+                        Toast.makeText(BudgetActivity.this, "保存预算失败", Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * 删除预算（异步），成功后刷新列表
+     */
+    private void removeBudget(String category) {
+        mBillRepository.removeBudgetAsync(category, new BillRepository.Callback<Boolean>() {
+            @Override
+            public void onSuccess(Boolean result) {
+                runOnUiThread(() -> loadBudgets());
+            }
+
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() ->
+                        Toast.makeText(BudgetActivity.this, "删除预算失败", Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (mStatusRequestId != null) {
+            mBillRepository.cancelRequest(mStatusRequestId);
+        }
+    }
+}
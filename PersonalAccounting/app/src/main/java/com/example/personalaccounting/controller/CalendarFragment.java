@@ -1,11 +1,10 @@
 package com.example.personalaccounting.controller;
 
 import android.os.Bundle;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.CalendarView;
+import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
@@ -15,11 +14,14 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.AppLog;
 import com.example.personalaccounting.model.Bill;
 import com.example.personalaccounting.model.BillRepository;
+import com.example.personalaccounting.model.FrameStats;
+import com.example.personalaccounting.model.MonthCalendarData;
+import com.example.personalaccounting.view.MonthHeatMapView;
 import com.example.personalaccounting.view.RecentBillAdapter;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
@@ -29,65 +31,70 @@ public class CalendarFragment extends Fragment {
     private static final String TAG = "CalendarFragment";
     private static final String KEY_SELECTED_DATE = "selected_date";
 
-    private CalendarView calendarView;
+    private MonthHeatMapView monthHeatMap;
+    private TextView tvMonthTitle;
+    private ImageButton btnPrevMonth;
+    private ImageButton btnNextMonth;
     private RecyclerView rvBills;
     private TextView tvEmpty;
     private BillRepository mBillRepository;
     private RecentBillAdapter mAdapter;
-    private SimpleDateFormat mDateFormat;
     private String mSelectedDate;
-    private String mDateRequestId;
+    private String mMonthRequestId;
+    // 当前显示的年份和月份（月份0-11）
+    private int mYear;
+    private int mMonth;
 
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
-        Log.d(TAG, "onCreateView: 开始创建日历视图");
+        AppLog.d(TAG, "onCreateView: 开始创建日历视图");
         View view = inflater.inflate(R.layout.fragment_calendar, container, false);
         initViews(view);
-        Log.d(TAG, "onCreateView: 日历视图创建完成");
+        AppLog.d(TAG, "onCreateView: 日历视图创建完成");
         return view;
     }
 
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
-        Log.d(TAG, "onViewCreated: 视图创建完成，开始初始化数据");
+        AppLog.d(TAG, "onViewCreated: 视图创建完成，开始初始化数据");
         initData();
         setListeners();
-        Log.d(TAG, "onViewCreated: 初始化完成");
+        AppLog.d(TAG, "onViewCreated: 初始化完成");
     }
 
     @Override
     public void onStart() {
         super.onStart();
-        Log.d(TAG, "onStart: Fragment 开始可见，开始加载数据");
+        AppLog.d(TAG, "onStart: Fragment 开始可见，开始加载数据");
         loadData();
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        Log.d(TAG, "onResume: Fragment 获得焦点，用户可以交互");
+        AppLog.d(TAG, "onResume: Fragment 获得焦点，用户可以交互");
     }
 
     @Override
     public void onPause() {
         super.onPause();
-        Log.d(TAG, "onPause: Fragment 失去焦点，取消待处理的异步请求");
+        AppLog.d(TAG, "onPause: Fragment 失去焦点，取消待处理的异步请求");
         cancelPendingRequests();
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        Log.d(TAG, "onDestroyView: 视图即将销毁，清理视图引用");
+        AppLog.d(TAG, "onDestroyView: 视图即将销毁，清理视图引用");
         cleanupViews();
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        Log.d(TAG, "onDestroy: Fragment 即将销毁，再次取消异步请求");
+        AppLog.d(TAG, "onDestroy: Fragment 即将销毁，再次取消异步请求");
         cancelPendingRequests();
     }
 
@@ -96,7 +103,7 @@ public class CalendarFragment extends Fragment {
         super.onSaveInstanceState(outState);
         if (mSelectedDate != null) {
             outState.putString(KEY_SELECTED_DATE, mSelectedDate);
-            Log.d(TAG, "onSaveInstanceState: 保存状态，选中日期=" + mSelectedDate);
+            AppLog.d(TAG, "onSaveInstanceState: 保存状态，选中日期={}", mSelectedDate);
         }
     }
 
@@ -105,31 +112,25 @@ public class CalendarFragment extends Fragment {
         super.onViewStateRestored(savedInstanceState);
         if (savedInstanceState != null) {
             mSelectedDate = savedInstanceState.getString(KEY_SELECTED_DATE);
-            Log.d(TAG, "onViewStateRestored: 恢复状态，选中日期=" + mSelectedDate);
-            if (mSelectedDate != null && calendarView != null) {
-                try {
-                    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-                    java.util.Date date = sdf.parse(mSelectedDate);
-                    Calendar calendar = Calendar.getInstance();
-                    calendar.setTime(date);
-                    calendarView.setDate(calendar.getTimeInMillis(), false, true);
-                    Log.d(TAG, "onViewStateRestored: 日历视图日期已恢复");
-                } catch (Exception e) {
-                    Log.e(TAG, "onViewStateRestored: 恢复日期失败: " + e.getMessage());
-                }
+            AppLog.d(TAG, "onViewStateRestored: 恢复状态，选中日期={}", mSelectedDate);
+            if (mSelectedDate != null) {
+                applySelectedDate(mSelectedDate);
+                AppLog.d(TAG, "onViewStateRestored: 日历月份已恢复");
             }
         }
     }
 
     private void initViews(View view) {
-        calendarView = view.findViewById(R.id.calendar_view);
+        monthHeatMap = view.findViewById(R.id.month_heat_map);
+        tvMonthTitle = view.findViewById(R.id.tv_month_title);
+        btnPrevMonth = view.findViewById(R.id.btn_prev_month);
+        btnNextMonth = view.findViewById(R.id.btn_next_month);
         rvBills = view.findViewById(R.id.rv_bills);
         tvEmpty = view.findViewById(R.id.tv_empty);
     }
 
     private void initData() {
         mBillRepository = BillRepository.getInstance(requireContext());
-        mDateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
 
         LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
         rvBills.setLayoutManager(layoutManager);
@@ -138,83 +139,174 @@ public class CalendarFragment extends Fragment {
         rvBills.setAdapter(mAdapter);
 
         if (mSelectedDate == null) {
-            Calendar calendar = Calendar.getInstance();
-            mSelectedDate = mDateFormat.format(calendar.getTime());
+            mSelectedDate = mBillRepository.getTodayDate();
         }
+        applySelectedDate(mSelectedDate);
     }
 
     private void setListeners() {
-        calendarView.setOnDateChangeListener((view, year, month, dayOfMonth) -> {
-            Calendar calendar = Calendar.getInstance();
-            calendar.set(year, month, dayOfMonth);
-            mSelectedDate = mDateFormat.format(calendar.getTime());
-            Log.d(TAG, "setListeners: 用户选择日期=" + mSelectedDate);
-            loadBillsForDate(mSelectedDate);
+        monthHeatMap.setOnMonthCalendarListener(new MonthHeatMapView.OnMonthCalendarListener() {
+            @Override
+            public void onDaySelected(int day) {
+                mSelectedDate = formatDate(mYear, mMonth, day);
+                AppLog.d(TAG, "setListeners: 用户选择日期={}", mSelectedDate);
+                showBillsForSelectedDate();
+            }
+
+            @Override
+            public void onMonthSwipe(int delta) {
+                moveMonth(delta);
+            }
         });
+        btnPrevMonth.setOnClickListener(v -> moveMonth(-1));
+        btnNextMonth.setOnClickListener(v -> moveMonth(1));
     }
 
     private void loadData() {
-        Log.d(TAG, "loadData: 开始加载数据，当前日期=" + mSelectedDate);
-        loadBillsForDate(mSelectedDate);
+        AppLog.d(TAG, "loadData: 开始加载数据，当前日期={}", mSelectedDate);
+        loadMonth();
     }
 
-    private void loadBillsForDate(String date) {
-        Log.d(TAG, "loadBillsForDate: 开始加载日期=" + date + "的账单");
-        if (mDateRequestId != null) {
-            Log.d(TAG, "loadBillsForDate: 取消之前的请求，ID=" + mDateRequestId);
-            mBillRepository.cancelRequest(mDateRequestId);
+    /**
+     * 根据选中日期设置当前年月
+     */
+    private void applySelectedDate(String date) {
+        try {
+            mYear = Integer.parseInt(date.substring(0, 4));
+            mMonth = Integer.parseInt(date.substring(5, 7)) - 1;
+        } catch (Exception e) {
+            AppLog.e(TAG, "applySelectedDate: 解析日期失败: {}", e.getMessage());
+            Calendar calendar = Calendar.getInstance();
+            mYear = calendar.get(Calendar.YEAR);
+            mMonth = calendar.get(Calendar.MONTH);
         }
-        mDateRequestId = mBillRepository.getBillsByDateAsync(date, new BillRepository.Callback<List<Bill>>() {
+    }
+
+    /**
+     * 切换月份，选中日保持不变（超出新月份天数时取月末）
+     * @param delta -1=上个月，1=下个月
+     */
+    private void moveMonth(int delta) {
+        int selectedDay = Integer.parseInt(mSelectedDate.substring(8, 10));
+        mMonth += delta;
+        if (mMonth < 0) {
+            mMonth = 11;
+            mYear--;
+        } else if (mMonth > 11) {
+            mMonth = 0;
+            mYear++;
+        }
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(mYear, mMonth, 1);
+        selectedDay = Math.min(selectedDay, calendar.getActualMaximum(Calendar.DAY_OF_MONTH));
+        mSelectedDate = formatDate(mYear, mMonth, selectedDay);
+        AppLog.d(TAG, "moveMonth: 切换到月份={}", formatMonth(mYear, mMonth));
+        FrameMetricsTracker.markInteraction(FrameStats.INTERACTION_PERIOD_CHANGE);
+        loadMonth();
+    }
+
+    /**
+     * 加载当前月份：先用缓存立即绘制，再补齐当月明细，并预取相邻月份
+     */
+    private void loadMonth() {
+        String month = formatMonth(mYear, mMonth);
+        tvMonthTitle.setText(mYear + "年" + (mMonth + 1) + "月");
+        monthHeatMap.setMonth(mYear, mMonth, mBillRepository.getCachedMonthCalendar(month));
+        monthHeatMap.setSelectedDay(Integer.parseInt(mSelectedDate.substring(8, 10)));
+
+        if (mMonthRequestId != null) {
+            AppLog.d(TAG, "loadMonth: 取消之前的请求，ID={}", mMonthRequestId);
+            mBillRepository.cancelRequest(mMonthRequestId);
+        }
+        mMonthRequestId = mBillRepository.getMonthCalendarAsync(month, true, new BillRepository.Callback<MonthCalendarData>() {
             @Override
-            public void onSuccess(List<Bill> bills) {
+            public void onSuccess(MonthCalendarData data) {
                 if (isAdded() && getView() != null) {
-                    Log.d(TAG, "loadBillsForDate: 账单数据加载成功，数量=" + bills.size());
                     requireActivity().runOnUiThread(() -> {
-                        mAdapter.updateData(bills);
-
-                        if (bills.isEmpty()) {
-                            rvBills.setVisibility(View.GONE);
-                            tvEmpty.setVisibility(View.VISIBLE);
-                        } else {
-                            rvBills.setVisibility(View.VISIBLE);
-                            tvEmpty.setVisibility(View.GONE);
+                        // 回调到达时用户可能已经翻到别的月份
+                        if (monthHeatMap == null || !data.getMonth().equals(formatMonth(mYear, mMonth))) {
+                            return;
+                        }
+                        mMonthRequestId = null;
+                        AppLog.beginSection("Calendar.bindMonth");
+                        try {
+                            monthHeatMap.setData(data);
+                            showBillsForSelectedDate();
+                        } finally {
+                            AppLog.endSection();
                         }
                     });
                 } else {
-                    Log.w(TAG, "loadBillsForDate: Fragment已销毁或视图不可用，跳过UI更新");
+                    AppLog.w(TAG, "loadMonth: Fragment已销毁或视图不可用，跳过UI更新");
                 }
             }
 
             @Override
             public void onError(Exception e) {
-                Log.e(TAG, "loadBillsForDate: 加载账单失败: " + e.getMessage());
+                AppLog.e(TAG, "loadMonth: 加载月历失败: {}", e.getMessage());
             }
         });
-        Log.d(TAG, "loadBillsForDate: 请求已提交，ID=" + mDateRequestId);
+
+        // 预取相邻月份，左右翻页时直接命中缓存
+        mBillRepository.prefetchMonthCalendar(formatMonth(mMonth == 0 ? mYear - 1 : mYear, (mMonth + 11) % 12));
+        mBillRepository.prefetchMonthCalendar(formatMonth(mMonth == 11 ? mYear + 1 : mYear, (mMonth + 1) % 12));
+    }
+
+    /**
+     * 从当月缓存中取出选中日期的账单，不再单独查询数据库
+     */
+    private void showBillsForSelectedDate() {
+        MonthCalendarData data = mBillRepository.getCachedMonthCalendar(formatMonth(mYear, mMonth));
+        if (data == null || !data.hasBills()) {
+            // 明细尚未加载，等loadMonth回调后再显示
+            return;
+        }
+        List<Bill> bills = data.getBillsForDate(mSelectedDate);
+        AppLog.d(TAG, "showBillsForSelectedDate: 日期={}，数量={}", mSelectedDate, bills.size());
+        mAdapter.updateData(bills);
+        if (bills.isEmpty()) {
+            rvBills.setVisibility(View.GONE);
+            tvEmpty.setVisibility(View.VISIBLE);
+        } else {
+            rvBills.setVisibility(View.VISIBLE);
+            tvEmpty.setVisibility(View.GONE);
+        }
+    }
+
+    private static String formatMonth(int year, int month) {
+        return String.format(Locale.US, "%04d-%02d", year, month + 1);
+    }
+
+    private static String formatDate(int year, int month, int day) {
+        return String.format(Locale.US, "%04d-%02d-%02d", year, month + 1, day);
     }
 
     private void cancelPendingRequests() {
-        Log.d(TAG, "cancelPendingRequests: 取消待处理的异步请求");
-        if (mDateRequestId != null) {
-            Log.d(TAG, "cancelPendingRequests: 取消请求，ID=" + mDateRequestId);
-            mBillRepository.cancelRequest(mDateRequestId);
-            mDateRequestId = null;
+        AppLog.d(TAG, "cancelPendingRequests: 取消待处理的异步请求");
+        if (mMonthRequestId != null) {
+            AppLog.d(TAG, "cancelPendingRequests: 取消请求，ID={}", mMonthRequestId);
+            mBillRepository.cancelRequest(mMonthRequestId);
+            mMonthRequestId = null;
         }
     }
 
     private void cleanupViews() {
-        Log.d(TAG, "cleanupViews: 清理视图引用");
-        calendarView = null;
+        AppLog.d(TAG, "cleanupViews: 清理视图引用");
+        monthHeatMap = null;
+        tvMonthTitle = null;
+        btnPrevMonth = null;
+        btnNextMonth = null;
         rvBills = null;
         tvEmpty = null;
     }
 
     public void refreshData() {
         if (isAdded() && getView() != null) {
-            Log.d(TAG, "refreshData: 刷新数据");
+            AppLog.d(TAG, "refreshData: 刷新数据");
             loadData();
         } else {
-            Log.w(TAG, "refreshData: Fragment已销毁或视图不可用，跳过刷新");
+            AppLog.w(TAG, "refreshData: Fragment已销毁或视图不可用，跳过刷新");
         }
     }
 }
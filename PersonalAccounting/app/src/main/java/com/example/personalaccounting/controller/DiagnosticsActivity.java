@@ -0,0 +1,148 @@
+package com.example.personalaccounting.controller;
+
+import android.content.Intent;
+import android.os.Build;
+import android.os.Bundle;
+import android.widget.ImageButton;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SwitchCompat;
+
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
+import com.example.personalaccounting.BuildConfig;
+import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.AppLog;
+import com.example.personalaccounting.model.BillRepository;
+import com.example.personalaccounting.model.FrameStats;
+import com.example.personalaccounting.model.QueryProfiler;
+import com.example.personalaccounting.model.RepositoryMetrics;
+import com.google.android.material.button.MaterialButton;
+
+/**
+ * 性能诊断页：展示各页面各交互的帧耗时和卡顿、仓库线程池排队、异步操作耗时、缓存命中率，
+ * 以及各类数据库查询的耗时分位数和最近的慢查询
+ * <p>
+ * 分享的报告带有版本和设备信息，并附上帧耗时的 CSV，便于不同版本之间逐行对比。
+ * </p>
+ * <p>
+ * 同样的报告也可以在页面打开时通过 adb shell dumpsys activity
+ * com.example.personalaccounting/.controller.DiagnosticsActivity 取得。
+ * </p>
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+    private static final String TAG = "DiagnosticsActivity";
+
+    // 控件
+    private ImageButton btnBack; // 返回按钮
+    private SwitchCompat switchProfiler; // 记录开关
+    private MaterialButton btnRefresh; // 刷新
+    private MaterialButton btnReset; // 清空
+    private MaterialButton btnShare; // 分享报告
+    private TextView tvReport; // 报告正文
+
+    // 数据
+    private FrameStats mFrameStats; // 帧耗时统计
+    private RepositoryMetrics mMetrics; // 仓库运行指标
+    private QueryProfiler mProfiler; // 查询耗时统计
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+
+        initViews();
+        mFrameStats = FrameMetricsTracker.getStats();
+        BillRepository repository = BillRepository.getInstance(this);
+        mMetrics = repository.getMetrics();
+        mProfiler = repository.getQueryProfiler();
+        switchProfiler.setChecked(mProfiler.isEnabled());
+        setListeners();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showReport();
+    }
+
+    /**
+     * 初始化控件
+     */
+    private void initViews() {
+        btnBack = findViewById(R.id.btn_back);
+        switchProfiler = findViewById(R.id.switch_profiler);
+        btnRefresh = findViewById(R.id.btn_refresh);
+        btnReset = findViewById(R.id.btn_reset);
+        btnShare = findViewById(R.id.btn_share);
+        tvReport = findViewById(R.id.tv_report);
+    }
+
+    /**
+     * 设置监听器
+     */
+    private void setListeners() {
+        btnBack.setOnClickListener(v -> finish());
+        switchProfiler.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            mProfiler.setEnabled(isChecked);
+            showReport();
+        });
+        btnRefresh.setOnClickListener(v -> showReport());
+        btnReset.setOnClickListener(v -> {
+            mFrameStats.reset();
+            mMetrics.reset();
+            mProfiler.reset();
+            showReport();
+        });
+        btnShare.setOnClickListener(v -> shareReport());
+    }
+
+    /**
+     * 显示当前的统计报告
+     */
+    private void showReport() {
+        tvReport.setText(buildReport());
+    }
+
+    /**
+     * 帧耗时在前，仓库指标其次，数据库查询统计在后
+     */
+    private String buildReport() {
+        return mFrameStats.report() + "\n" + mMetrics.report() + "\n" + mProfiler.report();
+    }
+
+    /**
+     * 版本和设备信息，对比不同版本的报告时用来区分来源
+     */
+    private static String buildHeader() {
+        return "版本：" + BuildConfig.VERSION_NAME + "（" + BuildConfig.VERSION_CODE + "，" + BuildConfig.BUILD_TYPE + "）\n"
+                + "设备：" + Build.MANUFACTURER + " " + Build.MODEL + "，Android " + Build.VERSION.RELEASE
+                + "（API " + Build.VERSION.SDK_INT + "）\n";
+    }
+
+    /**
+     * 以纯文本分享报告，方便附在问题反馈里
+     */
+    private void shareReport() {
+        String report = buildHeader() + "\n" + buildReport() + "\n帧耗时CSV：\n" + mFrameStats.csv();
+        AppLog.d(TAG, "shareReport: 分享诊断报告，长度={}", report.length());
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("text/plain");
+        intent.putExtra(Intent.EXTRA_SUBJECT, "记账本性能诊断报告");
+        intent.putExtra(Intent.EXTRA_TEXT, report);
+        startActivity(Intent.createChooser(intent, "分享报告"));
+    }
+
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.println();
+        mFrameStats.dump(writer);
+        writer.println();
+        mMetrics.dump(writer);
+        writer.println();
+        mProfiler.dump(writer);
+    }
+}
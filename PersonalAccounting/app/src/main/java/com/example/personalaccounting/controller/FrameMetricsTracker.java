@@ -0,0 +1,133 @@
+package com.example.personalaccounting.controller;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import com.example.personalaccounting.model.AppLog;
+import com.example.personalaccounting.model.FrameStats;
+
+/**
+ * 采集一个 Activity 窗口的逐帧耗时，按当前页面和交互计入进程内共用的 {@link FrameStats}
+ * <p>
+ * 在 onResume 中 {@link #start()}、onPause 中 {@link #stop()}；主页的 ViewPager2 切换页面时调用
+ * {@link #setScreen}。帧回调在单独的后台线程上处理，不占主线程。
+ * </p>
+ * <p>
+ * 交互是进程内唯一的：同一时刻只有一个窗口在前台。持续的交互（滚动、拖动页面）用
+ * {@link #beginInteraction}/{@link #endInteraction}，一次性的交互（切换区间）用
+ * {@link #markInteraction}；结束后再延续 {@link #INTERACTION_TAIL_MS}，把惯性滑动和
+ * 数据回来后的重绘也算进这次交互。
+ * </p>
+ */
+public class FrameMetricsTracker {
+    private static final String TAG = "FrameMetricsTracker";
+    // 交互结束后继续归入该交互的时间
+    private static final long INTERACTION_TAIL_MS = 500;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final FrameStats sStats = new FrameStats();
+    private static Handler sHandler; // 帧回调线程，所有窗口共用
+    private static volatile String sInteraction = FrameStats.INTERACTION_IDLE; // 当前交互
+    private static volatile long sInteractionUntil; // 交互的截止时间（uptimeMillis），进行中为Long.MAX_VALUE
+
+    private final Activity mActivity;
+    private volatile String mScreen; // 当前页面名
+    private volatile long mBudgetNanos; // 当前刷新率下的一帧预算
+    private boolean mStarted;
+    private final Window.OnFrameMetricsAvailableListener mListener =
+            (window, frameMetrics, dropCountSinceLastInvocation) -> onFrame(frameMetrics);
+
+    public FrameMetricsTracker(Activity activity, String screen) {
+        mActivity = activity;
+        mScreen = screen;
+    }
+
+    /**
+     * @return 所有窗口共用的帧耗时统计
+     */
+    public static FrameStats getStats() {
+        return sStats;
+    }
+
+    /**
+     * 开始一个持续的交互，直到 {@link #endInteraction} 为止
+     */
+    public static void beginInteraction(String interaction) {
+        sInteraction = interaction;
+        sInteractionUntil = Long.MAX_VALUE;
+    }
+
+    /**
+     * 结束持续的交互；若当前交互已被别的交互取代则忽略
+     */
+    public static void endInteraction(String interaction) {
+        if (interaction.equals(sInteraction) && sInteractionUntil == Long.MAX_VALUE) {
+            sInteractionUntil = SystemClock.uptimeMillis() + INTERACTION_TAIL_MS;
+        }
+    }
+
+    /**
+     * 标记一次性的交互，之后一小段时间内的帧都归入该交互
+     */
+    public static void markInteraction(String interaction) {
+        sInteraction = interaction;
+        sInteractionUntil = SystemClock.uptimeMillis() + INTERACTION_TAIL_MS;
+    }
+
+    private static String currentInteraction() {
+        return SystemClock.uptimeMillis() <= sInteractionUntil ? sInteraction : FrameStats.INTERACTION_IDLE;
+    }
+
+    private static synchronized Handler handler() {
+        if (sHandler == null) {
+            HandlerThread thread = new HandlerThread("frame-metrics");
+            thread.start();
+            sHandler = new Handler(thread.getLooper());
+        }
+        return sHandler;
+    }
+
+    /**
+     * 切换当前页面，之后的帧计入新页面
+     */
+    public void setScreen(String screen) {
+        mScreen = screen;
+    }
+
+    /**
+     * 开始采集，按当前刷新率重新计算一帧预算
+     */
+    public void start() {
+        if (mStarted) {
+            return;
+        }
+        float refreshRate = mActivity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        mBudgetNanos = (long) (NANOS_PER_SECOND / (refreshRate > 0 ? refreshRate : 60f));
+        mActivity.getWindow().addOnFrameMetricsAvailableListener(mListener, handler());
+        mStarted = true;
+        AppLog.d(TAG, "start: 开始采集，页面={}，刷新率={}", mScreen, refreshRate);
+    }
+
+    /**
+     * 停止采集
+     */
+    public void stop() {
+        if (!mStarted) {
+            return;
+        }
+        mActivity.getWindow().removeOnFrameMetricsAvailableListener(mListener);
+        mStarted = false;
+    }
+
+    private void onFrame(FrameMetrics frameMetrics) {
+        // 首帧包含窗口创建和布局，属于启动耗时，不计入卡顿
+        if (frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+            return;
+        }
+        sStats.record(mScreen, currentInteraction(), frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION), mBudgetNanos);
+    }
+}
@@ -2,7 +2,6 @@ package com.example.personalaccounting.controller;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -14,13 +13,19 @@ import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.AppLog;
 import com.example.personalaccounting.model.Bill;
 import com.example.personalaccounting.model.BillRepository;
+import com.example.personalaccounting.model.EpochDays;
+import com.example.personalaccounting.model.HomeSnapshot;
+import com.example.personalaccounting.model.RecurringPattern;
+import com.example.personalaccounting.model.StatisticsEngine;
 import com.example.personalaccounting.view.RecentBillAdapter;
 import com.google.android.material.button.MaterialButton;
 
@@ -31,6 +36,8 @@ import java.util.List;
 public class HomeFragment extends Fragment {
     private static final String TAG = "HomeFragment";
     private static final String KEY_CURRENT_DAYS = "current_days";
+    // 与 RecurringDetector 的周期常量一一对应
+    private static final String[] CADENCE_NAMES = {"每周", "每月", "每年"};
 
     private TextView tvMonthIncome;
     private TextView tvMonthExpense;
@@ -48,60 +55,70 @@ public class HomeFragment extends Fragment {
     private int mCurrentDays = 7;
     private String mStatisticsRequestId;
     private String mBillsRequestId;
+    private String mRecurringRequestId;
+    private AlertDialog mRecurringDialog;
+    // 最近一次从数据库加载并显示的内容，两部分都有之后保存为首页快照
+    private String mShownDate;
+    private StatisticsEngine.TodayStatistics mShownStatistics;
+    private int mShownDays;
+    private List<Bill> mShownBills;
 
     private ActivityResultLauncher<Intent> mEditBillLauncher;
 
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
-        Log.d(TAG, "onCreateView: 开始创建首页视图");
+        AppLog.d(TAG, "onCreateView: 开始创建首页视图");
         View view = inflater.inflate(R.layout.fragment_home, container, false);
         initViews(view);
-        Log.d(TAG, "onCreateView: 首页视图创建完成");
+        AppLog.d(TAG, "onCreateView: 首页视图创建完成");
         return view;
     }
 
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
-        Log.d(TAG, "onViewCreated: 视图创建完成，开始初始化数据");
+        AppLog.d(TAG, "onViewCreated: 视图创建完成，开始初始化数据");
         initData();
         setListeners();
         registerActivityResult();
-        Log.d(TAG, "onViewCreated: 初始化完成");
+        AppLog.d(TAG, "onViewCreated: 初始化完成");
     }
 
     @Override
     public void onStart() {
         super.onStart();
-        Log.d(TAG, "onStart: Fragment 开始可见，开始加载数据");
+        AppLog.d(TAG, "onStart: Fragment 开始可见，开始加载数据");
+        if (mShownStatistics == null && mShownBills == null) {
+            showSnapshot();
+        }
         loadData();
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        Log.d(TAG, "onResume: Fragment 获得焦点，用户可以交互");
+        AppLog.d(TAG, "onResume: Fragment 获得焦点，用户可以交互");
     }
 
     @Override
     public void onPause() {
         super.onPause();
-        Log.d(TAG, "onPause: Fragment 失去焦点，取消待处理的异步请求");
+        AppLog.d(TAG, "onPause: Fragment 失去焦点，取消待处理的异步请求");
         cancelPendingRequests();
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        Log.d(TAG, "onDestroyView: 视图即将销毁，清理视图引用");
+        AppLog.d(TAG, "onDestroyView: 视图即将销毁，清理视图引用");
         cleanupViews();
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        Log.d(TAG, "onDestroy: Fragment 即将销毁，再次取消异步请求");
+        AppLog.d(TAG, "onDestroy: Fragment 即将销毁，再次取消异步请求");
         cancelPendingRequests();
     }
 
@@ -109,7 +126,7 @@ public class HomeFragment extends Fragment {
     public void onSaveInstanceState(@NonNull Bundle outState) {
         super.onSaveInstanceState(outState);
         outState.putInt(KEY_CURRENT_DAYS, mCurrentDays);
-        Log.d(TAG, "onSaveInstanceState: 保存状态，当前天数=" + mCurrentDays);
+        AppLog.d(TAG, "onSaveInstanceState: 保存状态，当前天数={}", mCurrentDays);
     }
 
     @Override
@@ -117,7 +134,7 @@ public class HomeFragment extends Fragment {
         super.onViewStateRestored(savedInstanceState);
         if (savedInstanceState != null) {
             mCurrentDays = savedInstanceState.getInt(KEY_CURRENT_DAYS, 7);
-            Log.d(TAG, "onViewStateRestored: 恢复状态，当前天数=" + mCurrentDays);
+            AppLog.d(TAG, "onViewStateRestored: 恢复状态，当前天数={}", mCurrentDays);
             if (spDateFilter != null) {
                 spDateFilter.setSelection(getPositionForDays(mCurrentDays));
             }
@@ -239,99 +256,240 @@ public class HomeFragment extends Fragment {
         );
     }
 
+    /**
+     * 先用上次保存的快照画首页，不等数据库打开和查询，新数据到了再替换
+     * 快照不是今天的就不显示当日收支，天数筛选不同就不显示账单
+     */
+    private void showSnapshot() {
+        HomeSnapshot snapshot = mBillRepository.loadHomeSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+        AppLog.d(TAG, "showSnapshot: 显示首页快照，日期={}，账单数={}", snapshot.getDate(), snapshot.getBills().size());
+        if (snapshot.getDate().equals(mBillRepository.getTodayDate())) {
+            bindTodayStatistics(snapshot.getIncome(), snapshot.getExpense(), snapshot.getBalance());
+        }
+        if (snapshot.getDays() == mCurrentDays) {
+            bindRecentBills(snapshot.getBills());
+        }
+    }
+
+    /**
+     * 当日收支和最近账单都已显示新数据时保存快照，每次刷新后都会覆盖
+     */
+    private void saveSnapshot() {
+        if (mShownStatistics == null || mShownBills == null || mShownDays != mCurrentDays) {
+            return;
+        }
+        mBillRepository.saveHomeSnapshotAsync(new HomeSnapshot(System.currentTimeMillis(), mShownDate, mShownDays,
+                mShownStatistics.getIncome(), mShownStatistics.getExpense(), mShownStatistics.getBalance(), mShownBills));
+    }
+
     private void loadData() {
-        Log.d(TAG, "loadData: 开始加载数据");
+        AppLog.d(TAG, "loadData: 开始加载数据");
         loadTodayStatistics();
         loadRecentBills();
+        loadRecurringSuggestions();
     }
 
     private void loadTodayStatistics() {
-        Log.d(TAG, "loadTodayStatistics: 开始加载当日统计数据");
+        AppLog.d(TAG, "loadTodayStatistics: 开始加载当日统计数据");
         if (mStatisticsRequestId != null) {
-            Log.d(TAG, "loadTodayStatistics: 取消之前的统计请求，ID=" + mStatisticsRequestId);
+            AppLog.d(TAG, "loadTodayStatistics: 取消之前的统计请求，ID={}", mStatisticsRequestId);
             mBillRepository.cancelRequest(mStatisticsRequestId);
         }
         String todayDate = mBillRepository.getTodayDate();
-        mStatisticsRequestId = mBillRepository.calculateTodayStatisticsAsync(todayDate, new BillRepository.Callback<BillRepository.TodayStatistics>() {
+        mStatisticsRequestId = mBillRepository.calculateTodayStatisticsAsync(todayDate, new BillRepository.Callback<StatisticsEngine.TodayStatistics>() {
             @Override
-            public void onSuccess(BillRepository.TodayStatistics statistics) {
+            public void onSuccess(StatisticsEngine.TodayStatistics statistics) {
                 if (isAdded() && getView() != null) {
-                    Log.d(TAG, "loadTodayStatistics: 统计数据加载成功，收入=" + statistics.getIncome() + "，支出=" + statistics.getExpense() + "，结余=" + statistics.getBalance());
+                    AppLog.d(TAG, "loadTodayStatistics: 统计数据加载成功，收入={}，支出={}，结余={}", statistics.getIncome(), statistics.getExpense(), statistics.getBalance());
                     requireActivity().runOnUiThread(() -> {
-                        tvMonthIncome.setText("当日收入：" + mDecimalFormat.format(statistics.getIncome()) + "元");
-                        tvMonthExpense.setText("当日支出：" + mDecimalFormat.format(statistics.getExpense()) + "元");
-
-                        if (statistics.getBalance() >= 0) {
-                            tvMonthBalance.setTextColor(getResources().getColor(android.R.color.holo_green_dark));
-                        } else {
-                            tvMonthBalance.setTextColor(getResources().getColor(android.R.color.holo_red_dark));
+                        if (getView() == null) {
+                            return;
                         }
-                        tvMonthBalance.setText("当日结余：" + mDecimalFormat.format(statistics.getBalance()) + "元");
+                        mShownDate = todayDate;
+                        mShownStatistics = statistics;
+                        bindTodayStatistics(statistics.getIncome(), statistics.getExpense(), statistics.getBalance());
+                        saveSnapshot();
                     });
                 } else {
-                    Log.w(TAG, "loadTodayStatistics: Fragment已销毁或视图不可用，跳过UI更新");
+                    AppLog.w(TAG, "loadTodayStatistics: Fragment已销毁或视图不可用，跳过UI更新");
                 }
             }
 
             @Override
             public void onError(Exception e) {
-                Log.e(TAG, "loadTodayStatistics: 加载当日统计数据失败: " + e.getMessage());
+                AppLog.e(TAG, "loadTodayStatistics: 加载当日统计数据失败: {}", e.getMessage());
             }
         });
-        Log.d(TAG, "loadTodayStatistics: 统计请求已提交，ID=" + mStatisticsRequestId);
+        AppLog.d(TAG, "loadTodayStatistics: 统计请求已提交，ID={}", mStatisticsRequestId);
     }
 
     private void loadRecentBills() {
-        Log.d(TAG, "loadRecentBills: 开始加载最近" + mCurrentDays + "天的账单");
+        AppLog.d(TAG, "loadRecentBills: 开始加载最近{}天的账单", mCurrentDays);
         if (mBillsRequestId != null) {
-            Log.d(TAG, "loadRecentBills: 取消之前的账单请求，ID=" + mBillsRequestId);
+            AppLog.d(TAG, "loadRecentBills: 取消之前的账单请求，ID={}", mBillsRequestId);
             mBillRepository.cancelRequest(mBillsRequestId);
         }
-        mBillsRequestId = mBillRepository.getBillsByDaysAsync(mCurrentDays, new BillRepository.Callback<List<Bill>>() {
+        final int days = mCurrentDays;
+        mBillsRequestId = mBillRepository.getBillsByDaysAsync(days, new BillRepository.Callback<List<Bill>>() {
             @Override
             public void onSuccess(List<Bill> recentBills) {
                 if (isAdded() && getView() != null) {
-                    Log.d(TAG, "loadRecentBills: 账单数据加载成功，数量=" + recentBills.size());
+                    AppLog.d(TAG, "loadRecentBills: 账单数据加载成功，数量={}", recentBills.size());
                     requireActivity().runOnUiThread(() -> {
-                        mAdapter.updateData(recentBills);
-
-                        if (recentBills.isEmpty()) {
-                            rvRecentBills.setVisibility(View.GONE);
-                            tvEmpty.setVisibility(View.VISIBLE);
-                        } else {
-                            rvRecentBills.setVisibility(View.VISIBLE);
-                            tvEmpty.setVisibility(View.GONE);
+                        if (getView() == null) {
+                            return;
                         }
+                        mShownDays = days;
+                        mShownBills = recentBills;
+                        bindRecentBills(recentBills);
+                        saveSnapshot();
                     });
                 } else {
-                    Log.w(TAG, "loadRecentBills: Fragment已销毁或视图不可用，跳过UI更新");
+                    AppLog.w(TAG, "loadRecentBills: Fragment已销毁或视图不可用，跳过UI更新");
                 }
             }
 
             @Override
             public void onError(Exception e) {
-                Log.e(TAG, "loadRecentBills: 加载近期账单失败: " + e.getMessage());
+                AppLog.e(TAG, "loadRecentBills: 加载近期账单失败: {}", e.getMessage());
+            }
+        });
+        AppLog.d(TAG, "loadRecentBills: 账单请求已提交，ID={}", mBillsRequestId);
+    }
+
+    private void bindTodayStatistics(double income, double expense, double balance) {
+        AppLog.beginSection("Home.bindTodayStatistics");
+        try {
+            tvMonthIncome.setText("当日收入：" + mDecimalFormat.format(income) + "元");
+            tvMonthExpense.setText("当日支出：" + mDecimalFormat.format(expense) + "元");
+
+            if (balance >= 0) {
+                tvMonthBalance.setTextColor(getResources().getColor(android.R.color.holo_green_dark));
+            } else {
+                tvMonthBalance.setTextColor(getResources().getColor(android.R.color.holo_red_dark));
+            }
+            tvMonthBalance.setText("当日结余：" + mDecimalFormat.format(balance) + "元");
+        } finally {
+            AppLog.endSection();
+        }
+    }
+
+    private void bindRecentBills(List<Bill> bills) {
+        AppLog.beginSection("Home.bindRecentBills");
+        try {
+            mAdapter.updateData(bills);
+
+            if (bills.isEmpty()) {
+                rvRecentBills.setVisibility(View.GONE);
+                tvEmpty.setVisibility(View.VISIBLE);
+            } else {
+                rvRecentBills.setVisibility(View.VISIBLE);
+                tvEmpty.setVisibility(View.GONE);
+            }
+        } finally {
+            AppLog.endSection();
+        }
+    }
+
+    private void loadRecurringSuggestions() {
+        if (mRecurringRequestId != null) {
+            mBillRepository.cancelRequest(mRecurringRequestId);
+        }
+        mRecurringRequestId = mBillRepository.getRecurringSuggestionsAsync(new BillRepository.Callback<List<RecurringPattern>>() {
+            @Override
+            public void onSuccess(List<RecurringPattern> patterns) {
+                if (!patterns.isEmpty() && isAdded() && getView() != null) {
+                    requireActivity().runOnUiThread(() -> showRecurringDialog(patterns));
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                AppLog.e(TAG, "loadRecurringSuggestions: 检测周期账单失败: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 提示即将到期的周期账单，默认全选；选中的按预计日期记账，其余这一次不再提示
+     */
+    private void showRecurringDialog(List<RecurringPattern> patterns) {
+        if (mRecurringDialog != null || !isAdded() || getView() == null) {
+            return;
+        }
+        String[] items = new String[patterns.size()];
+        boolean[] checked = new boolean[patterns.size()];
+        for (int i = 0; i < items.length; i++) {
+            RecurringPattern pattern = patterns.get(i);
+            items[i] = CADENCE_NAMES[pattern.getCadence()] + pattern.getCategory() + " " +
+                    mDecimalFormat.format(pattern.getCents() / 100.0) + "元（" +
+                    EpochDays.format(pattern.getNextEpochDay()) + "）";
+            checked[i] = true;
+        }
+        mRecurringDialog = new AlertDialog.Builder(requireContext())
+                .setTitle("周期账单")
+                .setMultiChoiceItems(items, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("记账", (dialog, which) -> {
+                    List<RecurringPattern> accepted = new ArrayList<>();
+                    List<RecurringPattern> dismissed = new ArrayList<>();
+                    for (int i = 0; i < checked.length; i++) {
+                        (checked[i] ? accepted : dismissed).add(patterns.get(i));
+                    }
+                    mBillRepository.dismissRecurringAsync(dismissed);
+                    createRecurringBills(accepted);
+                })
+                .setNegativeButton("忽略", (dialog, which) -> mBillRepository.dismissRecurringAsync(patterns))
+                .setOnDismissListener(dialog -> mRecurringDialog = null)
+                .show();
+    }
+
+    private void createRecurringBills(List<RecurringPattern> patterns) {
+        if (patterns.isEmpty()) {
+            return;
+        }
+        mBillRepository.createRecurringBillsAsync(patterns, new BillRepository.Callback<Integer>() {
+            @Override
+            public void onSuccess(Integer inserted) {
+                AppLog.d(TAG, "createRecurringBills: 生成周期账单{}条", inserted);
+                if (isAdded() && getView() != null) {
+                    requireActivity().runOnUiThread(() -> refreshData());
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                AppLog.e(TAG, "createRecurringBills: 生成周期账单失败: {}", e.getMessage());
             }
         });
-        Log.d(TAG, "loadRecentBills: 账单请求已提交，ID=" + mBillsRequestId);
     }
 
     private void cancelPendingRequests() {
-        Log.d(TAG, "cancelPendingRequests: 取消待处理的异步请求");
+        AppLog.d(TAG, "cancelPendingRequests: 取消待处理的异步请求");
         if (mStatisticsRequestId != null) {
-            Log.d(TAG, "cancelPendingRequests: 取消统计请求，ID=" + mStatisticsRequestId);
+            AppLog.d(TAG, "cancelPendingRequests: 取消统计请求，ID={}", mStatisticsRequestId);
             mBillRepository.cancelRequest(mStatisticsRequestId);
             mStatisticsRequestId = null;
         }
         if (mBillsRequestId != null) {
-            Log.d(TAG, "cancelPendingRequests: 取消账单请求，ID=" + mBillsRequestId);
+            AppLog.d(TAG, "cancelPendingRequests: 取消账单请求，ID={}", mBillsRequestId);
             mBillRepository.cancelRequest(mBillsRequestId);
             mBillsRequestId = null;
         }
+        if (mRecurringRequestId != null) {
+            mBillRepository.cancelRequest(mRecurringRequestId);
+            mRecurringRequestId = null;
+        }
     }
 
     private void cleanupViews() {
-        Log.d(TAG, "cleanupViews: 清理视图引用");
+        AppLog.d(TAG, "cleanupViews: 清理视图引用");
+        if (mRecurringDialog != null) {
+            mRecurringDialog.dismiss();
+            mRecurringDialog = null;
+        }
         tvMonthIncome = null;
         tvMonthExpense = null;
         tvMonthBalance = null;
@@ -341,14 +499,16 @@ public class HomeFragment extends Fragment {
         spDateFilter = null;
         rvRecentBills = null;
         tvEmpty = null;
+        mShownStatistics = null;
+        mShownBills = null;
     }
 
     public void refreshData() {
         if (isAdded() && getView() != null) {
-            Log.d(TAG, "refreshData: 刷新数据");
+            AppLog.d(TAG, "refreshData: 刷新数据");
             loadData();
         } else {
-            Log.w(TAG, "refreshData: Fragment已销毁或视图不可用，跳过刷新");
+            AppLog.w(TAG, "refreshData: Fragment已销毁或视图不可用，跳过刷新");
         }
     }
 }
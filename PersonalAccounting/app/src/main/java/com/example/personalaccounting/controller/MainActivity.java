@@ -2,7 +2,6 @@ package com.example.personalaccounting.controller;
 
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
-import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
@@ -10,6 +9,8 @@ import androidx.core.content.ContextCompat;
 import androidx.viewpager2.widget.ViewPager2;
 
 import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.AppLog;
+import com.example.personalaccounting.model.FrameStats;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
 
@@ -20,6 +21,7 @@ public class MainActivity extends AppCompatActivity {
     private TabLayout tabLayout;
     private ViewPager2 viewPager;
     private FragmentAdapter fragmentAdapter;
+    private FrameMetricsTracker mFrameTracker; // 逐帧耗时采集，页面名随当前标签切换
 
     private static final int[] TAB_ICONS = {
             R.drawable.ic_home_inactive,
@@ -41,6 +43,7 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_main);
 
         initViews();
+        mFrameTracker = new FrameMetricsTracker(this, TAB_TITLES[0]);
         setupViewPager();
         setupTabLayout();
     }
@@ -53,12 +56,14 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
+        mFrameTracker.start();
         refreshCurrentFragment();
     }
 
     @Override
     protected void onPause() {
         super.onPause();
+        mFrameTracker.stop();
     }
 
     @Override
@@ -97,6 +102,22 @@ public class MainActivity extends AppCompatActivity {
     private void setupViewPager() {
         fragmentAdapter = new FragmentAdapter(this);
         viewPager.setAdapter(fragmentAdapter);
+        viewPager.registerOnPageChangeCallback(new ViewPager2.OnPageChangeCallback() {
+            @Override
+            public void onPageSelected(int position) {
+                mFrameTracker.setScreen(TAB_TITLES[position]);
+            }
+
+            @Override
+            public void onPageScrollStateChanged(int state) {
+                // 拖动和点击标签后的平滑滚动都经过这里，停下后再延续一小段，覆盖新页面的数据加载和绑定
+                if (state == ViewPager2.SCROLL_STATE_IDLE) {
+                    FrameMetricsTracker.endInteraction(FrameStats.INTERACTION_TAB_SWITCH);
+                } else {
+                    FrameMetricsTracker.beginInteraction(FrameStats.INTERACTION_TAB_SWITCH);
+                }
+            }
+        });
     }
 
     private void setupTabLayout() {
@@ -110,7 +131,7 @@ public class MainActivity extends AppCompatActivity {
             public void onTabSelected(TabLayout.Tab tab) {
                 int position = tab.getPosition();
                 tab.setIcon(TAB_ICONS_ACTIVE[position]);
-                Log.d(TAG, "Tab selected: " + TAB_TITLES[position]);
+                AppLog.d(TAG, "Tab selected: {}", TAB_TITLES[position]);
             }
 
             @Override
@@ -122,7 +143,7 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onTabReselected(TabLayout.Tab tab) {
                 int position = tab.getPosition();
-                Log.d(TAG, "Tab reselected: " + TAB_TITLES[position]);
+                AppLog.d(TAG, "Tab reselected: {}", TAB_TITLES[position]);
                 refreshFragmentAt(position);
             }
         });
@@ -166,5 +187,6 @@ public class MainActivity extends AppCompatActivity {
         tabLayout = null;
         viewPager = null;
         fragmentAdapter = null;
+        mFrameTracker = null;
     }
 }
@@ -0,0 +1,142 @@
+package com.example.personalaccounting.model;
+
+import android.os.Trace;
+import android.util.Log;
+
+import com.example.personalaccounting.BuildConfig;
+
+/**
+ * 应用内统一的日志和系统跟踪入口
+ * <p>
+ * 日志级别来自 {@code BuildConfig.LOG_LEVEL}（调试版 DEBUG，发布版 WARN），是编译期常量，
+ * 低于该级别的方法体被 javac 直接裁成空方法。消息用 {} 占位，参数只在确实输出时才拼接，
+ * 调用方不必自己判断级别；只有参数本身需要计算（如 list.size() 以外的遍历）时才用
+ * {@link #DEBUG} 包一层。
+ * </p>
+ * <p>
+ * {@link #beginSection}/{@link #endSection} 包装 android.os.Trace，Perfetto/systrace 抓取时
+ * 按名称显示数据库、汇总和界面绑定各阶段；没有在抓取时开销只是一次标志位检查。
+ * 同一线程上必须成对调用，通常放在 try/finally 中。
+ * </p>
+ */
+public final class AppLog {
+    public static final int LEVEL = BuildConfig.LOG_LEVEL;
+    // 调试日志是否输出，编译期常量
+    public static final boolean DEBUG = LEVEL <= Log.DEBUG;
+    private static final boolean WARN = LEVEL <= Log.WARN;
+    private static final boolean ERROR = LEVEL <= Log.ERROR;
+    // Trace.beginSection 的名称上限
+    private static final int MAX_SECTION_NAME = 127;
+
+    private AppLog() {
+    }
+
+    public static void d(String tag, String message) {
+        if (DEBUG) {
+            Log.d(tag, message);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg) {
+        if (DEBUG) {
+            Log.d(tag, format(format, arg));
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        if (DEBUG) {
+            Log.d(tag, format(format, arg1, arg2));
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (DEBUG) {
+            Log.d(tag, format(format, arg1, arg2, arg3));
+        }
+    }
+
+    public static void d(String tag, String format, Object... args) {
+        if (DEBUG) {
+            Log.d(tag, format(format, args));
+        }
+    }
+
+    public static void w(String tag, String message) {
+        if (WARN) {
+            Log.w(tag, message);
+        }
+    }
+
+    public static void w(String tag, String format, Object arg) {
+        if (WARN) {
+            Log.w(tag, format(format, arg));
+        }
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2) {
+        if (WARN) {
+            Log.w(tag, format(format, arg1, arg2));
+        }
+    }
+
+    public static void w(String tag, String format, Object... args) {
+        if (WARN) {
+            Log.w(tag, format(format, args));
+        }
+    }
+
+    public static void e(String tag, String message) {
+        if (ERROR) {
+            Log.e(tag, message);
+        }
+    }
+
+    public static void e(String tag, String format, Object arg) {
+        if (ERROR) {
+            Log.e(tag, format(format, arg));
+        }
+    }
+
+    public static void e(String tag, String format, Object arg1, Object arg2) {
+        if (ERROR) {
+            Log.e(tag, format(format, arg1, arg2));
+        }
+    }
+
+    public static void e(String tag, String format, Object... args) {
+        if (ERROR) {
+            Log.e(tag, format(format, args));
+        }
+    }
+
+    /**
+     * 按优先级输出，供 {@link EngineLog} 转接，同样受日志级别限制
+     */
+    public static void println(int priority, String tag, String message) {
+        if (priority >= LEVEL) {
+            Log.println(priority, tag, message);
+        }
+    }
+
+    /**
+     * 开始一个跟踪区段
+     * @param name 区段名，约定为“模块.方法”，超过127个字符时截断
+     */
+    public static void beginSection(String name) {
+        Trace.beginSection(name.length() > MAX_SECTION_NAME ? name.substring(0, MAX_SECTION_NAME) : name);
+    }
+
+    /**
+     * 结束当前线程上最近开始的跟踪区段
+     */
+    public static void endSection() {
+        Trace.endSection();
+    }
+
+    /**
+     * 依次用参数替换格式串中的 {}，参数多于占位符时忽略多余的
+     */
+    static String format(String format, Object... args) {
+        return EngineLog.format(format, args);
+    }
+}
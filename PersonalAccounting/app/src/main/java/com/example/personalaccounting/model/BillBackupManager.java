@@ -0,0 +1,206 @@
+package com.example.personalaccounting.model;
+
+import android.database.Cursor;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 账单二进制备份与恢复
+ * <p>
+ * 完整备份从只进游标流式写入 {@link BillBackupWriter}；增量备份只读取上次检查点之后
+ * 变更日志里出现过的账单，耗时与期间的变更量成正比。文件写完后才提交检查点，
+ * 写入失败时下一次增量仍从旧检查点开始。
+ * </p>
+ * <p>
+ * 恢复时把选中的文件全部映射进内存，找出完整备份和同一条链上的增量并校验序号首尾相接，
+ * 再由 {@link BillDbHelper#restoreBackup} 在一个事务里整体替换。
+ * </p>
+ */
+public class BillBackupManager {
+    private static final String TAG = "BillBackupManager";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BillDbHelper mDbHelper;
+
+    public BillBackupManager(BillDbHelper dbHelper) {
+        mDbHelper = dbHelper;
+    }
+
+    /**
+     * 完整备份全部账单，并开始一条新的备份链
+     * @param out 输出流，结束后关闭
+     * @return 备份的账单数
+     */
+    public long backup(OutputStream out) throws IOException {
+        // 先取序号再读账单：期间新增的变更会在下一次增量里重放，重放是幂等的
+        long toSeq = mDbHelper.queryChangeLogHead();
+        // 以时间戳作为链编号
+        long chainId = System.currentTimeMillis();
+        Cursor cursor = null;
+        long rows;
+        try (BillBackupWriter writer = new BillBackupWriter(new BufferedOutputStream(out, BUFFER_SIZE),
+                BillBackupWriter.KIND_FULL, chainId, 0, toSeq)) {
+            cursor = mDbHelper.openBackupCursor();
+            while (cursor.moveToNext()) {
+                writeRow(writer, cursor);
+            }
+            rows = writer.finish();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        mDbHelper.commitBackupCheckpoint(chainId, toSeq);
+        AppLog.d(TAG, "backup: 完整备份完成，共{}条，链={}，序号={}", rows, chainId, toSeq);
+        return rows;
+    }
+
+    /**
+     * 增量备份上次检查点之后变更过的账单
+     * 从未备份过或刚从备份恢复时没有检查点，改做完整备份
+     * @param out 输出流，结束后关闭
+     * @return 写入的记录数（含删除记录）
+     */
+    public long backupIncremental(OutputStream out) throws IOException {
+        long[] checkpoint = mDbHelper.queryBackupCheckpoint();
+        if (checkpoint == null) {
+            AppLog.d(TAG, "backupIncremental: 没有检查点，改做完整备份");
+            return backup(out);
+        }
+        long chainId = checkpoint[0];
+        long fromSeq = checkpoint[1];
+        long toSeq = mDbHelper.queryChangeLogHead();
+        Cursor cursor = null;
+        long rows;
+        try (BillBackupWriter writer = new BillBackupWriter(new BufferedOutputStream(out, BUFFER_SIZE),
+                BillBackupWriter.KIND_INCREMENTAL, chainId, fromSeq, toSeq)) {
+            cursor = mDbHelper.openChangeCursor(fromSeq, toSeq);
+            while (cursor.moveToNext()) {
+                if (cursor.isNull(1)) {
+                    writer.writeDelete(cursor.getLong(0));
+                } else {
+                    writeRow(writer, cursor);
+                }
+            }
+            rows = writer.finish();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        mDbHelper.commitBackupCheckpoint(chainId, toSeq);
+        AppLog.d(TAG, "backupIncremental: 增量备份完成，共{}条，序号{}~{}", rows, fromSeq, toSeq);
+        return rows;
+    }
+
+    /**
+     * 从一个完整备份及其后续增量恢复，替换全部账单
+     * @param inputs 备份文件输入流（可来自 ParcelFileDescriptor），顺序不限，结束后全部关闭
+     * @return 恢复后的账单数
+     */
+    public long restore(List<FileInputStream> inputs) throws IOException {
+        try {
+            BillBackupReader base = null;
+            List<BillBackupReader> increments = new ArrayList<>();
+            for (FileInputStream in : inputs) {
+                // 映射在通道关闭后仍然有效
+                BillBackupReader reader = BillBackupReader.map(in.getChannel());
+                if (reader.isIncremental()) {
+                    increments.add(reader);
+                } else if (base == null) {
+                    base = reader;
+                } else {
+                    throw new IOException("只能选择一个完整备份");
+                }
+            }
+            if (base == null) {
+                throw new IOException("缺少完整备份");
+            }
+            Collections.sort(increments, (a, b) -> Long.compare(a.getFromSeq(), b.getFromSeq()));
+            checkChain(base, increments);
+            return mDbHelper.restoreBackup(base, increments);
+        } finally {
+            for (FileInputStream in : inputs) {
+                closeQuietly(in);
+            }
+        }
+    }
+
+    /**
+     * 比对完整备份与当前账本，找出内容不同的月份
+     * <p>
+     * 备份文件按块流式计算摘要，账本一侧只读每月一行的摘要表，两边根摘要相同时不再下探。
+     * </p>
+     * @param in 完整备份的输入流，结束后关闭
+     * @return 不一致的月份（yyyy-MM格式），为空表示完全一致
+     */
+    public List<String> compare(FileInputStream in) throws IOException {
+        try {
+            BillBackupReader reader = BillBackupReader.map(in.getChannel());
+            if (reader.isIncremental()) {
+                throw new IOException("请选择完整备份");
+            }
+            LedgerDigest backup = digest(reader);
+            List<String> months = mDbHelper.queryLedgerDigest().diff(backup);
+            AppLog.d(TAG, "compare: 备份{}条，不一致的月份{}个", backup.getBillCount(), months.size());
+            return months;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * 计算备份文件的账本摘要
+     * @param reader 备份读取器
+     * @return 摘要
+     */
+    static LedgerDigest digest(BillBackupReader reader) throws IOException {
+        LedgerDigest.Builder builder = new LedgerDigest.Builder();
+        BackupBlock block = BillBackupReader.newBlock();
+        while (reader.next(block)) {
+            for (int i = 0; i < block.size(); i++) {
+                if (!block.isDeleted(i)) {
+                    builder.addRow(block.getEpochDay(i), block.getBillType(i), block.getCategory(i),
+                            block.getCents(i), block.getRemark(i), block.getCreateTime(i));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 增量必须属于完整备份所在的链，并且序号首尾相接
+     */
+    static void checkChain(BillBackupReader base, List<BillBackupReader> increments) throws IOException {
+        long seq = base.getToSeq();
+        for (BillBackupReader increment : increments) {
+            if (base.getChainId() == 0 || increment.getChainId() != base.getChainId()) {
+                throw new IOException("增量备份不属于所选的完整备份");
+            }
+            if (increment.getFromSeq() != seq) {
+                throw new IOException("增量备份不连续，缺少序号" + seq + "之后的备份");
+            }
+            seq = increment.getToSeq();
+        }
+    }
+
+    private static void writeRow(BillBackupWriter writer, Cursor cursor) throws IOException {
+        writer.write(cursor.getLong(0), EpochDays.parse(cursor.getString(1)), cursor.getInt(2), cursor.getString(3),
+                Math.round(cursor.getDouble(4) * 100), cursor.getString(5), cursor.getLong(6), cursor.getString(7),
+                cursor.getLong(8));
+    }
+
+    private static void closeQuietly(FileInputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            AppLog.w(TAG, "closeQuietly: 关闭备份文件失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.personalaccounting.model;
+
+import android.database.Cursor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 账单CSV导出
+ * <p>
+ * 从只进游标逐行读取，按 {@link BillCsvWriter} 的格式写入带缓冲的输出流，内存占用与账单数量无关。
+ * 输出流可以来自存储访问框架（ContentResolver.openOutputStream）或应用私有文件。
+ * </p>
+ */
+public class BillCsvExporter {
+    private static final String TAG = "BillCsvExporter";
+    // 写缓冲大小
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // 每写多少行报告一次进度
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    /**
+     * 导出监听
+     */
+    public interface ExportListener {
+        /**
+         * 导出进度
+         * @param written 已写出的行数
+         * @param total 总行数
+         */
+        void onProgress(long written, long total);
+
+        /**
+         * 是否已取消，每行写出前检查
+         */
+        boolean isCancelled();
+    }
+
+    private final BillDbHelper mDbHelper;
+
+    public BillCsvExporter(BillDbHelper dbHelper) {
+        mDbHelper = dbHelper;
+    }
+
+    /**
+     * 导出账单
+     * @param out 输出流，导出结束后由本方法关闭
+     * @param startDate 开始日期（yyyy-MM-dd格式），null表示不限
+     * @param endDate 结束日期（yyyy-MM-dd格式），null表示不限
+     * @param billType 账单类型（0=支出，1=收入，-1=全部）
+     * @param listener 进度与取消监听，可为null
+     * @return 写出的行数，取消时返回-1
+     * @throws IOException 写出失败
+     */
+    public long export(OutputStream out, String startDate, String endDate, int billType,
+                       ExportListener listener) throws IOException {
+        long total = mDbHelper.countExportBills(startDate, endDate, billType);
+        AppLog.d(TAG, "export: 开始导出，共{}条，开始={}，结束={}，类型={}", total, startDate, endDate, billType);
+
+        Cursor cursor = null;
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try {
+            BillCsvWriter csv = new BillCsvWriter(writer);
+            csv.writeHeader();
+
+            cursor = mDbHelper.openExportCursor(startDate, endDate, billType);
+            long written = 0;
+            while (cursor.moveToNext()) {
+                if (listener != null && listener.isCancelled()) {
+                    AppLog.d(TAG, "export: 导出已取消，已写出{}条", written);
+                    return -1;
+                }
+                csv.writeRow(cursor.getString(0), cursor.getInt(1), cursor.getString(2), cursor.getDouble(3),
+                        cursor.getString(4), cursor.getLong(5));
+                written++;
+                if (listener != null && written % PROGRESS_INTERVAL == 0) {
+                    listener.onProgress(written, total);
+                }
+            }
+            csv.flush();
+            if (listener != null) {
+                listener.onProgress(written, total);
+            }
+            AppLog.d(TAG, "export: 导出完成，共{}条", written);
+            return written;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.personalaccounting.model;
+
+import android.database.Cursor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 账单CSV导入
+ * <p>
+ * 由 {@link BillCsvParser} 逐条解析本应用或银行/记账软件导出的CSV，
+ * 每 {@link #CHUNK_SIZE} 条在一个事务里批量写入，内存占用与文件大小无关。
+ * 导入前把已有账单的 (日期, 金额, 收支, 备注) 哈希装入 {@link DuplicateIndex}，重复记录直接跳过。
+ * </p>
+ */
+public class BillCsvImporter {
+    private static final String TAG = "BillCsvImporter";
+    // 每个事务写入的条数
+    static final int CHUNK_SIZE = 500;
+
+    /**
+     * 导入监听
+     */
+    public interface ImportListener {
+        /**
+         * 导入进度
+         * @param bytesRead 已读取的字节数
+         * @param totalBytes 文件总字节数，未知时为-1
+         */
+        void onProgress(long bytesRead, long totalBytes);
+
+        /**
+         * 是否已取消，每个批次写入前检查；已提交的批次保留
+         */
+        boolean isCancelled();
+    }
+
+    /**
+     * 导入结果
+     */
+    public static class ImportResult {
+        private int imported;
+        private int duplicates;
+        private int invalid;
+        private List<Long> invalidLines = Collections.emptyList();
+        private boolean cancelled;
+
+        public int getImported() {
+            return imported;
+        }
+
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        public int getInvalid() {
+            return invalid;
+        }
+
+        /**
+         * 无法识别的记录的起始行号，最多 {@link BillCsvParser#MAX_INVALID_LINES} 个
+         */
+        public List<Long> getInvalidLines() {
+            return invalidLines;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final BillDbHelper mDbHelper;
+
+    public BillCsvImporter(BillDbHelper dbHelper) {
+        mDbHelper = dbHelper;
+    }
+
+    /**
+     * 导入账单
+     * @param in 输入流，导入结束后由本方法关闭
+     * @param totalBytes 文件总字节数，未知时为-1
+     * @param listener 进度与取消监听，可为null
+     * @return 导入结果
+     * @throws IOException 读取失败或缺少必需的列
+     */
+    public ImportResult importCsv(InputStream in, long totalBytes, ImportListener listener) throws IOException {
+        ImportResult result = new ImportResult();
+        try {
+            BillCsvParser parser = new BillCsvParser(in, System.currentTimeMillis());
+            AppLog.d(TAG, "importCsv: 开始导入，编码={}", parser.getCharset().name());
+
+            DuplicateIndex index = loadDuplicateIndex();
+            List<Bill> chunk = new ArrayList<>(CHUNK_SIZE);
+            Bill bill;
+            while ((bill = parser.next()) != null) {
+                if (index.consume(DuplicateIndex.key(bill))) {
+                    result.duplicates++;
+                    continue;
+                }
+                chunk.add(bill);
+                if (chunk.size() == CHUNK_SIZE) {
+                    if (listener != null && listener.isCancelled()) {
+                        result.cancelled = true;
+                        break;
+                    }
+                    result.imported += mDbHelper.insertBills(chunk);
+                    chunk.clear();
+                    if (listener != null) {
+                        listener.onProgress(parser.getBytesRead(), totalBytes);
+                    }
+                }
+            }
+            if (!result.cancelled && listener != null && listener.isCancelled()) {
+                result.cancelled = true;
+            }
+            result.invalid = parser.getInvalidCount();
+            result.invalidLines = parser.getInvalidLines();
+            if (result.cancelled) {
+                return result;
+            }
+            result.imported += mDbHelper.insertBills(chunk);
+            if (listener != null) {
+                listener.onProgress(parser.getBytesRead(), totalBytes);
+            }
+            AppLog.d(TAG, "importCsv: 导入完成，新增={}，重复={}，无效={}，无效行={}",
+                    result.imported, result.duplicates, result.invalid, result.invalidLines);
+            return result;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 把已有账单装入去重索引
+     */
+    private DuplicateIndex loadDuplicateIndex() {
+        DuplicateIndex index = new DuplicateIndex((int) Math.min(Integer.MAX_VALUE / 4, mDbHelper.countBills()));
+        Cursor cursor = null;
+        try {
+            cursor = mDbHelper.openDedupCursor();
+            while (cursor.moveToNext()) {
+                index.add(DuplicateIndex.key(cursor.getString(0), Math.round(cursor.getDouble(1) * 100),
+                        cursor.getInt(2), cursor.getString(3)));
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return index;
+    }
+}
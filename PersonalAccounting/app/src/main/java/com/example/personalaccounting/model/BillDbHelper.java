@@ -3,42 +3,210 @@ package com.example.personalaccounting.model;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
+import android.os.Looper;
 import android.util.Log;
 
+import com.example.personalaccounting.BuildConfig;
+
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 账单数据库帮助类
  * 用于创建数据库、表结构和提供基本的数据库操作方法
  */
-public class BillDbHelper extends SQLiteOpenHelper {
+public class BillDbHelper extends SQLiteOpenHelper implements StatisticsStore, SyncStore, BudgetStore, RecurringStore {
     private static final String TAG = "BillDbHelper";
     // 数据库名称
-    private static final String DATABASE_NAME = "bill.db";
+    static final String DATABASE_NAME = "bill.db";
     // 数据库版本
-    private static final int DATABASE_VERSION = 1;
+    // 版本2：新增按日期分页查询所需的索引
+    // 版本3：新增变更日志和备份检查点，用于增量备份
+    // 版本4：新增同步编号、版本号和同步状态，用于多设备增量同步
+    // 版本5：新增按月摘要表，用于快速比对两份账本
+    // 版本6：新增分类和备注的全文索引
+    // 版本7：新增月度预算表和预算检查点
+    // 版本8：新增周期账单检测的序列表和水位
+    private static final int DATABASE_VERSION = 8;
     // 账单表名
-    private static final String TABLE_BILL = "bill_table";
+    static final String TABLE_BILL = "bill_table";
 
     // 表字段
-    private static final String COLUMN_ID = "id";
-    private static final String COLUMN_TYPE = "type";
-    private static final String COLUMN_AMOUNT = "amount";
-    private static final String COLUMN_BILL_TYPE = "bill_type";
-    private static final String COLUMN_REMARK = "remark";
-    private static final String COLUMN_DATE = "date";
-    private static final String COLUMN_CREATE_TIME = "create_time";
+    static final String COLUMN_ID = "id";
+    static final String COLUMN_TYPE = "type";
+    static final String COLUMN_AMOUNT = "amount";
+    static final String COLUMN_BILL_TYPE = "bill_type";
+    static final String COLUMN_REMARK = "remark";
+    static final String COLUMN_DATE = "date";
+    static final String COLUMN_CREATE_TIME = "create_time";
+    // 跨设备唯一的账单编号（32位十六进制）和修改版本号
+    private static final String COLUMN_SYNC_ID = "sync_id";
+    private static final String COLUMN_VERSION = "version";
+    // 新账单的同步编号由数据库生成
+    private static final String NEW_SYNC_ID = "lower(hex(randomblob(16)))";
+
+    // 索引：按日期分组分页（date DESC, create_time DESC）
+    private static final String INDEX_DATE_TIME = "idx_bill_date_time";
+    // 索引：按收支类型筛选后再按日期分页
+    private static final String INDEX_TYPE_DATE_TIME = "idx_bill_type_date_time";
+    // 唯一索引：按同步编号应用远程变更
+    private static final String INDEX_SYNC_ID = "idx_bill_sync_id";
+
+    // 变更日志表：账单表的每次增删改由触发器追加一行，seq单调递增
+    private static final String TABLE_CHANGE_LOG = "bill_change_log";
+    private static final String COLUMN_SEQ = "seq";
+    private static final String COLUMN_BILL_ID = "bill_id";
+    private static final String COLUMN_OP = "op";
+    public static final int OP_INSERT = 1;
+    public static final int OP_UPDATE = 2;
+    public static final int OP_DELETE = 3;
+    private static final String TRIGGER_INSERT = "trg_bill_log_insert";
+    private static final String TRIGGER_UPDATE = "trg_bill_log_update";
+    private static final String TRIGGER_DELETE = "trg_bill_log_delete";
+    private static final String TRIGGER_SYNC_ID = "trg_bill_sync_id";
+
+    // 月摘要表：每月账单内容哈希之和与条数；触发器只标记dirty，读取摘要时再重算脏月份
+    private static final String TABLE_MONTH_DIGEST = "month_digest";
+    private static final String COLUMN_MONTH = "month";
+    private static final String COLUMN_DIGEST = "digest";
+    private static final String COLUMN_BILL_COUNT = "bill_count";
+    private static final String COLUMN_DIRTY = "dirty";
+    private static final String TRIGGER_DIGEST_INSERT = "trg_bill_digest_insert";
+    private static final String TRIGGER_DIGEST_UPDATE = "trg_bill_digest_update";
+    private static final String TRIGGER_DIGEST_DELETE = "trg_bill_digest_delete";
+
+    // 全文索引：docid为账单编号，两列分别是分好词的分类和备注（见BillSearch）
+    static final String TABLE_SEARCH = "bill_fts";
+    private static final String COLUMN_CATEGORY = "category";
+    // 待更新索引的账单编号：触发器只记录编号，分词在Java里完成，搜索前或后台批量刷新
+    private static final String TABLE_SEARCH_PENDING = "bill_search_pending";
+    private static final String TRIGGER_SEARCH_INSERT = "trg_bill_search_insert";
+    private static final String TRIGGER_SEARCH_UPDATE = "trg_bill_search_update";
+    private static final String TRIGGER_SEARCH_DELETE = "trg_bill_search_delete";
+    // 搜索时先按账单编号倒序取出的候选数是结果上限的几倍，只对候选排序
+    private static final int SEARCH_CANDIDATE_FACTOR = 4;
+
+    // 预算表：每个分类一行，总预算的分类为空串；累计值由BudgetEngine维护
+    private static final String TABLE_BUDGET = "budget";
+    private static final String COLUMN_LIMIT_CENTS = "limit_cents";
+    private static final String COLUMN_WARN_PERCENT = "warn_percent";
+    private static final String COLUMN_SPENT_CENTS = "spent_cents";
+    private static final String COLUMN_ALERT_LEVEL = "alert_level";
+    // 预算检查点表：只有一行，记录累计值所属的月份和已包含到的变更序号
+    private static final String TABLE_BUDGET_CHECKPOINT = "budget_checkpoint";
+
+    // 周期账单序列表：收支类型、分类和基准金额确定一个序列，发生日以逗号分隔的纪元日保存
+    private static final String TABLE_RECURRING_SERIES = "recurring_series";
+    private static final String COLUMN_CENTS = "cents";
+    private static final String COLUMN_LAST_CENTS = "last_cents";
+    private static final String COLUMN_DAYS = "days";
+    private static final String COLUMN_OCCURRENCES = "occurrences";
+    private static final String COLUMN_DISMISSED_DAY = "dismissed_day";
+    // 周期账单检测水位：只有一行，记录已处理到的账单编号
+    private static final String TABLE_RECURRING_CHECKPOINT = "recurring_checkpoint";
+
+    // 备份检查点表：只有一行，记录最近一次备份所在的链和变更序号
+    private static final String TABLE_BACKUP_CHECKPOINT = "backup_checkpoint";
+    private static final String COLUMN_CHAIN_ID = "chain_id";
+
+    // 同步状态表：只有一行，记录设备编号、已推送的变更序号和服务器游标
+    private static final String TABLE_SYNC_STATE = "sync_state";
+    private static final String COLUMN_DEVICE_ID = "device_id";
+    private static final String COLUMN_LOCAL_SEQ = "local_seq";
+    private static final String COLUMN_REMOTE_CURSOR = "remote_cursor";
+
+    // 预编译语句缓存：BillQueryCompiler的每种形状各占一条，再留出其他查询的余量
+    private static final int SQL_CACHE_SIZE = 50;
+
+    // 分组小计列
+    private static final String COLUMN_DAY_INCOME = "day_income";
+    private static final String COLUMN_DAY_EXPENSE = "day_expense";
+
+    // 组合查询编译器，按形状缓存SQL
+    private final BillQueryCompiler mQueryCompiler = new BillQueryCompiler();
+    // 查询耗时统计，默认关闭
+    private final QueryProfiler mProfiler = new QueryProfiler();
+    // 调试版已报告过的主线程访问位置，每处只报告一次
+    private final Set<String> mMainThreadCallers = ConcurrentHashMap.newKeySet();
 
     /**
      * 构造方法
      * @param context 上下文
      */
     public BillDbHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
-        Log.d(TAG, "BillDbHelper: 初始化数据库帮助类");
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * 指定数据库名，测试中传null使用内存数据库
+     * @param context 上下文
+     * @param name 数据库文件名
+     */
+    BillDbHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+        mProfiler.setExplainer(this::explainQueryPlan);
+        mProfiler.setMainThread(Looper.getMainLooper().getThread());
+        AppLog.d(TAG, "BillDbHelper: 初始化数据库帮助类");
+    }
+
+    @Override
+    public SQLiteDatabase getReadableDatabase() {
+        checkNotMainThread();
+        return super.getReadableDatabase();
+    }
+
+    @Override
+    public SQLiteDatabase getWritableDatabase() {
+        checkNotMainThread();
+        return super.getWritableDatabase();
+    }
+
+    /**
+     * 调试版在主线程访问数据库时输出调用栈，发布版整段被编译器去掉
+     * 按仓库和数据库类之外的第一个调用位置去重，同一处只报告一次
+     */
+    private void checkNotMainThread() {
+        if (!BuildConfig.DEBUG || !Looper.getMainLooper().isCurrentThread()) {
+            return;
+        }
+        Throwable trace = new Throwable("主线程访问数据库");
+        String caller = null;
+        for (StackTraceElement element : trace.getStackTrace()) {
+            String className = element.getClassName();
+            if (!className.startsWith(BillDbHelper.class.getName()) && !className.startsWith(BillRepository.class.getName())) {
+                caller = element.toString();
+                break;
+            }
+        }
+        if (mMainThreadCallers.add(String.valueOf(caller))) {
+            AppLog.w(TAG, "checkNotMainThread: 主线程访问数据库，调用位置={}\n{}", caller, Log.getStackTraceString(trace));
+        }
+    }
+
+    /**
+     * @return 查询耗时统计，由调用方决定是否开启
+     */
+    public QueryProfiler getQueryProfiler() {
+        return mProfiler;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.setMaxSqlCacheSize(SQL_CACHE_SIZE);
     }
 
     /**
@@ -55,12 +223,174 @@ public class BillDbHelper extends SQLiteOpenHelper {
                 COLUMN_BILL_TYPE + " INTEGER NOT NULL, " +
                 COLUMN_REMARK + " TEXT, " +
                 COLUMN_DATE + " TEXT NOT NULL, " +
-                COLUMN_CREATE_TIME + " INTEGER NOT NULL" +
+                COLUMN_CREATE_TIME + " INTEGER NOT NULL, " +
+                COLUMN_SYNC_ID + " TEXT, " +
+                COLUMN_VERSION + " INTEGER NOT NULL DEFAULT 1" +
                 ");";
 
         // 执行创建表的SQL语句
         db.execSQL(CREATE_BILL_TABLE);
-        Log.d(TAG, "onCreate: 账单表创建成功");
+        createIndexes(db);
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + INDEX_SYNC_ID + " ON " + TABLE_BILL + "(" + COLUMN_SYNC_ID + ")");
+        createChangeLog(db);
+        createBudgetTables(db);
+        createRecurringTables(db);
+        AppLog.d(TAG, "onCreate: 账单表创建成功");
+    }
+
+    /**
+     * 创建查询索引
+     * @param db SQLiteDatabase对象
+     */
+    private void createIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_DATE_TIME + " ON " + TABLE_BILL +
+                "(" + COLUMN_DATE + ", " + COLUMN_CREATE_TIME + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_TYPE_DATE_TIME + " ON " + TABLE_BILL +
+                "(" + COLUMN_BILL_TYPE + ", " + COLUMN_DATE + ", " + COLUMN_CREATE_TIME + ")");
+    }
+
+    /**
+     * 创建变更日志表、检查点表、同步状态表、月摘要表、全文索引和触发器
+     * @param db SQLiteDatabase对象
+     */
+    private void createChangeLog(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_CHANGE_LOG + "(" +
+                COLUMN_SEQ + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COLUMN_BILL_ID + " INTEGER NOT NULL, " +
+                COLUMN_OP + " INTEGER NOT NULL, " +
+                // 删除时记下同步编号和删除后的版本号，供同步推送墓碑
+                COLUMN_SYNC_ID + " TEXT, " +
+                COLUMN_VERSION + " INTEGER)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_BACKUP_CHECKPOINT + "(" +
+                COLUMN_ID + " INTEGER PRIMARY KEY, " +
+                COLUMN_CHAIN_ID + " INTEGER NOT NULL, " +
+                COLUMN_SEQ + " INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_SYNC_STATE + "(" +
+                COLUMN_ID + " INTEGER PRIMARY KEY, " +
+                COLUMN_DEVICE_ID + " TEXT NOT NULL, " +
+                COLUMN_LOCAL_SEQ + " INTEGER NOT NULL, " +
+                COLUMN_REMOTE_CURSOR + " INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_MONTH_DIGEST + "(" +
+                COLUMN_MONTH + " TEXT PRIMARY KEY, " +
+                COLUMN_DIGEST + " INTEGER NOT NULL, " +
+                COLUMN_BILL_COUNT + " INTEGER NOT NULL, " +
+                COLUMN_DIRTY + " INTEGER NOT NULL)");
+        // 1、2个字符的前缀单独建索引，英文只输入一两个字母时不必合并大量词条
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_SEARCH + " USING fts4(" +
+                COLUMN_CATEGORY + ", " + COLUMN_REMARK + ", prefix=\"1,2\")");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_SEARCH_PENDING + "(" +
+                COLUMN_BILL_ID + " INTEGER PRIMARY KEY)");
+        createChangeTriggers(db);
+    }
+
+    /**
+     * 创建预算表和预算检查点表
+     * @param db SQLiteDatabase对象
+     */
+    private void createBudgetTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_BUDGET + "(" +
+                COLUMN_CATEGORY + " TEXT PRIMARY KEY, " +
+                COLUMN_LIMIT_CENTS + " INTEGER NOT NULL, " +
+                COLUMN_WARN_PERCENT + " INTEGER NOT NULL, " +
+                COLUMN_SPENT_CENTS + " INTEGER NOT NULL DEFAULT 0, " +
+                COLUMN_ALERT_LEVEL + " INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_BUDGET_CHECKPOINT + "(" +
+                COLUMN_ID + " INTEGER PRIMARY KEY, " +
+                COLUMN_MONTH + " TEXT NOT NULL, " +
+                COLUMN_SEQ + " INTEGER NOT NULL)");
+    }
+
+    /**
+     * 创建周期账单序列表和检测水位表
+     * @param db SQLiteDatabase对象
+     */
+    private void createRecurringTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_RECURRING_SERIES + "(" +
+                COLUMN_BILL_TYPE + " INTEGER NOT NULL, " +
+                COLUMN_CATEGORY + " TEXT NOT NULL, " +
+                COLUMN_CENTS + " INTEGER NOT NULL, " +
+                COLUMN_LAST_CENTS + " INTEGER NOT NULL, " +
+                COLUMN_DAYS + " TEXT NOT NULL, " +
+                COLUMN_OCCURRENCES + " INTEGER NOT NULL, " +
+                COLUMN_DISMISSED_DAY + " INTEGER NOT NULL, " +
+                "PRIMARY KEY (" + COLUMN_BILL_TYPE + ", " + COLUMN_CATEGORY + ", " + COLUMN_CENTS + "))");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_RECURRING_CHECKPOINT + "(" +
+                COLUMN_ID + " INTEGER PRIMARY KEY, " +
+                COLUMN_BILL_ID + " INTEGER NOT NULL)");
+    }
+
+    private void createChangeTriggers(SQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_INSERT + " AFTER INSERT ON " + TABLE_BILL +
+                " BEGIN INSERT INTO " + TABLE_CHANGE_LOG + "(" + COLUMN_BILL_ID + ", " + COLUMN_OP + ")" +
+                " VALUES (NEW." + COLUMN_ID + ", " + OP_INSERT + "); END");
+        // 只在账单内容变化时记录，补写同步编号不算变更
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_UPDATE + " AFTER UPDATE OF " +
+                COLUMN_TYPE + ", " + COLUMN_AMOUNT + ", " + COLUMN_BILL_TYPE + ", " + COLUMN_REMARK + ", " +
+                COLUMN_DATE + ", " + COLUMN_CREATE_TIME + " ON " + TABLE_BILL +
+                " BEGIN INSERT INTO " + TABLE_CHANGE_LOG + "(" + COLUMN_BILL_ID + ", " + COLUMN_OP + ")" +
+                " VALUES (NEW." + COLUMN_ID + ", " + OP_UPDATE + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_DELETE + " AFTER DELETE ON " + TABLE_BILL +
+                " BEGIN INSERT INTO " + TABLE_CHANGE_LOG + "(" + COLUMN_BILL_ID + ", " + COLUMN_OP + ", " +
+                COLUMN_SYNC_ID + ", " + COLUMN_VERSION + ")" +
+                " VALUES (OLD." + COLUMN_ID + ", " + OP_DELETE + ", OLD." + COLUMN_SYNC_ID + ", OLD." +
+                COLUMN_VERSION + " + 1); END");
+        // 各处插入账单时都不必关心同步编号
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SYNC_ID + " AFTER INSERT ON " + TABLE_BILL +
+                " WHEN NEW." + COLUMN_SYNC_ID + " IS NULL" +
+                " BEGIN UPDATE " + TABLE_BILL + " SET " + COLUMN_SYNC_ID + " = " + NEW_SYNC_ID +
+                " WHERE " + COLUMN_ID + " = NEW." + COLUMN_ID + "; END");
+        // 月摘要只标记为脏，脏月份的摘要会在读取时重算，所以直接覆盖即可
+        String markDirty = "INSERT OR REPLACE INTO " + TABLE_MONTH_DIGEST + "(" + COLUMN_MONTH + ", " +
+                COLUMN_DIGEST + ", " + COLUMN_BILL_COUNT + ", " + COLUMN_DIRTY + ") VALUES (substr(";
+        String markDirtyEnd = "." + COLUMN_DATE + ", 1, 7), 0, 0, 1); ";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_DIGEST_INSERT + " AFTER INSERT ON " + TABLE_BILL +
+                " BEGIN " + markDirty + "NEW" + markDirtyEnd + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_DIGEST_UPDATE + " AFTER UPDATE OF " +
+                COLUMN_TYPE + ", " + COLUMN_AMOUNT + ", " + COLUMN_BILL_TYPE + ", " + COLUMN_REMARK + ", " +
+                COLUMN_DATE + ", " + COLUMN_CREATE_TIME + " ON " + TABLE_BILL +
+                " BEGIN " + markDirty + "OLD" + markDirtyEnd + markDirty + "NEW" + markDirtyEnd + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_DIGEST_DELETE + " AFTER DELETE ON " + TABLE_BILL +
+                " BEGIN " + markDirty + "OLD" + markDirtyEnd + "END");
+        // 全文索引只记下要刷新的账单编号
+        String markPending = " BEGIN INSERT OR IGNORE INTO " + TABLE_SEARCH_PENDING + "(" + COLUMN_BILL_ID + ") VALUES (";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SEARCH_INSERT + " AFTER INSERT ON " + TABLE_BILL +
+                markPending + "NEW." + COLUMN_ID + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SEARCH_UPDATE + " AFTER UPDATE OF " +
+                COLUMN_TYPE + ", " + COLUMN_REMARK + " ON " + TABLE_BILL +
+                markPending + "NEW." + COLUMN_ID + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_SEARCH_DELETE + " AFTER DELETE ON " + TABLE_BILL +
+                markPending + "OLD." + COLUMN_ID + "); END");
+    }
+
+    /**
+     * 把所有有账单的月份标记为脏，用于升级和恢复后整体重算
+     */
+    private void markAllMonthsDirty(SQLiteDatabase db) {
+        db.delete(TABLE_MONTH_DIGEST, null, null);
+        db.execSQL("INSERT INTO " + TABLE_MONTH_DIGEST + " SELECT DISTINCT substr(" + COLUMN_DATE + ", 1, 7), 0, 0, 1" +
+                " FROM " + TABLE_BILL);
+    }
+
+    /**
+     * 清空全文索引并把全部账单加入待刷新队列，用于升级和恢复后重建
+     */
+    private void resetSearchIndex(SQLiteDatabase db) {
+        db.delete(TABLE_SEARCH, null, null);
+        db.delete(TABLE_SEARCH_PENDING, null, null);
+        db.execSQL("INSERT INTO " + TABLE_SEARCH_PENDING + " SELECT " + COLUMN_ID + " FROM " + TABLE_BILL);
+    }
+
+    private void dropChangeTriggers(SQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_INSERT);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_UPDATE);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_DELETE);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_SYNC_ID);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_DIGEST_INSERT);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_DIGEST_UPDATE);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_DIGEST_DELETE);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_SEARCH_INSERT);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_SEARCH_UPDATE);
+        db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_SEARCH_DELETE);
     }
 
     /**
@@ -71,12 +401,42 @@ public class BillDbHelper extends SQLiteOpenHelper {
      */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        Log.d(TAG, "onUpgrade: 数据库版本更新，旧版本=" + oldVersion + "，新版本=" + newVersion);
-        // 如果表存在，先删除表
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_BILL);
-        // 重新创建表
-        onCreate(db);
-        Log.d(TAG, "onUpgrade: 数据库版本更新成功");
+        AppLog.d(TAG, "onUpgrade: 数据库版本更新，旧版本={}，新版本={}", oldVersion, newVersion);
+        // 逐版本增量升级，保留用户已有账单
+        if (oldVersion < 2) {
+            createIndexes(db);
+        }
+        if (oldVersion < 4) {
+            db.execSQL("ALTER TABLE " + TABLE_BILL + " ADD COLUMN " + COLUMN_SYNC_ID + " TEXT");
+            db.execSQL("ALTER TABLE " + TABLE_BILL + " ADD COLUMN " + COLUMN_VERSION + " INTEGER NOT NULL DEFAULT 1");
+            db.execSQL("UPDATE " + TABLE_BILL + " SET " + COLUMN_SYNC_ID + " = " + NEW_SYNC_ID);
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + INDEX_SYNC_ID + " ON " + TABLE_BILL + "(" + COLUMN_SYNC_ID + ")");
+            if (oldVersion == 3) {
+                db.execSQL("ALTER TABLE " + TABLE_CHANGE_LOG + " ADD COLUMN " + COLUMN_SYNC_ID + " TEXT");
+                db.execSQL("ALTER TABLE " + TABLE_CHANGE_LOG + " ADD COLUMN " + COLUMN_VERSION + " INTEGER");
+                dropChangeTriggers(db);
+            }
+            // 升级前的账单没有变更记录：没有检查点时下一次备份自动做完整备份，首次同步推送全部账单
+            createChangeLog(db);
+        }
+        if (oldVersion < 5) {
+            // 建表和触发器都是IF NOT EXISTS，已有的表不受影响
+            createChangeLog(db);
+            markAllMonthsDirty(db);
+        }
+        if (oldVersion < 6) {
+            createChangeLog(db);
+            // 已有账单在第一次搜索前或后台刷新时建立索引
+            resetSearchIndex(db);
+        }
+        if (oldVersion < 7) {
+            createBudgetTables(db);
+        }
+        if (oldVersion < 8) {
+            // 水位从0开始，第一次检测时分批处理已有账单
+            createRecurringTables(db);
+        }
+        AppLog.d(TAG, "onUpgrade: 数据库版本更新成功");
     }
 
     /**
@@ -85,10 +445,12 @@ public class BillDbHelper extends SQLiteOpenHelper {
      * @return 是否新增成功
      */
     public boolean insertBill(Bill bill) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.insertBill");
         boolean result = false;
         SQLiteDatabase db = null;
         try {
-            Log.d(TAG, "insertBill: 开始插入账单，金额=" + bill.getAmount() + "，类型=" + bill.getBillType());
+            AppLog.d(TAG, "insertBill: 开始插入账单，金额={}，类型={}", bill.getAmount(), bill.getBillType());
             // 获取可写数据库
             db = this.getWritableDatabase();
 
@@ -107,79 +469,1056 @@ public class BillDbHelper extends SQLiteOpenHelper {
             // 如果ID大于0，表示插入成功
             if (id > 0) {
                 result = true;
-                Log.d(TAG, "insertBill: 账单插入成功，ID: " + id);
+                AppLog.d(TAG, "insertBill: 账单插入成功，ID: {}", id);
             } else {
-                Log.w(TAG, "insertBill: 账单插入失败，ID <= 0");
+                AppLog.w(TAG, "insertBill: 账单插入失败，ID <= 0");
             }
         } catch (Exception e) {
-            Log.e(TAG, "insertBill: 插入账单失败: " + e.getMessage());
+            AppLog.e(TAG, "insertBill: 插入账单失败: {}", e.getMessage());
+        } finally {
+            mProfiler.end(start, "insertBill", null, null, result ? 1 : 0, -1);
+            AppLog.endSection();
         }
         return result;
     }
 
     /**
-     * 查询所有账单，按创建时间倒序排列
-     * @return 账单列表
+     * 在一个事务中批量新增账单，复用同一条预编译语句
+     * @param bills 账单列表
+     * @return 成功插入的条数，事务失败时返回0
      */
-    public List<Bill> queryAllBill() {
-        List<Bill> billList = new ArrayList<>();
-        SQLiteDatabase db = null;
+    public int insertBills(List<Bill> bills) {
+        if (bills.isEmpty()) {
+            return 0;
+        }
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.insertBills");
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement statement = null;
+        int inserted = 0;
+        db.beginTransaction();
+        try {
+            statement = db.compileStatement("INSERT INTO " + TABLE_BILL + " (" +
+                    COLUMN_TYPE + ", " + COLUMN_AMOUNT + ", " + COLUMN_BILL_TYPE + ", " +
+                    COLUMN_REMARK + ", " + COLUMN_DATE + ", " + COLUMN_CREATE_TIME + ") VALUES (?, ?, ?, ?, ?, ?)");
+            for (Bill bill : bills) {
+                statement.bindString(1, bill.getType());
+                statement.bindDouble(2, bill.getAmount());
+                statement.bindLong(3, bill.getBillType());
+                if (bill.getRemark() != null) {
+                    statement.bindString(4, bill.getRemark());
+                } else {
+                    statement.bindNull(4);
+                }
+                statement.bindString(5, bill.getDate());
+                statement.bindLong(6, bill.getCreateTime());
+                if (statement.executeInsert() > 0) {
+                    inserted++;
+                }
+            }
+            db.setTransactionSuccessful();
+            AppLog.d(TAG, "insertBills: 批量插入完成，共{}条", inserted);
+        } catch (Exception e) {
+            AppLog.e(TAG, "insertBills: 批量插入失败: {}", e.getMessage());
+            inserted = 0;
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+            db.endTransaction();
+            mProfiler.end(start, "insertBills", null, null, inserted, -1);
+            AppLog.endSection();
+        }
+        return inserted;
+    }
+
+    /**
+     * 用备份内容替换全部账单
+     * <p>
+     * 在同一个事务中清空账单表，导入完整备份，再按顺序重放增量备份（存在的行覆盖写入，
+     * 删除记录按编号删除）。任何一块校验失败都会回滚，原有账单保持不变。
+     * 恢复期间暂停变更触发器，恢复后清空变更日志和备份检查点，下一次备份重新从完整备份开始，
+     * 全文索引整体放入待刷新队列，预算累计值下次用到时重算，周期账单检测从头开始。
+     * </p>
+     * <p>
+     * 账单按备份中的同步编号和版本号原样写回，服务器已知的账单身份不变，同步状态（设备编号和两端游标）保留。
+     * 版本3之前的备份没有同步编号，这些账单恢复后分配新编号，并把已推送序号退回-1，下次同步推送全部账单。
+     * </p>
+     * @param base 完整备份
+     * @param increments 按变更序号排好序的增量备份，可为空列表
+     * @return 恢复后的账单数
+     * @throws IOException 备份文件损坏
+     */
+    public long restoreBackup(BillBackupReader base, List<BillBackupReader> increments) throws IOException {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.restoreBackup");
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement insert = null;
+        SQLiteStatement delete = null;
+        SQLiteStatement assign = null;
+        BackupBlock block = BillBackupReader.newBlock();
+        long applied = 0;
+        db.beginTransaction();
+        try {
+            dropChangeTriggers(db);
+            db.delete(TABLE_BILL, null, null);
+            insert = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_BILL + " (" + COLUMN_ID + ", " +
+                    COLUMN_TYPE + ", " + COLUMN_AMOUNT + ", " + COLUMN_BILL_TYPE + ", " +
+                    COLUMN_REMARK + ", " + COLUMN_DATE + ", " + COLUMN_CREATE_TIME + ", " + COLUMN_SYNC_ID + ", " +
+                    COLUMN_VERSION + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            delete = db.compileStatement("DELETE FROM " + TABLE_BILL + " WHERE " + COLUMN_ID + " = ?");
+            applied += applyBackup(base, block, insert, delete);
+            for (BillBackupReader increment : increments) {
+                applied += applyBackup(increment, block, insert, delete);
+            }
+            db.delete(TABLE_CHANGE_LOG, null, null);
+            db.delete(TABLE_BACKUP_CHECKPOINT, null, null);
+            // 旧版本备份没有同步编号：分配新编号，服务器还不知道这些账单，下次同步推送全部账单
+            assign = db.compileStatement("UPDATE " + TABLE_BILL + " SET " + COLUMN_SYNC_ID + " = " + NEW_SYNC_ID +
+                    " WHERE " + COLUMN_SYNC_ID + " IS NULL");
+            int assigned = assign.executeUpdateDelete();
+            if (assigned > 0) {
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_LOCAL_SEQ, -1);
+                db.update(TABLE_SYNC_STATE, values, COLUMN_ID + " = 1", null);
+                AppLog.d(TAG, "restoreBackup: {}条账单没有同步编号，已重新分配", assigned);
+            }
+            // 恢复期间触发器暂停，变更序号不动，预算累计值必须重算
+            db.delete(TABLE_BUDGET_CHECKPOINT, null, null);
+            // 恢复后账单编号可能比水位小，周期账单从头检测
+            db.delete(TABLE_RECURRING_SERIES, null, null);
+            db.delete(TABLE_RECURRING_CHECKPOINT, null, null);
+            markAllMonthsDirty(db);
+            resetSearchIndex(db);
+            createChangeTriggers(db);
+            db.setTransactionSuccessful();
+            AppLog.d(TAG, "restoreBackup: 恢复完成，共处理{}条，增量{}个", applied, increments.size());
+        } finally {
+            if (insert != null) {
+                insert.close();
+            }
+            if (delete != null) {
+                delete.close();
+            }
+            if (assign != null) {
+                assign.close();
+            }
+            db.endTransaction();
+            mProfiler.end(start, "restoreBackup", null, null, applied, -1);
+            AppLog.endSection();
+        }
+        return countBills();
+    }
+
+    /**
+     * 把一个备份文件的全部数据块写入账单表
+     * @return 处理的行数
+     */
+    private static long applyBackup(BillBackupReader reader, BackupBlock block,
+                                    SQLiteStatement insert, SQLiteStatement delete) throws IOException {
+        long applied = 0;
+        // 相邻账单大多同一天，日期字符串只在变化时重新格式化
+        long lastEpochDay = Long.MIN_VALUE;
+        String lastDate = null;
+        while (reader.next(block)) {
+            for (int i = 0; i < block.size(); i++) {
+                long id = block.getId(i);
+                if (block.isDeleted(i)) {
+                    delete.bindLong(1, id);
+                    delete.executeUpdateDelete();
+                    continue;
+                }
+                long epochDay = block.getEpochDay(i);
+                if (epochDay != lastEpochDay) {
+                    lastEpochDay = epochDay;
+                    lastDate = EpochDays.format(epochDay);
+                }
+                // 版本1的备份没有编号，由数据库重新分配
+                if (id > 0) {
+                    insert.bindLong(1, id);
+                } else {
+                    insert.bindNull(1);
+                }
+                insert.bindString(2, block.getCategory(i));
+                insert.bindDouble(3, block.getCents(i) / 100.0);
+                insert.bindLong(4, block.getBillType(i));
+                String remark = block.getRemark(i);
+                if (remark != null) {
+                    insert.bindString(5, remark);
+                } else {
+                    insert.bindNull(5);
+                }
+                insert.bindString(6, lastDate);
+                insert.bindLong(7, block.getCreateTime(i));
+                String syncId = block.getSyncId(i);
+                if (syncId != null) {
+                    insert.bindString(8, syncId);
+                } else {
+                    insert.bindNull(8);
+                }
+                insert.bindLong(9, block.getVersion(i));
+                insert.executeInsert();
+            }
+            applied += block.size();
+        }
+        return applied;
+    }
+
+    /**
+     * 当前最新的变更序号
+     * <p>
+     * 取AUTOINCREMENT计数器而不是MAX(seq)，日志被清理后序号仍然单调递增。
+     * </p>
+     * @return 变更序号，没有任何变更时为0
+     */
+    @Override
+    public long queryChangeLogHead() {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryChangeLogHead");
+        String sql = "SELECT seq FROM sqlite_sequence WHERE name = ?";
+        String[] args = {TABLE_CHANGE_LOG};
         Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().rawQuery(sql, args);
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            mProfiler.end(start, "queryChangeLogHead", sql, args, 1, -1);
+            AppLog.endSection();
+        }
+    }
 
+    /**
+     * 查询最近一次备份的检查点
+     * @return {链编号, 变更序号}，从未备份或刚恢复过时返回null
+     */
+    public long[] queryBackupCheckpoint() {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryBackupCheckpoint");
+        String sql = "SELECT " + COLUMN_CHAIN_ID + ", " + COLUMN_SEQ +
+                " FROM " + TABLE_BACKUP_CHECKPOINT + " WHERE " + COLUMN_ID + " = 1";
+        Cursor cursor = null;
         try {
-            Log.d(TAG, "queryAllBill: 开始查询所有账单");
-            // 获取可读数据库
-            db = this.getReadableDatabase();
+            cursor = getReadableDatabase().rawQuery(sql, null);
+            return cursor.moveToFirst() ? new long[]{cursor.getLong(0), cursor.getLong(1)} : null;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            mProfiler.end(start, "queryBackupCheckpoint", sql, null, 1, -1);
+            AppLog.endSection();
+        }
+    }
 
-            // 查询所有账单，按创建时间倒序排列
-            String selectQuery = "SELECT * FROM " + TABLE_BILL + " ORDER BY " + COLUMN_CREATE_TIME + " DESC";
-            cursor = db.rawQuery(selectQuery, null);
+    /**
+     * 清理备份和同步都已经处理过的变更日志
+     * @return 清理的条数
+     */
+    private int pruneChangeLog(SQLiteDatabase db) {
+        return db.delete(TABLE_CHANGE_LOG, COLUMN_SEQ + " <= (SELECT MIN(s) FROM (" +
+                "SELECT " + COLUMN_SEQ + " AS s FROM " + TABLE_BACKUP_CHECKPOINT +
+                " UNION ALL SELECT " + COLUMN_LOCAL_SEQ + " AS s FROM " + TABLE_SYNC_STATE + "))", null);
+    }
 
-            // 遍历查询结果
+    /**
+     * 备份文件写完后记录检查点，并清理已被备份覆盖的变更日志
+     * @param chainId 备份链编号
+     * @param seq 本次备份的截止变更序号
+     */
+    public void commitBackupCheckpoint(long chainId, long seq) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.commitBackupCheckpoint");
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_ID, 1);
+            values.put(COLUMN_CHAIN_ID, chainId);
+            values.put(COLUMN_SEQ, seq);
+            db.insertWithOnConflict(TABLE_BACKUP_CHECKPOINT, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            int pruned = pruneChangeLog(db);
+            db.setTransactionSuccessful();
+            AppLog.d(TAG, "commitBackupCheckpoint: 检查点={}，清理变更日志{}条", seq, pruned);
+        } finally {
+            db.endTransaction();
+            mProfiler.end(start, "commitBackupCheckpoint", null, null, 1, -1);
+            AppLog.endSection();
+        }
+    }
+
+    @Override
+    public SyncStore.State loadSyncState() {
+        SQLiteDatabase db = getWritableDatabase();
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("SELECT " + COLUMN_DEVICE_ID + ", " + COLUMN_LOCAL_SEQ + ", " + COLUMN_REMOTE_CURSOR +
+                    " FROM " + TABLE_SYNC_STATE + " WHERE " + COLUMN_ID + " = 1", null);
             if (cursor.moveToFirst()) {
-                do {
-                    // 创建Bill对象
-                    Bill bill = new Bill();
-                    bill.setId(cursor.getInt(cursor.getColumnIndex(COLUMN_ID)));
-                    bill.setType(cursor.getString(cursor.getColumnIndex(COLUMN_TYPE)));
-                    bill.setAmount(cursor.getDouble(cursor.getColumnIndex(COLUMN_AMOUNT)));
-                    bill.setBillType(cursor.getInt(cursor.getColumnIndex(COLUMN_BILL_TYPE)));
-                    bill.setRemark(cursor.getString(cursor.getColumnIndex(COLUMN_REMARK)));
-                    bill.setDate(cursor.getString(cursor.getColumnIndex(COLUMN_DATE)));
-                    bill.setCreateTime(cursor.getLong(cursor.getColumnIndex(COLUMN_CREATE_TIME)));
+                return new SyncStore.State(cursor.getString(0), cursor.getLong(1), cursor.getLong(2));
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        // 从未同步过：新设备编号，已推送序号为-1表示需要推送全部账单
+        String deviceId = UUID.randomUUID().toString().replace("-", "");
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_ID, 1);
+        values.put(COLUMN_DEVICE_ID, deviceId);
+        values.put(COLUMN_LOCAL_SEQ, -1);
+        values.put(COLUMN_REMOTE_CURSOR, 0);
+        db.insertWithOnConflict(TABLE_SYNC_STATE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        AppLog.d(TAG, "loadSyncState: 首次同步，设备编号={}", deviceId);
+        return new SyncStore.State(deviceId, -1, 0);
+    }
 
-                    // 添加到列表中
-                    billList.add(bill);
-                } while (cursor.moveToNext());
+    @Override
+    public SyncStore.Page readLocalChanges(long fromSeq, long toSeq, long afterBillId, int limit) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.readLocalChanges");
+        List<SyncChange> changes = new ArrayList<>();
+        long lastBillId = afterBillId;
+        int read = 0;
+        String columns = "b." + COLUMN_SYNC_ID + ", b." + COLUMN_VERSION + ", b." + COLUMN_DATE + ", b." +
+                COLUMN_BILL_TYPE + ", b." + COLUMN_TYPE + ", b." + COLUMN_AMOUNT + ", b." + COLUMN_REMARK + ", b." +
+                COLUMN_CREATE_TIME;
+        String sql;
+        String[] args;
+        int keyColumn;
+        if (fromSeq < 0) {
+            // 按主键分页，每页只扫描一段账单
+            sql = "SELECT " + columns + ", b." + COLUMN_ID + " FROM " + TABLE_BILL + " b" +
+                    " WHERE b." + COLUMN_ID + " > ? ORDER BY b." + COLUMN_ID + " LIMIT ?";
+            args = new String[]{String.valueOf(afterBillId), String.valueOf(limit)};
+            keyColumn = 8;
+        } else {
+            // 每个账单取最后一条变更：账单还在就推当前内容，已删除就按删除日志推墓碑
+            sql = "SELECT " + columns + ", d." + COLUMN_SYNC_ID + ", d." + COLUMN_VERSION + ", l." + COLUMN_BILL_ID +
+                    " FROM (SELECT " + COLUMN_BILL_ID + ", MAX(" + COLUMN_SEQ + ") AS last_seq" +
+                    " FROM " + TABLE_CHANGE_LOG + " WHERE " + COLUMN_SEQ + " > ? AND " + COLUMN_SEQ + " <= ?" +
+                    " AND " + COLUMN_BILL_ID + " > ?" +
+                    " GROUP BY " + COLUMN_BILL_ID + " ORDER BY " + COLUMN_BILL_ID + " LIMIT ?) l" +
+                    " LEFT JOIN " + TABLE_BILL + " b ON b." + COLUMN_ID + " = l." + COLUMN_BILL_ID +
+                    " LEFT JOIN " + TABLE_CHANGE_LOG + " d ON d." + COLUMN_SEQ + " = l.last_seq AND d." +
+                    COLUMN_OP + " = " + OP_DELETE +
+                    " ORDER BY l." + COLUMN_BILL_ID;
+            args = new String[]{String.valueOf(fromSeq), String.valueOf(toSeq), String.valueOf(afterBillId),
+                    String.valueOf(limit)};
+            keyColumn = 10;
+        }
+        Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().rawQuery(sql, args);
+            // 相邻账单大多同一天，日期只在变化时重新解析
+            String lastDate = null;
+            long lastEpochDay = 0;
+            while (cursor.moveToNext()) {
+                // 跳过的行也算在本页内，下一页从它之后开始
+                lastBillId = cursor.getLong(keyColumn);
+                read++;
+                if (cursor.isNull(0)) {
+                    if (fromSeq >= 0 && !cursor.isNull(8)) {
+                        changes.add(SyncChange.tombstone(cursor.getString(8), cursor.getLong(9)));
+                    }
+                    continue;
+                }
+                String date = cursor.getString(2);
+                if (!date.equals(lastDate)) {
+                    lastDate = date;
+                    lastEpochDay = EpochDays.parse(date);
+                }
+                changes.add(new SyncChange(cursor.getString(0), cursor.getLong(1), lastEpochDay, cursor.getInt(3),
+                        cursor.getString(4), Math.round(cursor.getDouble(5) * 100), cursor.getString(6),
+                        cursor.getLong(7)));
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            mProfiler.end(start, "readLocalChanges", fromSeq < 0 ? "全部" : "增量", sql, args, changes.size(), -1);
+            AppLog.endSection();
+        }
+        AppLog.d(TAG, "readLocalChanges: 序号{}~{}，账单编号>{}，共{}条", fromSeq, toSeq, afterBillId, changes.size());
+        return new SyncStore.Page(changes, lastBillId, read == limit);
+    }
+
+    @Override
+    public void commitPushed(long localSeq) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.commitPushed");
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_LOCAL_SEQ, localSeq);
+            db.update(TABLE_SYNC_STATE, values, COLUMN_ID + " = 1", null);
+            pruneChangeLog(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            mProfiler.end(start, "commitPushed", null, null, 1, -1);
+            AppLog.endSection();
+        }
+    }
+
+    @Override
+    public int applyRemoteChanges(List<SyncChange> changes, long remoteCursor) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.applyRemoteChanges");
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement update = null;
+        SQLiteStatement insert = null;
+        SQLiteStatement delete = null;
+        int applied = 0;
+        db.beginTransaction();
+        try {
+            long localSeq = loadSyncState().getLocalSeq();
+            boolean nothingPending = localSeq == queryChangeLogHead();
+            update = db.compileStatement("UPDATE " + TABLE_BILL + " SET " + COLUMN_TYPE + " = ?, " +
+                    COLUMN_AMOUNT + " = ?, " + COLUMN_BILL_TYPE + " = ?, " + COLUMN_REMARK + " = ?, " +
+                    COLUMN_DATE + " = ?, " + COLUMN_CREATE_TIME + " = ?, " + COLUMN_VERSION + " = ?" +
+                    " WHERE " + COLUMN_SYNC_ID + " = ?");
+            insert = db.compileStatement("INSERT INTO " + TABLE_BILL + " (" + COLUMN_TYPE + ", " +
+                    COLUMN_AMOUNT + ", " + COLUMN_BILL_TYPE + ", " + COLUMN_REMARK + ", " + COLUMN_DATE + ", " +
+                    COLUMN_CREATE_TIME + ", " + COLUMN_VERSION + ", " + COLUMN_SYNC_ID + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            delete = db.compileStatement("DELETE FROM " + TABLE_BILL + " WHERE " + COLUMN_SYNC_ID + " = ?");
+            for (SyncChange change : changes) {
+                if (change.isDeleted()) {
+                    delete.bindString(1, change.getSyncId());
+                    delete.executeUpdateDelete();
+                    applied++;
+                    continue;
+                }
+                bindRemoteChange(update, change);
+                if (update.executeUpdateDelete() == 0) {
+                    bindRemoteChange(insert, change);
+                    insert.executeInsert();
+                }
+                applied++;
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_REMOTE_CURSOR, remoteCursor);
+            if (nothingPending) {
+                values.put(COLUMN_LOCAL_SEQ, queryChangeLogHead());
+            }
+            db.update(TABLE_SYNC_STATE, values, COLUMN_ID + " = 1", null);
+            pruneChangeLog(db);
+            db.setTransactionSuccessful();
+            AppLog.d(TAG, "applyRemoteChanges: 应用远程变更{}条，服务器游标={}", applied, remoteCursor);
+        } finally {
+            if (update != null) {
+                update.close();
+            }
+            if (insert != null) {
+                insert.close();
+            }
+            if (delete != null) {
+                delete.close();
+            }
+            db.endTransaction();
+            mProfiler.end(start, "applyRemoteChanges", null, null, applied, -1);
+            AppLog.endSection();
+        }
+        return applied;
+    }
+
+    /**
+     * 按 type, amount, bill_type, remark, date, create_time, version, sync_id 的顺序绑定参数
+     */
+    private static void bindRemoteChange(SQLiteStatement statement, SyncChange change) {
+        statement.bindString(1, change.getCategory());
+        statement.bindDouble(2, change.getCents() / 100.0);
+        statement.bindLong(3, change.getBillType());
+        if (change.getRemark() != null) {
+            statement.bindString(4, change.getRemark());
+        } else {
+            statement.bindNull(4);
+        }
+        statement.bindString(5, EpochDays.format(change.getEpochDay()));
+        statement.bindLong(6, change.getCreateTime());
+        statement.bindLong(7, change.getVersion());
+        statement.bindString(8, change.getSyncId());
+    }
+
+    @Override
+    public BudgetStore.Snapshot loadBudgets() {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.loadBudgets");
+        SQLiteDatabase db = getReadableDatabase();
+        List<Budget.Status> statuses = new ArrayList<>();
+        String month = null;
+        long seq = -1;
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("SELECT " + COLUMN_CATEGORY + ", " + COLUMN_LIMIT_CENTS + ", " +
+                    COLUMN_WARN_PERCENT + ", " + COLUMN_SPENT_CENTS + ", " + COLUMN_ALERT_LEVEL +
+                    " FROM " + TABLE_BUDGET, null);
+            while (cursor.moveToNext()) {
+                Budget budget = new Budget(cursor.getString(0), cursor.getLong(1), cursor.getInt(2));
+                statuses.add(new Budget.Status(budget, cursor.getLong(3), cursor.getInt(4)));
+            }
+            cursor.close();
+            cursor = db.rawQuery("SELECT " + COLUMN_MONTH + ", " + COLUMN_SEQ + " FROM " +
+                    TABLE_BUDGET_CHECKPOINT + " WHERE " + COLUMN_ID + " = 1", null);
+            if (cursor.moveToFirst()) {
+                month = cursor.getString(0);
+                seq = cursor.getLong(1);
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            mProfiler.end(start, "loadBudgets", null, null, statuses.size(), -1);
+            AppLog.endSection();
+        }
+        return new BudgetStore.Snapshot(month, seq, statuses);
+    }
+
+    /**
+     * 按分类汇总一个月的支出，走 (bill_type, date, create_time) 索引
+     */
+    @Override
+    public Map<String, Long> queryMonthExpense(String month) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryMonthExpense");
+        Map<String, Long> expense = new HashMap<>();
+        String sql = "SELECT " + COLUMN_TYPE + ", SUM(" + COLUMN_AMOUNT + ") FROM " +
+                TABLE_BILL + " WHERE " + COLUMN_BILL_TYPE + " = 0 AND " + COLUMN_DATE + " BETWEEN ? AND ?" +
+                " GROUP BY " + COLUMN_TYPE;
+        String[] args = {month + "-01", month + "-31"};
+        Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().rawQuery(sql, args);
+            while (cursor.moveToNext()) {
+                expense.put(cursor.getString(0), Math.round(cursor.getDouble(1) * 100));
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            mProfiler.end(start, "queryMonthExpense", sql, args, expense.size(), -1);
+            AppLog.endSection();
+        }
+        return expense;
+    }
+
+    @Override
+    public void saveBudget(Budget budget) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_CATEGORY, budget.getCategory());
+        values.put(COLUMN_LIMIT_CENTS, budget.getLimitCents());
+        values.put(COLUMN_WARN_PERCENT, budget.getWarnPercent());
+        getWritableDatabase().insertWithOnConflict(TABLE_BUDGET, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        AppLog.d(TAG, "saveBudget: 保存预算，分类={}，金额={}", budget.getCategory(), budget.getLimitCents());
+    }
+
+    @Override
+    public void deleteBudget(String category) {
+        getWritableDatabase().delete(TABLE_BUDGET, COLUMN_CATEGORY + " = ?", new String[]{category});
+    }
+
+    @Override
+    public void saveBudgetTotals(String month, long seq, Collection<Budget.Status> changed) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.saveBudgetTotals");
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement update = null;
+        db.beginTransaction();
+        try {
+            update = db.compileStatement("UPDATE " + TABLE_BUDGET + " SET " + COLUMN_SPENT_CENTS + " = ?, " +
+                    COLUMN_ALERT_LEVEL + " = ? WHERE " + COLUMN_CATEGORY + " = ?");
+            for (Budget.Status status : changed) {
+                update.bindLong(1, status.getSpentCents());
+                update.bindLong(2, status.getLevel());
+                update.bindString(3, status.getBudget().getCategory());
+                update.executeUpdateDelete();
+            }
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_ID, 1);
+            values.put(COLUMN_MONTH, month);
+            values.put(COLUMN_SEQ, seq);
+            db.insertWithOnConflict(TABLE_BUDGET_CHECKPOINT, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            db.setTransactionSuccessful();
+        } finally {
+            if (update != null) {
+                update.close();
+            }
+            db.endTransaction();
+            mProfiler.end(start, "saveBudgetTotals", null, null, changed.size(), -1);
+            AppLog.endSection();
+        }
+    }
+
+    @Override
+    public RecurringStore.State loadRecurringState() {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.loadRecurringState");
+        SQLiteDatabase db = getReadableDatabase();
+        List<RecurringDetector.Series> series = new ArrayList<>();
+        long watermark = 0;
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("SELECT " + COLUMN_BILL_ID + " FROM " + TABLE_RECURRING_CHECKPOINT +
+                    " WHERE " + COLUMN_ID + " = 1", null);
+            if (cursor.moveToFirst()) {
+                watermark = cursor.getLong(0);
+            }
+            cursor.close();
+            cursor = db.rawQuery("SELECT " + COLUMN_BILL_TYPE + ", " + COLUMN_CATEGORY + ", " + COLUMN_CENTS + ", " +
+                    COLUMN_LAST_CENTS + ", " + COLUMN_DAYS + ", " + COLUMN_OCCURRENCES + ", " + COLUMN_DISMISSED_DAY +
+                    " FROM " + TABLE_RECURRING_SERIES, null);
+            while (cursor.moveToNext()) {
+                String[] parts = cursor.getString(4).split(",");
+                long[] days = new long[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    days[i] = Long.parseLong(parts[i]);
+                }
+                series.add(new RecurringDetector.Series(cursor.getString(1), cursor.getInt(0), cursor.getLong(2),
+                        cursor.getLong(3), days, cursor.getInt(5), cursor.getLong(6)));
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            mProfiler.end(start, "loadRecurringState", null, null, series.size(), -1);
+            AppLog.endSection();
+        }
+        AppLog.d(TAG, "loadRecurringState: 水位={}，序列{}个", watermark, series.size());
+        return new RecurringStore.State(watermark, series);
+    }
+
+    /**
+     * 按编号顺序读取水位之后新增的账单，走主键范围扫描
+     */
+    @Override
+    public List<Bill> queryBillsAfter(long afterId, int limit) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryBillsAfter");
+        List<Bill> billList = new ArrayList<>();
+        String sql = "SELECT " + COLUMN_ID + ", " + COLUMN_TYPE + ", " +
+                COLUMN_AMOUNT + ", " + COLUMN_BILL_TYPE + ", " + COLUMN_REMARK + ", " + COLUMN_DATE + ", " +
+                COLUMN_CREATE_TIME + " FROM " + TABLE_BILL + " WHERE " + COLUMN_ID + " > ? ORDER BY " +
+                COLUMN_ID + " LIMIT ?";
+        String[] args = {String.valueOf(afterId), String.valueOf(limit)};
+        Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().rawQuery(sql, args);
+            while (cursor.moveToNext()) {
+                Bill bill = new Bill();
+                bill.setId(cursor.getInt(0));
+                bill.setType(cursor.getString(1));
+                bill.setAmount(cursor.getDouble(2));
+                bill.setBillType(cursor.getInt(3));
+                bill.setRemark(cursor.getString(4));
+                bill.setDate(cursor.getString(5));
+                bill.setCreateTime(cursor.getLong(6));
+                billList.add(bill);
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            mProfiler.end(start, "queryBillsAfter", sql, args, billList.size(), -1);
+            AppLog.endSection();
+        }
+        return billList;
+    }
+
+    @Override
+    public void saveRecurringState(long watermark, Collection<RecurringDetector.Series> changed,
+                                   Collection<RecurringDetector.Series> removed) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.saveRecurringState");
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement upsert = null;
+        SQLiteStatement delete = null;
+        db.beginTransaction();
+        try {
+            // 先删后写：同一批里淘汰后又以相同金额新建的序列不能被删掉
+            delete = db.compileStatement("DELETE FROM " + TABLE_RECURRING_SERIES + " WHERE " + COLUMN_BILL_TYPE +
+                    " = ? AND " + COLUMN_CATEGORY + " = ? AND " + COLUMN_CENTS + " = ?");
+            for (RecurringDetector.Series series : removed) {
+                delete.bindLong(1, series.getBillType());
+                delete.bindString(2, series.getCategory());
+                delete.bindLong(3, series.getCents());
+                delete.executeUpdateDelete();
+            }
+            upsert = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_RECURRING_SERIES + " (" +
+                    COLUMN_BILL_TYPE + ", " + COLUMN_CATEGORY + ", " + COLUMN_CENTS + ", " + COLUMN_LAST_CENTS + ", " +
+                    COLUMN_DAYS + ", " + COLUMN_OCCURRENCES + ", " + COLUMN_DISMISSED_DAY + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+            for (RecurringDetector.Series series : changed) {
+                StringBuilder days = new StringBuilder();
+                for (long day : series.getDays()) {
+                    if (days.length() > 0) {
+                        days.append(',');
+                    }
+                    days.append(day);
+                }
+                upsert.bindLong(1, series.getBillType());
+                upsert.bindString(2, series.getCategory());
+                upsert.bindLong(3, series.getCents());
+                upsert.bindLong(4, series.getLastCents());
+                upsert.bindString(5, days.toString());
+                upsert.bindLong(6, series.getOccurrences());
+                upsert.bindLong(7, series.getDismissedDay());
+                upsert.executeInsert();
+            }
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_ID, 1);
+            values.put(COLUMN_BILL_ID, watermark);
+            db.insertWithOnConflict(TABLE_RECURRING_CHECKPOINT, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            db.setTransactionSuccessful();
+        } finally {
+            if (upsert != null) {
+                upsert.close();
+            }
+            if (delete != null) {
+                delete.close();
+            }
+            db.endTransaction();
+            mProfiler.end(start, "saveRecurringState", null, null, changed.size() + removed.size(), -1);
+            AppLog.endSection();
+        }
+    }
+
+    /**
+     * 计算当前账本的摘要
+     * <p>
+     * 先在写事务里重算被标记为脏的月份（每月一次索引范围扫描），再读出全部月摘要组成Merkle树。
+     * 没有写入时只读取每月一行，十年账本也只有约120行。
+     * </p>
+     * @return 账本摘要
+     */
+    public LedgerDigest queryLedgerDigest() {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryLedgerDigest");
+        SQLiteDatabase db = getWritableDatabase();
+        LedgerDigest.Builder builder = new LedgerDigest.Builder();
+        Cursor cursor = null;
+        int months = 0;
+        db.beginTransaction();
+        try {
+            int refreshed = refreshDirtyMonths(db);
+            cursor = db.rawQuery("SELECT " + COLUMN_MONTH + ", " + COLUMN_DIGEST + ", " + COLUMN_BILL_COUNT +
+                    " FROM " + TABLE_MONTH_DIGEST, null);
+            while (cursor.moveToNext()) {
+                builder.addMonth(cursor.getString(0), cursor.getLong(1), cursor.getInt(2));
+                months++;
+            }
+            db.setTransactionSuccessful();
+            if (refreshed > 0) {
+                AppLog.d(TAG, "queryLedgerDigest: 重算{}个月的摘要", refreshed);
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            db.endTransaction();
+            mProfiler.end(start, "queryLedgerDigest", null, null, months, -1);
+            AppLog.endSection();
+        }
+        return builder.build();
+    }
+
+    /**
+     * 重算所有脏月份的摘要，调用方负责开启事务
+     * @return 重算的月份数
+     */
+    private int refreshDirtyMonths(SQLiteDatabase db) {
+        List<String> months = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_MONTH + " FROM " + TABLE_MONTH_DIGEST +
+                " WHERE " + COLUMN_DIRTY + " = 1", null);
+        try {
+            while (cursor.moveToNext()) {
+                months.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        if (months.isEmpty()) {
+            return 0;
+        }
+
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_MONTH_DIGEST + " SET " +
+                COLUMN_DIGEST + " = ?, " + COLUMN_BILL_COUNT + " = ?, " + COLUMN_DIRTY + " = 0" +
+                " WHERE " + COLUMN_MONTH + " = ?");
+        try {
+            for (String month : months) {
+                // 按日期范围走 idx_bill_date_time 索引
+                Cursor rows = db.rawQuery("SELECT " + COLUMN_DATE + ", " + COLUMN_BILL_TYPE + ", " + COLUMN_TYPE + ", " +
+                        COLUMN_AMOUNT + ", " + COLUMN_REMARK + ", " + COLUMN_CREATE_TIME + " FROM " + TABLE_BILL +
+                        " WHERE " + COLUMN_DATE + " >= ? AND " + COLUMN_DATE + " <= ?",
+                        new String[]{month + "-01", month + "-31"});
+                long digest = 0;
+                int count = 0;
+                try {
+                    String lastDate = null;
+                    long epochDay = 0;
+                    while (rows.moveToNext()) {
+                        String date = rows.getString(0);
+                        if (!date.equals(lastDate)) {
+                            lastDate = date;
+                            epochDay = EpochDays.parse(date);
+                        }
+                        digest += LedgerDigest.rowHash(epochDay, rows.getInt(1), rows.getString(2),
+                                Math.round(rows.getDouble(3) * 100), rows.getString(4), rows.getLong(5));
+                        count++;
+                    }
+                } finally {
+                    rows.close();
+                }
+                if (count == 0) {
+                    db.delete(TABLE_MONTH_DIGEST, COLUMN_MONTH + " = ?", new String[]{month});
+                } else {
+                    update.bindLong(1, digest);
+                    update.bindLong(2, count);
+                    update.bindString(3, month);
+                    update.executeUpdateDelete();
+                }
+            }
+        } finally {
+            update.close();
+        }
+        return months.size();
+    }
+
+    /**
+     * 把待刷新队列中的账单写入全文索引
+     * 单条增删改只积累几行，搜索前顺手刷新；导入、恢复之后由后台预先刷新
+     * @return 刷新的账单数
+     */
+    public int refreshSearchIndex() {
+        SQLiteDatabase db = getWritableDatabase();
+        if (DatabaseUtils.queryNumEntries(db, TABLE_SEARCH_PENDING) == 0) {
+            return 0;
+        }
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.refreshSearchIndex");
+        int refreshed = 0;
+        Cursor cursor = null;
+        SQLiteStatement delete = null;
+        SQLiteStatement insert = null;
+        db.beginTransaction();
+        try {
+            // 已删除的账单连接不到账单表，只从索引中删除
+            cursor = db.rawQuery("SELECT p." + COLUMN_BILL_ID + ", b." + COLUMN_TYPE + ", b." + COLUMN_REMARK +
+                    " FROM " + TABLE_SEARCH_PENDING + " p LEFT JOIN " + TABLE_BILL + " b ON b." + COLUMN_ID +
+                    " = p." + COLUMN_BILL_ID, null);
+            delete = db.compileStatement("DELETE FROM " + TABLE_SEARCH + " WHERE docid = ?");
+            insert = db.compileStatement("INSERT INTO " + TABLE_SEARCH + "(docid, " + COLUMN_CATEGORY + ", " +
+                    COLUMN_REMARK + ") VALUES (?, ?, ?)");
+            while (cursor.moveToNext()) {
+                long billId = cursor.getLong(0);
+                delete.bindLong(1, billId);
+                delete.executeUpdateDelete();
+                if (!cursor.isNull(1)) {
+                    insert.bindLong(1, billId);
+                    insert.bindString(2, BillSearch.tokenize(cursor.getString(1)));
+                    insert.bindString(3, BillSearch.tokenize(cursor.getString(2)));
+                    insert.executeInsert();
+                }
+                refreshed++;
+            }
+            db.delete(TABLE_SEARCH_PENDING, null, null);
+            db.setTransactionSuccessful();
+            AppLog.d(TAG, "refreshSearchIndex: 刷新全文索引{}条", refreshed);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            if (delete != null) {
+                delete.close();
+            }
+            if (insert != null) {
+                insert.close();
+            }
+            db.endTransaction();
+            mProfiler.end(start, "refreshSearchIndex", null, null, refreshed, -1);
+            AppLog.endSection();
+        }
+        return refreshed;
+    }
+
+    /**
+     * 按分类和备注全文搜索账单
+     * <p>
+     * 先按账单编号倒序从全文索引取出结果上限几倍的候选（倒排表本身按编号有序，
+     * 遇到 LIMIT 即停止，不会为常见字取出全部命中行），再按命中分类/备注的加权次数排序，
+     * 相关度相同的按日期从新到旧。指定收支类型时在取候选时就过滤，候选数不会因另一类账单而不足。
+     * </p>
+     * @param keyword 用户输入的关键字
+     * @param billType 账单类型：-1=全部，0=支出，1=收入
+     * @param limit 最多返回条数
+     * @param signal 取消信号，输入变化后取消正在执行的查询，可为null
+     * @return 按相关度排序的账单，关键字中没有可搜索的文字时返回空列表
+     */
+    public List<Bill> searchBills(String keyword, int billType, int limit, CancellationSignal signal) {
+        List<Bill> billList = new ArrayList<>();
+        String match = BillSearch.toMatchQuery(keyword);
+        if (match == null) {
+            return billList;
+        }
+        refreshSearchIndex();
+
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.searchBills");
+        List<String> args = new ArrayList<>();
+        args.add(match);
+        StringBuilder sql = new StringBuilder("SELECT b." + COLUMN_ID + ", b." + COLUMN_TYPE + ", b." + COLUMN_AMOUNT +
+                ", b." + COLUMN_BILL_TYPE + ", b." + COLUMN_REMARK + ", b." + COLUMN_DATE + ", b." + COLUMN_CREATE_TIME +
+                ", c.mi FROM (SELECT docid, matchinfo(" + TABLE_SEARCH + ", 'pcy') AS mi FROM " + TABLE_SEARCH +
+                " WHERE " + TABLE_SEARCH + " MATCH ?");
+        if (billType >= 0) {
+            // 收支类型在候选子查询里按主键逐行判断，LIMIT 只计符合类型的候选，不会被另一类账单占满
+            sql.append(" AND EXISTS (SELECT 1 FROM ").append(TABLE_BILL).append(" t WHERE t.").append(COLUMN_ID)
+                    .append(" = docid AND t.").append(COLUMN_BILL_TYPE).append(" = ?)");
+            args.add(String.valueOf(billType));
+        }
+        sql.append(" ORDER BY docid DESC LIMIT ?) c JOIN ").append(TABLE_BILL).append(" b ON b.").append(COLUMN_ID)
+                .append(" = c.docid");
+        args.add(String.valueOf(limit * SEARCH_CANDIDATE_FACTOR));
+
+        List<int[]> scores = new ArrayList<>();
+        String[] selectArgs = args.toArray(new String[0]);
+        Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().rawQuery(sql.toString(), selectArgs, signal);
+            while (cursor.moveToNext()) {
+                Bill bill = new Bill();
+                bill.setId(cursor.getInt(0));
+                bill.setType(cursor.getString(1));
+                bill.setAmount(cursor.getDouble(2));
+                bill.setBillType(cursor.getInt(3));
+                bill.setRemark(cursor.getString(4));
+                bill.setDate(cursor.getString(5));
+                bill.setCreateTime(cursor.getLong(6));
+                scores.add(new int[]{BillSearch.score(cursor.getBlob(7)), billList.size()});
+                billList.add(bill);
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            mProfiler.end(start, "searchBills", sql.toString(), selectArgs, billList.size(), -1);
+            AppLog.endSection();
+        }
+
+        Collections.sort(scores, (a, b) -> {
+            if (a[0] != b[0]) {
+                return Integer.compare(b[0], a[0]);
+            }
+            Bill x = billList.get(a[1]);
+            Bill y = billList.get(b[1]);
+            int byDate = y.getDate().compareTo(x.getDate());
+            if (byDate != 0) {
+                return byDate;
+            }
+            return Long.compare(y.getCreateTime(), x.getCreateTime());
+        });
+        List<Bill> result = new ArrayList<>(Math.min(limit, scores.size()));
+        for (int i = 0; i < scores.size() && i < limit; i++) {
+            result.add(billList.get(scores.get(i)[1]));
+        }
+        AppLog.d(TAG, "searchBills: 关键字={}，候选{}条，返回{}条", keyword, billList.size(), result.size());
+        return result;
+    }
+
+    /**
+     * 按组合条件查询账单
+     * <p>
+     * 条件由 {@link BillQueryCompiler} 编译成一条带参数的 SQL，同一形状的条件复用同一段 SQL 文本。
+     * 带备注关键字时先刷新全文索引。
+     * </p>
+     * @param filter 查询条件
+     * @return 账单列表，按条件中的排序
+     */
+    public List<Bill> queryBills(BillFilter filter) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryBills");
+        List<Bill> billList = new ArrayList<>();
+        BillQueryCompiler.CompiledQuery query = mQueryCompiler.compile(filter);
+        Cursor cursor = null;
+        try {
+            if (filter.getRemarkKeyword() != null) {
+                refreshSearchIndex();
+            }
+            cursor = getReadableDatabase().rawQuery(query.getSql(), query.getArgs());
+            while (cursor.moveToNext()) {
+                Bill bill = new Bill();
+                bill.setId(cursor.getInt(0));
+                bill.setType(cursor.getString(1));
+                bill.setAmount(cursor.getDouble(2));
+                bill.setBillType(cursor.getInt(3));
+                bill.setRemark(cursor.getString(4));
+                bill.setDate(cursor.getString(5));
+                bill.setCreateTime(cursor.getLong(6));
+                billList.add(bill);
+            }
+        } catch (Exception e) {
+            AppLog.e(TAG, "queryBills: 组合查询失败: {}", e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            mProfiler.end(start, "queryBills", query.getShape(), query.getSql(), query.getArgs(), billList.size(), -1);
+            AppLog.endSection();
+        }
+        return billList;
+    }
+
+    /**
+     * 组合查询的执行计划，供测试检查每种形状都走索引
+     * @param filter 查询条件
+     * @return EXPLAIN QUERY PLAN 每一行的 detail 列
+     */
+    List<String> explainQueryPlan(BillFilter filter) {
+        BillQueryCompiler.CompiledQuery query = mQueryCompiler.compile(filter);
+        return explainQueryPlan(query.getSql(), query.getArgs());
+    }
+
+    /**
+     * 一条 SQL 的执行计划，慢查询记录时由 {@link QueryProfiler} 调用
+     * @param sql 查询语句
+     * @param args 参数，可为null
+     * @return EXPLAIN QUERY PLAN 每一行的 detail 列
+     */
+    List<String> explainQueryPlan(String sql, String[] args) {
+        List<String> plan = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        try {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
             }
-            Log.d(TAG, "queryAllBill: 查询完成，共" + billList.size() + "条记录");
-        } catch (Exception e) {
-            Log.e(TAG, "queryAllBill: 查询所有账单失败: " + e.getMessage());
         } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
+            cursor.close();
         }
-        return billList;
+        return plan;
     }
 
     /**
-     * 按账单类型查询账单
-     * @param billType 0=支出，1=收入
+     * 查询所有账单，按创建时间倒序排列
      * @return 账单列表
      */
-    public List<Bill> queryBillByType(int billType) {
+    public List<Bill> queryAllBill() {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryAllBill");
         List<Bill> billList = new ArrayList<>();
         SQLiteDatabase db = null;
         Cursor cursor = null;
+        // 查询所有账单，按创建时间倒序排列
+        String selectQuery = "SELECT * FROM " + TABLE_BILL + " ORDER BY " + COLUMN_CREATE_TIME + " DESC";
 
         try {
+            AppLog.d(TAG, "queryAllBill: 开始查询所有账单");
             // 获取可读数据库
             db = this.getReadableDatabase();
 
-            // 查询指定类型的账单，按创建时间倒序排列
-            String selectQuery = "SELECT * FROM " + TABLE_BILL + " WHERE " + COLUMN_BILL_TYPE + " = ? ORDER BY " + COLUMN_CREATE_TIME + " DESC";
-            cursor = db.rawQuery(selectQuery, new String[]{String.valueOf(billType)});
+            cursor = db.rawQuery(selectQuery, null);
 
             // 遍历查询结果
             if (cursor.moveToFirst()) {
@@ -198,246 +1537,437 @@ public class BillDbHelper extends SQLiteOpenHelper {
                     billList.add(bill);
                 } while (cursor.moveToNext());
             }
+            AppLog.d(TAG, "queryAllBill: 查询完成，共{}条记录", billList.size());
         } catch (Exception e) {
-            Log.e("BillDbHelper", "按类型查询账单失败: " + e.getMessage());
+            AppLog.e(TAG, "queryAllBill: 查询所有账单失败: {}", e.getMessage());
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
+            mProfiler.end(start, "queryAllBill", selectQuery, null, billList.size(), -1);
+            AppLog.endSection();
         }
         return billList;
     }
 
     /**
-     * 查询今日账单
-     * @param todayDate 今日日期，格式：yyyy-MM-dd
+     * 按账单类型查询账单
+     * @param billType 0=支出，1=收入
      * @return 账单列表
      */
-    public List<Bill> queryTodayBill(String todayDate) {
-        List<Bill> billList = new ArrayList<>();
+    public List<Bill> queryBillByType(int billType) {
+        return queryBills(new BillFilter.Builder().billType(billType).build());
+    }
+
+    /**
+     * 按日期分组分页查询账单，并附带每日收支小计
+     * <p>
+     * 先用 page 子查询按 (date, create_time, id) 键集取出一页账单，
+     * 再只对这一页涉及的日期做 GROUP BY 求和，小计与分页走同一组索引，
+     * 不会为了分组头再扫描整张表。结果在遍历游标时插入日期分组头。
+     * </p>
+     * @param billType 账单类型：-1=全部，0=支出，1=收入
+     * @param afterBill 上一页最后一条账单，为null时从第一页开始
+     * @param pageSize 每页条数
+     * @return 带分组头的列表项，分组头与上一页最后日期相同时不再重复插入
+     */
+    public List<BillListItem> queryBillPageWithDayTotals(int billType, Bill afterBill, int pageSize) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryBillPageWithDayTotals");
+        List<BillListItem> itemList = new ArrayList<>();
         SQLiteDatabase db = null;
         Cursor cursor = null;
+        String selectQuery = null;
+        String[] selectArgs = null;
+        int bills = 0;
 
         try {
-            // 获取可读数据库
+            AppLog.d(TAG, "queryBillPageWithDayTotals: 开始分页查询，类型={}，每页={}", billType, pageSize);
             db = this.getReadableDatabase();
 
-            // 查询今日账单
-            String selectQuery = "SELECT * FROM " + TABLE_BILL + " WHERE " + COLUMN_DATE + " = ?";
-            // 占位符 ? 只用于「字段值」，不能用于表名、字段名、SQL 关键字
-            cursor = db.rawQuery(selectQuery, new String[]{todayDate});
-
-            // 遍历查询结果
-            if (cursor.moveToFirst()) {
-                do {
-                    // 创建Bill对象
-                    Bill bill = new Bill();
-                    bill.setId(cursor.getInt(cursor.getColumnIndex(COLUMN_ID)));
-                    bill.setType(cursor.getString(cursor.getColumnIndex(COLUMN_TYPE)));
-                    bill.setAmount(cursor.getDouble(cursor.getColumnIndex(COLUMN_AMOUNT)));
-                    bill.setBillType(cursor.getInt(cursor.getColumnIndex(COLUMN_BILL_TYPE)));
-                    bill.setRemark(cursor.getString(cursor.getColumnIndex(COLUMN_REMARK)));
-                    bill.setDate(cursor.getString(cursor.getColumnIndex(COLUMN_DATE)));
-                    bill.setCreateTime(cursor.getLong(cursor.getColumnIndex(COLUMN_CREATE_TIME)));
-
-                    // 添加到列表中
-                    billList.add(bill);
-                } while (cursor.moveToNext());
+            List<String> args = new ArrayList<>();
+            StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+            if (billType >= 0) {
+                where.append(" AND ").append(COLUMN_BILL_TYPE).append(" = ?");
+                args.add(String.valueOf(billType));
+            }
+            if (afterBill != null) {
+                // 键集分页：排在上一页最后一条之后的记录
+                where.append(" AND (").append(COLUMN_DATE).append(" < ? OR (")
+                        .append(COLUMN_DATE).append(" = ? AND (")
+                        .append(COLUMN_CREATE_TIME).append(" < ? OR (")
+                        .append(COLUMN_CREATE_TIME).append(" = ? AND ")
+                        .append(COLUMN_ID).append(" < ?))))");
+                args.add(afterBill.getDate());
+                args.add(afterBill.getDate());
+                args.add(String.valueOf(afterBill.getCreateTime()));
+                args.add(String.valueOf(afterBill.getCreateTime()));
+                args.add(String.valueOf(afterBill.getId()));
+            }
+            args.add(String.valueOf(pageSize));
+
+            String order = " ORDER BY " + COLUMN_DATE + " DESC, " + COLUMN_CREATE_TIME + " DESC, " + COLUMN_ID + " DESC";
+            selectQuery = "WITH page AS (SELECT * FROM " + TABLE_BILL + where + order + " LIMIT ?) " +
+                    "SELECT page.*, totals." + COLUMN_DAY_INCOME + ", totals." + COLUMN_DAY_EXPENSE +
+                    " FROM page JOIN (SELECT " + COLUMN_DATE + "," +
+                    " SUM(CASE WHEN " + COLUMN_BILL_TYPE + " = 1 THEN " + COLUMN_AMOUNT + " ELSE 0 END) AS " + COLUMN_DAY_INCOME + "," +
+                    " SUM(CASE WHEN " + COLUMN_BILL_TYPE + " = 1 THEN 0 ELSE " + COLUMN_AMOUNT + " END) AS " + COLUMN_DAY_EXPENSE +
+                    " FROM " + TABLE_BILL +
+                    " WHERE " + COLUMN_DATE + " IN (SELECT " + COLUMN_DATE + " FROM page)" +
+                    " GROUP BY " + COLUMN_DATE + ") totals ON page." + COLUMN_DATE + " = totals." + COLUMN_DATE +
+                    " ORDER BY page." + COLUMN_DATE + " DESC, page." + COLUMN_CREATE_TIME + " DESC, page." + COLUMN_ID + " DESC";
+            selectArgs = args.toArray(new String[0]);
+            cursor = db.rawQuery(selectQuery, selectArgs);
+
+            // 列索引只解析一次，避免每行重复查找
+            int idIndex = cursor.getColumnIndex(COLUMN_ID);
+            int typeIndex = cursor.getColumnIndex(COLUMN_TYPE);
+            int amountIndex = cursor.getColumnIndex(COLUMN_AMOUNT);
+            int billTypeIndex = cursor.getColumnIndex(COLUMN_BILL_TYPE);
+            int remarkIndex = cursor.getColumnIndex(COLUMN_REMARK);
+            int dateIndex = cursor.getColumnIndex(COLUMN_DATE);
+            int createTimeIndex = cursor.getColumnIndex(COLUMN_CREATE_TIME);
+            int dayIncomeIndex = cursor.getColumnIndex(COLUMN_DAY_INCOME);
+            int dayExpenseIndex = cursor.getColumnIndex(COLUMN_DAY_EXPENSE);
+
+            String lastDate = afterBill != null ? afterBill.getDate() : null;
+            while (cursor.moveToNext()) {
+                Bill bill = new Bill();
+                bill.setId(cursor.getInt(idIndex));
+                bill.setType(cursor.getString(typeIndex));
+                bill.setAmount(cursor.getDouble(amountIndex));
+                bill.setBillType(cursor.getInt(billTypeIndex));
+                bill.setRemark(cursor.getString(remarkIndex));
+                bill.setDate(cursor.getString(dateIndex));
+                bill.setCreateTime(cursor.getLong(createTimeIndex));
+
+                // 日期变化时插入分组头，小计直接取自同一行
+                if (!bill.getDate().equals(lastDate)) {
+                    itemList.add(BillListItem.header(bill.getDate(),
+                            cursor.getDouble(dayIncomeIndex), cursor.getDouble(dayExpenseIndex)));
+                    lastDate = bill.getDate();
+                }
+                itemList.add(BillListItem.bill(bill));
+                bills++;
             }
+            AppLog.d(TAG, "queryBillPageWithDayTotals: 查询完成，共{}个列表项", itemList.size());
         } catch (Exception e) {
-            Log.e("BillDbHelper", "查询今日账单失败: " + e.getMessage());
+            AppLog.e(TAG, "queryBillPageWithDayTotals: 分页查询账单失败: {}", e.getMessage());
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
+            mProfiler.end(start, "queryBillPageWithDayTotals", afterBill == null ? "首页" : "续页",
+                    selectQuery, selectArgs, bills, -1);
+            AppLog.endSection();
         }
-        return billList;
+        return itemList;
     }
 
     /**
-     * 查询本月账单
+     * 按天汇总指定月份的收支，一次 GROUP BY date 查询得到整月热力图数据
      * @param month 月份，格式：yyyy-MM
-     * @return 账单列表
+     * @return 月历数据（不含账单明细）
      */
-    public List<Bill> queryMonthBill(String month) {
-        List<Bill> billList = new ArrayList<>();
+    public MonthCalendarData queryMonthDailyTotals(String month) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryMonthDailyTotals");
+        MonthCalendarData data = new MonthCalendarData(month);
         SQLiteDatabase db = null;
         Cursor cursor = null;
+        String selectQuery = null;
+        String[] selectArgs = {month + "-01", month + "-31"};
+        int days = 0;
+        long scanned = 0;
 
         try {
-            // 获取可读数据库
+            AppLog.d(TAG, "queryMonthDailyTotals: 开始按天汇总，月份={}", month);
             db = this.getReadableDatabase();
 
-            // 查询本月账单（使用 LIKE 查询匹配月份前缀）
-            String selectQuery = "SELECT * FROM " + TABLE_BILL + " WHERE " + COLUMN_DATE + " LIKE ?";
-            cursor = db.rawQuery(selectQuery, new String[]{month + "%"});
-
-            // 遍历查询结果
-            if (cursor.moveToFirst()) {
-                do {
-                    // 创建Bill对象
-                    Bill bill = new Bill();
-                    bill.setId(cursor.getInt(cursor.getColumnIndex(COLUMN_ID)));
-                    bill.setType(cursor.getString(cursor.getColumnIndex(COLUMN_TYPE)));
-                    bill.setAmount(cursor.getDouble(cursor.getColumnIndex(COLUMN_AMOUNT)));
-                    bill.setBillType(cursor.getInt(cursor.getColumnIndex(COLUMN_BILL_TYPE)));
-                    bill.setRemark(cursor.getString(cursor.getColumnIndex(COLUMN_REMARK)));
-                    bill.setDate(cursor.getString(cursor.getColumnIndex(COLUMN_DATE)));
-                    bill.setCreateTime(cursor.getLong(cursor.getColumnIndex(COLUMN_CREATE_TIME)));
-
-                    // 添加到列表中
-                    billList.add(bill);
-                } while (cursor.moveToNext());
+            // 使用日期范围而不是 LIKE，确保命中 date 索引
+            selectQuery = "SELECT " + COLUMN_DATE + "," +
+                    " SUM(CASE WHEN " + COLUMN_BILL_TYPE + " = 1 THEN " + COLUMN_AMOUNT + " ELSE 0 END) AS " + COLUMN_DAY_INCOME + "," +
+                    " SUM(CASE WHEN " + COLUMN_BILL_TYPE + " = 1 THEN 0 ELSE " + COLUMN_AMOUNT + " END) AS " + COLUMN_DAY_EXPENSE + "," +
+                    " COUNT(*) AS bill_count" +
+                    " FROM " + TABLE_BILL +
+                    " WHERE " + COLUMN_DATE + " >= ? AND " + COLUMN_DATE + " <= ?" +
+                    " GROUP BY " + COLUMN_DATE;
+            cursor = db.rawQuery(selectQuery, selectArgs);
+
+            int dateIndex = cursor.getColumnIndex(COLUMN_DATE);
+            int incomeIndex = cursor.getColumnIndex(COLUMN_DAY_INCOME);
+            int expenseIndex = cursor.getColumnIndex(COLUMN_DAY_EXPENSE);
+            int countIndex = cursor.getColumnIndex("bill_count");
+            while (cursor.moveToNext()) {
+                String date = cursor.getString(dateIndex);
+                int day = Integer.parseInt(date.substring(8, 10));
+                data.setDayTotals(day, cursor.getDouble(incomeIndex), cursor.getDouble(expenseIndex), cursor.getInt(countIndex));
+                days++;
+                scanned += cursor.getInt(countIndex);
             }
+            AppLog.d(TAG, "queryMonthDailyTotals: 汇总完成，月份={}", month);
         } catch (Exception e) {
-            Log.e("BillDbHelper", "查询本月账单失败: " + e.getMessage());
+            AppLog.e(TAG, "queryMonthDailyTotals: 按天汇总失败: {}", e.getMessage());
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
+            mProfiler.end(start, "queryMonthDailyTotals", selectQuery, selectArgs, days, scanned);
+            AppLog.endSection();
         }
-        return billList;
+        return data;
     }
 
     /**
-     * 查询指定年份的账单
-     * @param year 年份字符串（yyyy格式）
-     * @return 账单列表
+     * 查询区间内每天的收入或支出合计
+     * @param range 统计区间
+     * @param billType 账单类型（0=支出，1=收入）
+     * @return 按日趋势，没有账单的日期为0
      */
-    public List<Bill> queryYearBill(String year) {
-        List<Bill> billList = new ArrayList<>();
+    public DailyTrend queryDailyTotals(DateRange range, int billType) {
+        String startDate = range.getStartDate();
+        String endDate = range.getEndDate();
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryDailyTotals");
+        DailyTrend trend = new DailyTrend(range.getStartEpochDay(), range.getDays());
         SQLiteDatabase db = null;
         Cursor cursor = null;
+        String selectQuery = null;
+        String[] selectArgs = {String.valueOf(billType), startDate, endDate};
+        int days = 0;
 
         try {
-            Log.d(TAG, "queryYearBill: 开始查询年份账单，年份=" + year);
+            AppLog.d(TAG, "queryDailyTotals: 开始查询按日合计，开始={}，结束={}，类型={}", startDate, endDate, billType);
             db = this.getReadableDatabase();
 
-            String selectQuery = "SELECT * FROM " + TABLE_BILL + " WHERE " + COLUMN_DATE + " LIKE ?";
-            cursor = db.rawQuery(selectQuery, new String[]{year + "%"});
-
-            if (cursor.moveToFirst()) {
-                do {
-                    Bill bill = new Bill();
-                    bill.setId(cursor.getInt(cursor.getColumnIndex(COLUMN_ID)));
-                    bill.setType(cursor.getString(cursor.getColumnIndex(COLUMN_TYPE)));
-                    bill.setAmount(cursor.getDouble(cursor.getColumnIndex(COLUMN_AMOUNT)));
-                    bill.setBillType(cursor.getInt(cursor.getColumnIndex(COLUMN_BILL_TYPE)));
-                    bill.setRemark(cursor.getString(cursor.getColumnIndex(COLUMN_REMARK)));
-                    bill.setDate(cursor.getString(cursor.getColumnIndex(COLUMN_DATE)));
-                    bill.setCreateTime(cursor.getLong(cursor.getColumnIndex(COLUMN_CREATE_TIME)));
-
-                    billList.add(bill);
-                } while (cursor.moveToNext());
+            selectQuery = "SELECT " + COLUMN_DATE + ", SUM(" + COLUMN_AMOUNT + ") AS total_amount" +
+                    " FROM " + TABLE_BILL +
+                    " WHERE " + COLUMN_BILL_TYPE + " = ? AND " + COLUMN_DATE + " >= ? AND " + COLUMN_DATE + " <= ?" +
+                    " GROUP BY " + COLUMN_DATE;
+            cursor = db.rawQuery(selectQuery, selectArgs);
+
+            int dateIndex = cursor.getColumnIndex(COLUMN_DATE);
+            int totalIndex = cursor.getColumnIndex("total_amount");
+            while (cursor.moveToNext()) {
+                trend.setValue(EpochDays.parse(cursor.getString(dateIndex)), cursor.getDouble(totalIndex));
+                days++;
             }
-            Log.d(TAG, "queryYearBill: 查询完成，共" + billList.size() + "条记录");
+            AppLog.d(TAG, "queryDailyTotals: 查询完成，共{}天", trend.size());
         } catch (Exception e) {
-            Log.e(TAG, "queryYearBill: 查询年份账单失败: " + e.getMessage());
+            AppLog.e(TAG, "queryDailyTotals: 查询按日合计失败: {}", e.getMessage());
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
+            mProfiler.end(start, "queryDailyTotals", selectQuery, selectArgs, days, -1);
+            AppLog.endSection();
         }
-        return billList;
+        return trend;
     }
 
     /**
-     * 查询指定周范围的账单
+     * 查询区间内收入和支出合计
      * @param startDate 开始日期（yyyy-MM-dd格式）
      * @param endDate 结束日期（yyyy-MM-dd格式）
-     * @return 账单列表
+     * @return 长度为2的数组：[0]=收入，[1]=支出
      */
-    public List<Bill> queryWeekBill(String startDate, String endDate) {
-        List<Bill> billList = new ArrayList<>();
+    public double[] queryRangeTotals(String startDate, String endDate) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryRangeTotals");
+        double[] totals = new double[2];
         SQLiteDatabase db = null;
         Cursor cursor = null;
+        String selectQuery = null;
+        String[] selectArgs = {startDate, endDate};
 
         try {
-            Log.d(TAG, "queryWeekBill: 开始查询周账单，开始=" + startDate + "，结束=" + endDate);
             db = this.getReadableDatabase();
 
-            String selectQuery = "SELECT * FROM " + TABLE_BILL + 
-                    " WHERE " + COLUMN_DATE + " >= ? AND " + COLUMN_DATE + " <= ?" +
-                    " ORDER BY " + COLUMN_DATE + " DESC";
-            cursor = db.rawQuery(selectQuery, new String[]{startDate, endDate});
+            selectQuery = "SELECT" +
+                    " SUM(CASE WHEN " + COLUMN_BILL_TYPE + " = 1 THEN " + COLUMN_AMOUNT + " ELSE 0 END) AS income," +
+                    " SUM(CASE WHEN " + COLUMN_BILL_TYPE + " = 0 THEN " + COLUMN_AMOUNT + " ELSE 0 END) AS expense" +
+                    " FROM " + TABLE_BILL +
+                    " WHERE " + COLUMN_DATE + " >= ? AND " + COLUMN_DATE + " <= ?";
+            cursor = db.rawQuery(selectQuery, selectArgs);
 
             if (cursor.moveToFirst()) {
-                do {
-                    Bill bill = new Bill();
-                    bill.setId(cursor.getInt(cursor.getColumnIndex(COLUMN_ID)));
-                    bill.setType(cursor.getString(cursor.getColumnIndex(COLUMN_TYPE)));
-                    bill.setAmount(cursor.getDouble(cursor.getColumnIndex(COLUMN_AMOUNT)));
-                    bill.setBillType(cursor.getInt(cursor.getColumnIndex(COLUMN_BILL_TYPE)));
-                    bill.setRemark(cursor.getString(cursor.getColumnIndex(COLUMN_REMARK)));
-                    bill.setDate(cursor.getString(cursor.getColumnIndex(COLUMN_DATE)));
-                    bill.setCreateTime(cursor.getLong(cursor.getColumnIndex(COLUMN_CREATE_TIME)));
-
-                    billList.add(bill);
-                } while (cursor.moveToNext());
+                totals[0] = cursor.getDouble(0);
+                totals[1] = cursor.getDouble(1);
             }
-            Log.d(TAG, "queryWeekBill: 查询完成，共" + billList.size() + "条记录");
         } catch (Exception e) {
-            Log.e(TAG, "queryWeekBill: 查询周账单失败: " + e.getMessage());
+            AppLog.e(TAG, "queryRangeTotals: 查询区间合计失败: {}", e.getMessage());
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
+            mProfiler.end(start, "queryRangeTotals", selectQuery, selectArgs, 1, -1);
+            AppLog.endSection();
         }
-        return billList;
+        return totals;
     }
 
     /**
-     * 查询指定年份和账单类型的分类统计
-     * @param year 年份字符串（yyyy格式）
-     * @param billType 账单类型（1=收入，2=支出）
-     * @return 分类统计列表
+     * 打开导出用的只进游标，按日期、创建时间升序
+     * 调用方负责关闭游标
+     * @param startDate 开始日期（yyyy-MM-dd格式），null表示不限
+     * @param endDate 结束日期（yyyy-MM-dd格式），null表示不限
+     * @param billType 账单类型（0=支出，1=收入，-1=全部）
+     * @return 游标，列顺序为 date, bill_type, type, amount, remark, create_time
      */
-    public List<CategoryStatistics> queryYearCategoryStatistics(String year, int billType) {
-        List<CategoryStatistics> categoryList = new ArrayList<>();
-        SQLiteDatabase db = null;
-        Cursor cursor = null;
+    public Cursor openExportCursor(String startDate, String endDate, int billType) {
+        List<String> args = new ArrayList<>();
+        String where = buildExportWhere(startDate, endDate, billType, args);
+        String selectQuery = "SELECT " + COLUMN_DATE + ", " + COLUMN_BILL_TYPE + ", " + COLUMN_TYPE + ", " +
+                COLUMN_AMOUNT + ", " + COLUMN_REMARK + ", " + COLUMN_CREATE_TIME +
+                " FROM " + TABLE_BILL + where +
+                " ORDER BY " + COLUMN_DATE + ", " + COLUMN_CREATE_TIME + ", " + COLUMN_ID;
+        return getReadableDatabase().rawQuery(selectQuery, args.toArray(new String[0]));
+    }
 
-        try {
-            Log.d(TAG, "queryYearCategoryStatistics: 开始查询年份分类统计，年份=" + year + "，类型=" + billType);
-            db = getReadableDatabase();
+    /**
+     * 打开去重用的只进游标
+     * 调用方负责关闭游标
+     * @return 游标，列顺序为 date, amount, bill_type, remark
+     */
+    public Cursor openDedupCursor() {
+        return getReadableDatabase().rawQuery("SELECT " + COLUMN_DATE + ", " + COLUMN_AMOUNT + ", " +
+                COLUMN_BILL_TYPE + ", " + COLUMN_REMARK + " FROM " + TABLE_BILL, null);
+    }
 
-            String selectQuery = "SELECT " + COLUMN_TYPE + ", SUM(" + COLUMN_AMOUNT + ") as total_amount, COUNT(*) as bill_count " +
-                    "FROM " + TABLE_BILL +
-                    " WHERE " + COLUMN_DATE + " LIKE ? AND " + COLUMN_BILL_TYPE + " = ?" +
-                    " GROUP BY " + COLUMN_TYPE +
-                    " ORDER BY total_amount DESC";
-            cursor = db.rawQuery(selectQuery, new String[]{year + "%", String.valueOf(billType)});
+    /**
+     * 打开完整备份用的只进游标，按日期、创建时间升序
+     * 调用方负责关闭游标
+     * @return 游标，列顺序为 id, date, bill_type, type, amount, remark, create_time, sync_id, version
+     */
+    public Cursor openBackupCursor() {
+        return getReadableDatabase().rawQuery("SELECT " + COLUMN_ID + ", " + COLUMN_DATE + ", " +
+                COLUMN_BILL_TYPE + ", " + COLUMN_TYPE + ", " + COLUMN_AMOUNT + ", " + COLUMN_REMARK + ", " +
+                COLUMN_CREATE_TIME + ", " + COLUMN_SYNC_ID + ", " + COLUMN_VERSION + " FROM " + TABLE_BILL +
+                " ORDER BY " + COLUMN_DATE + ", " + COLUMN_CREATE_TIME + ", " + COLUMN_ID, null);
+    }
 
-            if (cursor.moveToFirst()) {
-                do {
-                    String categoryName = cursor.getString(cursor.getColumnIndex(COLUMN_TYPE));
-                    double amount = cursor.getDouble(cursor.getColumnIndex("total_amount"));
-                    int count = cursor.getInt(cursor.getColumnIndex("bill_count"));
-                    categoryList.add(new CategoryStatistics(categoryName, amount, count, 0));
-                } while (cursor.moveToNext());
-            }
-            
-            double totalAmount = 0;
-            for (CategoryStatistics category : categoryList) {
-                totalAmount += category.getAmount();
-            }
-            
-            for (CategoryStatistics category : categoryList) {
-                if (totalAmount > 0) {
-                    double percentage = (category.getAmount() / totalAmount) * 100;
-                    category.setPercentage(percentage);
-                }
-            }
-            
-            Log.d(TAG, "queryYearCategoryStatistics: 查询完成，共" + categoryList.size() + "个分类");
+    /**
+     * 打开增量备份用的只进游标：序号区间内变更过的账单各出现一次，带当前内容
+     * 调用方负责关闭游标
+     * @param fromSeq 起始变更序号（不含）
+     * @param toSeq 截止变更序号（含）
+     * @return 游标，列顺序同 {@link #openBackupCursor()}；账单已删除时第一列之外均为NULL
+     */
+    public Cursor openChangeCursor(long fromSeq, long toSeq) {
+        // 同一账单多次变更只取一次，按当前状态写出，与变更顺序无关
+        return getReadableDatabase().rawQuery("SELECT l." + COLUMN_BILL_ID + ", b." + COLUMN_DATE + ", b." +
+                COLUMN_BILL_TYPE + ", b." + COLUMN_TYPE + ", b." + COLUMN_AMOUNT + ", b." + COLUMN_REMARK + ", b." +
+                COLUMN_CREATE_TIME + ", b." + COLUMN_SYNC_ID + ", b." + COLUMN_VERSION +
+                " FROM (SELECT DISTINCT " + COLUMN_BILL_ID + " FROM " + TABLE_CHANGE_LOG +
+                " WHERE " + COLUMN_SEQ + " > ? AND " + COLUMN_SEQ + " <= ?) l" +
+                " LEFT JOIN " + TABLE_BILL + " b ON b." + COLUMN_ID + " = l." + COLUMN_BILL_ID +
+                " ORDER BY l." + COLUMN_BILL_ID, new String[]{String.valueOf(fromSeq), String.valueOf(toSeq)});
+    }
+
+    /**
+     * 账单总数
+     * @return 账单数
+     */
+    public long countBills() {
+        return countExportBills(null, null, -1);
+    }
+
+    /**
+     * 统计导出条件下的账单数，用于进度显示
+     * @param startDate 开始日期，null表示不限
+     * @param endDate 结束日期，null表示不限
+     * @param billType 账单类型（0=支出，1=收入，-1=全部）
+     * @return 账单数
+     */
+    public long countExportBills(String startDate, String endDate, int billType) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.countExportBills");
+        List<String> args = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM " + TABLE_BILL + buildExportWhere(startDate, endDate, billType, args);
+        String[] selectArgs = args.toArray(new String[0]);
+        Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().rawQuery(sql, selectArgs);
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
         } catch (Exception e) {
-            Log.e(TAG, "queryYearCategoryStatistics: 查询年份分类统计失败: " + e.getMessage());
+            AppLog.e(TAG, "countExportBills: 统计账单数失败: {}", e.getMessage());
+            return 0;
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
+            mProfiler.end(start, "countExportBills", sql, selectArgs, 1, -1);
+            AppLog.endSection();
         }
-        return categoryList;
+    }
+
+    private static String buildExportWhere(String startDate, String endDate, int billType, List<String> args) {
+        StringBuilder where = new StringBuilder();
+        if (startDate != null) {
+            where.append(" AND ").append(COLUMN_DATE).append(" >= ?");
+            args.add(startDate);
+        }
+        if (endDate != null) {
+            where.append(" AND ").append(COLUMN_DATE).append(" <= ?");
+            args.add(endDate);
+        }
+        if (billType != -1) {
+            where.append(" AND ").append(COLUMN_BILL_TYPE).append(" = ?");
+            args.add(String.valueOf(billType));
+        }
+        return where.length() == 0 ? "" : " WHERE" + where.substring(4);
+    }
+
+    /**
+     * 查询今日账单
+     * @param todayDate 今日日期，格式：yyyy-MM-dd
+     * @return 账单列表
+     */
+    @Override
+    public List<Bill> queryTodayBill(String todayDate) {
+        return queryBills(new BillFilter.Builder().dateBetween(todayDate, todayDate).build());
+    }
+
+    /**
+     * 查询本月账单
+     * @param month 月份，格式：yyyy-MM
+     * @return 账单列表
+     */
+    @Override
+    public List<Bill> queryMonthBill(String month) {
+        // 日期区间走索引，LIKE前缀匹配在默认配置下不能用索引
+        return queryBills(new BillFilter.Builder().dateBetween(month + "-01", month + "-31").build());
+    }
+
+    /**
+     * 查询指定年份的账单
+     * @param year 年份字符串（yyyy格式）
+     * @return 账单列表
+     */
+    @Override
+    public List<Bill> queryYearBill(String year) {
+        return queryBills(new BillFilter.Builder().dateBetween(year + "-01-01", year + "-12-31").build());
+    }
+
+    /**
+     * 查询指定周范围的账单
+     * @param startDate 开始日期（yyyy-MM-dd格式）
+     * @param endDate 结束日期（yyyy-MM-dd格式）
+     * @return 账单列表
+     */
+    @Override
+    public List<Bill> queryWeekBill(String startDate, String endDate) {
+        return queryBills(new BillFilter.Builder().dateBetween(startDate, endDate).build());
+    }
+
+    /**
+     * 查询指定年份和账单类型的分类统计
+     * @param year 年份字符串（yyyy格式）
+     * @param billType 账单类型（1=收入，2=支出）
+     * @return 分类统计列表
+     */
+    public List<CategoryStatistics> queryYearCategoryStatistics(String year, int billType) {
+        return queryCategoryStatistics("queryYearCategoryStatistics", year + "-01-01", year + "-12-31", billType);
     }
 
     /**
@@ -447,51 +1977,7 @@ public class BillDbHelper extends SQLiteOpenHelper {
      * @return 分类统计列表
      */
     public List<CategoryStatistics> queryMonthCategoryStatistics(String month, int billType) {
-        List<CategoryStatistics> categoryList = new ArrayList<>();
-        SQLiteDatabase db = null;
-        Cursor cursor = null;
-
-        try {
-            Log.d(TAG, "queryMonthCategoryStatistics: 开始查询月份分类统计，月份=" + month + "，类型=" + billType);
-            db = getReadableDatabase();
-
-            String selectQuery = "SELECT " + COLUMN_TYPE + ", SUM(" + COLUMN_AMOUNT + ") as total_amount, COUNT(*) as bill_count " +
-                    "FROM " + TABLE_BILL +
-                    " WHERE " + COLUMN_DATE + " LIKE ? AND " + COLUMN_BILL_TYPE + " = ?" +
-                    " GROUP BY " + COLUMN_TYPE +
-                    " ORDER BY total_amount DESC";
-            cursor = db.rawQuery(selectQuery, new String[]{month + "%", String.valueOf(billType)});
-
-            if (cursor.moveToFirst()) {
-                do {
-                    String categoryName = cursor.getString(cursor.getColumnIndex(COLUMN_TYPE));
-                    double amount = cursor.getDouble(cursor.getColumnIndex("total_amount"));
-                    int count = cursor.getInt(cursor.getColumnIndex("bill_count"));
-                    categoryList.add(new CategoryStatistics(categoryName, amount, count, 0));
-                } while (cursor.moveToNext());
-            }
-            
-            double totalAmount = 0;
-            for (CategoryStatistics category : categoryList) {
-                totalAmount += category.getAmount();
-            }
-            
-            for (CategoryStatistics category : categoryList) {
-                if (totalAmount > 0) {
-                    double percentage = (category.getAmount() / totalAmount) * 100;
-                    category.setPercentage(percentage);
-                }
-            }
-            
-            Log.d(TAG, "queryMonthCategoryStatistics: 查询完成，共" + categoryList.size() + "个分类");
-        } catch (Exception e) {
-            Log.e(TAG, "queryMonthCategoryStatistics: 查询月份分类统计失败: " + e.getMessage());
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
-        return categoryList;
+        return queryCategoryStatistics("queryMonthCategoryStatistics", month + "-01", month + "-31", billType);
     }
 
     /**
@@ -502,20 +1988,41 @@ public class BillDbHelper extends SQLiteOpenHelper {
      * @return 分类统计列表
      */
     public List<CategoryStatistics> queryWeekCategoryStatistics(String startDate, String endDate, int billType) {
+        return queryCategoryStatistics("queryWeekCategoryStatistics", startDate, endDate, billType);
+    }
+
+    /**
+     * 按日期区间和账单类型汇总各分类
+     * <p>
+     * 日期用区间而不是 LIKE 前缀，走 (bill_type, date, create_time) 索引只读区间内的行。
+     * </p>
+     * @param name 调用方名称，用于日志和性能记录
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @param billType 账单类型
+     * @return 分类统计列表，按金额从大到小
+     */
+    private List<CategoryStatistics> queryCategoryStatistics(String name, String startDate, String endDate,
+                                                             int billType) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb." + name);
         List<CategoryStatistics> categoryList = new ArrayList<>();
         SQLiteDatabase db = null;
         Cursor cursor = null;
+        String selectQuery = null;
+        String[] selectArgs = {startDate, endDate, String.valueOf(billType)};
+        long scanned = 0;
 
         try {
-            Log.d(TAG, "queryWeekCategoryStatistics: 开始查询周分类统计，开始=" + startDate + "，结束=" + endDate + "，类型=" + billType);
+            AppLog.d(TAG, "{}: 开始查询分类统计，开始={}，结束={}，类型={}", name, startDate, endDate, billType);
             db = getReadableDatabase();
 
-            String selectQuery = "SELECT " + COLUMN_TYPE + ", SUM(" + COLUMN_AMOUNT + ") as total_amount, COUNT(*) as bill_count " +
+            selectQuery = "SELECT " + COLUMN_TYPE + ", SUM(" + COLUMN_AMOUNT + ") as total_amount, COUNT(*) as bill_count " +
                     "FROM " + TABLE_BILL +
                     " WHERE " + COLUMN_DATE + " >= ? AND " + COLUMN_DATE + " <= ? AND " + COLUMN_BILL_TYPE + " = ?" +
                     " GROUP BY " + COLUMN_TYPE +
                     " ORDER BY total_amount DESC";
-            cursor = db.rawQuery(selectQuery, new String[]{startDate, endDate, String.valueOf(billType)});
+            cursor = db.rawQuery(selectQuery, selectArgs);
 
             if (cursor.moveToFirst()) {
                 do {
@@ -523,28 +2030,21 @@ public class BillDbHelper extends SQLiteOpenHelper {
                     double amount = cursor.getDouble(cursor.getColumnIndex("total_amount"));
                     int count = cursor.getInt(cursor.getColumnIndex("bill_count"));
                     categoryList.add(new CategoryStatistics(categoryName, amount, count, 0));
+                    scanned += count;
                 } while (cursor.moveToNext());
             }
             
-            double totalAmount = 0;
-            for (CategoryStatistics category : categoryList) {
-                totalAmount += category.getAmount();
-            }
-            
-            for (CategoryStatistics category : categoryList) {
-                if (totalAmount > 0) {
-                    double percentage = (category.getAmount() / totalAmount) * 100;
-                    category.setPercentage(percentage);
-                }
-            }
+            StatisticsEngine.fillPercentages(categoryList);
             
-            Log.d(TAG, "queryWeekCategoryStatistics: 查询完成，共" + categoryList.size() + "个分类");
+            AppLog.d(TAG, "{}: 查询完成，共{}个分类", name, categoryList.size());
         } catch (Exception e) {
-            Log.e(TAG, "queryWeekCategoryStatistics: 查询周分类统计失败: " + e.getMessage());
+            AppLog.e(TAG, "{}: 查询分类统计失败: {}", name, e.getMessage());
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
+            mProfiler.end(start, name, selectQuery, selectArgs, categoryList.size(), scanned);
+            AppLog.endSection();
         }
         return categoryList;
     }
@@ -555,34 +2055,50 @@ public class BillDbHelper extends SQLiteOpenHelper {
      * @return 是否更新成功
      */
     public boolean updateBill(Bill bill) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.updateBill");
         boolean result = false;
         SQLiteDatabase db = null;
+        SQLiteStatement statement = null;
         try {
-            Log.d(TAG, "updateBill: 开始更新账单，ID=" + bill.getId());
+            AppLog.d(TAG, "updateBill: 开始更新账单，ID={}", bill.getId());
             // 获取可写数据库
             db = this.getWritableDatabase();
 
-            // 创建ContentValues对象，用于存储要更新的数据
-            ContentValues values = new ContentValues();
-            values.put(COLUMN_TYPE, bill.getType());
-            values.put(COLUMN_AMOUNT, bill.getAmount());
-            values.put(COLUMN_BILL_TYPE, bill.getBillType());
-            values.put(COLUMN_REMARK, bill.getRemark());
-            values.put(COLUMN_DATE, bill.getDate());
+            // 每次修改版本号加1，同步时据此裁决冲突
+            statement = db.compileStatement("UPDATE " + TABLE_BILL + " SET " + COLUMN_TYPE + " = ?, " +
+                    COLUMN_AMOUNT + " = ?, " + COLUMN_BILL_TYPE + " = ?, " + COLUMN_REMARK + " = ?, " +
+                    COLUMN_DATE + " = ?, " + COLUMN_VERSION + " = " + COLUMN_VERSION + " + 1" +
+                    " WHERE " + COLUMN_ID + " = ?");
+            statement.bindString(1, bill.getType());
+            statement.bindDouble(2, bill.getAmount());
+            statement.bindLong(3, bill.getBillType());
+            if (bill.getRemark() != null) {
+                statement.bindString(4, bill.getRemark());
+            } else {
+                statement.bindNull(4);
+            }
+            statement.bindString(5, bill.getDate());
+            statement.bindLong(6, bill.getId());
 
             // 执行更新操作，返回受影响的行数
-            int rows = db.update(TABLE_BILL, values, COLUMN_ID + " = ?",
-                    new String[]{String.valueOf(bill.getId())});
+            int rows = statement.executeUpdateDelete();
 
             // 如果受影响的行数大于0，表示更新成功
             if (rows > 0) {
                 result = true;
-                Log.d(TAG, "updateBill: 账单更新成功，影响行数=" + rows);
+                AppLog.d(TAG, "updateBill: 账单更新成功，影响行数={}", rows);
             } else {
-                Log.w(TAG, "updateBill: 账单更新失败，影响行数=0");
+                AppLog.w(TAG, "updateBill: 账单更新失败，影响行数=0");
             }
         } catch (Exception e) {
-            Log.e(TAG, "updateBill: 更新账单失败: " + e.getMessage());
+            AppLog.e(TAG, "updateBill: 更新账单失败: {}", e.getMessage());
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+            mProfiler.end(start, "updateBill", null, null, result ? 1 : 0, -1);
+            AppLog.endSection();
         }
         return result;
     }
@@ -593,10 +2109,12 @@ public class BillDbHelper extends SQLiteOpenHelper {
      * @return 是否删除成功
      */
     public boolean deleteBill(int billId) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.deleteBill");
         boolean result = false;
         SQLiteDatabase db = null;
         try {
-            Log.d(TAG, "deleteBill: 开始删除账单，ID=" + billId);
+            AppLog.d(TAG, "deleteBill: 开始删除账单，ID={}", billId);
             // 获取可写数据库
             db = this.getWritableDatabase();
 
@@ -607,12 +2125,15 @@ public class BillDbHelper extends SQLiteOpenHelper {
             // 如果受影响的行数大于0，表示删除成功
             if (rows > 0) {
                 result = true;
-                Log.d(TAG, "deleteBill: 账单删除成功，删除行数=" + rows);
+                AppLog.d(TAG, "deleteBill: 账单删除成功，删除行数={}", rows);
             } else {
-                Log.w(TAG, "deleteBill: 账单删除失败，删除行数=0");
+                AppLog.w(TAG, "deleteBill: 账单删除失败，删除行数=0");
             }
         } catch (Exception e) {
-            Log.e(TAG, "deleteBill: 删除账单失败: " + e.getMessage());
+            AppLog.e(TAG, "deleteBill: 删除账单失败: {}", e.getMessage());
+        } finally {
+            mProfiler.end(start, "deleteBill", null, null, result ? 1 : 0, -1);
+            AppLog.endSection();
         }
         return result;
     }
@@ -623,18 +2144,21 @@ public class BillDbHelper extends SQLiteOpenHelper {
      * @return 账单对象，如果不存在则返回null
      */
     public Bill queryBillById(int billId) {
+        long start = mProfiler.begin();
+        AppLog.beginSection("BillDb.queryBillById");
         Bill bill = null;
         SQLiteDatabase db = null;
         Cursor cursor = null;
+        // 查询指定ID的账单
+        String selectQuery = "SELECT * FROM " + TABLE_BILL + " WHERE " + COLUMN_ID + " = ?";
+        String[] selectArgs = {String.valueOf(billId)};
 
         try {
-            Log.d(TAG, "queryBillById: 开始查询账单，ID=" + billId);
+            AppLog.d(TAG, "queryBillById: 开始查询账单，ID={}", billId);
             // 获取可读数据库
             db = this.getReadableDatabase();
 
-            // 查询指定ID的账单
-            String selectQuery = "SELECT * FROM " + TABLE_BILL + " WHERE " + COLUMN_ID + " = ?";
-            cursor = db.rawQuery(selectQuery, new String[]{String.valueOf(billId)});
+            cursor = db.rawQuery(selectQuery, selectArgs);
 
             // 如果查询到结果
             if (cursor.moveToFirst()) {
@@ -647,16 +2171,18 @@ public class BillDbHelper extends SQLiteOpenHelper {
                 bill.setRemark(cursor.getString(cursor.getColumnIndex(COLUMN_REMARK)));
                 bill.setDate(cursor.getString(cursor.getColumnIndex(COLUMN_DATE)));
                 bill.setCreateTime(cursor.getLong(cursor.getColumnIndex(COLUMN_CREATE_TIME)));
-                Log.d(TAG, "queryBillById: 查询成功，ID=" + billId + "，金额=" + bill.getAmount());
+                AppLog.d(TAG, "queryBillById: 查询成功，ID={}，金额={}", billId, bill.getAmount());
             } else {
-                Log.w(TAG, "queryBillById: 未找到账单，ID=" + billId);
+                AppLog.w(TAG, "queryBillById: 未找到账单，ID={}", billId);
             }
         } catch (Exception e) {
-            Log.e(TAG, "queryBillById: 根据ID查询账单失败: " + e.getMessage());
+            AppLog.e(TAG, "queryBillById: 根据ID查询账单失败: {}", e.getMessage());
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
+            mProfiler.end(start, "queryBillById", selectQuery, selectArgs, bill != null ? 1 : 0, -1);
+            AppLog.endSection();
         }
         return bill;
     }
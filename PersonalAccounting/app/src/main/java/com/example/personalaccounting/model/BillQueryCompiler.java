@@ -0,0 +1,269 @@
+package com.example.personalaccounting.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.personalaccounting.model.BillDbHelper.COLUMN_AMOUNT;
+import static com.example.personalaccounting.model.BillDbHelper.COLUMN_BILL_TYPE;
+import static com.example.personalaccounting.model.BillDbHelper.COLUMN_CREATE_TIME;
+import static com.example.personalaccounting.model.BillDbHelper.COLUMN_DATE;
+import static com.example.personalaccounting.model.BillDbHelper.COLUMN_ID;
+import static com.example.personalaccounting.model.BillDbHelper.COLUMN_REMARK;
+import static com.example.personalaccounting.model.BillDbHelper.COLUMN_TYPE;
+import static com.example.personalaccounting.model.BillDbHelper.TABLE_BILL;
+import static com.example.personalaccounting.model.BillDbHelper.TABLE_SEARCH;
+
+/**
+ * 把 {@link BillFilter} 编译成带参数的 SQL
+ * <p>
+ * 条件的取值全部作为参数绑定，SQL 文本只取决于“形状”：用了哪些条件、分类有几个、排序方向。
+ * 同一形状复用同一段 SQL 文本，既省去重复拼接，也让 SQLiteDatabase 按 SQL 文本缓存的
+ * 预编译语句命中。分类个数向上取整到 2 的幂（多出的位置重复最后一个分类），
+ * 避免每多选一个分类就产生一个新形状。
+ * </p>
+ * <p>
+ * 每种形状都应当走索引：日期区间和键集分页走 (date, create_time)，收支类型走
+ * (bill_type, date, create_time)，备注走全文索引；分类和金额只做过滤。
+ * 备注关键字里没有可分词的文字（例如只有标点）时，改用 LIKE 按原文匹配，不会把条件丢掉。
+ * 由 androidTest 中的 BillQueryPlanTest 逐一检查 EXPLAIN QUERY PLAN。
+ * </p>
+ */
+public final class BillQueryCompiler {
+    // 缓存的形状数，常用页面的组合远少于这个数
+    private static final int PLAN_CACHE_SIZE = 32;
+    // 超过这个分类数时不再补齐，按实际个数生成
+    private static final int MAX_PADDED_CATEGORIES = 64;
+    private static final char REMARK_NONE = '-';
+    private static final char REMARK_MATCH = 'R';
+    private static final char REMARK_LIKE = 'r';
+    private static final char LIKE_ESCAPE = '\\';
+    private static final String COLUMNS = COLUMN_ID + ", " + COLUMN_TYPE + ", " + COLUMN_AMOUNT + ", " +
+            COLUMN_BILL_TYPE + ", " + COLUMN_REMARK + ", " + COLUMN_DATE + ", " + COLUMN_CREATE_TIME;
+
+    private final Map<String, String> mPlanCache = new LinkedHashMap<String, String>(PLAN_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > PLAN_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * 编译结果：SQL、按顺序绑定的参数和查询形状
+     */
+    public static final class CompiledQuery {
+        private final String sql;
+        private final String[] args;
+        private final String shape;
+
+        CompiledQuery(String sql, String[] args, String shape) {
+            this.sql = sql;
+            this.args = args;
+            this.shape = shape;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String[] getArgs() {
+            return args;
+        }
+
+        /**
+         * @return 查询形状，同一形状的 SQL 文本相同
+         */
+        public String getShape() {
+            return shape;
+        }
+    }
+
+    /**
+     * 编译查询条件，结果列依次为 id, type, amount, bill_type, remark, date, create_time
+     * @param filter 查询条件
+     * @return SQL 和参数
+     */
+    public CompiledQuery compile(BillFilter filter) {
+        String match = matchQuery(filter);
+        String like = match == null ? likePattern(filter) : null;
+        int categorySlots = categorySlots(filter.getCategories().size());
+        char remarkMode = remarkMode(match, like);
+        String shape = shapeOf(filter, categorySlots, remarkMode);
+        String sql;
+        synchronized (mPlanCache) {
+            sql = mPlanCache.get(shape);
+            if (sql == null) {
+                sql = buildSql(filter, categorySlots, remarkMode);
+                mPlanCache.put(shape, sql);
+            }
+        }
+        return new CompiledQuery(sql, bindArgs(filter, categorySlots, match != null ? match : like), shape);
+    }
+
+    /**
+     * 查询条件的形状，同一形状的 SQL 文本相同
+     */
+    String shapeOf(BillFilter filter) {
+        String match = matchQuery(filter);
+        String like = match == null ? likePattern(filter) : null;
+        return shapeOf(filter, categorySlots(filter.getCategories().size()), remarkMode(match, like));
+    }
+
+    int cachedPlanCount() {
+        synchronized (mPlanCache) {
+            return mPlanCache.size();
+        }
+    }
+
+    private static String matchQuery(BillFilter filter) {
+        return filter.getRemarkKeyword() != null
+                ? BillSearch.toMatchQuery(filter.getRemarkKeyword(), COLUMN_REMARK) : null;
+    }
+
+    /**
+     * 全文索引用不上时的 LIKE 模式，关键字为空白时返回null
+     */
+    private static String likePattern(BillFilter filter) {
+        String keyword = filter.getRemarkKeyword() != null ? filter.getRemarkKeyword().trim() : "";
+        if (keyword.isEmpty()) {
+            return null;
+        }
+        StringBuilder pattern = new StringBuilder(keyword.length() + 2).append('%');
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    /**
+     * 备注条件的形状：R=全文索引，r=LIKE，-=无
+     */
+    private static char remarkMode(String match, String like) {
+        return match != null ? REMARK_MATCH : like != null ? REMARK_LIKE : REMARK_NONE;
+    }
+
+    private static String shapeOf(BillFilter filter, int categorySlots, char remarkMode) {
+        StringBuilder shape = new StringBuilder(16);
+        shape.append(filter.getStartDate() != null ? 'S' : '-')
+                .append(filter.getEndDate() != null ? 'E' : '-')
+                .append(filter.getBillType() >= 0 ? 'T' : '-')
+                .append(filter.getMinAmount() != null ? 'L' : '-')
+                .append(filter.getMaxAmount() != null ? 'H' : '-')
+                .append(remarkMode)
+                .append(filter.getAfter() != null ? 'K' : '-')
+                .append(filter.getLimit() > 0 ? 'N' : '-')
+                .append(filter.getSort() == BillFilter.SORT_OLDEST_FIRST ? 'A' : 'D')
+                .append(categorySlots);
+        return shape.toString();
+    }
+
+    private static int categorySlots(int count) {
+        if (count == 0 || count > MAX_PADDED_CATEGORIES) {
+            return count;
+        }
+        int slots = 1;
+        while (slots < count) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+
+    private static String buildSql(BillFilter filter, int categorySlots, char remarkMode) {
+        boolean ascending = filter.getSort() == BillFilter.SORT_OLDEST_FIRST;
+        List<String> conditions = new ArrayList<>();
+        if (filter.getStartDate() != null) {
+            conditions.add(COLUMN_DATE + " >= ?");
+        }
+        if (filter.getEndDate() != null) {
+            conditions.add(COLUMN_DATE + " <= ?");
+        }
+        if (filter.getBillType() >= 0) {
+            conditions.add(COLUMN_BILL_TYPE + " = ?");
+        }
+        if (categorySlots > 0) {
+            StringBuilder in = new StringBuilder(COLUMN_TYPE).append(" IN (?");
+            for (int i = 1; i < categorySlots; i++) {
+                in.append(", ?");
+            }
+            conditions.add(in.append(')').toString());
+        }
+        if (filter.getMinAmount() != null) {
+            conditions.add(COLUMN_AMOUNT + " >= ?");
+        }
+        if (filter.getMaxAmount() != null) {
+            conditions.add(COLUMN_AMOUNT + " <= ?");
+        }
+        if (remarkMode == REMARK_MATCH) {
+            conditions.add(COLUMN_ID + " IN (SELECT docid FROM " + TABLE_SEARCH + " WHERE " + TABLE_SEARCH + " MATCH ?)");
+        } else if (remarkMode == REMARK_LIKE) {
+            conditions.add(COLUMN_REMARK + " LIKE ? ESCAPE '" + LIKE_ESCAPE + "'");
+        }
+        if (filter.getAfter() != null) {
+            // 先给出日期的单边界，让索引直接定位到起点，再精确排除同一天里已经取过的记录
+            String cmp = ascending ? " > ?" : " < ?";
+            conditions.add(COLUMN_DATE + (ascending ? " >= ?" : " <= ?"));
+            conditions.add("(" + COLUMN_DATE + cmp + " OR (" + COLUMN_DATE + " = ? AND (" +
+                    COLUMN_CREATE_TIME + cmp + " OR (" + COLUMN_CREATE_TIME + " = ? AND " + COLUMN_ID + cmp + "))))");
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM ").append(TABLE_BILL);
+        for (int i = 0; i < conditions.size(); i++) {
+            sql.append(i == 0 ? " WHERE " : " AND ").append(conditions.get(i));
+        }
+        String direction = ascending ? " ASC" : " DESC";
+        sql.append(" ORDER BY ").append(COLUMN_DATE).append(direction)
+                .append(", ").append(COLUMN_CREATE_TIME).append(direction)
+                .append(", ").append(COLUMN_ID).append(direction);
+        if (filter.getLimit() > 0) {
+            sql.append(" LIMIT ?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 参数顺序与 {@link #buildSql} 中条件的顺序一致
+     */
+    private static String[] bindArgs(BillFilter filter, int categorySlots, String remark) {
+        List<String> args = new ArrayList<>();
+        if (filter.getStartDate() != null) {
+            args.add(filter.getStartDate());
+        }
+        if (filter.getEndDate() != null) {
+            args.add(filter.getEndDate());
+        }
+        if (filter.getBillType() >= 0) {
+            args.add(String.valueOf(filter.getBillType()));
+        }
+        List<String> categories = filter.getCategories();
+        for (int i = 0; i < categorySlots; i++) {
+            args.add(categories.get(Math.min(i, categories.size() - 1)));
+        }
+        if (filter.getMinAmount() != null) {
+            args.add(String.valueOf(filter.getMinAmount()));
+        }
+        if (filter.getMaxAmount() != null) {
+            args.add(String.valueOf(filter.getMaxAmount()));
+        }
+        if (remark != null) {
+            args.add(remark);
+        }
+        Bill after = filter.getAfter();
+        if (after != null) {
+            args.add(after.getDate());
+            args.add(after.getDate());
+            args.add(after.getDate());
+            args.add(String.valueOf(after.getCreateTime()));
+            args.add(String.valueOf(after.getCreateTime()));
+            args.add(String.valueOf(after.getId()));
+        }
+        if (filter.getLimit() > 0) {
+            args.add(String.valueOf(filter.getLimit()));
+        }
+        return args.toArray(new String[0]);
+    }
+}
@@ -1,14 +1,27 @@
 package com.example.personalaccounting.model;
 
 import android.content.Context;
-import android.util.Log;
-
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import android.content.pm.ApplicationInfo;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.AtomicFile;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 // 导入同包下的Bill类
 
@@ -24,9 +37,52 @@ public class BillRepository {
     private static final String TAG = "BillRepository";
     private static volatile BillRepository sInstance;
     private final BillDbHelper mDbHelper;
-    private final ExecutorService mExecutorService;
+    // 运行指标：线程池排队、各异步操作的排队和执行耗时、取消与缓存命中
+    private final RepositoryMetrics mMetrics = new RepositoryMetrics();
+    private final RepositoryMetrics.MeteredExecutor mExecutorService;
     private final java.util.concurrent.atomic.AtomicInteger mRequestIdGenerator;
     private final java.util.concurrent.ConcurrentHashMap<String, Boolean> mPendingRequests;
+    // 月历数据缓存容量：当前月及前后各一个月，外加最近翻过的几个月
+    private static final int MONTH_CACHE_SIZE = 6;
+    // 月历数据缓存（按月份LRU），任何写操作后整体失效
+    private final Map<String, MonthCalendarData> mMonthCache;
+    private final RepositoryMetrics.CacheStats mMonthCacheStats = mMetrics.cache("月历");
+    // 统计区间缓存容量：当前区间及前后各一个，保留最近翻过的几组
+    private static final int PERIOD_CACHE_SIZE = 9;
+    // 统计区间缓存（按区间和分类类型LRU），任何写操作后整体失效
+    private final Map<String, PeriodStatistics> mPeriodCache;
+    private final RepositoryMetrics.CacheStats mPeriodCacheStats = mMetrics.cache("统计区间");
+    // 预取专用的低优先级线程，避免和用户直接触发的查询抢占
+    private final RepositoryMetrics.MeteredExecutor mPrefetchExecutor;
+    // 同步专用线程，网络等待不占用查询线程，同一时间只有一次同步
+    private final RepositoryMetrics.MeteredExecutor mSyncExecutor;
+    // 搜索专用线程，边输入边搜索时不排在导入导出后面
+    private final RepositoryMetrics.MeteredExecutor mSearchExecutor;
+    // 正在执行的搜索的取消信号，新的搜索提交时取消上一次
+    private CancellationSignal mSearchSignal;
+    // 数据版本，每次写操作加一；查询期间版本变化时结果不写入缓存
+    private volatile int mDataVersion;
+    // 今日、本周、本月、年份的收支汇总
+    private final StatisticsEngine mStatisticsEngine;
+    // 月度预算引擎，单条写入后按差额更新累计值
+    private final BudgetEngine mBudgetEngine;
+    // 单条写入和预算记账之间不能插入其他写入，批量写入和预算失效之间也不能插入单条写入，
+    // 否则预算记下的变更序号会包含没有计入累计值的账单
+    private final Object mWriteLock = new Object();
+    // 周期账单检测，只处理水位之后的新增账单
+    private final RecurringDetector mRecurringDetector;
+    // 每次检测最多处理的新增账单数，大账本第一次检测分几次完成
+    private static final int RECURRING_BILLS_PER_RUN = 20000;
+    // 预计日期在几天之内的周期账单才提示
+    private static final int RECURRING_LOOKAHEAD_DAYS = 3;
+    // 生成合成账本时每个事务插入的条数
+    private static final int GENERATE_BATCH_SIZE = 5000;
+    // 首页快照文件名，位于应用私有目录
+    private static final String HOME_SNAPSHOT_FILE = "home_snapshot.bin";
+    // 首页快照，冷启动时不等数据库打开先画首页
+    private final AtomicFile mHomeSnapshotFile;
+    // 预热完成前各线程池的线程不取任务，期间提交的请求在队列里排队
+    private final CountDownLatch mReady = new CountDownLatch(1);
 
     /**
      * 回调接口：处理异步操作结果
@@ -43,18 +99,108 @@ public class BillRepository {
         void onCancel();
     }
 
+    /**
+     * 带进度的回调接口
+     */
+    public interface ProgressCallback<T> extends Callback<T> {
+        void onProgress(long done, long total);
+    }
+
     /**
      * 私有构造方法，防止外部实例化
      *
      * @param context 上下文对象
      */
     private BillRepository(Context context) {
-        Log.d(TAG, "BillRepository: 初始化仓库");
+        AppLog.d(TAG, "BillRepository: 初始化仓库");
         mDbHelper = new BillDbHelper(context.getApplicationContext());
-        mExecutorService = Executors.newFixedThreadPool(2);
+        mHomeSnapshotFile = new AtomicFile(new File(context.getApplicationContext().getFilesDir(), HOME_SNAPSHOT_FILE));
+        // 调试版默认记录查询耗时，发布版可在诊断页手动打开
+        if ((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            mDbHelper.getQueryProfiler().setEnabled(true);
+        }
+        mExecutorService = mMetrics.wrap("查询",
+                Executors.newFixedThreadPool(2, gatedThreads("bill-query", Process.THREAD_PRIORITY_DEFAULT)));
         mRequestIdGenerator = new java.util.concurrent.atomic.AtomicInteger(0);
         mPendingRequests = new java.util.concurrent.ConcurrentHashMap<>();
-        Log.d(TAG, "BillRepository: 初始化完成");
+        mMonthCache = new LinkedHashMap<String, MonthCalendarData>(MONTH_CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MonthCalendarData> eldest) {
+                return size() > MONTH_CACHE_SIZE;
+            }
+        };
+        mPeriodCache = new LinkedHashMap<String, PeriodStatistics>(PERIOD_CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PeriodStatistics> eldest) {
+                return size() > PERIOD_CACHE_SIZE;
+            }
+        };
+        mPrefetchExecutor = mMetrics.wrap("预取", Executors.newSingleThreadExecutor(
+                gatedThreads("bill-prefetch", Process.THREAD_PRIORITY_BACKGROUND)));
+        mSyncExecutor = mMetrics.wrap("同步", Executors.newSingleThreadExecutor(
+                gatedThreads("bill-sync", Process.THREAD_PRIORITY_BACKGROUND)));
+        mSearchExecutor = mMetrics.wrap("搜索", Executors.newSingleThreadExecutor(
+                gatedThreads("bill-search", Process.THREAD_PRIORITY_DEFAULT)));
+        // core 模块里的引擎不依赖 Android，日志在这里接到 Logcat
+        EngineLog.setSink(AppLog::println, AppLog.LEVEL);
+        mStatisticsEngine = new StatisticsEngine(mDbHelper);
+        mBudgetEngine = new BudgetEngine(mDbHelper);
+        mRecurringDetector = new RecurringDetector(mDbHelper);
+        new Thread(this::warmUp, "bill-warmup").start();
+        AppLog.d(TAG, "BillRepository: 初始化完成");
+    }
+
+    /**
+     * 线程工厂：线程先等预热完成再开始取任务，排队等待的时间计入各操作的排队耗时
+     *
+     * @param name 线程名
+     * @param priority 线程优先级（Process.THREAD_PRIORITY_*）
+     */
+    private ThreadFactory gatedThreads(String name, int priority) {
+        return runnable -> new Thread(() -> {
+            Process.setThreadPriority(priority);
+            awaitReady();
+            runnable.run();
+        }, name);
+    }
+
+    private void awaitReady() {
+        try {
+            mReady.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 预热：打开数据库（建表、升级、配置连接）后放行排队的请求，
+     * 再填好本月月历和本月统计区间的缓存，顺带把这几条查询的语句编译进连接的语句缓存。
+     * 打开失败时同样放行，由各请求自己报错
+     */
+    private void warmUp() {
+        long start = SystemClock.elapsedRealtime();
+        AppLog.beginSection("BillRepo.warmUp");
+        try {
+            mDbHelper.getWritableDatabase();
+        } catch (Exception e) {
+            AppLog.e(TAG, "warmUp: 打开数据库失败: {}", e.getMessage());
+        } finally {
+            mReady.countDown();
+            AppLog.endSection();
+        }
+        AppLog.d(TAG, "warmUp: 数据库已就绪，耗时{}ms", SystemClock.elapsedRealtime() - start);
+
+        AppLog.beginSection("BillRepo.warmUpCaches");
+        try {
+            long today = EpochDays.today();
+            getMonthCalendar(EpochDays.format(today).substring(0, 7), false);
+            getPeriodStatistics(DateRange.monthOf(EpochDays.year(today), EpochDays.month(today)), -1);
+        } catch (Exception e) {
+            AppLog.e(TAG, "warmUp: 预热缓存失败: {}", e.getMessage());
+        } finally {
+            AppLog.endSection();
+        }
+        AppLog.d(TAG, "warmUp: 预热完成，耗时{}ms", SystemClock.elapsedRealtime() - start);
     }
 
     /**
@@ -68,7 +214,7 @@ public class BillRepository {
         if (sInstance == null) {
             synchronized (BillRepository.class) {
                 if (sInstance == null) {
-                    Log.d(TAG, "getInstance: 创建新实例");
+                    AppLog.d(TAG, "getInstance: 创建新实例");
                     sInstance = new BillRepository(context);
                 }
             }
@@ -76,14 +222,28 @@ public class BillRepository {
         return sInstance;
     }
 
+    /**
+     * @return 仓库运行指标，供诊断页展示
+     */
+    public RepositoryMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * @return 数据库查询耗时统计，供诊断页展示
+     */
+    public QueryProfiler getQueryProfiler() {
+        return mDbHelper.getQueryProfiler();
+    }
+
     /**
      * 获取今日日期字符串（yyyy-MM-dd格式）
      *
      * @return 今日日期字符串
      */
     public String getTodayDate() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        return sdf.format(new Date());
+        // 页面初始化时在主线程调用，不创建SimpleDateFormat，数字也不随系统语言变化
+        return EpochDays.format(EpochDays.today());
     }
 
     /**
@@ -92,8 +252,7 @@ public class BillRepository {
      * @return 当前月份字符串
      */
     public String getCurrentMonth() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM", Locale.getDefault());
-        return sdf.format(new Date());
+        return getTodayDate().substring(0, 7);
     }
 
     /**
@@ -103,28 +262,30 @@ public class BillRepository {
      * @param callback 回调接口，用于返回统计结果
      * @return 请求ID，可用于取消请求
      */
-    public String calculateTodayStatisticsAsync(String todayDate, Callback<TodayStatistics> callback) {
+    public String calculateTodayStatisticsAsync(String todayDate, Callback<StatisticsEngine.TodayStatistics> callback) {
         String requestId = "today_stats_" + mRequestIdGenerator.incrementAndGet();
         mPendingRequests.put(requestId, true);
-        Log.d(TAG, "calculateTodayStatisticsAsync: 提交请求，ID=" + requestId + "，日期=" + todayDate);
+        AppLog.d(TAG, "calculateTodayStatisticsAsync: 提交请求，ID={}，日期={}", requestId, todayDate);
         
-        mExecutorService.execute(() -> {
+        mExecutorService.execute("calculateTodayStatisticsAsync", () -> {
             try {
                 if (!mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "calculateTodayStatisticsAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordCancelled("calculateTodayStatisticsAsync");
+                    AppLog.d(TAG, "calculateTodayStatisticsAsync: 请求已取消，ID={}", requestId);
                     return;
                 }
-                TodayStatistics statistics = calculateTodayStatistics(todayDate);
+                StatisticsEngine.TodayStatistics statistics = calculateTodayStatistics(todayDate);
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "calculateTodayStatisticsAsync: 请求成功，ID=" + requestId);
+                    AppLog.d(TAG, "calculateTodayStatisticsAsync: 请求成功，ID={}", requestId);
                     callback.onSuccess(statistics);
                     mPendingRequests.remove(requestId);
                 } else {
-                    Log.d(TAG, "calculateTodayStatisticsAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordDropped("calculateTodayStatisticsAsync");
+                    AppLog.d(TAG, "calculateTodayStatisticsAsync: 请求已取消，ID={}", requestId);
                 }
             } catch (Exception e) {
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.e(TAG, "calculateTodayStatisticsAsync: 请求失败，ID=" + requestId + "，错误=" + e.getMessage());
+                    AppLog.e(TAG, "calculateTodayStatisticsAsync: 请求失败，ID={}，错误={}", requestId, e.getMessage());
                     callback.onError(e);
                     mPendingRequests.remove(requestId);
                 }
@@ -139,31 +300,15 @@ public class BillRepository {
      * @param todayDate 今日日期
      * @return 今日统计结果
      */
-    public TodayStatistics calculateTodayStatistics(String todayDate) {
-        TodayStatistics statistics = new TodayStatistics();
+    public StatisticsEngine.TodayStatistics calculateTodayStatistics(String todayDate) {
+        StatisticsEngine.TodayStatistics statistics = new StatisticsEngine.TodayStatistics();
+        AppLog.beginSection("BillRepo.calculateTodayStatistics");
         try {
-            // 查询今日账单
-            List<Bill> todayBills = mDbHelper.queryTodayBill(todayDate);
-
-            // 统计收入和支出
-            double todayIncome = 0.0;
-            double todayExpense = 0.0;
-
-            for (Bill bill : todayBills) {
-                if (bill.getBillType() == 1) {
-                    todayIncome += bill.getAmount();
-                } else {
-                    todayExpense += bill.getAmount();
-                }
-            }
-
-            // 设置统计结果
-            statistics.setIncome(todayIncome);
-            statistics.setExpense(todayExpense);
-            statistics.setBalance(todayIncome - todayExpense);
-
+            statistics = mStatisticsEngine.calculateTodayStatistics(todayDate);
         } catch (Exception e) {
-            Log.e(TAG, "计算今日统计数据失败: " + e.getMessage());
+            AppLog.e(TAG, "计算今日统计数据失败: {}", e.getMessage());
+        } finally {
+            AppLog.endSection();
         }
 
         return statistics;
@@ -176,19 +321,22 @@ public class BillRepository {
      * @param callback 回调接口，用于返回统计结果
      * @return 请求ID，可用于取消请求
      */
-    public String calculateMonthStatisticsAsync(String month, Callback<MonthStatistics> callback) {
+    public String calculateMonthStatisticsAsync(String month, Callback<StatisticsEngine.MonthStatistics> callback) {
         String requestId = "month_stats_" + mRequestIdGenerator.incrementAndGet();
         mPendingRequests.put(requestId, true);
         
-        mExecutorService.execute(() -> {
+        mExecutorService.execute("calculateMonthStatisticsAsync", () -> {
             try {
                 if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("calculateMonthStatisticsAsync");
                     return;
                 }
-                MonthStatistics statistics = calculateMonthStatistics(month);
+                StatisticsEngine.MonthStatistics statistics = calculateMonthStatistics(month);
                 if (mPendingRequests.containsKey(requestId)) {
                     callback.onSuccess(statistics);
                     mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("calculateMonthStatisticsAsync");
                 }
             } catch (Exception e) {
                 if (mPendingRequests.containsKey(requestId)) {
@@ -206,29 +354,15 @@ public class BillRepository {
      * @param month 月份字符串（yyyy-MM格式）
      * @return 本月统计结果
      */
-    public MonthStatistics calculateMonthStatistics(String month) {
-        MonthStatistics statistics = new MonthStatistics();
-
+    public StatisticsEngine.MonthStatistics calculateMonthStatistics(String month) {
+        StatisticsEngine.MonthStatistics statistics = new StatisticsEngine.MonthStatistics();
+        AppLog.beginSection("BillRepo.calculateMonthStatistics");
         try {
-            List<Bill> monthBills = mDbHelper.queryMonthBill(month);
-
-            double monthIncome = 0.0;
-            double monthExpense = 0.0;
-
-            for (Bill bill : monthBills) {
-                if (bill.getBillType() == 1) {
-                    monthIncome += bill.getAmount();
-                } else {
-                    monthExpense += bill.getAmount();
-                }
-            }
-
-            statistics.setIncome(monthIncome);
-            statistics.setExpense(monthExpense);
-            statistics.setBalance(monthIncome - monthExpense);
-
+            statistics = mStatisticsEngine.calculateMonthStatistics(month);
         } catch (Exception e) {
-            Log.e(TAG, "计算本月统计数据失败: " + e.getMessage());
+            AppLog.e(TAG, "计算本月统计数据失败: {}", e.getMessage());
+        } finally {
+            AppLog.endSection();
         }
 
         return statistics;
@@ -241,19 +375,22 @@ public class BillRepository {
      * @param callback 回调接口，用于返回统计结果
      * @return 请求ID，可用于取消请求
      */
-    public String calculateYearStatisticsAsync(String year, Callback<YearStatistics> callback) {
+    public String calculateYearStatisticsAsync(String year, Callback<StatisticsEngine.YearStatistics> callback) {
         String requestId = "year_stats_" + mRequestIdGenerator.incrementAndGet();
         mPendingRequests.put(requestId, true);
         
-        mExecutorService.execute(() -> {
+        mExecutorService.execute("calculateYearStatisticsAsync", () -> {
             try {
                 if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("calculateYearStatisticsAsync");
                     return;
                 }
-                YearStatistics statistics = calculateYearStatistics(year);
+                StatisticsEngine.YearStatistics statistics = calculateYearStatistics(year);
                 if (mPendingRequests.containsKey(requestId)) {
                     callback.onSuccess(statistics);
                     mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("calculateYearStatisticsAsync");
                 }
             } catch (Exception e) {
                 if (mPendingRequests.containsKey(requestId)) {
@@ -271,29 +408,15 @@ public class BillRepository {
      * @param year 年份字符串（yyyy格式）
      * @return 年份统计结果
      */
-    public YearStatistics calculateYearStatistics(String year) {
-        YearStatistics statistics = new YearStatistics();
-
+    public StatisticsEngine.YearStatistics calculateYearStatistics(String year) {
+        StatisticsEngine.YearStatistics statistics = new StatisticsEngine.YearStatistics();
+        AppLog.beginSection("BillRepo.calculateYearStatistics");
         try {
-            List<Bill> yearBills = mDbHelper.queryYearBill(year);
-
-            double yearIncome = 0.0;
-            double yearExpense = 0.0;
-
-            for (Bill bill : yearBills) {
-                if (bill.getBillType() == 1) {
-                    yearIncome += bill.getAmount();
-                } else {
-                    yearExpense += bill.getAmount();
-                }
-            }
-
-            statistics.setIncome(yearIncome);
-            statistics.setExpense(yearExpense);
-            statistics.setBalance(yearIncome - yearExpense);
-
+            statistics = mStatisticsEngine.calculateYearStatistics(year);
         } catch (Exception e) {
-            Log.e(TAG, "计算年份统计数据失败: " + e.getMessage());
+            AppLog.e(TAG, "计算年份统计数据失败: {}", e.getMessage());
+        } finally {
+            AppLog.endSection();
         }
 
         return statistics;
@@ -311,25 +434,27 @@ public class BillRepository {
     public String getWeekCategoryStatisticsAsync(String startDate, String endDate, int billType, Callback<List<CategoryStatistics>> callback) {
         String requestId = "week_category_stats_" + startDate + "_" + endDate + "_" + billType + "_" + mRequestIdGenerator.incrementAndGet();
         mPendingRequests.put(requestId, true);
-        Log.d(TAG, "getWeekCategoryStatisticsAsync: 提交请求，ID=" + requestId + "，开始=" + startDate + "，结束=" + endDate + "，类型=" + billType);
+        AppLog.d(TAG, "getWeekCategoryStatisticsAsync: 提交请求，ID={}，开始={}，结束={}，类型={}", requestId, startDate, endDate, billType);
         
-        mExecutorService.execute(() -> {
+        mExecutorService.execute("getWeekCategoryStatisticsAsync", () -> {
             try {
                 if (!mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "getWeekCategoryStatisticsAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordCancelled("getWeekCategoryStatisticsAsync");
+                    AppLog.d(TAG, "getWeekCategoryStatisticsAsync: 请求已取消，ID={}", requestId);
                     return;
                 }
                 List<CategoryStatistics> categoryList = mDbHelper.queryWeekCategoryStatistics(startDate, endDate, billType);
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "getWeekCategoryStatisticsAsync: 请求成功，ID=" + requestId + "，数量=" + categoryList.size());
+                    AppLog.d(TAG, "getWeekCategoryStatisticsAsync: 请求成功，ID={}，数量={}", requestId, categoryList.size());
                     callback.onSuccess(categoryList);
                     mPendingRequests.remove(requestId);
                 } else {
-                    Log.d(TAG, "getWeekCategoryStatisticsAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordDropped("getWeekCategoryStatisticsAsync");
+                    AppLog.d(TAG, "getWeekCategoryStatisticsAsync: 请求已取消，ID={}", requestId);
                 }
             } catch (Exception e) {
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.e(TAG, "getWeekCategoryStatisticsAsync: 请求失败，ID=" + requestId + "，错误=" + e.getMessage());
+                    AppLog.e(TAG, "getWeekCategoryStatisticsAsync: 请求失败，ID={}，错误={}", requestId, e.getMessage());
                     callback.onError(e);
                     mPendingRequests.remove(requestId);
                 }
@@ -349,25 +474,27 @@ public class BillRepository {
     public String getYearCategoryStatisticsAsync(String year, int billType, Callback<List<CategoryStatistics>> callback) {
         String requestId = "year_category_stats_" + year + "_" + billType + "_" + mRequestIdGenerator.incrementAndGet();
         mPendingRequests.put(requestId, true);
-        Log.d(TAG, "getYearCategoryStatisticsAsync: 提交请求，ID=" + requestId + "，年份=" + year + "，类型=" + billType);
+        AppLog.d(TAG, "getYearCategoryStatisticsAsync: 提交请求，ID={}，年份={}，类型={}", requestId, year, billType);
         
-        mExecutorService.execute(() -> {
+        mExecutorService.execute("getYearCategoryStatisticsAsync", () -> {
             try {
                 if (!mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "getYearCategoryStatisticsAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordCancelled("getYearCategoryStatisticsAsync");
+                    AppLog.d(TAG, "getYearCategoryStatisticsAsync: 请求已取消，ID={}", requestId);
                     return;
                 }
                 List<CategoryStatistics> categoryList = mDbHelper.queryYearCategoryStatistics(year, billType);
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "getYearCategoryStatisticsAsync: 请求成功，ID=" + requestId + "，数量=" + categoryList.size());
+                    AppLog.d(TAG, "getYearCategoryStatisticsAsync: 请求成功，ID={}，数量={}", requestId, categoryList.size());
                     callback.onSuccess(categoryList);
                     mPendingRequests.remove(requestId);
                 } else {
-                    Log.d(TAG, "getYearCategoryStatisticsAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordDropped("getYearCategoryStatisticsAsync");
+                    AppLog.d(TAG, "getYearCategoryStatisticsAsync: 请求已取消，ID={}", requestId);
                 }
             } catch (Exception e) {
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.e(TAG, "getYearCategoryStatisticsAsync: 请求失败，ID=" + requestId + "，错误=" + e.getMessage());
+                    AppLog.e(TAG, "getYearCategoryStatisticsAsync: 请求失败，ID={}，错误={}", requestId, e.getMessage());
                     callback.onError(e);
                     mPendingRequests.remove(requestId);
                 }
@@ -387,25 +514,67 @@ public class BillRepository {
     public String getMonthCategoryStatisticsAsync(String month, int billType, Callback<List<CategoryStatistics>> callback) {
         String requestId = "month_category_stats_" + month + "_" + billType + "_" + mRequestIdGenerator.incrementAndGet();
         mPendingRequests.put(requestId, true);
-        Log.d(TAG, "getMonthCategoryStatisticsAsync: 提交请求，ID=" + requestId + "，月份=" + month + "，类型=" + billType);
+        AppLog.d(TAG, "getMonthCategoryStatisticsAsync: 提交请求，ID={}，月份={}，类型={}", requestId, month, billType);
         
-        mExecutorService.execute(() -> {
+        mExecutorService.execute("getMonthCategoryStatisticsAsync", () -> {
             try {
                 if (!mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "getMonthCategoryStatisticsAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordCancelled("getMonthCategoryStatisticsAsync");
+                    AppLog.d(TAG, "getMonthCategoryStatisticsAsync: 请求已取消，ID={}", requestId);
                     return;
                 }
                 List<CategoryStatistics> categoryList = mDbHelper.queryMonthCategoryStatistics(month, billType);
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "getMonthCategoryStatisticsAsync: 请求成功，ID=" + requestId + "，数量=" + categoryList.size());
+                    AppLog.d(TAG, "getMonthCategoryStatisticsAsync: 请求成功，ID={}，数量={}", requestId, categoryList.size());
                     callback.onSuccess(categoryList);
                     mPendingRequests.remove(requestId);
                 } else {
-                    Log.d(TAG, "getMonthCategoryStatisticsAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordDropped("getMonthCategoryStatisticsAsync");
+                    AppLog.d(TAG, "getMonthCategoryStatisticsAsync: 请求已取消，ID={}", requestId);
+                }
+            } catch (Exception e) {
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.e(TAG, "getMonthCategoryStatisticsAsync: 请求失败，ID={}，错误={}", requestId, e.getMessage());
+                    callback.onError(e);
+                    mPendingRequests.remove(requestId);
+                }
+            }
+        });
+        return requestId;
+    }
+
+    /**
+     * 获取区间内按日趋势 - 异步方法
+     *
+     * @param range 统计区间
+     * @param billType 账单类型（0=支出，1=收入）
+     * @param callback 回调接口，用于返回按日趋势
+     * @return 请求ID，可用于取消请求
+     */
+    public String getDailyTrendAsync(DateRange range, int billType, Callback<DailyTrend> callback) {
+        String requestId = "daily_trend_" + range + "_" + billType + "_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
+        AppLog.d(TAG, "getDailyTrendAsync: 提交请求，ID={}", requestId);
+
+        mExecutorService.execute("getDailyTrendAsync", () -> {
+            try {
+                if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("getDailyTrendAsync");
+                    AppLog.d(TAG, "getDailyTrendAsync: 请求已取消，ID={}", requestId);
+                    return;
+                }
+                DailyTrend trend = mDbHelper.queryDailyTotals(range, billType);
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.d(TAG, "getDailyTrendAsync: 请求成功，ID={}，天数={}", requestId, trend.size());
+                    callback.onSuccess(trend);
+                    mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("getDailyTrendAsync");
+                    AppLog.d(TAG, "getDailyTrendAsync: 请求已取消，ID={}", requestId);
                 }
             } catch (Exception e) {
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.e(TAG, "getMonthCategoryStatisticsAsync: 请求失败，ID=" + requestId + "，错误=" + e.getMessage());
+                    AppLog.e(TAG, "getDailyTrendAsync: 请求失败，ID={}，错误={}", requestId, e.getMessage());
                     callback.onError(e);
                     mPendingRequests.remove(requestId);
                 }
@@ -424,15 +593,18 @@ public class BillRepository {
         String requestId = "recent_bills_" + mRequestIdGenerator.incrementAndGet();
         mPendingRequests.put(requestId, true);
         
-        mExecutorService.execute(() -> {
+        mExecutorService.execute("getRecentBillsAsync", () -> {
             try {
                 if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("getRecentBillsAsync");
                     return;
                 }
                 List<Bill> bills = getRecentBills();
                 if (mPendingRequests.containsKey(requestId)) {
                     callback.onSuccess(bills);
                     mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("getRecentBillsAsync");
                 }
             } catch (Exception e) {
                 if (mPendingRequests.containsKey(requestId)) {
@@ -464,15 +636,18 @@ public class BillRepository {
         String requestId = "bills_by_days_" + days + "_" + mRequestIdGenerator.incrementAndGet();
         mPendingRequests.put(requestId, true);
         
-        mExecutorService.execute(() -> {
+        mExecutorService.execute("getBillsByDaysAsync", () -> {
             try {
                 if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("getBillsByDaysAsync");
                     return;
                 }
                 List<Bill> bills = getBillsByDays(days);
                 if (mPendingRequests.containsKey(requestId)) {
                     callback.onSuccess(bills);
                     mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("getBillsByDaysAsync");
                 }
             } catch (Exception e) {
                 if (mPendingRequests.containsKey(requestId)) {
@@ -506,7 +681,7 @@ public class BillRepository {
             
             return filteredBills;
         } catch (Exception e) {
-            Log.e(TAG, "获取指定天数账单失败: " + e.getMessage());
+            AppLog.e(TAG, "获取指定天数账单失败: {}", e.getMessage());
             return List.of();
         }
     }
@@ -521,25 +696,27 @@ public class BillRepository {
     public String getBillsByDateAsync(String date, Callback<List<Bill>> callback) {
         String requestId = "bills_by_date_" + mRequestIdGenerator.incrementAndGet();
         mPendingRequests.put(requestId, true);
-        Log.d(TAG, "getBillsByDateAsync: 提交请求，ID=" + requestId + "，日期=" + date);
+        AppLog.d(TAG, "getBillsByDateAsync: 提交请求，ID={}，日期={}", requestId, date);
         
-        mExecutorService.execute(() -> {
+        mExecutorService.execute("getBillsByDateAsync", () -> {
             try {
                 if (!mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "getBillsByDateAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordCancelled("getBillsByDateAsync");
+                    AppLog.d(TAG, "getBillsByDateAsync: 请求已取消，ID={}", requestId);
                     return;
                 }
                 List<Bill> bills = getBillsByDate(date);
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "getBillsByDateAsync: 请求成功，ID=" + requestId + "，数量=" + bills.size());
+                    AppLog.d(TAG, "getBillsByDateAsync: 请求成功，ID={}，数量={}", requestId, bills.size());
                     callback.onSuccess(bills);
                     mPendingRequests.remove(requestId);
                 } else {
-                    Log.d(TAG, "getBillsByDateAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordDropped("getBillsByDateAsync");
+                    AppLog.d(TAG, "getBillsByDateAsync: 请求已取消，ID={}", requestId);
                 }
             } catch (Exception e) {
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.e(TAG, "getBillsByDateAsync: 请求失败，ID=" + requestId + "，错误=" + e.getMessage());
+                    AppLog.e(TAG, "getBillsByDateAsync: 请求失败，ID={}，错误={}", requestId, e.getMessage());
                     callback.onError(e);
                     mPendingRequests.remove(requestId);
                 }
@@ -567,195 +744,322 @@ public class BillRepository {
             
             return filteredBills;
         } catch (Exception e) {
-            Log.e(TAG, "获取指定日期账单失败: " + e.getMessage());
+            AppLog.e(TAG, "获取指定日期账单失败: {}", e.getMessage());
             return List.of();
         }
     }
 
     /**
-     * 获取所有账单 - 异步方法
+     * 获取月历数据 - 异步方法
+     * <p>
+     * 命中缓存时直接在调用线程回调；否则在后台线程用一次 GROUP BY date 查询汇总整月，
+     * needBills为true时同时加载当月明细，供点击某天时直接从缓存取。
+     * </p>
      *
-     * @param callback 回调接口，用于返回账单列表
+     * @param month 月份字符串（yyyy-MM格式）
+     * @param needBills 是否需要当月账单明细
+     * @param callback 回调接口，用于返回月历数据
+     * @return 请求ID，命中缓存时返回null
      */
-    public void getAllBillsAsync(Callback<List<Bill>> callback) {
-        mExecutorService.execute(() -> {
+    public String getMonthCalendarAsync(String month, boolean needBills, Callback<MonthCalendarData> callback) {
+        MonthCalendarData cached = getCachedMonthCalendar(month);
+        if (cached != null && (!needBills || cached.hasBills())) {
+            AppLog.d(TAG, "getMonthCalendarAsync: 命中缓存，月份={}", month);
+            callback.onSuccess(cached);
+            return null;
+        }
+
+        String requestId = "month_calendar_" + month + "_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
+        AppLog.d(TAG, "getMonthCalendarAsync: 提交请求，ID={}，月份={}", requestId, month);
+
+        mExecutorService.execute("getMonthCalendarAsync", () -> {
             try {
-                List<Bill> bills = getAllBills();
-                callback.onSuccess(bills);
+                if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("getMonthCalendarAsync");
+                    AppLog.d(TAG, "getMonthCalendarAsync: 请求已取消，ID={}", requestId);
+                    return;
+                }
+                MonthCalendarData data = getMonthCalendar(month, needBills);
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.d(TAG, "getMonthCalendarAsync: 请求成功，ID={}", requestId);
+                    callback.onSuccess(data);
+                    mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("getMonthCalendarAsync");
+                    AppLog.d(TAG, "getMonthCalendarAsync: 请求已取消，ID={}", requestId);
+                }
             } catch (Exception e) {
-                callback.onError(e);
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.e(TAG, "getMonthCalendarAsync: 请求失败，ID={}，错误={}", requestId, e.getMessage());
+                    callback.onError(e);
+                    mPendingRequests.remove(requestId);
+                }
             }
         });
+        return requestId;
     }
 
     /**
-     * 获取所有账单
+     * 获取月历数据（同步方法），结果写入缓存
+     * <p>
+     * 查询期间账单有变化时不写缓存，避免把变化前的数据放回刚清空的缓存
+     * </p>
      *
-     * @return 所有账单列表
+     * @param month 月份字符串（yyyy-MM格式）
+     * @param needBills 是否需要当月账单明细
+     * @return 月历数据
      */
-    public List<Bill> getAllBills() {
+    public MonthCalendarData getMonthCalendar(String month, boolean needBills) {
+        MonthCalendarData data;
+        synchronized (mMonthCache) {
+            data = mMonthCache.get(month);
+        }
+        if (data != null && (!needBills || data.hasBills())) {
+            return data;
+        }
+        int version = mDataVersion;
+        AppLog.beginSection("BillRepo.getMonthCalendar");
         try {
-            return mDbHelper.queryAllBill();
-        } catch (Exception e) {
-            Log.e(TAG, "获取所有账单失败: " + e.getMessage());
-            return List.of();
+            if (data == null) {
+                data = mDbHelper.queryMonthDailyTotals(month);
+            }
+            if (needBills) {
+                data = data.withBills(mDbHelper.queryWeekBill(month + "-01", month + "-31"));
+            }
+        } finally {
+            AppLog.endSection();
+        }
+        synchronized (mMonthCache) {
+            if (version == mDataVersion) {
+                mMonthCache.put(month, data);
+            }
         }
+        return data;
     }
 
     /**
-     * 根据账单类型获取账单列表 - 异步方法
+     * 在低优先级线程预取月历热力图数据（只汇总，不加载明细），用于相邻月份
      *
-     * @param billType 账单类型：0=支出，1=收入
-     * @param callback 回调接口，用于返回账单列表
+     * @param month 月份字符串（yyyy-MM格式）
      */
-    public void getBillsByTypeAsync(int billType, Callback<List<Bill>> callback) {
-        mExecutorService.execute(() -> {
+    public void prefetchMonthCalendar(String month) {
+        if (getCachedMonthCalendar(month) != null) {
+            return;
+        }
+        AppLog.d(TAG, "prefetchMonthCalendar: 预取月份={}", month);
+        mPrefetchExecutor.execute("prefetchMonthCalendar", () -> {
             try {
-                List<Bill> bills = getBillsByType(billType);
-                callback.onSuccess(bills);
+                getMonthCalendar(month, false);
             } catch (Exception e) {
-                callback.onError(e);
+                AppLog.e(TAG, "prefetchMonthCalendar: 预取失败: {}", e.getMessage());
             }
         });
     }
 
     /**
-     * 根据账单类型获取账单列表
+     * 读取缓存中的月历数据，计入命中率
      *
-     * @param billType 账单类型：0=支出，1=收入
-     * @return 过滤后的账单列表
+     * @param month 月份字符串（yyyy-MM格式）
+     * @return 缓存的月历数据，不存在时返回null
      */
-    public List<Bill> getBillsByType(int billType) {
-        try {
-            return mDbHelper.queryBillByType(billType);
-        } catch (Exception e) {
-            Log.e(TAG, "根据类型获取账单失败: " + e.getMessage());
-            return List.of();
+    public MonthCalendarData getCachedMonthCalendar(String month) {
+        MonthCalendarData data;
+        synchronized (mMonthCache) {
+            data = mMonthCache.get(month);
         }
+        mMonthCacheStats.record(data != null);
+        return data;
     }
 
     /**
-     * 添加新账单 - 异步方法
+     * 获取统计区间的收支合计和分类明细 - 异步方法
+     * 命中缓存时直接在调用线程回调并返回null
      *
-     * @param bill 要添加的账单对象
-     * @param callback 回调接口，用于返回添加结果
+     * @param range 统计区间
+     * @param categoryBillType 分类明细的账单类型（0=支出，1=收入，-1=不统计分类）
+     * @param callback 回调接口，用于返回区间统计
+     * @return 请求ID，可用于取消请求；命中缓存时返回null
      */
-    public void addBillAsync(Bill bill, Callback<Boolean> callback) {
-        Log.d(TAG, "addBillAsync: 提交添加账单请求，金额=" + bill.getAmount() + "，类型=" + bill.getBillType());
-        mExecutorService.execute(() -> {
+    public String getPeriodStatisticsAsync(DateRange range, int categoryBillType, Callback<PeriodStatistics> callback) {
+        PeriodStatistics cached = getCachedPeriodStatistics(range, categoryBillType);
+        if (cached != null) {
+            AppLog.d(TAG, "getPeriodStatisticsAsync: 命中缓存，区间={}", range);
+            callback.onSuccess(cached);
+            return null;
+        }
+
+        String requestId = "period_stats_" + range + "_" + categoryBillType + "_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
+        AppLog.d(TAG, "getPeriodStatisticsAsync: 提交请求，ID={}", requestId);
+
+        mExecutorService.execute("getPeriodStatisticsAsync", () -> {
             try {
-                boolean result = addBill(bill);
-                Log.d(TAG, "addBillAsync: 添加账单" + (result ? "成功" : "失败"));
-                callback.onSuccess(result);
+                if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("getPeriodStatisticsAsync");
+                    AppLog.d(TAG, "getPeriodStatisticsAsync: 请求已取消，ID={}", requestId);
+                    return;
+                }
+                PeriodStatistics statistics = getPeriodStatistics(range, categoryBillType);
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.d(TAG, "getPeriodStatisticsAsync: 请求成功，ID={}", requestId);
+                    callback.onSuccess(statistics);
+                    mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("getPeriodStatisticsAsync");
+                    AppLog.d(TAG, "getPeriodStatisticsAsync: 请求已取消，ID={}", requestId);
+                }
             } catch (Exception e) {
-                Log.e(TAG, "addBillAsync: 添加账单异常: " + e.getMessage());
-                callback.onError(e);
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.e(TAG, "getPeriodStatisticsAsync: 请求失败，ID={}，错误={}", requestId, e.getMessage());
+                    callback.onError(e);
+                    mPendingRequests.remove(requestId);
+                }
             }
         });
+        return requestId;
     }
 
     /**
-     * 添加新账单
+     * 获取统计区间的收支合计和分类明细（同步方法），结果写入缓存
      *
-     * @param bill 要添加的账单对象
-     * @return 添加结果：true=成功，false=失败
+     * @param range 统计区间
+     * @param categoryBillType 分类明细的账单类型（0=支出，1=收入，-1=不统计分类）
+     * @return 区间统计
      */
-    public boolean addBill(Bill bill) {
+    public PeriodStatistics getPeriodStatistics(DateRange range, int categoryBillType) {
+        PeriodStatistics statistics;
+        synchronized (mPeriodCache) {
+            statistics = mPeriodCache.get(periodKey(range, categoryBillType));
+        }
+        if (statistics != null) {
+            return statistics;
+        }
+        int version = mDataVersion;
+        AppLog.beginSection("BillRepo.getPeriodStatistics");
         try {
-            boolean result = mDbHelper.insertBill(bill);
-            Log.d(TAG, "addBill: 数据库插入" + (result ? "成功" : "失败"));
-            return result;
-        } catch (Exception e) {
-            Log.e(TAG, "addBill: 添加账单失败: " + e.getMessage());
-            return false;
+            double[] totals = mDbHelper.queryRangeTotals(range.getStartDate(), range.getEndDate());
+            List<CategoryStatistics> categoryList = categoryBillType == -1
+                    ? new ArrayList<>()
+                    : mDbHelper.queryWeekCategoryStatistics(range.getStartDate(), range.getEndDate(), categoryBillType);
+            statistics = new PeriodStatistics(range, categoryBillType, totals[0], totals[1], categoryList);
+        } finally {
+            AppLog.endSection();
         }
+        synchronized (mPeriodCache) {
+            if (version == mDataVersion) {
+                mPeriodCache.put(periodKey(range, categoryBillType), statistics);
+            }
+        }
+        return statistics;
     }
 
     /**
-     * 更新账单 - 异步方法
+     * 在低优先级线程预取统计区间，用于前后相邻的区间
      *
-     * @param bill 要更新的账单对象（必须包含有效的ID）
-     * @param callback 回调接口，用于返回更新结果
+     * @param range 统计区间
+     * @param categoryBillType 分类明细的账单类型（0=支出，1=收入，-1=不统计分类）
+     * @return 请求ID，可用于取消预取；已在缓存中时返回null
      */
-    public void updateBillAsync(Bill bill, Callback<Boolean> callback) {
-        Log.d(TAG, "updateBillAsync: 提交更新账单请求，ID=" + bill.getId());
-        mExecutorService.execute(() -> {
+    public String prefetchPeriodStatistics(DateRange range, int categoryBillType) {
+        if (getCachedPeriodStatistics(range, categoryBillType) != null) {
+            return null;
+        }
+        String requestId = "period_prefetch_" + range + "_" + categoryBillType + "_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
+        AppLog.d(TAG, "prefetchPeriodStatistics: 预取区间={}，ID={}", range, requestId);
+
+        mPrefetchExecutor.execute("prefetchPeriodStatistics", () -> {
             try {
-                boolean result = updateBill(bill);
-                Log.d(TAG, "updateBillAsync: 更新账单" + (result ? "成功" : "失败"));
-                callback.onSuccess(result);
+                if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("prefetchPeriodStatistics");
+                    AppLog.d(TAG, "prefetchPeriodStatistics: 预取已取消，ID={}", requestId);
+                    return;
+                }
+                getPeriodStatistics(range, categoryBillType);
             } catch (Exception e) {
-                Log.e(TAG, "updateBillAsync: 更新账单异常: " + e.getMessage());
-                callback.onError(e);
+                AppLog.e(TAG, "prefetchPeriodStatistics: 预取失败: {}", e.getMessage());
+            } finally {
+                mPendingRequests.remove(requestId);
             }
         });
+        return requestId;
     }
 
     /**
-     * 更新账单
+     * 读取缓存中的统计区间，计入命中率
      *
-     * @param bill 要更新的账单对象（必须包含有效的ID）
-     * @return 更新结果：true=成功，false=失败
+     * @param range 统计区间
+     * @param categoryBillType 分类明细的账单类型
+     * @return 缓存的区间统计，不存在时返回null
      */
-    public boolean updateBill(Bill bill) {
-        try {
-            boolean result = mDbHelper.updateBill(bill);
-            Log.d(TAG, "updateBill: 数据库更新" + (result ? "成功" : "失败"));
-            return result;
-        } catch (Exception e) {
-            Log.e(TAG, "updateBill: 更新账单失败: " + e.getMessage());
-            return false;
+    public PeriodStatistics getCachedPeriodStatistics(DateRange range, int categoryBillType) {
+        PeriodStatistics statistics;
+        synchronized (mPeriodCache) {
+            statistics = mPeriodCache.get(periodKey(range, categoryBillType));
         }
+        mPeriodCacheStats.record(statistics != null);
+        return statistics;
+    }
+
+    private static String periodKey(DateRange range, int categoryBillType) {
+        return range.getDimension() + "_" + range + "_" + categoryBillType;
     }
 
     /**
-     * 删除账单 - 异步方法
+     * 账单发生变化后清空月历缓存和统计区间缓存
+     */
+    private void invalidateCaches() {
+        synchronized (mPeriodCache) {
+            mDataVersion++;
+            mPeriodCache.clear();
+        }
+        synchronized (mMonthCache) {
+            mMonthCache.clear();
+        }
+    }
+
+    /**
+     * 获取所有账单 - 异步方法
      *
-     * @param billId 要删除的账单ID
-     * @param callback 回调接口，用于返回删除结果
+     * @param callback 回调接口，用于返回账单列表
      */
-    public void deleteBillAsync(int billId, Callback<Boolean> callback) {
-        Log.d(TAG, "deleteBillAsync: 提交删除账单请求，ID=" + billId);
-        mExecutorService.execute(() -> {
+    public void getAllBillsAsync(Callback<List<Bill>> callback) {
+        mExecutorService.execute("getAllBillsAsync", () -> {
             try {
-                boolean result = deleteBill(billId);
-                Log.d(TAG, "deleteBillAsync: 删除账单" + (result ? "成功" : "失败"));
-                callback.onSuccess(result);
+                List<Bill> bills = getAllBills();
+                callback.onSuccess(bills);
             } catch (Exception e) {
-                Log.e(TAG, "deleteBillAsync: 删除账单异常: " + e.getMessage());
                 callback.onError(e);
             }
         });
     }
 
     /**
-     * 删除账单
+     * 获取所有账单
      *
-     * @param billId 要删除的账单ID
-     * @return 删除结果：true=成功，false=失败
+     * @return 所有账单列表
      */
-    public boolean deleteBill(int billId) {
+    public List<Bill> getAllBills() {
         try {
-            boolean result = mDbHelper.deleteBill(billId);
-            Log.d(TAG, "deleteBill: 数据库删除" + (result ? "成功" : "失败"));
-            return result;
+            return mDbHelper.queryAllBill();
         } catch (Exception e) {
-            Log.e(TAG, "deleteBill: 删除账单失败: " + e.getMessage());
-            return false;
+            AppLog.e(TAG, "获取所有账单失败: {}", e.getMessage());
+            return List.of();
         }
     }
 
     /**
-     * 根据ID查询账单 - 异步方法
+     * 根据账单类型获取账单列表 - 异步方法
      *
-     * @param billId 要查询的账单ID
-     * @param callback 回调接口，用于返回查询结果
+     * @param billType 账单类型：0=支出，1=收入
+     * @param callback 回调接口，用于返回账单列表
      */
-    public void getBillByIdAsync(int billId, Callback<Bill> callback) {
-        mExecutorService.execute(() -> {
+    public void getBillsByTypeAsync(int billType, Callback<List<Bill>> callback) {
+        mExecutorService.execute("getBillsByTypeAsync", () -> {
             try {
-                Bill bill = getBillById(billId);
-                callback.onSuccess(bill);
+                List<Bill> bills = getBillsByType(billType);
+                callback.onSuccess(bills);
             } catch (Exception e) {
                 callback.onError(e);
             }
@@ -763,96 +1067,108 @@ public class BillRepository {
     }
 
     /**
-     * 根据ID查询账单
+     * 根据账单类型获取账单列表
      *
-     * @param billId 要查询的账单ID
-     * @return 查询到的账单对象，如果不存在则返回null
+     * @param billType 账单类型：0=支出，1=收入
+     * @return 过滤后的账单列表
      */
-    public Bill getBillById(int billId) {
+    public List<Bill> getBillsByType(int billType) {
         try {
-            return mDbHelper.queryBillById(billId);
+            return mDbHelper.queryBillByType(billType);
         } catch (Exception e) {
-            Log.e(TAG, "根据ID查询账单失败: " + e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * 关闭数据库连接和线程池
-     * 静态方法，用于在应用退出时统一调用
-     */
-    public static void close() {
-        if (sInstance != null) {
-            sInstance.mDbHelper.close();
-            sInstance.mExecutorService.shutdown();
-            sInstance = null;
+            AppLog.e(TAG, "根据类型获取账单失败: {}", e.getMessage());
+            return List.of();
         }
     }
 
     /**
-     * 计算本周统计数据（同步方法）
+     * 按日期分组分页获取账单 - 异步方法
      *
-     * @param startDate 开始日期
-     * @param endDate 结束日期
-     * @return 本周统计结果
+     * @param billType 账单类型：-1=全部，0=支出，1=收入
+     * @param afterBill 上一页最后一条账单，为null时加载第一页
+     * @param pageSize 每页条数
+     * @param callback 回调接口，用于返回带日期分组头的列表项
+     * @return 请求ID，可用于取消请求
      */
-    public WeekStatistics calculateWeekStatistics(String startDate, String endDate) {
-        WeekStatistics statistics = new WeekStatistics();
-        try {
-            List<Bill> weekBills = mDbHelper.queryWeekBill(startDate, endDate);
-
-            double weekIncome = 0.0;
-            double weekExpense = 0.0;
+    public String getBillPageAsync(int billType, Bill afterBill, int pageSize, Callback<List<BillListItem>> callback) {
+        String requestId = "bill_page_" + billType + "_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
+        AppLog.d(TAG, "getBillPageAsync: 提交请求，ID={}，类型={}，每页={}", requestId, billType, pageSize);
 
-            for (Bill bill : weekBills) {
-                if (bill.getBillType() == 1) {
-                    weekIncome += bill.getAmount();
+        mExecutorService.execute("getBillPageAsync", () -> {
+            try {
+                if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("getBillPageAsync");
+                    AppLog.d(TAG, "getBillPageAsync: 请求已取消，ID={}", requestId);
+                    return;
+                }
+                List<BillListItem> items = getBillPage(billType, afterBill, pageSize);
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.d(TAG, "getBillPageAsync: 请求成功，ID={}，数量={}", requestId, items.size());
+                    callback.onSuccess(items);
+                    mPendingRequests.remove(requestId);
                 } else {
-                    weekExpense += bill.getAmount();
+                    mMetrics.recordDropped("getBillPageAsync");
+                    AppLog.d(TAG, "getBillPageAsync: 请求已取消，ID={}", requestId);
+                }
+            } catch (Exception e) {
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.e(TAG, "getBillPageAsync: 请求失败，ID={}，错误={}", requestId, e.getMessage());
+                    callback.onError(e);
+                    mPendingRequests.remove(requestId);
                 }
             }
+        });
+        return requestId;
+    }
 
-            statistics.setIncome(weekIncome);
-            statistics.setExpense(weekExpense);
-            statistics.setBalance(weekIncome - weekExpense);
-
+    /**
+     * 按日期分组分页获取账单
+     *
+     * @param billType 账单类型：-1=全部，0=支出，1=收入
+     * @param afterBill 上一页最后一条账单，为null时加载第一页
+     * @param pageSize 每页条数
+     * @return 带日期分组头的列表项
+     */
+    public List<BillListItem> getBillPage(int billType, Bill afterBill, int pageSize) {
+        try {
+            return mDbHelper.queryBillPageWithDayTotals(billType, afterBill, pageSize);
         } catch (Exception e) {
-            Log.e(TAG, "计算本周统计数据失败: " + e.getMessage());
+            AppLog.e(TAG, "分页获取账单失败: {}", e.getMessage());
+            return List.of();
         }
-
-        return statistics;
     }
 
     /**
-     * 计算本周统计数据（异步方法）
+     * 按组合条件查询账单 - 异步方法
+     * 新页面组合日期、类型、分类、金额、备注等条件即可，不必新增数据库方法
      *
-     * @param startDate 开始日期
-     * @param endDate 结束日期
-     * @param callback 回调接口，用于返回统计结果
+     * @param filter 查询条件
+     * @param callback 回调接口，用于返回账单列表
      * @return 请求ID，可用于取消请求
      */
-    public String calculateWeekStatisticsAsync(String startDate, String endDate, Callback<WeekStatistics> callback) {
-        String requestId = "week_stats_" + mRequestIdGenerator.incrementAndGet();
+    public String queryBillsAsync(BillFilter filter, Callback<List<Bill>> callback) {
+        String requestId = "query_bills_" + mRequestIdGenerator.incrementAndGet();
         mPendingRequests.put(requestId, true);
-        Log.d(TAG, "calculateWeekStatisticsAsync: 提交请求，ID=" + requestId + "，开始=" + startDate + "，结束=" + endDate);
-        
-        mExecutorService.execute(() -> {
+
+        mExecutorService.execute("queryBillsAsync", () -> {
             try {
                 if (!mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "calculateWeekStatisticsAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordCancelled("queryBillsAsync");
+                    AppLog.d(TAG, "queryBillsAsync: 请求已取消，ID={}", requestId);
                     return;
                 }
-                WeekStatistics statistics = calculateWeekStatistics(startDate, endDate);
+                List<Bill> bills = mDbHelper.queryBills(filter);
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.d(TAG, "calculateWeekStatisticsAsync: 请求成功，ID=" + requestId);
-                    callback.onSuccess(statistics);
+                    AppLog.d(TAG, "queryBillsAsync: 请求成功，ID={}，数量={}", requestId, bills.size());
+                    callback.onSuccess(bills);
                     mPendingRequests.remove(requestId);
                 } else {
-                    Log.d(TAG, "calculateWeekStatisticsAsync: 请求已取消，ID=" + requestId);
+                    mMetrics.recordDropped("queryBillsAsync");
                 }
             } catch (Exception e) {
                 if (mPendingRequests.containsKey(requestId)) {
-                    Log.e(TAG, "calculateWeekStatisticsAsync: 请求失败，ID=" + requestId + "，错误=" + e.getMessage());
+                    AppLog.e(TAG, "queryBillsAsync: 请求失败，ID={}，错误={}", requestId, e.getMessage());
                     callback.onError(e);
                     mPendingRequests.remove(requestId);
                 }
@@ -862,139 +1178,831 @@ public class BillRepository {
     }
 
     /**
-     * 今日统计数据类
-     * 用于封装今日收入、支出和结余信息
+     * 添加新账单 - 异步方法
+     *
+     * @param bill 要添加的账单对象
+     * @param callback 回调接口，用于返回添加结果
      */
-    public static class TodayStatistics {
-        private double income;
-        private double expense;
-        private double balance;
+    public void addBillAsync(Bill bill, Callback<Boolean> callback) {
+        AppLog.d(TAG, "addBillAsync: 提交添加账单请求，金额={}，类型={}", bill.getAmount(), bill.getBillType());
+        mExecutorService.execute("addBillAsync", () -> {
+            try {
+                boolean result = addBill(bill);
+                AppLog.d(TAG, "addBillAsync: 添加账单{}", (result ? "成功" : "失败"));
+                callback.onSuccess(result);
+            } catch (Exception e) {
+                AppLog.e(TAG, "addBillAsync: 添加账单异常: {}", e.getMessage());
+                callback.onError(e);
+            }
+        });
+    }
 
-        public double getIncome() {
-            return income;
+    /**
+     * 添加新账单
+     *
+     * @param bill 要添加的账单对象
+     * @return 添加结果：true=成功，false=失败
+     */
+    public boolean addBill(Bill bill) {
+        try {
+            boolean result;
+            synchronized (mWriteLock) {
+                result = mDbHelper.insertBill(bill);
+                if (result) {
+                    mBudgetEngine.onBillChanged(getCurrentMonth(), null, bill);
+                }
+            }
+            AppLog.d(TAG, "addBill: 数据库插入{}", (result ? "成功" : "失败"));
+            if (result) {
+                invalidateCaches();
+            }
+            return result;
+        } catch (Exception e) {
+            AppLog.e(TAG, "addBill: 添加账单失败: {}", e.getMessage());
+            return false;
         }
+    }
 
-        public void setIncome(double income) {
-            this.income = income;
-        }
+    /**
+     * 更新账单 - 异步方法
+     *
+     * @param bill 要更新的账单对象（必须包含有效的ID）
+     * @param callback 回调接口，用于返回更新结果
+     */
+    public void updateBillAsync(Bill bill, Callback<Boolean> callback) {
+        AppLog.d(TAG, "updateBillAsync: 提交更新账单请求，ID={}", bill.getId());
+        mExecutorService.execute("updateBillAsync", () -> {
+            try {
+                boolean result = updateBill(bill);
+                AppLog.d(TAG, "updateBillAsync: 更新账单{}", (result ? "成功" : "失败"));
+                callback.onSuccess(result);
+            } catch (Exception e) {
+                AppLog.e(TAG, "updateBillAsync: 更新账单异常: {}", e.getMessage());
+                callback.onError(e);
+            }
+        });
+    }
 
-        public double getExpense() {
-            return expense;
+    /**
+     * 更新账单
+     *
+     * @param bill 要更新的账单对象（必须包含有效的ID）
+     * @return 更新结果：true=成功，false=失败
+     */
+    public boolean updateBill(Bill bill) {
+        try {
+            boolean result;
+            synchronized (mWriteLock) {
+                // 预算按新旧内容的差额调整，先按主键取出修改前的账单
+                Bill oldBill = mDbHelper.queryBillById(bill.getId());
+                result = mDbHelper.updateBill(bill);
+                if (result) {
+                    mBudgetEngine.onBillChanged(getCurrentMonth(), oldBill, bill);
+                }
+            }
+            AppLog.d(TAG, "updateBill: 数据库更新{}", (result ? "成功" : "失败"));
+            if (result) {
+                invalidateCaches();
+            }
+            return result;
+        } catch (Exception e) {
+            AppLog.e(TAG, "updateBill: 更新账单失败: {}", e.getMessage());
+            return false;
         }
+    }
 
-        public void setExpense(double expense) {
-            this.expense = expense;
-        }
+    /**
+     * 删除账单 - 异步方法
+     *
+     * @param billId 要删除的账单ID
+     * @param callback 回调接口，用于返回删除结果
+     */
+    public void deleteBillAsync(int billId, Callback<Boolean> callback) {
+        AppLog.d(TAG, "deleteBillAsync: 提交删除账单请求，ID={}", billId);
+        mExecutorService.execute("deleteBillAsync", () -> {
+            try {
+                boolean result = deleteBill(billId);
+                AppLog.d(TAG, "deleteBillAsync: 删除账单{}", (result ? "成功" : "失败"));
+                callback.onSuccess(result);
+            } catch (Exception e) {
+                AppLog.e(TAG, "deleteBillAsync: 删除账单异常: {}", e.getMessage());
+                callback.onError(e);
+            }
+        });
+    }
 
-        public double getBalance() {
-            return balance;
+    /**
+     * 删除账单
+     *
+     * @param billId 要删除的账单ID
+     * @return 删除结果：true=成功，false=失败
+     */
+    public boolean deleteBill(int billId) {
+        try {
+            boolean result;
+            synchronized (mWriteLock) {
+                Bill oldBill = mDbHelper.queryBillById(billId);
+                result = mDbHelper.deleteBill(billId);
+                if (result) {
+                    mBudgetEngine.onBillChanged(getCurrentMonth(), oldBill, null);
+                }
+            }
+            AppLog.d(TAG, "deleteBill: 数据库删除{}", (result ? "成功" : "失败"));
+            if (result) {
+                invalidateCaches();
+            }
+            return result;
+        } catch (Exception e) {
+            AppLog.e(TAG, "deleteBill: 删除账单失败: {}", e.getMessage());
+            return false;
         }
+    }
+
+    /**
+     * 根据ID查询账单 - 异步方法
+     *
+     * @param billId 要查询的账单ID
+     * @param callback 回调接口，用于返回查询结果
+     */
+    public void getBillByIdAsync(int billId, Callback<Bill> callback) {
+        mExecutorService.execute("getBillByIdAsync", () -> {
+            try {
+                Bill bill = getBillById(billId);
+                callback.onSuccess(bill);
+            } catch (Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
 
-        public void setBalance(double balance) {
-            this.balance = balance;
+    /**
+     * 根据ID查询账单
+     *
+     * @param billId 要查询的账单ID
+     * @return 查询到的账单对象，如果不存在则返回null
+     */
+    public Bill getBillById(int billId) {
+        try {
+            return mDbHelper.queryBillById(billId);
+        } catch (Exception e) {
+            AppLog.e(TAG, "根据ID查询账单失败: {}", e.getMessage());
+            return null;
         }
     }
 
     /**
-     * 本周统计数据类
-     * 用于封装本周收入、支出和结余信息
+     * 导出账单为CSV - 异步方法
+     * 取消请求后导出在下一行停止，不再回调
+     *
+     * @param out 输出流，导出结束后关闭
+     * @param startDate 开始日期（yyyy-MM-dd格式），null表示不限
+     * @param endDate 结束日期（yyyy-MM-dd格式），null表示不限
+     * @param billType 账单类型（0=支出，1=收入，-1=全部）
+     * @param callback 回调接口，返回导出的行数并报告进度
+     * @return 请求ID，可用于取消导出
      */
-    public static class WeekStatistics {
-        private double income;
-        private double expense;
-        private double balance;
+    public String exportCsvAsync(OutputStream out, String startDate, String endDate, int billType,
+                                 ProgressCallback<Long> callback) {
+        String requestId = "export_csv_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
+        AppLog.d(TAG, "exportCsvAsync: 提交请求，ID={}", requestId);
 
-        public double getIncome() {
-            return income;
-        }
+        mExecutorService.execute("exportCsvAsync", () -> {
+            try {
+                long written = new BillCsvExporter(mDbHelper).export(out, startDate, endDate, billType,
+                        new BillCsvExporter.ExportListener() {
+                            @Override
+                            public void onProgress(long done, long total) {
+                                callback.onProgress(done, total);
+                            }
+
+                            @Override
+                            public boolean isCancelled() {
+                                return !mPendingRequests.containsKey(requestId);
+                            }
+                        });
+                if (written >= 0 && mPendingRequests.containsKey(requestId)) {
+                    AppLog.d(TAG, "exportCsvAsync: 导出成功，ID={}，行数={}", requestId, written);
+                    callback.onSuccess(written);
+                    mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("exportCsvAsync");
+                    AppLog.d(TAG, "exportCsvAsync: 导出已取消，ID={}", requestId);
+                }
+            } catch (Exception e) {
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.e(TAG, "exportCsvAsync: 导出失败，ID={}，错误={}", requestId, e.getMessage());
+                    callback.onError(e);
+                    mPendingRequests.remove(requestId);
+                }
+            }
+        });
+        return requestId;
+    }
 
-        public void setIncome(double income) {
-            this.income = income;
-        }
+    /**
+     * 从CSV导入账单 - 异步方法
+     * 取消请求后在下一个批次前停止，已提交的批次保留
+     *
+     * @param in 输入流，导入结束后关闭
+     * @param totalBytes 文件总字节数，未知时为-1
+     * @param callback 回调接口，返回导入结果并按已读字节报告进度
+     * @return 请求ID，可用于取消导入
+     */
+    public String importCsvAsync(InputStream in, long totalBytes, ProgressCallback<BillCsvImporter.ImportResult> callback) {
+        String requestId = "import_csv_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
+        AppLog.d(TAG, "importCsvAsync: 提交请求，ID={}", requestId);
 
-        public double getExpense() {
-            return expense;
-        }
+        mExecutorService.execute("importCsvAsync", () -> {
+            try {
+                BillCsvImporter.ImportResult result;
+                synchronized (mWriteLock) {
+                    try {
+                        result = new BillCsvImporter(mDbHelper).importCsv(in, totalBytes,
+                                new BillCsvImporter.ImportListener() {
+                                    @Override
+                                    public void onProgress(long bytesRead, long total) {
+                                        callback.onProgress(bytesRead, total);
+                                    }
+
+                                    @Override
+                                    public boolean isCancelled() {
+                                        return !mPendingRequests.containsKey(requestId);
+                                    }
+                                });
+                    } catch (Exception e) {
+                        // 失败前已提交的批次同样没有计入预算
+                        mBudgetEngine.invalidate();
+                        throw e;
+                    }
+                    if (result.getImported() > 0) {
+                        mBudgetEngine.invalidate();
+                    }
+                }
+                if (result.getImported() > 0) {
+                    invalidateCaches();
+                    prefetchSearchIndex();
+                }
+                if (!result.isCancelled() && mPendingRequests.containsKey(requestId)) {
+                    AppLog.d(TAG, "importCsvAsync: 导入成功，ID={}，新增={}", requestId, result.getImported());
+                    callback.onSuccess(result);
+                    mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("importCsvAsync");
+                    AppLog.d(TAG, "importCsvAsync: 导入已取消，ID={}，已提交={}", requestId, result.getImported());
+                }
+            } catch (Exception e) {
+                invalidateCaches();
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.e(TAG, "importCsvAsync: 导入失败，ID={}，错误={}", requestId, e.getMessage());
+                    callback.onError(e);
+                    mPendingRequests.remove(requestId);
+                }
+            }
+        });
+        return requestId;
+    }
 
-        public void setExpense(double expense) {
-            this.expense = expense;
-        }
+    /**
+     * 批量写入合成账本 - 异步方法，仅用于调试菜单
+     * 每批在一个事务里插入，取消请求后在下一个批次前停止，已提交的批次保留
+     *
+     * @param generator 合成账本生成器
+     * @param callback 回调接口，返回插入的条数并按已生成条数报告进度
+     * @return 请求ID，可用于取消生成
+     */
+    public String generateLedgerAsync(LedgerGenerator generator, ProgressCallback<Integer> callback) {
+        String requestId = "generate_ledger_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
+        AppLog.d(TAG, "generateLedgerAsync: 提交请求，ID={}，种子={}，条数={}", requestId, generator.getSeed(), generator.getBillCount());
 
-        public double getBalance() {
-            return balance;
-        }
+        mExecutorService.execute("generateLedgerAsync", () -> {
+            int inserted = 0;
+            try {
+                while (generator.hasNext() && mPendingRequests.containsKey(requestId)) {
+                    List<Bill> batch = generator.nextBatch(GENERATE_BATCH_SIZE);
+                    synchronized (mWriteLock) {
+                        int count = mDbHelper.insertBills(batch);
+                        if (count > 0) {
+                            mBudgetEngine.invalidate();
+                        }
+                        inserted += count;
+                    }
+                    callback.onProgress(generator.getGenerated(), generator.getBillCount());
+                }
+                if (mPendingRequests.remove(requestId) != null) {
+                    AppLog.d(TAG, "generateLedgerAsync: 生成完成，ID={}，插入={}", requestId, inserted);
+                    callback.onSuccess(inserted);
+                } else {
+                    mMetrics.recordDropped("generateLedgerAsync");
+                    AppLog.d(TAG, "generateLedgerAsync: 生成已取消，ID={}，已插入={}", requestId, inserted);
+                }
+            } catch (Exception e) {
+                if (mPendingRequests.remove(requestId) != null) {
+                    AppLog.e(TAG, "generateLedgerAsync: 生成失败，ID={}，错误={}", requestId, e.getMessage());
+                    callback.onError(e);
+                }
+            } finally {
+                if (inserted > 0) {
+                    invalidateCaches();
+                    prefetchSearchIndex();
+                }
+            }
+        });
+        return requestId;
+    }
 
-        public void setBalance(double balance) {
-            this.balance = balance;
-        }
+    /**
+     * 备份账单为二进制文件 - 异步方法
+     *
+     * @param out 输出流，备份结束后关闭
+     * @param incremental true=只备份上次备份之后的变更（没有检查点时自动改为完整备份）
+     * @param callback 回调接口，返回写入的记录数
+     */
+    public void backupAsync(OutputStream out, boolean incremental, Callback<Long> callback) {
+        AppLog.d(TAG, "backupAsync: 提交备份请求，增量={}", incremental);
+        mExecutorService.execute("backupAsync", () -> {
+            try {
+                BillBackupManager manager = new BillBackupManager(mDbHelper);
+                long rows = incremental ? manager.backupIncremental(out) : manager.backup(out);
+                callback.onSuccess(rows);
+            } catch (Exception e) {
+                AppLog.e(TAG, "backupAsync: 备份失败: {}", e.getMessage());
+                callback.onError(e);
+            }
+        });
     }
 
     /**
-     * 本月统计数据类
-     * 用于封装本月收入、支出和结余信息
+     * 从二进制备份恢复，替换全部账单 - 异步方法
+     * 备份损坏或增量不连续时整体回滚，原有账单不受影响
+     *
+     * @param inputs 一个完整备份及其后续增量的输入流，顺序不限，恢复结束后全部关闭
+     * @param callback 回调接口，返回恢复后的账单数
      */
-    public static class MonthStatistics {
-        private double income;
-        private double expense;
-        private double balance;
+    public void restoreBackupAsync(List<FileInputStream> inputs, Callback<Long> callback) {
+        AppLog.d(TAG, "restoreBackupAsync: 提交恢复请求，文件数={}", inputs.size());
+        mExecutorService.execute("restoreBackupAsync", () -> {
+            try {
+                long rows;
+                synchronized (mWriteLock) {
+                    rows = new BillBackupManager(mDbHelper).restore(inputs);
+                    mBudgetEngine.invalidate();
+                }
+                invalidateCaches();
+                mRecurringDetector.reset();
+                prefetchSearchIndex();
+                callback.onSuccess(rows);
+            } catch (Exception e) {
+                AppLog.e(TAG, "restoreBackupAsync: 恢复失败: {}", e.getMessage());
+                callback.onError(e);
+            }
+        });
+    }
 
-        public double getIncome() {
-            return income;
-        }
+    /**
+     * 比对完整备份与当前账本 - 异步方法
+     *
+     * @param in 完整备份的输入流，结束后关闭
+     * @param callback 回调接口，返回内容不同的月份（yyyy-MM格式），为空表示一致
+     */
+    public void compareWithBackupAsync(FileInputStream in, Callback<List<String>> callback) {
+        AppLog.d(TAG, "compareWithBackupAsync: 提交比对请求");
+        mExecutorService.execute("compareWithBackupAsync", () -> {
+            try {
+                callback.onSuccess(new BillBackupManager(mDbHelper).compare(in));
+            } catch (Exception e) {
+                AppLog.e(TAG, "compareWithBackupAsync: 比对失败: {}", e.getMessage());
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * 与自建账本服务器增量同步 - 异步方法
+     * 先推送本地变更再拉取其他设备的变更，拉取到变更时清空统计缓存
+     *
+     * @param transport 同步通道
+     * @param callback 回调接口，返回同步结果
+     */
+    public void syncAsync(SyncTransport transport, Callback<BillSyncEngine.SyncResult> callback) {
+        AppLog.d(TAG, "syncAsync: 提交同步请求");
+        mSyncExecutor.execute("syncAsync", () -> {
+            try {
+                BillSyncEngine.SyncResult result = new BillSyncEngine(new LockedSyncStore(), transport).sync();
+                if (result.getPulled() > 0) {
+                    invalidateCaches();
+                    prefetchSearchIndex();
+                }
+                callback.onSuccess(result);
+            } catch (Exception e) {
+                AppLog.e(TAG, "syncAsync: 同步失败: {}", e.getMessage());
+                callback.onError(e);
+            }
+        });
+    }
 
-        public void setIncome(double income) {
-            this.income = income;
+    /**
+     * 同步引擎使用的本地账本：每页远程变更的写入和预算失效在写锁内完成，网络请求不持有写锁
+     */
+    private final class LockedSyncStore implements SyncStore {
+        @Override
+        public State loadSyncState() {
+            return mDbHelper.loadSyncState();
         }
 
-        public double getExpense() {
-            return expense;
+        @Override
+        public long queryChangeLogHead() {
+            return mDbHelper.queryChangeLogHead();
         }
 
-        public void setExpense(double expense) {
-            this.expense = expense;
+        @Override
+        public Page readLocalChanges(long fromSeq, long toSeq, long afterBillId, int limit) {
+            return mDbHelper.readLocalChanges(fromSeq, toSeq, afterBillId, limit);
         }
 
-        public double getBalance() {
-            return balance;
+        @Override
+        public void commitPushed(long localSeq) {
+            mDbHelper.commitPushed(localSeq);
         }
 
-        public void setBalance(double balance) {
-            this.balance = balance;
+        @Override
+        public int applyRemoteChanges(List<SyncChange> changes, long remoteCursor) {
+            synchronized (mWriteLock) {
+                int applied = mDbHelper.applyRemoteChanges(changes, remoteCursor);
+                if (applied > 0) {
+                    mBudgetEngine.invalidate();
+                }
+                return applied;
+            }
         }
     }
 
     /**
-     * 年份统计数据类
-     * 用于封装年份收入、支出和结余信息
+     * 按分类和备注全文搜索账单 - 异步方法
+     * 提交新的搜索会取消仍在执行的上一次搜索，被取消的搜索不回调
+     *
+     * @param keyword 关键字，英文按前缀匹配，中文按子串匹配
+     * @param billType 账单类型：-1=全部，0=支出，1=收入
+     * @param limit 最多返回条数
+     * @param callback 回调接口，返回按相关度排序的账单
+     * @return 请求ID，可用于取消请求
      */
-    public static class YearStatistics {
-        private double income;
-        private double expense;
-        private double balance;
-
-        public double getIncome() {
-            return income;
+    public String searchBillsAsync(String keyword, int billType, int limit, Callback<List<Bill>> callback) {
+        String requestId = "search_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
+        CancellationSignal signal = new CancellationSignal();
+        synchronized (this) {
+            if (mSearchSignal != null) {
+                mSearchSignal.cancel();
+            }
+            mSearchSignal = signal;
         }
 
-        public void setIncome(double income) {
-            this.income = income;
-        }
+        mSearchExecutor.execute("searchBillsAsync", () -> {
+            try {
+                if (signal.isCanceled() || !mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("searchBillsAsync");
+                    AppLog.d(TAG, "searchBillsAsync: 搜索已被取代，ID={}", requestId);
+                    return;
+                }
+                List<Bill> bills = mDbHelper.searchBills(keyword, billType, limit, signal);
+                if (!signal.isCanceled() && mPendingRequests.containsKey(requestId)) {
+                    callback.onSuccess(bills);
+                } else {
+                    mMetrics.recordDropped("searchBillsAsync");
+                }
+            } catch (OperationCanceledException e) {
+                mMetrics.recordDropped("searchBillsAsync");
+                AppLog.d(TAG, "searchBillsAsync: 查询中途取消，ID={}", requestId);
+            } catch (Exception e) {
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.e(TAG, "searchBillsAsync: 搜索失败，ID={}，错误={}", requestId, e.getMessage());
+                    callback.onError(e);
+                }
+            } finally {
+                mPendingRequests.remove(requestId);
+            }
+        });
+        return requestId;
+    }
 
-        public double getExpense() {
-            return expense;
+    /**
+     * 取消正在执行的搜索
+     */
+    public void cancelSearch() {
+        synchronized (this) {
+            if (mSearchSignal != null) {
+                mSearchSignal.cancel();
+                mSearchSignal = null;
+            }
         }
+    }
 
-        public void setExpense(double expense) {
-            this.expense = expense;
+    /**
+     * 读取首页快照（同步方法），只读一个小文件，不打开数据库
+     *
+     * @return 上次保存的快照，不存在或已损坏时返回null
+     */
+    public HomeSnapshot loadHomeSnapshot() {
+        AppLog.beginSection("BillRepo.loadHomeSnapshot");
+        try {
+            return HomeSnapshot.fromBytes(mHomeSnapshotFile.readFully());
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            AppLog.w(TAG, "loadHomeSnapshot: 读取首页快照失败: {}", e.getMessage());
+            return null;
+        } finally {
+            AppLog.endSection();
         }
+    }
+
+    /**
+     * 在低优先级线程保存首页快照，单线程顺序执行，后提交的覆盖先提交的
+     *
+     * @param snapshot 首页当前显示的内容
+     */
+    public void saveHomeSnapshotAsync(HomeSnapshot snapshot) {
+        mPrefetchExecutor.execute("saveHomeSnapshotAsync", () -> {
+            FileOutputStream out = null;
+            try {
+                out = mHomeSnapshotFile.startWrite();
+                out.write(snapshot.toBytes());
+                mHomeSnapshotFile.finishWrite(out);
+            } catch (IOException e) {
+                if (out != null) {
+                    mHomeSnapshotFile.failWrite(out);
+                }
+                AppLog.w(TAG, "saveHomeSnapshotAsync: 保存首页快照失败: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 在后台把待刷新的账单写入全文索引
+     * 批量导入、恢复或同步之后调用，打开搜索框时也会调用，第一次搜索不必等待大批量分词
+     */
+    public void prefetchSearchIndex() {
+        mPrefetchExecutor.execute("prefetchSearchIndex", () -> {
+            try {
+                mDbHelper.refreshSearchIndex();
+            } catch (Exception e) {
+                AppLog.e(TAG, "prefetchSearchIndex: 刷新全文索引失败: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 注册预算提醒，在写入账单的后台线程上回调
+     */
+    public void addBudgetAlertListener(BudgetEngine.AlertListener listener) {
+        mBudgetEngine.addAlertListener(listener);
+    }
+
+    public void removeBudgetAlertListener(BudgetEngine.AlertListener listener) {
+        mBudgetEngine.removeAlertListener(listener);
+    }
+
+    /**
+     * 新增或修改月度预算 - 异步方法
+     *
+     * @param budget 预算，分类为 {@link Budget#ALL_CATEGORIES} 时是总预算
+     * @param callback 回调接口，返回是否保存成功
+     */
+    public void setBudgetAsync(Budget budget, Callback<Boolean> callback) {
+        AppLog.d(TAG, "setBudgetAsync: 提交保存预算请求，分类={}", budget.getCategory());
+        mExecutorService.execute("setBudgetAsync", () -> {
+            try {
+                mBudgetEngine.setBudget(budget);
+                callback.onSuccess(true);
+            } catch (Exception e) {
+                AppLog.e(TAG, "setBudgetAsync: 保存预算失败: {}", e.getMessage());
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * 删除月度预算 - 异步方法
+     *
+     * @param category 预算的分类
+     * @param callback 回调接口，返回是否删除成功
+     */
+    public void removeBudgetAsync(String category, Callback<Boolean> callback) {
+        AppLog.d(TAG, "removeBudgetAsync: 提交删除预算请求，分类={}", category);
+        mExecutorService.execute("removeBudgetAsync", () -> {
+            try {
+                mBudgetEngine.removeBudget(category);
+                callback.onSuccess(true);
+            } catch (Exception e) {
+                AppLog.e(TAG, "removeBudgetAsync: 删除预算失败: {}", e.getMessage());
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * 查询本月全部预算的执行情况 - 异步方法
+     * 累计值常驻内存，只有启动后第一次、跨月或批量写入后才按分类汇总重算
+     *
+     * @param callback 回调接口，返回预算执行情况，总预算在最前
+     * @return 请求ID，可用于取消请求
+     */
+    public String getBudgetStatusesAsync(Callback<List<Budget.Status>> callback) {
+        String requestId = "budget_statuses_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
 
-        public double getBalance() {
-            return balance;
+        mExecutorService.execute("getBudgetStatusesAsync", () -> {
+            try {
+                if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("getBudgetStatusesAsync");
+                    return;
+                }
+                List<Budget.Status> statuses = mBudgetEngine.getStatuses(getCurrentMonth());
+                if (mPendingRequests.containsKey(requestId)) {
+                    callback.onSuccess(statuses);
+                    mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("getBudgetStatusesAsync");
+                }
+            } catch (Exception e) {
+                if (mPendingRequests.containsKey(requestId)) {
+                    callback.onError(e);
+                    mPendingRequests.remove(requestId);
+                }
+            }
+        });
+        return requestId;
+    }
+
+    /**
+     * 查询即将到期的周期账单 - 异步方法
+     * 在低优先级线程上先处理上次检测之后新增的账单，每次处理的条数有上限
+     *
+     * @param callback 回调接口，返回预计日期在今天之后几天内（含已经过期）的周期账单
+     * @return 请求ID，可用于取消请求
+     */
+    public String getRecurringSuggestionsAsync(Callback<List<RecurringPattern>> callback) {
+        String requestId = "recurring_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
+
+        mPrefetchExecutor.execute("getRecurringSuggestionsAsync", () -> {
+            try {
+                if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("getRecurringSuggestionsAsync");
+                    return;
+                }
+                long today = EpochDays.today();
+                List<RecurringPattern> suggestions = new ArrayList<>();
+                for (RecurringPattern pattern : mRecurringDetector.detect(today, RECURRING_BILLS_PER_RUN)) {
+                    if (pattern.getNextEpochDay() <= today + RECURRING_LOOKAHEAD_DAYS) {
+                        suggestions.add(pattern);
+                    }
+                }
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.d(TAG, "getRecurringSuggestionsAsync: 即将到期的周期账单{}个", suggestions.size());
+                    callback.onSuccess(suggestions);
+                    mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("getRecurringSuggestionsAsync");
+                }
+            } catch (Exception e) {
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.e(TAG, "getRecurringSuggestionsAsync: 检测周期账单失败: {}", e.getMessage());
+                    callback.onError(e);
+                    mPendingRequests.remove(requestId);
+                }
+            }
+        });
+        return requestId;
+    }
+
+    /**
+     * 按预计日期批量生成周期账单 - 异步方法
+     * 在一个事务中写入，生成的账单在下次检测时计入序列
+     *
+     * @param patterns 用户确认的周期账单
+     * @param callback 回调接口，返回生成的条数
+     */
+    public void createRecurringBillsAsync(List<RecurringPattern> patterns, Callback<Integer> callback) {
+        AppLog.d(TAG, "createRecurringBillsAsync: 提交生成周期账单请求，数量={}", patterns.size());
+        mExecutorService.execute("createRecurringBillsAsync", () -> {
+            try {
+                long now = System.currentTimeMillis();
+                List<Bill> bills = new ArrayList<>(patterns.size());
+                for (RecurringPattern pattern : patterns) {
+                    bills.add(pattern.toBill(now));
+                }
+                int inserted;
+                synchronized (mWriteLock) {
+                    inserted = mDbHelper.insertBills(bills);
+                    if (inserted > 0) {
+                        mBudgetEngine.invalidate();
+                    }
+                }
+                if (inserted > 0) {
+                    invalidateCaches();
+                    prefetchSearchIndex();
+                }
+                callback.onSuccess(inserted);
+            } catch (Exception e) {
+                AppLog.e(TAG, "createRecurringBillsAsync: 生成周期账单失败: {}", e.getMessage());
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * 忽略这一次的周期账单提示，到下一次预计日期前不再提示
+     */
+    public void dismissRecurringAsync(List<RecurringPattern> patterns) {
+        mPrefetchExecutor.execute("dismissRecurringAsync", () -> {
+            try {
+                for (RecurringPattern pattern : patterns) {
+                    mRecurringDetector.dismiss(pattern);
+                }
+            } catch (Exception e) {
+                AppLog.e(TAG, "dismissRecurringAsync: 保存忽略状态失败: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 关闭数据库连接和线程池
+     * 静态方法，用于在应用退出时统一调用
+     */
+    public static void close() {
+        if (sInstance != null) {
+            sInstance.mDbHelper.close();
+            sInstance.mExecutorService.shutdown();
+            sInstance.mPrefetchExecutor.shutdown();
+            sInstance.mSyncExecutor.shutdown();
+            sInstance.mSearchExecutor.shutdown();
+            sInstance = null;
         }
+    }
 
-        public void setBalance(double balance) {
-            this.balance = balance;
+    /**
+     * 计算本周统计数据（同步方法）
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 本周统计结果
+     */
+    public StatisticsEngine.WeekStatistics calculateWeekStatistics(String startDate, String endDate) {
+        StatisticsEngine.WeekStatistics statistics = new StatisticsEngine.WeekStatistics();
+        AppLog.beginSection("BillRepo.calculateWeekStatistics");
+        try {
+            statistics = mStatisticsEngine.calculateWeekStatistics(startDate, endDate);
+        } catch (Exception e) {
+            AppLog.e(TAG, "计算本周统计数据失败: {}", e.getMessage());
+        } finally {
+            AppLog.endSection();
         }
+
+        return statistics;
+    }
+
+    /**
+     * 计算本周统计数据（异步方法）
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @param callback 回调接口，用于返回统计结果
+     * @return 请求ID，可用于取消请求
+     */
+    public String calculateWeekStatisticsAsync(String startDate, String endDate, Callback<StatisticsEngine.WeekStatistics> callback) {
+        String requestId = "week_stats_" + mRequestIdGenerator.incrementAndGet();
+        mPendingRequests.put(requestId, true);
+        AppLog.d(TAG, "calculateWeekStatisticsAsync: 提交请求，ID={}，开始={}，结束={}", requestId, startDate, endDate);
+        
+        mExecutorService.execute("calculateWeekStatisticsAsync", () -> {
+            try {
+                if (!mPendingRequests.containsKey(requestId)) {
+                    mMetrics.recordCancelled("calculateWeekStatisticsAsync");
+                    AppLog.d(TAG, "calculateWeekStatisticsAsync: 请求已取消，ID={}", requestId);
+                    return;
+                }
+                StatisticsEngine.WeekStatistics statistics = calculateWeekStatistics(startDate, endDate);
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.d(TAG, "calculateWeekStatisticsAsync: 请求成功，ID={}", requestId);
+                    callback.onSuccess(statistics);
+                    mPendingRequests.remove(requestId);
+                } else {
+                    mMetrics.recordDropped("calculateWeekStatisticsAsync");
+                    AppLog.d(TAG, "calculateWeekStatisticsAsync: 请求已取消，ID={}", requestId);
+                }
+            } catch (Exception e) {
+                if (mPendingRequests.containsKey(requestId)) {
+                    AppLog.e(TAG, "calculateWeekStatisticsAsync: 请求失败，ID={}，错误={}", requestId, e.getMessage());
+                    callback.onError(e);
+                    mPendingRequests.remove(requestId);
+                }
+            }
+        });
+        return requestId;
     }
 
     /**
@@ -1005,7 +2013,7 @@ public class BillRepository {
     public void cancelRequest(String requestId) {
         if (requestId != null) {
             Boolean removed = mPendingRequests.remove(requestId);
-            Log.d(TAG, "cancelRequest: 取消请求，ID=" + requestId + "，" + (removed != null ? "成功" : "未找到"));
+            AppLog.d(TAG, "cancelRequest: 取消请求，ID={}，{}", requestId, (removed != null ? "成功" : "未找到"));
         }
     }
 
@@ -1015,7 +2023,7 @@ public class BillRepository {
     public void cancelAllRequests() {
         int count = mPendingRequests.size();
         mPendingRequests.clear();
-        Log.d(TAG, "cancelAllRequests: 取消所有待处理的请求，数量=" + count);
+        AppLog.d(TAG, "cancelAllRequests: 取消所有待处理的请求，数量={}", count);
     }
 }
 
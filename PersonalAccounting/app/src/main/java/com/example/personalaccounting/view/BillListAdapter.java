@@ -17,6 +17,8 @@ import java.util.List;
 
 import com.example.personalaccounting.R;
 import com.example.personalaccounting.model.Bill;
+import com.example.personalaccounting.model.BillDiff;
+import com.example.personalaccounting.model.BillListItem;
 
 
 /**
@@ -24,9 +26,11 @@ import com.example.personalaccounting.model.Bill;
  * <p>
  * 适配器是RecyclerView的核心组件之一，负责将数据列表转换为可视化的列表项
  * 本类继承自RecyclerView.Adapter，实现了数据与视图的绑定逻辑
+ * 列表包含两种视图类型：日期分组头（带当日收支小计）和账单行，
+ * 分组头的小计由数据库查询时计算好，适配器只负责渲染
  * </p>
  */
-public class BillListAdapter extends RecyclerView.Adapter<BillListAdapter.BillViewHolder> {
+public class BillListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     /**
      * 为什么需要Context？
@@ -37,7 +41,7 @@ public class BillListAdapter extends RecyclerView.Adapter<BillListAdapter.BillVi
     // 上下文对象，用于访问系统资源和组件
     private Context mContext;
     // AsyncListDiffer用于高效的数据更新
-    private AsyncListDiffer<Bill> mDiffer;
+    private AsyncListDiffer<BillListItem> mDiffer;
     // 金额格式化工具，用于将数字格式化为保留2位小数的字符串
     private DecimalFormat mDecimalFormat;
 
@@ -45,21 +49,15 @@ public class BillListAdapter extends RecyclerView.Adapter<BillListAdapter.BillVi
      * DiffUtil.ItemCallback实现类
      * 用于计算新旧数据集的差异
      */
-    private static final DiffUtil.ItemCallback<Bill> DIFF_CALLBACK = new DiffUtil.ItemCallback<Bill>() {
+    private static final DiffUtil.ItemCallback<BillListItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<BillListItem>() {
         @Override
-        public boolean areItemsTheSame(@NonNull Bill oldItem, @NonNull Bill newItem) {
-            // 判断是否是同一个item（通过ID判断）
-            return oldItem.getId() == newItem.getId();
+        public boolean areItemsTheSame(@NonNull BillListItem oldListItem, @NonNull BillListItem newListItem) {
+            return BillDiff.areItemsTheSame(oldListItem, newListItem);
         }
 
         @Override
-        public boolean areContentsTheSame(@NonNull Bill oldItem, @NonNull Bill newItem) {
-            // 判断item内容是否相同
-            return oldItem.getType().equals(newItem.getType())
-                    && oldItem.getAmount() == newItem.getAmount()
-                    && oldItem.getBillType() == newItem.getBillType()
-                    && oldItem.getDate().equals(newItem.getDate())
-                    && (oldItem.getRemark() == null ? newItem.getRemark() == null : oldItem.getRemark().equals(newItem.getRemark()));
+        public boolean areContentsTheSame(@NonNull BillListItem oldListItem, @NonNull BillListItem newListItem) {
+            return BillDiff.areContentsTheSame(oldListItem, newListItem);
         }
     };
 
@@ -67,9 +65,9 @@ public class BillListAdapter extends RecyclerView.Adapter<BillListAdapter.BillVi
      * 构造方法，初始化适配器
      *
      * @param context  上下文对象，通常是Activity或Fragment
-     * @param billList 要显示的账单数据列表
+     * @param billList 要显示的列表项（分组头和账单行）
      */
-    public BillListAdapter(Context context, List<Bill> billList) {
+    public BillListAdapter(Context context, List<BillListItem> billList) {
         this.mContext = context;
         // 初始化金额格式化器，"0.00"表示保留2位小数
         this.mDecimalFormat = new DecimalFormat("0.00");
@@ -89,12 +87,15 @@ public class BillListAdapter extends RecyclerView.Adapter<BillListAdapter.BillVi
      * </p>
      *
      * @param parent   RecyclerView的父布局容器
-     * @param viewType 视图类型（多布局时使用，本例子只有一种布局）
-     * @return 创建好的BillViewHolder实例
+     * @param viewType 视图类型：分组头或账单行
+     * @return 创建好的ViewHolder实例
      */
     @NonNull
     @Override
-    public BillViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (viewType == BillListItem.TYPE_HEADER) {
+            return new HeaderViewHolder(createHeaderView(parent));
+        }
         // 从上下文获取LayoutInflater，用于加载XML布局文件
         // inflate参数说明：
         // 1. R.layout.item_bill_list：列表项的布局文件ID
@@ -116,9 +117,15 @@ public class BillListAdapter extends RecyclerView.Adapter<BillListAdapter.BillVi
      * @param position 当前列表项在数据列表中的位置
      */
     @Override
-    public void onBindViewHolder(@NonNull BillViewHolder holder, int position) {
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder viewHolder, int position) {
+        BillListItem item = mDiffer.getCurrentList().get(position);
+        if (item.isHeader()) {
+            bindHeader(((HeaderViewHolder) viewHolder), item);
+            return;
+        }
+        BillViewHolder holder = (BillViewHolder) viewHolder;
         // 获取当前位置的账单数据
-        Bill bill = mDiffer.getCurrentList().get(position);
+        Bill bill = item.getBill();
 
         // 设置账单类型（如"工资"、"餐饮"等）
         holder.tvBillType.setText(bill.getType());
@@ -174,6 +181,80 @@ public class BillListAdapter extends RecyclerView.Adapter<BillListAdapter.BillVi
         });
     }
 
+    /**
+     * 获取列表项的视图类型
+     *
+     * @param position 列表项位置
+     * @return BillListItem.TYPE_HEADER 或 BillListItem.TYPE_BILL
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return mDiffer.getCurrentList().get(position).getItemType();
+    }
+
+    /**
+     * 绑定日期分组头
+     *
+     * @param holder 分组头ViewHolder
+     * @param item 分组头数据
+     */
+    private void bindHeader(HeaderViewHolder holder, BillListItem item) {
+        holder.tvHeaderDate.setText(item.getDate());
+        holder.tvHeaderTotal.setText("收入 " + mDecimalFormat.format(item.getDayIncome())
+                + "  支出 " + mDecimalFormat.format(item.getDayExpense()));
+    }
+
+    /**
+     * 创建日期分组头视图，供列表和吸顶装饰共用
+     *
+     * @param parent 父布局
+     * @return 分组头视图
+     */
+    public View createHeaderView(ViewGroup parent) {
+        return LayoutInflater.from(mContext).inflate(R.layout.item_bill_day_header, parent, false);
+    }
+
+    /**
+     * 将指定位置的分组头数据绑定到吸顶视图上
+     *
+     * @param headerView createHeaderView创建的视图
+     * @param headerPosition 分组头所在位置
+     */
+    public void bindHeaderView(View headerView, int headerPosition) {
+        HeaderViewHolder holder = (HeaderViewHolder) headerView.getTag();
+        if (holder == null) {
+            holder = new HeaderViewHolder(headerView);
+        }
+        bindHeader(holder, mDiffer.getCurrentList().get(headerPosition));
+    }
+
+    /**
+     * 判断指定位置是否为分组头
+     *
+     * @param position 列表项位置
+     * @return 是否为分组头
+     */
+    public boolean isHeader(int position) {
+        List<BillListItem> items = mDiffer.getCurrentList();
+        return position >= 0 && position < items.size() && items.get(position).isHeader();
+    }
+
+    /**
+     * 查找指定位置所属的分组头位置
+     *
+     * @param position 列表项位置
+     * @return 分组头位置，找不到时返回RecyclerView.NO_POSITION
+     */
+    public int getHeaderPosition(int position) {
+        List<BillListItem> items = mDiffer.getCurrentList();
+        for (int i = Math.min(position, items.size() - 1); i >= 0; i--) {
+            if (items.get(i).isHeader()) {
+                return i;
+            }
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
     /**
      * 获取数据列表的长度
      * <p>
@@ -194,13 +275,27 @@ public class BillListAdapter extends RecyclerView.Adapter<BillListAdapter.BillVi
      * 使用AsyncListDiffer自动计算差异并局部刷新
      * </p>
      *
-     * @param billList 新的账单数据列表
+     * @param billList 新的列表项（分组头和账单行）
      */
-    public void updateData(List<Bill> billList) {
+    public void updateData(List<BillListItem> billList) {
         // 使用AsyncListDiffer提交新数据，自动计算差异并局部刷新
         mDiffer.submitList(billList);
     }
 
+    /**
+     * 更新适配器的数据，新列表生效后执行回调
+     * <p>
+     * 差异在后台线程计算，getCurrentList 在回调前仍返回旧列表；
+     * 依赖新列表的操作（如重新绑定吸顶分组头）要放在回调里做
+     * </p>
+     *
+     * @param billList 新的列表项（分组头和账单行）
+     * @param commitCallback 新列表生效后在主线程执行
+     */
+    public void updateData(List<BillListItem> billList, Runnable commitCallback) {
+        mDiffer.submitList(billList, commitCallback);
+    }
+
     /**
      * 账单操作监听器接口
      */
@@ -233,6 +328,24 @@ public class BillListAdapter extends RecyclerView.Adapter<BillListAdapter.BillVi
         this.mOnBillActionListener = listener;
     }
 
+    /**
+     * 日期分组头ViewHolder
+     */
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        // 日期文本视图
+        TextView tvHeaderDate;
+        // 当日收支小计文本视图
+        TextView tvHeaderTotal;
+
+        public HeaderViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvHeaderDate = itemView.findViewById(R.id.tv_header_date);
+            tvHeaderTotal = itemView.findViewById(R.id.tv_header_total);
+            // 吸顶装饰复用同一视图时通过tag取回ViewHolder
+            itemView.setTag(this);
+        }
+    }
+
     /**
      * ViewHolder内部类
      * <p>
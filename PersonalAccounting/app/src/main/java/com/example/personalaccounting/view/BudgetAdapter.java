@@ -0,0 +1,128 @@
+package com.example.personalaccounting.view;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.Budget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 预算列表适配器：每项显示已用/限额、进度条和剩余金额，颜色随提醒级别变化
+ */
+public class BudgetAdapter extends RecyclerView.Adapter<BudgetAdapter.ViewHolder> {
+    private static final String TAG = "BudgetAdapter";
+
+    private final Context mContext;
+    private List<Budget.Status> mStatuses = new ArrayList<>();
+
+    /**
+     * 预算点击监听器接口
+     */
+    public interface OnBudgetClickListener {
+        /**
+         * 点击预算
+         * @param status 被点击的预算及本月执行情况
+         */
+        void onBudgetClick(Budget.Status status);
+    }
+
+    // 预算点击监听器
+    private OnBudgetClickListener mOnBudgetClickListener;
+
+    public BudgetAdapter(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * 设置预算点击监听器
+     * @param listener 监听器实例
+     */
+    public void setOnBudgetClickListener(OnBudgetClickListener listener) {
+        mOnBudgetClickListener = listener;
+    }
+
+    public void updateData(List<Budget.Status> statuses) {
+        mStatuses = statuses;
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(mContext).inflate(R.layout.item_budget, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Budget.Status status = mStatuses.get(position);
+        Budget budget = status.getBudget();
+
+        holder.tvName.setText(budget.isOverall() ? "总预算" : budget.getCategory());
+        holder.tvSpent.setText(String.format(Locale.getDefault(), "%.2f / %.2f元",
+                status.getSpentCents() / 100.0, budget.getLimitCents() / 100.0));
+        holder.pbBudget.setProgress((int) Math.min(100, status.getSpentCents() * 100 / budget.getLimitCents()));
+        if (status.getLevel() == Budget.LEVEL_EXCEEDED) {
+            holder.tvRemaining.setText(String.format(Locale.getDefault(), "已超支%.2f元",
+                    -status.getRemainingCents() / 100.0));
+        } else {
+            holder.tvRemaining.setText(String.format(Locale.getDefault(), "剩余%.2f元，用到%d%%时提醒",
+                    status.getRemainingCents() / 100.0, budget.getWarnPercent()));
+        }
+
+        int color = ContextCompat.getColor(mContext, colorOf(status.getLevel()));
+        holder.pbBudget.setProgressTintList(ColorStateList.valueOf(color));
+        holder.tvRemaining.setTextColor(status.getLevel() == Budget.LEVEL_NORMAL
+                ? ContextCompat.getColor(mContext, R.color.text_hint) : color);
+
+        holder.itemView.setOnClickListener(v -> {
+            if (mOnBudgetClickListener != null) {
+                mOnBudgetClickListener.onBudgetClick(status);
+            }
+        });
+    }
+
+    private static int colorOf(int level) {
+        switch (level) {
+            case Budget.LEVEL_EXCEEDED:
+                return R.color.error;
+            case Budget.LEVEL_WARNING:
+                return R.color.warning;
+            default:
+                return R.color.success;
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return mStatuses != null ? mStatuses.size() : 0;
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        TextView tvName;
+        TextView tvSpent;
+        ProgressBar pbBudget;
+        TextView tvRemaining;
+
+        public ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvName = itemView.findViewById(R.id.tv_budget_name);
+            tvSpent = itemView.findViewById(R.id.tv_budget_spent);
+            pbBudget = itemView.findViewById(R.id.pb_budget);
+            tvRemaining = itemView.findViewById(R.id.tv_budget_remaining);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.personalaccounting.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.CategoryStatistics;
+
+import java.text.DecimalFormat;
+import java.util.List;
+
+/**
+ * 分类占比环形图
+ * <p>
+ * 左侧为环形图，右侧为图例。扇区角度、图例文字和坐标都在后台线程预先算好，
+ * onDraw只遍历数组绘制，不创建对象。
+ * </p>
+ */
+public class CategoryChartView extends View {
+
+    private static final int[] PALETTE = {
+            0xFFFF9800, 0xFF4CAF50, 0xFF2196F3, 0xFFF44336, 0xFF9C27B0,
+            0xFF00BCD4, 0xFFFFC107, 0xFF795548, 0xFF607D8B, 0xFFE91E63
+    };
+
+    private final Paint mArcPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mLegendPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float mRingWidth;
+    private final float mLegendSquare;
+    private final float mLegendRowHeight;
+
+    // 当前数据快照，尺寸变化时用于重新计算
+    private String[] mNames = new String[0];
+    private double[] mAmounts = new double[0];
+    // 已计算好的几何数据，只在主线程替换
+    private Geometry mGeometry;
+    // 数据或尺寸每变化一次加一，丢弃过期的计算结果
+    private int mGeneration;
+
+    public CategoryChartView(Context context) {
+        this(context, null);
+    }
+
+    public CategoryChartView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public CategoryChartView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        float density = getResources().getDisplayMetrics().density;
+        float scaledDensity = getResources().getDisplayMetrics().scaledDensity;
+        mRingWidth = 18 * density;
+        mLegendSquare = 10 * density;
+        mLegendRowHeight = 20 * density;
+
+        mArcPaint.setStyle(Paint.Style.STROKE);
+        mArcPaint.setStrokeWidth(mRingWidth);
+        mLegendPaint.setStyle(Paint.Style.FILL);
+        mTextPaint.setColor(ContextCompat.getColor(context, R.color.text_primary));
+        mTextPaint.setTextSize(12 * scaledDensity);
+    }
+
+    /**
+     * 设置分类统计数据，几何计算在后台线程完成
+     * @param categoryList 分类统计列表
+     */
+    public void setData(List<CategoryStatistics> categoryList) {
+        int count = categoryList != null ? categoryList.size() : 0;
+        mNames = new String[count];
+        mAmounts = new double[count];
+        for (int i = 0; i < count; i++) {
+            mNames[i] = categoryList.get(i).getCategoryName();
+            mAmounts[i] = categoryList.get(i).getAmount();
+        }
+        rebuild();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        rebuild();
+    }
+
+    private void rebuild() {
+        final int generation = ++mGeneration;
+        final int width = getWidth() - getPaddingLeft() - getPaddingRight();
+        final int height = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        final String[] names = mNames;
+        final double[] amounts = mAmounts;
+        final float left = getPaddingLeft();
+        final float top = getPaddingTop();
+        final Paint.FontMetrics metrics = mTextPaint.getFontMetrics();
+        ChartGeometryExecutor.execute(() -> {
+            Geometry geometry = buildGeometry(names, amounts, left, top, width, height, metrics);
+            post(() -> {
+                if (generation == mGeneration) {
+                    mGeometry = geometry;
+                    invalidate();
+                }
+            });
+        });
+    }
+
+    /**
+     * 计算扇区角度和图例位置（后台线程）
+     */
+    private Geometry buildGeometry(String[] names, double[] amounts, float left, float top,
+                                   int width, int height, Paint.FontMetrics metrics) {
+        Geometry geometry = new Geometry(names.length);
+        double total = 0;
+        for (double amount : amounts) {
+            total += amount;
+        }
+
+        // 环形图占左侧正方形区域
+        float diameter = Math.min(height, width / 2f) - mRingWidth;
+        float centerX = left + Math.min(height, width / 2f) / 2f;
+        float centerY = top + height / 2f;
+        geometry.oval.set(centerX - diameter / 2, centerY - diameter / 2, centerX + diameter / 2, centerY + diameter / 2);
+
+        DecimalFormat percentFormat = new DecimalFormat("0.0");
+        float angle = -90f;
+        float legendLeft = left + width / 2f + mLegendSquare;
+        int maxRows = Math.max(1, (int) (height / mLegendRowHeight));
+        float legendTop = top + Math.max(0, (height - Math.min(names.length, maxRows) * mLegendRowHeight) / 2f);
+        float textOffset = -(metrics.ascent + metrics.descent) / 2f;
+        for (int i = 0; i < names.length; i++) {
+            float sweep = total > 0 ? (float) (amounts[i] / total * 360.0) : 0f;
+            geometry.startAngles[i] = angle;
+            geometry.sweepAngles[i] = sweep;
+            geometry.colors[i] = PALETTE[i % PALETTE.length];
+            angle += sweep;
+
+            if (i < maxRows) {
+                float rowCenter = legendTop + mLegendRowHeight * (i + 0.5f);
+                geometry.legendX[i] = legendLeft;
+                geometry.legendY[i] = rowCenter;
+                double percentage = total > 0 ? amounts[i] / total * 100 : 0;
+                geometry.labels[i] = names[i] + "  " + percentFormat.format(percentage) + "%";
+                geometry.labelBaselines[i] = rowCenter + textOffset;
+                geometry.legendCount = i + 1;
+            }
+        }
+        return geometry;
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        Geometry geometry = mGeometry;
+        if (geometry == null) {
+            return;
+        }
+        int count = geometry.colors.length;
+        for (int i = 0; i < count; i++) {
+            mArcPaint.setColor(geometry.colors[i]);
+            canvas.drawArc(geometry.oval, geometry.startAngles[i], geometry.sweepAngles[i], false, mArcPaint);
+        }
+        float half = mLegendSquare / 2f;
+        for (int i = 0; i < geometry.legendCount; i++) {
+            mLegendPaint.setColor(geometry.colors[i]);
+            float x = geometry.legendX[i];
+            float y = geometry.legendY[i];
+            canvas.drawRect(x, y - half, x + mLegendSquare, y + half, mLegendPaint);
+            canvas.drawText(geometry.labels[i], x + mLegendSquare * 1.8f, geometry.labelBaselines[i], mTextPaint);
+        }
+    }
+
+    /**
+     * 预先计算好的绘制数据
+     */
+    private static class Geometry {
+        final RectF oval = new RectF();
+        final float[] startAngles;
+        final float[] sweepAngles;
+        final int[] colors;
+        final float[] legendX;
+        final float[] legendY;
+        final float[] labelBaselines;
+        final String[] labels;
+        int legendCount;
+
+        Geometry(int count) {
+            startAngles = new float[count];
+            sweepAngles = new float[count];
+            colors = new int[count];
+            legendX = new float[count];
+            legendY = new float[count];
+            labelBaselines = new float[count];
+            labels = new String[count];
+        }
+    }
+}
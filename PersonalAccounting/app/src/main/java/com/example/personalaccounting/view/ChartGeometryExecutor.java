@@ -0,0 +1,32 @@
+package com.example.personalaccounting.view;
+
+import android.os.Process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 图表几何计算线程
+ * <p>
+ * 图表的路径、扇区角度和标签位置都在这个低优先级后台线程里算好，
+ * 主线程的onDraw只做绘制。
+ * </p>
+ */
+final class ChartGeometryExecutor {
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "chart-geometry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ChartGeometryExecutor() {
+    }
+
+    static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+}
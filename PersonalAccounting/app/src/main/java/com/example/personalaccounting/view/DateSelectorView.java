@@ -3,7 +3,6 @@ package com.example.personalaccounting.view;
 import android.content.Context;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
-import android.view.View;
 import android.widget.ImageButton;
 import android.widget.LinearLayout;
 import android.widget.TextView;
@@ -11,18 +10,25 @@ import android.widget.TextView;
 import androidx.annotation.Nullable;
 
 import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.DateRange;
+import com.example.personalaccounting.model.EpochDays;
 import com.google.android.material.tabs.TabLayout;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.Locale;
 
+/**
+ * 统计日期选择组件
+ * <p>
+ * 周/月/年三个维度，前后翻页都在 {@link DateRange} 上做纪元日加减，
+ * 通过回调输出带类型的区间，不再拼接和拆分日期字符串。
+ * </p>
+ */
 public class DateSelectorView extends LinearLayout {
     private static final String TAG = "DateSelectorView";
 
     public interface OnDateChangeListener {
-        void onDateChanged(int dimension, String dateValue);
+        void onDateChanged(DateRange range);
     }
 
     private TabLayout tabTimeDimension;
@@ -31,13 +37,9 @@ public class DateSelectorView extends LinearLayout {
     private ImageButton btnNext;
 
     private OnDateChangeListener mListener;
-    private int mCurrentDimension = 1;
-    private int mCurrentWeekNumber = 1;
-
-    private static final Calendar BASE_DATE = Calendar.getInstance();
-    static {
-        BASE_DATE.set(2026, Calendar.JANUARY, 1, 0, 0, 0);
-    }
+    // 一周的第一天（ISO：1=周一 … 7=周日），默认取系统区域设置
+    private int mFirstDayOfWeek = localeFirstDayOfWeek();
+    private DateRange mCurrentRange;
 
     public DateSelectorView(Context context) {
         super(context);
@@ -61,9 +63,9 @@ public class DateSelectorView extends LinearLayout {
         btnPrevious = findViewById(R.id.btn_previous);
         btnNext = findViewById(R.id.btn_next);
 
+        mCurrentRange = DateRange.monthOf(EpochDays.year(EpochDays.today()), EpochDays.month(EpochDays.today()));
         setupTabs();
         setupButtons();
-        calculateCurrentWeek();
         updateDateDisplay();
     }
 
@@ -80,17 +82,16 @@ public class DateSelectorView extends LinearLayout {
         yearTab.setText("年");
         tabTimeDimension.addTab(yearTab);
 
-        tabTimeDimension.selectTab(tabTimeDimension.getTabAt(1));
-        mCurrentDimension = 2;
+        tabTimeDimension.selectTab(tabTimeDimension.getTabAt(DateRange.DIMENSION_MONTH - 1));
 
         tabTimeDimension.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
             @Override
             public void onTabSelected(TabLayout.Tab tab) {
-                int position = tab.getPosition();
-                mCurrentDimension = position + 1;
-                if (mCurrentDimension == 1) {
-                    calculateCurrentWeek();
-                }
+                int dimension = tab.getPosition() + 1;
+                // 切换维度时保留正在查看的日期：包含今天则以今天为准，否则取当前区间的第一天
+                long today = EpochDays.today();
+                long anchor = mCurrentRange.contains(today) ? today : mCurrentRange.getStartEpochDay();
+                mCurrentRange = DateRange.of(dimension, anchor, mFirstDayOfWeek);
                 updateDateDisplay();
                 notifyDateChanged();
             }
@@ -113,98 +114,25 @@ public class DateSelectorView extends LinearLayout {
         });
     }
 
-    private void calculateCurrentWeek() {
-        Calendar today = Calendar.getInstance();
-        long diffMillis = today.getTimeInMillis() - BASE_DATE.getTimeInMillis();
-        long diffDays = diffMillis / (24 * 60 * 60 * 1000);
-        if (diffDays >= 0) {
-            mCurrentWeekNumber = (int) (diffDays / 7) + 1;
-        } else {
-            mCurrentWeekNumber = 1;
-        }
-    }
-
-    private Calendar getWeekStartDate(int weekNumber) {
-        Calendar startDate = (Calendar) BASE_DATE.clone();
-        startDate.add(Calendar.DAY_OF_MONTH, (weekNumber - 1) * 7);
-        return startDate;
-    }
-
-    private Calendar getWeekEndDate(int weekNumber) {
-        Calendar endDate = getWeekStartDate(weekNumber);
-        endDate.add(Calendar.DAY_OF_MONTH, 6);
-        return endDate;
-    }
-
     private void navigatePrevious() {
-        switch (mCurrentDimension) {
-            case 1:
-                if (mCurrentWeekNumber > 1) {
-                    mCurrentWeekNumber--;
-                }
-                break;
-            case 2:
-                Calendar currentMonth = Calendar.getInstance();
-                currentMonth.add(Calendar.MONTH, -1);
-                break;
-            case 3:
-                Calendar currentYear = Calendar.getInstance();
-                currentYear.add(Calendar.YEAR, -1);
-                break;
-        }
+        mCurrentRange = mCurrentRange.previous();
         updateDateDisplay();
         notifyDateChanged();
     }
 
     private void navigateNext() {
-        switch (mCurrentDimension) {
-            case 1:
-                mCurrentWeekNumber++;
-                break;
-            case 2:
-                Calendar currentMonth = Calendar.getInstance();
-                currentMonth.add(Calendar.MONTH, 1);
-                break;
-            case 3:
-                Calendar currentYear = Calendar.getInstance();
-                currentYear.add(Calendar.YEAR, 1);
-                break;
-        }
+        mCurrentRange = mCurrentRange.next();
         updateDateDisplay();
         notifyDateChanged();
     }
 
     private void updateDateDisplay() {
-        String dateText = "";
-        switch (mCurrentDimension) {
-            case 1:
-                Calendar startOfWeek = getWeekStartDate(mCurrentWeekNumber);
-                Calendar endOfWeek = getWeekEndDate(mCurrentWeekNumber);
-                
-                SimpleDateFormat dayFormat = new SimpleDateFormat("M月d日", Locale.getDefault());
-                String startDate = dayFormat.format(startOfWeek.getTime());
-                String endDate = dayFormat.format(endOfWeek.getTime());
-                dateText = startDate + " ~ " + endDate;
-                break;
-            case 2:
-                Calendar currentMonth = Calendar.getInstance();
-                int month = currentMonth.get(Calendar.MONTH) + 1;
-                int yearMonth = currentMonth.get(Calendar.YEAR);
-                dateText = yearMonth + "年" + month + "月";
-                break;
-            case 3:
-                Calendar currentYear = Calendar.getInstance();
-                int yearOnly = currentYear.get(Calendar.YEAR);
-                dateText = yearOnly + "年";
-                break;
-        }
-        tvCurrentDate.setText(dateText);
+        tvCurrentDate.setText(mCurrentRange.getLabel());
     }
 
     private void notifyDateChanged() {
         if (mListener != null) {
-            String dateValue = getCurrentDateValue();
-            mListener.onDateChanged(mCurrentDimension, dateValue);
+            mListener.onDateChanged(mCurrentRange);
         }
     }
 
@@ -212,33 +140,41 @@ public class DateSelectorView extends LinearLayout {
         mListener = listener;
     }
 
-    public int getCurrentDimension() {
-        return mCurrentDimension;
-    }
-
-    public String getCurrentDateValue() {
-        SimpleDateFormat sdf;
-        switch (mCurrentDimension) {
-            case 1:
-                Calendar startOfWeek = getWeekStartDate(mCurrentWeekNumber);
-                Calendar endOfWeek = getWeekEndDate(mCurrentWeekNumber);
-                sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-                return sdf.format(startOfWeek.getTime()) + "," + sdf.format(endOfWeek.getTime());
-            case 2:
-                sdf = new SimpleDateFormat("yyyy-MM", Locale.getDefault());
-                Calendar currentMonth = Calendar.getInstance();
-                return sdf.format(currentMonth.getTime());
-            case 3:
-                sdf = new SimpleDateFormat("yyyy", Locale.getDefault());
-                Calendar currentYear = Calendar.getInstance();
-                return sdf.format(currentYear.getTime());
-            default:
-                return "";
+    /**
+     * 设置一周的第一天，当前为周维度时立即按新规则重新取区间
+     * @param firstDayOfWeek ISO：1=周一 … 7=周日
+     */
+    public void setFirstDayOfWeek(int firstDayOfWeek) {
+        if (firstDayOfWeek < 1 || firstDayOfWeek > 7 || firstDayOfWeek == mFirstDayOfWeek) {
+            return;
+        }
+        mFirstDayOfWeek = firstDayOfWeek;
+        if (mCurrentRange.getDimension() == DateRange.DIMENSION_WEEK) {
+            mCurrentRange = DateRange.weekOf(mCurrentRange.getStartEpochDay(), firstDayOfWeek);
+            updateDateDisplay();
+            notifyDateChanged();
         }
     }
 
+    /**
+     * 当前区域设置的一周第一天，换算成ISO编号
+     */
+    private static int localeFirstDayOfWeek() {
+        // Calendar：1=周日 … 7=周六
+        int calendarDay = Calendar.getInstance(Locale.getDefault()).getFirstDayOfWeek();
+        return (calendarDay + 5) % 7 + 1;
+    }
+
+    public int getCurrentDimension() {
+        return mCurrentRange.getDimension();
+    }
+
+    public DateRange getCurrentRange() {
+        return mCurrentRange;
+    }
+
     public void resetToCurrentDate() {
-        calculateCurrentWeek();
+        mCurrentRange = DateRange.of(mCurrentRange.getDimension(), EpochDays.today(), mFirstDayOfWeek);
         updateDateDisplay();
         notifyDateChanged();
     }
@@ -0,0 +1,267 @@
+package com.example.personalaccounting.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.MonthCalendarData;
+
+import java.util.Calendar;
+
+/**
+ * 月历热力图视图
+ * <p>
+ * 自绘7列月历网格，每天的底色深浅表示当天支出占当月最大单日支出的比例。
+ * 月份切换时只重新计算首日偏移和天数，onDraw中不创建任何对象；
+ * 左右滑动切换月份，点击某天通过回调通知外部。
+ * </p>
+ */
+public class MonthHeatMapView extends View {
+
+    public interface OnMonthCalendarListener {
+        /**
+         * 点击某一天
+         * @param day 日（1-31）
+         */
+        void onDaySelected(int day);
+
+        /**
+         * 左右滑动切换月份
+         * @param delta -1=上个月，1=下个月
+         */
+        void onMonthSwipe(int delta);
+    }
+
+    private static final String[] WEEK_LABELS = {"日", "一", "二", "三", "四", "五", "六"};
+    private static final String[] DAY_LABELS = new String[32];
+    static {
+        for (int i = 1; i <= 31; i++) {
+            DAY_LABELS[i] = String.valueOf(i);
+        }
+    }
+    private static final int COLUMNS = 7;
+    private static final int MAX_ROWS = 6;
+    // 有支出日期的最低不透明度，避免小额支出几乎看不见
+    private static final int MIN_HEAT_ALPHA = 40;
+
+    private final Paint mHeatPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mWeekPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mSelectedPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF mCellRect = new RectF();
+    private final GestureDetector mGestureDetector;
+
+    private MonthCalendarData mData;
+    private OnMonthCalendarListener mListener;
+    // 当月1号是星期几（0=周日）
+    private int mFirstDayOffset;
+    private int mDaysInMonth = 30;
+    private int mSelectedDay = -1;
+    private int mTodayDay = -1;
+
+    private float mCellWidth;
+    private float mCellHeight;
+    private float mWeekRowHeight;
+    private float mCellInset;
+    private float mCornerRadius;
+    private int mHeatColor;
+
+    public MonthHeatMapView(Context context) {
+        this(context, null);
+    }
+
+    public MonthHeatMapView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public MonthHeatMapView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        float density = getResources().getDisplayMetrics().density;
+        float scaledDensity = getResources().getDisplayMetrics().scaledDensity;
+
+        mHeatColor = ContextCompat.getColor(context, R.color.error);
+        mHeatPaint.setStyle(Paint.Style.FILL);
+
+        mTextPaint.setColor(ContextCompat.getColor(context, R.color.text_primary));
+        mTextPaint.setTextSize(14 * scaledDensity);
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+
+        mWeekPaint.setColor(ContextCompat.getColor(context, R.color.text_secondary));
+        mWeekPaint.setTextSize(12 * scaledDensity);
+        mWeekPaint.setTextAlign(Paint.Align.CENTER);
+
+        mSelectedPaint.setColor(ContextCompat.getColor(context, R.color.accent));
+        mSelectedPaint.setStyle(Paint.Style.STROKE);
+        mSelectedPaint.setStrokeWidth(2 * density);
+
+        mWeekRowHeight = 28 * density;
+        mCellInset = 3 * density;
+        mCornerRadius = 6 * density;
+
+        mGestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapUp(@NonNull MotionEvent e) {
+                int day = dayAt(e.getX(), e.getY());
+                if (day > 0) {
+                    setSelectedDay(day);
+                    if (mListener != null) {
+                        mListener.onDaySelected(day);
+                    }
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public boolean onFling(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float velocityX, float velocityY) {
+                if (e1 == null || mListener == null) {
+                    return false;
+                }
+                float dx = e2.getX() - e1.getX();
+                if (Math.abs(dx) > Math.abs(e2.getY() - e1.getY()) && Math.abs(dx) > mCellWidth) {
+                    mListener.onMonthSwipe(dx < 0 ? 1 : -1);
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 切换显示的月份
+     * @param year 年
+     * @param month 月（0-11）
+     * @param data 月历数据，尚未加载时可为null
+     */
+    public void setMonth(int year, int month, @Nullable MonthCalendarData data) {
+        Calendar calendar = Calendar.getInstance();
+        int todayYear = calendar.get(Calendar.YEAR);
+        int todayMonth = calendar.get(Calendar.MONTH);
+        mTodayDay = (todayYear == year && todayMonth == month) ? calendar.get(Calendar.DAY_OF_MONTH) : -1;
+
+        calendar.clear();
+        calendar.set(year, month, 1);
+        mFirstDayOffset = calendar.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY;
+        mDaysInMonth = calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+        mData = data;
+        if (mSelectedDay > mDaysInMonth) {
+            mSelectedDay = mDaysInMonth;
+        }
+        invalidate();
+    }
+
+    /**
+     * 更新当前月份的热力数据
+     * @param data 月历数据
+     */
+    public void setData(@Nullable MonthCalendarData data) {
+        mData = data;
+        invalidate();
+    }
+
+    public void setSelectedDay(int day) {
+        mSelectedDay = day;
+        invalidate();
+    }
+
+    public int getSelectedDay() {
+        return mSelectedDay;
+    }
+
+    public void setOnMonthCalendarListener(OnMonthCalendarListener listener) {
+        mListener = listener;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        float cellWidth = (width - getPaddingLeft() - getPaddingRight()) / (float) COLUMNS;
+        int height = (int) (getPaddingTop() + getPaddingBottom() + mWeekRowHeight + cellWidth * 0.8f * MAX_ROWS);
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mCellWidth = (w - getPaddingLeft() - getPaddingRight()) / (float) COLUMNS;
+        mCellHeight = (h - getPaddingTop() - getPaddingBottom() - mWeekRowHeight) / MAX_ROWS;
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+
+        // 星期标题
+        float weekBaseline = top + mWeekRowHeight / 2 - (mWeekPaint.descent() + mWeekPaint.ascent()) / 2;
+        for (int i = 0; i < COLUMNS; i++) {
+            canvas.drawText(WEEK_LABELS[i], left + mCellWidth * (i + 0.5f), weekBaseline, mWeekPaint);
+        }
+
+        float gridTop = top + mWeekRowHeight;
+        float textOffset = -(mTextPaint.descent() + mTextPaint.ascent()) / 2;
+        for (int day = 1; day <= mDaysInMonth; day++) {
+            int index = mFirstDayOffset + day - 1;
+            int row = index / COLUMNS;
+            int column = index % COLUMNS;
+            float cellLeft = left + column * mCellWidth;
+            float cellTop = gridTop + row * mCellHeight;
+            mCellRect.set(cellLeft + mCellInset, cellTop + mCellInset,
+                    cellLeft + mCellWidth - mCellInset, cellTop + mCellHeight - mCellInset);
+
+            if (mData != null) {
+                float intensity = mData.getExpenseIntensity(day);
+                if (intensity > 0f) {
+                    mHeatPaint.setColor(mHeatColor);
+                    mHeatPaint.setAlpha(MIN_HEAT_ALPHA + (int) ((255 - MIN_HEAT_ALPHA) * intensity));
+                    canvas.drawRoundRect(mCellRect, mCornerRadius, mCornerRadius, mHeatPaint);
+                }
+            }
+            if (day == mSelectedDay) {
+                canvas.drawRoundRect(mCellRect, mCornerRadius, mCornerRadius, mSelectedPaint);
+            }
+
+            mTextPaint.setFakeBoldText(day == mTodayDay);
+            canvas.drawText(DAY_LABELS[day], mCellRect.centerX(), mCellRect.centerY() + textOffset, mTextPaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        return mGestureDetector.onTouchEvent(event) || super.onTouchEvent(event);
+    }
+
+    /**
+     * 根据触摸坐标计算日期
+     * @return 日（1-31），不在日期格内时返回-1
+     */
+    private int dayAt(float x, float y) {
+        float gridTop = getPaddingTop() + mWeekRowHeight;
+        if (y < gridTop || mCellWidth <= 0 || mCellHeight <= 0) {
+            return -1;
+        }
+        int column = (int) ((x - getPaddingLeft()) / mCellWidth);
+        int row = (int) ((y - gridTop) / mCellHeight);
+        if (column < 0 || column >= COLUMNS || row < 0 || row >= MAX_ROWS) {
+            return -1;
+        }
+        int day = row * COLUMNS + column - mFirstDayOffset + 1;
+        return (day >= 1 && day <= mDaysInMonth) ? day : -1;
+    }
+}
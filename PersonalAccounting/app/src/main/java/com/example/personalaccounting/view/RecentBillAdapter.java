@@ -22,6 +22,7 @@ import java.util.Locale;
 
 import com.example.personalaccounting.R;
 import com.example.personalaccounting.model.Bill;
+import com.example.personalaccounting.model.BillDiff;
 
 /**
  * 首页近期账单适配器
@@ -43,17 +44,12 @@ public class RecentBillAdapter extends RecyclerView.Adapter<RecentBillAdapter.Bi
     private static final DiffUtil.ItemCallback<Bill> DIFF_CALLBACK = new DiffUtil.ItemCallback<Bill>() {
         @Override
         public boolean areItemsTheSame(@NonNull Bill oldItem, @NonNull Bill newItem) {
-            // 判断是否是同一个item（通过ID判断）
-            return oldItem.getId() == newItem.getId();
+            return BillDiff.areBillsTheSame(oldItem, newItem);
         }
 
         @Override
         public boolean areContentsTheSame(@NonNull Bill oldItem, @NonNull Bill newItem) {
-            // 判断item内容是否相同
-            return oldItem.getType().equals(newItem.getType())
-                    && oldItem.getAmount() == newItem.getAmount()
-                    && oldItem.getBillType() == newItem.getBillType()
-                    && oldItem.getDate().equals(newItem.getDate());
+            return BillDiff.areBillContentsTheSame(oldItem, newItem);
         }
     };
 
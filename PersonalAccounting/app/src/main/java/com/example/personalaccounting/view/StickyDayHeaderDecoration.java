@@ -0,0 +1,93 @@
+package com.example.personalaccounting.view;
+
+import android.graphics.Canvas;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 日期分组头吸顶装饰
+ * <p>
+ * 在列表顶部绘制当前可见区域所属日期的分组头，下一个分组头滚动上来时把它顶出屏幕。
+ * 吸顶视图只创建一次，只有分组切换时才重新绑定和测量，滚动过程中不产生新对象。
+ * </p>
+ */
+public class StickyDayHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    private final BillListAdapter mAdapter;
+    // 吸顶分组头视图，首次绘制时创建
+    private View mHeaderView;
+    // 当前绑定到吸顶视图的分组头位置
+    private int mBoundHeaderPosition = RecyclerView.NO_POSITION;
+    // 上次测量时的列表宽度
+    private int mMeasuredWidth;
+
+    public StickyDayHeaderDecoration(BillListAdapter adapter) {
+        mAdapter = adapter;
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas c, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        View topChild = parent.getChildAt(0);
+        if (topChild == null) {
+            return;
+        }
+        int topPosition = parent.getChildAdapterPosition(topChild);
+        if (topPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+        int headerPosition = mAdapter.getHeaderPosition(topPosition);
+        if (headerPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        View header = getHeaderView(parent, headerPosition);
+        int headerHeight = header.getHeight();
+
+        // 下一个分组头进入吸顶区域时，把当前吸顶视图往上推
+        int offset = 0;
+        for (int i = 1; i < parent.getChildCount(); i++) {
+            View child = parent.getChildAt(i);
+            int childPosition = parent.getChildAdapterPosition(child);
+            if (childPosition != RecyclerView.NO_POSITION && mAdapter.isHeader(childPosition)) {
+                if (child.getTop() < headerHeight) {
+                    offset = child.getTop() - headerHeight;
+                }
+                break;
+            }
+        }
+
+        c.save();
+        c.translate(parent.getPaddingLeft(), offset);
+        header.draw(c);
+        c.restore();
+    }
+
+    /**
+     * 获取并绑定吸顶视图，仅在分组或宽度变化时重新测量
+     */
+    private View getHeaderView(RecyclerView parent, int headerPosition) {
+        if (mHeaderView == null) {
+            mHeaderView = mAdapter.createHeaderView(parent);
+        }
+        int width = parent.getWidth() - parent.getPaddingLeft() - parent.getPaddingRight();
+        if (headerPosition != mBoundHeaderPosition || width != mMeasuredWidth) {
+            mAdapter.bindHeaderView(mHeaderView, headerPosition);
+            int widthSpec = View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY);
+            int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            mHeaderView.measure(widthSpec, heightSpec);
+            mHeaderView.layout(0, 0, mHeaderView.getMeasuredWidth(), mHeaderView.getMeasuredHeight());
+            mBoundHeaderPosition = headerPosition;
+            mMeasuredWidth = width;
+        }
+        return mHeaderView;
+    }
+
+    /**
+     * 列表数据整体替换后调用，强制下次绘制时重新绑定
+     */
+    public void invalidateHeader() {
+        mBoundHeaderPosition = RecyclerView.NO_POSITION;
+    }
+}
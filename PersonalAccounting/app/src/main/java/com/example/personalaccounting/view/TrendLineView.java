@@ -0,0 +1,168 @@
+package com.example.personalaccounting.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.personalaccounting.R;
+import com.example.personalaccounting.model.DailyTrend;
+import com.example.personalaccounting.model.TrendDownsampler;
+
+import java.text.DecimalFormat;
+
+/**
+ * 按日趋势折线图
+ * <p>
+ * 数据点先用LTTB降采样到不超过绘图区像素宽度，再在后台线程生成折线和填充路径；
+ * 一整年的按日数据也只绘制几百个点，onDraw只绘制预先生成的Path。
+ * </p>
+ */
+public class TrendLineView extends View {
+
+    private final Paint mLinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mAxisPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float mLabelHeight;
+
+    private DailyTrend mTrend;
+    private Geometry mGeometry;
+    private int mGeneration;
+
+    public TrendLineView(Context context) {
+        this(context, null);
+    }
+
+    public TrendLineView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public TrendLineView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        float density = getResources().getDisplayMetrics().density;
+        float scaledDensity = getResources().getDisplayMetrics().scaledDensity;
+        int lineColor = ContextCompat.getColor(context, R.color.secondary);
+
+        mLinePaint.setColor(lineColor);
+        mLinePaint.setStyle(Paint.Style.STROKE);
+        mLinePaint.setStrokeWidth(2 * density);
+        mLinePaint.setStrokeJoin(Paint.Join.ROUND);
+
+        mFillPaint.setColor(lineColor);
+        mFillPaint.setAlpha(48);
+        mFillPaint.setStyle(Paint.Style.FILL);
+
+        mAxisPaint.setColor(ContextCompat.getColor(context, R.color.divider));
+        mAxisPaint.setStrokeWidth(density);
+
+        mTextPaint.setColor(ContextCompat.getColor(context, R.color.text_secondary));
+        mTextPaint.setTextSize(11 * scaledDensity);
+        mLabelHeight = 16 * density;
+    }
+
+    /**
+     * 设置趋势数据，降采样和路径计算在后台线程完成
+     * @param trend 按日趋势
+     */
+    public void setData(@Nullable DailyTrend trend) {
+        mTrend = trend;
+        rebuild();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        rebuild();
+    }
+
+    private void rebuild() {
+        final int generation = ++mGeneration;
+        final DailyTrend trend = mTrend;
+        final float left = getPaddingLeft();
+        final float top = getPaddingTop() + mLabelHeight;
+        final int width = getWidth() - getPaddingLeft() - getPaddingRight();
+        final int height = (int) (getHeight() - getPaddingTop() - getPaddingBottom() - mLabelHeight);
+        if (trend == null || width <= 0 || height <= 0) {
+            mGeometry = null;
+            invalidate();
+            return;
+        }
+        ChartGeometryExecutor.execute(() -> {
+            Geometry geometry = buildGeometry(trend, left, top, width, height);
+            post(() -> {
+                if (generation == mGeneration) {
+                    mGeometry = geometry;
+                    invalidate();
+                }
+            });
+        });
+    }
+
+    /**
+     * 降采样并生成路径（后台线程）
+     */
+    private static Geometry buildGeometry(DailyTrend trend, float left, float top, int width, int height) {
+        Geometry geometry = new Geometry();
+        double[] values = trend.getValues();
+        float bottom = top + height;
+        geometry.baselineY = bottom;
+        geometry.left = left;
+        geometry.right = left + width;
+        geometry.maxLabel = "最高 " + new DecimalFormat("0.00").format(trend.getMaxValue());
+        if (values.length == 0) {
+            return geometry;
+        }
+
+        // 每个像素最多一个点
+        int[] indices = TrendDownsampler.lttb(values, width);
+        double max = trend.getMaxValue() > 0 ? trend.getMaxValue() : 1;
+        float stepX = values.length > 1 ? (float) width / (values.length - 1) : 0;
+
+        for (int i = 0; i < indices.length; i++) {
+            int index = indices[i];
+            float x = left + index * stepX;
+            float y = bottom - (float) (values[index] / max * height);
+            if (i == 0) {
+                geometry.line.moveTo(x, y);
+                geometry.fill.moveTo(x, bottom);
+            }
+            geometry.line.lineTo(x, y);
+            geometry.fill.lineTo(x, y);
+        }
+        geometry.fill.lineTo(left + indices[indices.length - 1] * stepX, bottom);
+        geometry.fill.close();
+        return geometry;
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        Geometry geometry = mGeometry;
+        if (geometry == null) {
+            return;
+        }
+        canvas.drawLine(geometry.left, geometry.baselineY, geometry.right, geometry.baselineY, mAxisPaint);
+        canvas.drawPath(geometry.fill, mFillPaint);
+        canvas.drawPath(geometry.line, mLinePaint);
+        canvas.drawText(geometry.maxLabel, geometry.left, getPaddingTop() - mTextPaint.ascent(), mTextPaint);
+    }
+
+    /**
+     * 预先生成的绘制数据
+     */
+    private static class Geometry {
+        final Path line = new Path();
+        final Path fill = new Path();
+        float left;
+        float right;
+        float baselineY;
+        String maxLabel;
+    }
+}
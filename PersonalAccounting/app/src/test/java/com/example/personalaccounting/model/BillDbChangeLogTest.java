@@ -0,0 +1,161 @@
+package com.example.personalaccounting.model;
+
+import android.database.Cursor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 变更日志触发器和增量备份在真实 SQLite 上的测试
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class BillDbChangeLogTest {
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private BillDbHelper mDbHelper;
+
+    @Before
+    public void setUp() {
+        mDbHelper = new BillDbHelper(RuntimeEnvironment.getApplication(), null);
+    }
+
+    @After
+    public void tearDown() {
+        mDbHelper.close();
+    }
+
+    @Test
+    public void writes_appendChangeLogRows() {
+        mDbHelper.insertBill(new Bill(0, "餐饮", 12.5, 0, "午饭", "2024-05-01", 1L));
+        Bill bill = mDbHelper.queryAllBill().get(0);
+        // 插入后补写同步编号不算变更
+        List<String[]> log = readChangeLog();
+        assertEquals(1, log.size());
+        assertEquals(String.valueOf(bill.getId()), log.get(0)[0]);
+        assertEquals(String.valueOf(BillDbHelper.OP_INSERT), log.get(0)[1]);
+        assertNull(log.get(0)[2]);
+
+        mDbHelper.updateBill(new Bill(bill.getId(), "餐饮", 15, 0, "午饭", "2024-05-01", 1L));
+        log = readChangeLog();
+        assertEquals(2, log.size());
+        assertEquals(String.valueOf(BillDbHelper.OP_UPDATE), log.get(1)[1]);
+
+        String syncId = readSyncId(bill.getId());
+        mDbHelper.deleteBill(bill.getId());
+        log = readChangeLog();
+        assertEquals(3, log.size());
+        assertEquals(String.valueOf(bill.getId()), log.get(2)[0]);
+        assertEquals(String.valueOf(BillDbHelper.OP_DELETE), log.get(2)[1]);
+        // 删除记下墓碑：原同步编号，版本号在修改后的2上再加1
+        assertEquals(syncId, log.get(2)[2]);
+        assertEquals("3", log.get(2)[3]);
+        assertEquals(3, mDbHelper.queryChangeLogHead());
+    }
+
+    @Test
+    public void restore_replaysIncrementsOntoBase() throws IOException {
+        mDbHelper.insertBills(Arrays.asList(
+                new Bill(0, "餐饮", 20, 0, "早饭", "2024-05-01", 1L),
+                new Bill(0, "交通", 4, 0, null, "2024-05-01", 2L),
+                new Bill(0, "工资", 8000, 1, "五月", "2024-05-02", 3L)));
+        List<Bill> bills = mDbHelper.queryAllBill();
+        BillBackupManager manager = new BillBackupManager(mDbHelper);
+        File base = mFolder.newFile("base.bak");
+        assertEquals(3, manager.backup(new FileOutputStream(base)));
+
+        Bill breakfast = findByType(bills, "餐饮");
+        Bill bus = findByType(bills, "交通");
+        Bill salary = findByType(bills, "工资");
+        mDbHelper.updateBill(new Bill(breakfast.getId(), "餐饮", 25, 0, "早饭", "2024-05-01", 1L));
+        mDbHelper.deleteBill(bus.getId());
+        mDbHelper.insertBill(new Bill(0, "水果", 9.9, 0, "苹果", "2024-05-03", 4L));
+        File first = mFolder.newFile("first.bak");
+        assertEquals(3, manager.backupIncremental(new FileOutputStream(first)));
+
+        mDbHelper.deleteBill(salary.getId());
+        Bill fruit = findByType(mDbHelper.queryAllBill(), "水果");
+        mDbHelper.updateBill(new Bill(fruit.getId(), "水果", 12, 0, "苹果", "2024-05-03", 4L));
+        File second = mFolder.newFile("second.bak");
+        assertEquals(2, manager.backupIncremental(new FileOutputStream(second)));
+        List<String> expected = snapshot();
+
+        // 最后一次备份之后的写入不在备份里，恢复后消失
+        mDbHelper.insertBill(new Bill(0, "娱乐", 60, 0, null, "2024-05-04", 5L));
+        long restored = manager.restore(Arrays.asList(new FileInputStream(second), new FileInputStream(base),
+                new FileInputStream(first)));
+        assertEquals(2, restored);
+        assertEquals(expected, snapshot());
+        // 恢复后没有检查点，下一次增量改做完整备份
+        assertNull(mDbHelper.queryBackupCheckpoint());
+        manager.backupIncremental(new FileOutputStream(mFolder.newFile("next.bak")));
+        assertNotNull(mDbHelper.queryBackupCheckpoint());
+    }
+
+    private List<String[]> readChangeLog() {
+        List<String[]> rows = new ArrayList<>();
+        try (Cursor cursor = mDbHelper.getReadableDatabase().rawQuery(
+                "SELECT bill_id, op, sync_id, version FROM bill_change_log ORDER BY seq", null)) {
+            while (cursor.moveToNext()) {
+                rows.add(new String[]{cursor.getString(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3)});
+            }
+        }
+        return rows;
+    }
+
+    private String readSyncId(int billId) {
+        try (Cursor cursor = mDbHelper.getReadableDatabase().rawQuery(
+                "SELECT sync_id FROM bill_table WHERE id = ?", new String[]{String.valueOf(billId)})) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    private static Bill findByType(List<Bill> bills, String type) {
+        for (Bill bill : bills) {
+            if (type.equals(bill.getType())) {
+                return bill;
+            }
+        }
+        throw new AssertionError("没有分类为" + type + "的账单");
+    }
+
+    /**
+     * 按备份游标顺序列出全部列，包括本地编号、同步编号和版本号
+     */
+    private List<String> snapshot() {
+        List<String> rows = new ArrayList<>();
+        try (Cursor cursor = mDbHelper.openBackupCursor()) {
+            while (cursor.moveToNext()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 0; i < cursor.getColumnCount(); i++) {
+                    row.append(cursor.getString(i)).append('|');
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.personalaccounting.model;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 数据库性能回归测试
+ * <p>
+ * 在 Robolectric 的原生 SQLite 上，用 {@link LedgerGenerator} 按固定种子生成1万、10万条账单，
+ * 逐个测量 BillDbHelper 和 BillRepository 的公开查询与写入方法。每个方法标明预期的增长方式：
+ * 只读写固定行数的方法（主键查询、单条写入、读缓存）在账本变大时耗时基本不变，
+ * 按日期区间或全表读取的方法最多线性增长。增长超出上限或超出耗时预算时测试失败。
+ * 100万条的规模较慢，用 -PperfLargeLedger=true 打开。耗时表只在失败信息里给出，
+ * 用 -PperfReport=true 时每次都打印。
+ * </p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class BillDbPerformanceTest {
+    private static final long SEED = 20240101L;
+    // 账本覆盖 2022～2024 三个整年
+    private static final int START_YEAR = 2022;
+    private static final int YEARS = 3;
+    private static final String LAST_DATE = "2024-12-31";
+    private static final String MONTH = "2024-06";
+    private static final String YEAR = "2024";
+    private static final String WEEK_START = "2024-06-10";
+    private static final String WEEK_END = "2024-06-16";
+    private static final int BATCH_SIZE = 5000;
+    private static final int PAGE_SIZE = 30;
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURE_RUNS = 7;
+    // 低于这个耗时的差别按噪声处理
+    private static final long NOISE_FLOOR_NANOS = 200_000L;
+    // 固定行数的方法，账本变大后耗时最多增长到3倍
+    private static final double CONSTANT_GROWTH = 3;
+    // 线性方法的增长上限是规模比的2倍，超过即视为超线性
+    private static final double LINEAR_SLACK = 2;
+    // 预算按10万条账单给出，线性方法在其他规模上按比例换算
+    private static final int BUDGET_SIZE = 100_000;
+
+    private enum Growth {
+        CONSTANT, LINEAR
+    }
+
+    private interface Operation {
+        void run(int run);
+    }
+
+    /**
+     * 被测方法：名称、预期增长方式、10万条时的耗时预算
+     */
+    private static final class Op {
+        final String name;
+        final Growth growth;
+        final long budgetMillis;
+        final Operation operation;
+
+        Op(String name, Growth growth, long budgetMillis, Operation operation) {
+            this.name = name;
+            this.growth = growth;
+            this.budgetMillis = budgetMillis;
+            this.operation = operation;
+        }
+    }
+
+    private Context mContext;
+    private BillDbHelper mDbHelper;
+    private BillRepository mRepository;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.getApplication();
+    }
+
+    @After
+    public void tearDown() {
+        closeLedger();
+    }
+
+    @Test
+    public void operations_scaleWithinBudget() {
+        List<Integer> sizes = new ArrayList<>(Arrays.asList(10_000, 100_000));
+        if (Boolean.getBoolean("perf.largeLedger")) {
+            sizes.add(1_000_000);
+        }
+        // 方法名 -> 各规模的中位耗时
+        Map<String, long[]> nanos = new LinkedHashMap<>();
+        Map<String, Op> ops = new LinkedHashMap<>();
+        for (int s = 0; s < sizes.size(); s++) {
+            int size = sizes.get(s);
+            long loadNanos = loadLedger(size);
+            record(nanos, ops, new Op("insertBills（整个账本）", Growth.LINEAR, 30_000, null),
+                    s, sizes.size(), loadNanos);
+            for (Op op : operations(size)) {
+                record(nanos, ops, op, s, sizes.size(), median(op.operation));
+            }
+            closeLedger();
+        }
+
+        List<String> failures = new ArrayList<>();
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : nanos.entrySet()) {
+            Op op = ops.get(entry.getKey());
+            long[] times = entry.getValue();
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-40s", op.name));
+            for (int s = 0; s < sizes.size(); s++) {
+                line.append(String.format(Locale.ROOT, "%12.3f ms", times[s] / 1e6));
+                double budget = op.budgetMillis * 1e6;
+                if (op.growth == Growth.LINEAR) {
+                    budget = budget * sizes.get(s) / BUDGET_SIZE;
+                }
+                // 预算不低于噪声下限，避免小规模上的线性预算小到测不准
+                if (times[s] > Math.max(budget, NOISE_FLOOR_NANOS)) {
+                    failures.add(String.format(Locale.ROOT, "%s 在%d条时耗时%.1fms，超出预算%.1fms",
+                            op.name, sizes.get(s), times[s] / 1e6, budget / 1e6));
+                }
+                if (s > 0) {
+                    double sizeRatio = (double) sizes.get(s) / sizes.get(s - 1);
+                    double ratio = (double) Math.max(times[s], NOISE_FLOOR_NANOS)
+                            / Math.max(times[s - 1], NOISE_FLOOR_NANOS);
+                    double limit = op.growth == Growth.CONSTANT ? CONSTANT_GROWTH : sizeRatio * LINEAR_SLACK;
+                    if (ratio > limit) {
+                        failures.add(String.format(Locale.ROOT, "%s 从%d条到%d条耗时增长%.1f倍，上限%.1f倍",
+                                op.name, sizes.get(s - 1), sizes.get(s), ratio, limit));
+                    }
+                }
+            }
+            report.append(line).append('\n');
+        }
+        if (Boolean.getBoolean("perf.report")) {
+            System.out.print(report);
+        }
+        assertTrue(String.join("\n", failures) + "\n" + report, failures.isEmpty());
+    }
+
+    @Test
+    public void appFilters_useIndexes() {
+        loadLedger(10_000);
+        Bill last = mDbHelper.queryBillById(5000);
+        List<BillFilter> filters = Arrays.asList(
+                // 统计页的今日、本周、本月、本年
+                new BillFilter.Builder().dateBetween(LAST_DATE, LAST_DATE).build(),
+                new BillFilter.Builder().dateBetween(WEEK_START, WEEK_END).build(),
+                new BillFilter.Builder().dateBetween(MONTH + "-01", MONTH + "-31").build(),
+                new BillFilter.Builder().dateBetween(YEAR + "-01-01", YEAR + "-12-31").build(),
+                // 账单列表按类型翻页
+                new BillFilter.Builder().billType(0).limit(PAGE_SIZE).build(),
+                new BillFilter.Builder().billType(1).after(last).limit(PAGE_SIZE).build(),
+                // 筛选页的分类和金额条件
+                new BillFilter.Builder().categories("餐饮", "交通").limit(PAGE_SIZE).build(),
+                new BillFilter.Builder().dateBetween(MONTH + "-01", MONTH + "-31").categories("购物")
+                        .amountBetween(100.0, null).sort(BillFilter.SORT_OLDEST_FIRST).build());
+        for (BillFilter filter : filters) {
+            List<String> plan = mDbHelper.explainQueryPlan(filter);
+            for (String detail : plan) {
+                if (detail.contains(BillDbHelper.TABLE_BILL)) {
+                    assertTrue("全表扫描，计划=" + plan, detail.contains("USING"));
+                }
+                assertFalse("排序没有走索引，计划=" + plan, detail.contains("TEMP B-TREE"));
+            }
+        }
+    }
+
+    @Test
+    public void generatedLedger_isQueryable() {
+        loadLedger(10_000);
+        assertEquals(10_000, mDbHelper.countBills());
+        assertEquals(10_000, mDbHelper.queryAllBill().size());
+        StatisticsEngine.YearStatistics year = mRepository.calculateYearStatistics(YEAR);
+        assertTrue(year.getExpense() > 0);
+        assertEquals(PAGE_SIZE, mRepository.getBillPage(-1, null, PAGE_SIZE).stream()
+                .filter(item -> !item.isHeader()).count());
+    }
+
+    private List<Op> operations(int size) {
+        int middleId = size / 2;
+        Bill middle = mDbHelper.queryBillById(middleId);
+        DateRange month = DateRange.monthOf(2024, 6);
+        // 每次调用换一个月份，保证读不到缓存
+        List<DateRange> months = new ArrayList<>();
+        for (int i = 0; i < YEARS * 12; i++) {
+            months.add(DateRange.monthOf(START_YEAR + i / 12, i % 12 + 1));
+        }
+        int[] nextDeleteId = {size};
+        List<Op> ops = new ArrayList<>();
+        ops.add(new Op("queryBillById", Growth.CONSTANT, 20, run -> mDbHelper.queryBillById(middleId)));
+        ops.add(new Op("queryBillsAfter", Growth.CONSTANT, 20, run -> mDbHelper.queryBillsAfter(size - 100, 100)));
+        ops.add(new Op("queryChangeLogHead", Growth.CONSTANT, 20, run -> mDbHelper.queryChangeLogHead()));
+        ops.add(new Op("queryLedgerDigest", Growth.CONSTANT, 50, run -> mDbHelper.queryLedgerDigest()));
+        ops.add(new Op("queryBills（分类，限条数）", Growth.CONSTANT, 50, run -> mDbHelper.queryBills(
+                new BillFilter.Builder().categories("餐饮").limit(PAGE_SIZE).build())));
+        ops.add(new Op("queryBillPageWithDayTotals（首页）", Growth.LINEAR, 50,
+                run -> mDbHelper.queryBillPageWithDayTotals(-1, null, PAGE_SIZE)));
+        ops.add(new Op("queryBillPageWithDayTotals（中间页）", Growth.LINEAR, 50,
+                run -> mDbHelper.queryBillPageWithDayTotals(-1, middle, PAGE_SIZE)));
+        ops.add(new Op("queryTodayBill", Growth.LINEAR, 50, run -> mDbHelper.queryTodayBill(LAST_DATE)));
+        ops.add(new Op("queryWeekBill", Growth.LINEAR, 100, run -> mDbHelper.queryWeekBill(WEEK_START, WEEK_END)));
+        ops.add(new Op("queryWeekCategoryStatistics", Growth.LINEAR, 100,
+                run -> mDbHelper.queryWeekCategoryStatistics(WEEK_START, WEEK_END, 0)));
+        ops.add(new Op("queryMonthBill", Growth.LINEAR, 300, run -> mDbHelper.queryMonthBill(MONTH)));
+        ops.add(new Op("queryMonthDailyTotals", Growth.LINEAR, 100, run -> mDbHelper.queryMonthDailyTotals(MONTH)));
+        ops.add(new Op("queryMonthCategoryStatistics", Growth.LINEAR, 100,
+                run -> mDbHelper.queryMonthCategoryStatistics(MONTH, 0)));
+        ops.add(new Op("queryMonthExpense", Growth.LINEAR, 100, run -> mDbHelper.queryMonthExpense(MONTH)));
+        ops.add(new Op("queryRangeTotals", Growth.LINEAR, 100,
+                run -> mDbHelper.queryRangeTotals(month.getStartDate(), month.getEndDate())));
+        ops.add(new Op("queryDailyTotals", Growth.LINEAR, 100, run -> mDbHelper.queryDailyTotals(month, 0)));
+        ops.add(new Op("queryYearBill", Growth.LINEAR, 2000, run -> mDbHelper.queryYearBill(YEAR)));
+        ops.add(new Op("queryYearCategoryStatistics", Growth.LINEAR, 500,
+                run -> mDbHelper.queryYearCategoryStatistics(YEAR, 0)));
+        ops.add(new Op("queryBillByType", Growth.LINEAR, 1000, run -> mDbHelper.queryBillByType(1)));
+        ops.add(new Op("queryAllBill", Growth.LINEAR, 5000, run -> mDbHelper.queryAllBill()));
+        ops.add(new Op("countBills", Growth.LINEAR, 200, run -> mDbHelper.countBills()));
+        ops.add(new Op("calculateTodayStatistics", Growth.LINEAR, 50,
+                run -> mRepository.calculateTodayStatistics(LAST_DATE)));
+        ops.add(new Op("calculateMonthStatistics", Growth.LINEAR, 300,
+                run -> mRepository.calculateMonthStatistics(MONTH)));
+        ops.add(new Op("calculateYearStatistics", Growth.LINEAR, 2000,
+                run -> mRepository.calculateYearStatistics(YEAR)));
+        ops.add(new Op("getPeriodStatistics（未缓存）", Growth.LINEAR, 300,
+                run -> mRepository.getPeriodStatistics(months.get(run % months.size()), 0)));
+        ops.add(new Op("getPeriodStatistics（已缓存）", Growth.CONSTANT, 5,
+                run -> mRepository.getPeriodStatistics(month, 0)));
+        ops.add(new Op("getMonthCalendar（未缓存）", Growth.LINEAR, 100,
+                run -> mRepository.getMonthCalendar(months.get(run % months.size()).getMonthValue(), false)));
+        ops.add(new Op("getBillPage", Growth.LINEAR, 50, run -> mRepository.getBillPage(-1, null, PAGE_SIZE)));
+        // 写入放在最后，不影响前面读到的数据
+        ops.add(new Op("insertBill", Growth.CONSTANT, 100, run -> mDbHelper.insertBill(
+                new Bill(0, "餐饮", 12.5, 0, "午饭", LAST_DATE, System.currentTimeMillis()))));
+        ops.add(new Op("updateBill", Growth.CONSTANT, 100, run -> {
+            middle.setAmount(middle.getAmount() + 1);
+            mDbHelper.updateBill(middle);
+        }));
+        ops.add(new Op("deleteBill", Growth.CONSTANT, 100, run -> mDbHelper.deleteBill(nextDeleteId[0]--)));
+        return ops;
+    }
+
+    private static void record(Map<String, long[]> nanos, Map<String, Op> ops, Op op, int sizeIndex, int sizeCount,
+                               long value) {
+        ops.put(op.name, op);
+        long[] times = nanos.get(op.name);
+        if (times == null) {
+            times = new long[sizeCount];
+            nanos.put(op.name, times);
+        }
+        times[sizeIndex] = value;
+    }
+
+    /**
+     * 预热后多次调用，取耗时中位数
+     */
+    private static long median(Operation operation) {
+        int run = 0;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            operation.run(run++);
+        }
+        long[] samples = new long[MEASURE_RUNS];
+        for (int i = 0; i < MEASURE_RUNS; i++) {
+            long start = System.nanoTime();
+            operation.run(run++);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[MEASURE_RUNS / 2];
+    }
+
+    /**
+     * 在文件数据库里生成账本并打开仓库，仓库和测试共用同一个数据库文件
+     * @return 批量插入的总耗时
+     */
+    private long loadLedger(int size) {
+        mDbHelper = new BillDbHelper(mContext);
+        LedgerGenerator generator = new LedgerGenerator.Builder().seed(SEED).years(START_YEAR, YEARS)
+                .billCount(size).build();
+        long start = System.nanoTime();
+        List<Bill> batch;
+        while (!(batch = generator.nextBatch(BATCH_SIZE)).isEmpty()) {
+            assertEquals(batch.size(), mDbHelper.insertBills(batch));
+        }
+        long elapsed = System.nanoTime() - start;
+        mRepository = BillRepository.getInstance(mContext);
+        return elapsed;
+    }
+
+    private void closeLedger() {
+        if (mDbHelper != null) {
+            BillRepository.close();
+            mRepository = null;
+            mDbHelper.close();
+            mDbHelper = null;
+            mContext.deleteDatabase(BillDbHelper.DATABASE_NAME);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.personalaccounting.model;
+
+import android.database.Cursor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 同步引擎在真实 SQLite 上的往返测试
+ * <p>
+ * 两台设备各用一个内存数据库的 BillDbHelper，通过 {@link LocalSyncServer} 同步，
+ * 覆盖变更日志触发器、墓碑的 LEFT JOIN、按 sync_id 先更新后插入，以及拉取后已推送序号的推进。
+ * </p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class BillDbSyncTest {
+    private LocalSyncServer mServer;
+    private BillDbHelper mPhone;
+    private BillDbHelper mTablet;
+
+    @Before
+    public void setUp() {
+        mServer = new LocalSyncServer();
+        mPhone = new BillDbHelper(RuntimeEnvironment.getApplication(), null);
+        mTablet = new BillDbHelper(RuntimeEnvironment.getApplication(), null);
+    }
+
+    @After
+    public void tearDown() {
+        mPhone.close();
+        mTablet.close();
+    }
+
+    @Test
+    public void updateAndDelete_reachOtherDevice() throws IOException {
+        mPhone.insertBill(new Bill(0, "餐饮", 12.5, 0, "午饭", "2024-05-01", 1L));
+        mPhone.insertBill(new Bill(0, "交通", 4, 0, null, "2024-05-01", 2L));
+        mPhone.insertBill(new Bill(0, "工资", 8000, 1, "五月", "2024-05-02", 3L));
+        assertEquals(3, sync(mPhone).getPushed());
+        assertEquals(3, sync(mTablet).getPulled());
+        assertEquals(snapshot(mPhone), snapshot(mTablet));
+
+        List<Bill> bills = mPhone.queryAllBill();
+        Bill lunch = findByType(bills, "餐饮");
+        Bill bus = findByType(bills, "交通");
+        mPhone.updateBill(new Bill(lunch.getId(), "餐饮", 15, 0, "午饭", "2024-05-01", 1L));
+        mPhone.deleteBill(bus.getId());
+
+        // 修改把版本号加1，删除触发器记下的墓碑版本比删除前再大1
+        SyncStore.State state = mPhone.loadSyncState();
+        SyncStore.Page page = mPhone.readLocalChanges(state.getLocalSeq(), mPhone.queryChangeLogHead(), 0, 10);
+        assertEquals(2, page.getChanges().size());
+        SyncChange updated = page.getChanges().get(0);
+        SyncChange tombstone = page.getChanges().get(1);
+        assertFalse(updated.isDeleted());
+        assertEquals(2, updated.getVersion());
+        assertEquals(1500, updated.getCents());
+        assertTrue(tombstone.isDeleted());
+        assertEquals(2, tombstone.getVersion());
+
+        BillSyncEngine.SyncResult pushed = sync(mPhone);
+        assertEquals(2, pushed.getPushed());
+        assertEquals(2, pushed.getAccepted());
+        assertEquals(2, sync(mTablet).getPulled());
+        // 修改按 sync_id 原地更新，没有插入重复的行
+        assertEquals(2, mTablet.countBills());
+        assertEquals(snapshot(mPhone), snapshot(mTablet));
+    }
+
+    @Test
+    public void pulledChanges_areNotPushedBack() throws IOException {
+        mPhone.insertBill(new Bill(0, "餐饮", 20, 0, null, "2024-05-01", 1L));
+        sync(mPhone);
+        sync(mTablet);
+
+        // 拉取前没有未推送的本地变更，应用远程变更触发的日志不算本地写入
+        SyncStore.State state = mTablet.loadSyncState();
+        assertNotEquals(0, mTablet.queryChangeLogHead());
+        assertEquals(mTablet.queryChangeLogHead(), state.getLocalSeq());
+        BillSyncEngine.SyncResult again = sync(mTablet);
+        assertEquals(0, again.getPushed());
+        assertEquals(0, again.getPulled());
+    }
+
+    @Test
+    public void pendingLocalChange_survivesPull() throws IOException {
+        mPhone.insertBill(new Bill(0, "餐饮", 20, 0, null, "2024-05-01", 1L));
+        sync(mPhone);
+        sync(mTablet);
+
+        // 推送之后、拉取之前又有本地修改：已推送序号不能越过这次修改
+        Bill bill = mTablet.queryAllBill().get(0);
+        mTablet.updateBill(new Bill(bill.getId(), "餐饮", 35, 0, "补记", "2024-05-01", 1L));
+        long pushedSeq = mTablet.loadSyncState().getLocalSeq();
+        mTablet.applyRemoteChanges(Collections.<SyncChange>emptyList(), mTablet.loadSyncState().getRemoteCursor());
+        assertEquals(pushedSeq, mTablet.loadSyncState().getLocalSeq());
+
+        assertEquals(1, sync(mTablet).getPushed());
+        assertEquals(1, sync(mPhone).getPulled());
+        assertEquals(35, mPhone.queryAllBill().get(0).getAmount(), 0.001);
+        assertEquals(snapshot(mPhone), snapshot(mTablet));
+    }
+
+    @Test
+    public void firstSync_pagesThroughWholeLedger() throws IOException {
+        List<Bill> bills = new ArrayList<>();
+        for (int i = 0; i < 1234; i++) {
+            bills.add(new Bill(0, i % 2 == 0 ? "餐饮" : "交通", 1 + i % 50, 0, null,
+                    String.format("2024-%02d-%02d", 1 + i % 12, 1 + i % 28), i));
+        }
+        mPhone.insertBills(bills);
+        // 首次同步推送全表，删除过的账单不推墓碑
+        mPhone.deleteBill(mPhone.queryAllBill().get(0).getId());
+
+        assertEquals(1233, sync(mPhone).getPushed());
+        assertEquals(1233, sync(mTablet).getPulled());
+        assertEquals(snapshot(mPhone), snapshot(mTablet));
+    }
+
+    private BillSyncEngine.SyncResult sync(BillDbHelper device) throws IOException {
+        return new BillSyncEngine(device, mServer).sync();
+    }
+
+    private static Bill findByType(List<Bill> bills, String type) {
+        for (Bill bill : bills) {
+            if (type.equals(bill.getType())) {
+                return bill;
+            }
+        }
+        throw new AssertionError("没有分类为" + type + "的账单");
+    }
+
+    /**
+     * 按 sync_id 排序的账本内容，不含本地编号
+     */
+    private static List<String> snapshot(BillDbHelper device) {
+        List<String> rows = new ArrayList<>();
+        try (Cursor cursor = device.openBackupCursor()) {
+            while (cursor.moveToNext()) {
+                rows.add(cursor.getString(7) + "|" + cursor.getLong(8) + "|" + cursor.getString(1) + "|" +
+                        cursor.getInt(2) + "|" + cursor.getString(3) + "|" + cursor.getDouble(4) + "|" +
+                        cursor.getString(5) + "|" + cursor.getLong(6));
+            }
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 组合查询编译测试
+ */
+public class BillQueryCompilerTest {
+    // 8个可选条件的全部组合
+    private static final int SHAPE_COUNT = 1 << 8;
+
+    @Test
+    public void everyShape_bindsOneArgPerPlaceholder() {
+        BillQueryCompiler compiler = new BillQueryCompiler();
+        Set<String> sqls = new HashSet<>();
+        for (int mask = 0; mask < SHAPE_COUNT; mask++) {
+            BillQueryCompiler.CompiledQuery query = compiler.compile(shape(mask));
+            assertEquals(query.getSql(), countPlaceholders(query.getSql()), query.getArgs().length);
+            sqls.add(query.getSql());
+        }
+        assertEquals(SHAPE_COUNT, sqls.size());
+    }
+
+    @Test
+    public void sameShape_reusesSqlText() {
+        BillQueryCompiler compiler = new BillQueryCompiler();
+        BillQueryCompiler.CompiledQuery march = compiler.compile(new BillFilter.Builder()
+                .dateBetween("2024-03-01", "2024-03-31").billType(0).limit(20).build());
+        BillQueryCompiler.CompiledQuery april = compiler.compile(new BillFilter.Builder()
+                .dateBetween("2024-04-01", "2024-04-30").billType(1).limit(50).build());
+        assertSame(march.getSql(), april.getSql());
+        assertArrayEquals(new String[]{"2024-04-01", "2024-04-30", "1", "50"}, april.getArgs());
+        assertEquals(1, compiler.cachedPlanCount());
+    }
+
+    @Test
+    public void categories_arePaddedToPowerOfTwo() {
+        BillQueryCompiler compiler = new BillQueryCompiler();
+        BillFilter three = new BillFilter.Builder().categories("餐饮", "交通", "购物").build();
+        BillFilter four = new BillFilter.Builder().categories("餐饮", "交通", "购物", "娱乐").build();
+        BillFilter five = new BillFilter.Builder().categories("餐饮", "交通", "购物", "娱乐", "住房").build();
+        assertEquals(compiler.shapeOf(three), compiler.shapeOf(four));
+        assertNotEquals(compiler.shapeOf(four), compiler.shapeOf(five));
+        assertArrayEquals(new String[]{"餐饮", "交通", "购物", "购物"}, compiler.compile(three).getArgs());
+    }
+
+    @Test
+    public void remarkKeyword_matchesRemarkColumnOnly() {
+        BillQueryCompiler compiler = new BillQueryCompiler();
+        BillQueryCompiler.CompiledQuery query = compiler.compile(new BillFilter.Builder()
+                .remarkContains("KFC 早餐").build());
+        assertTrue(query.getSql().contains("MATCH ?"));
+        assertArrayEquals(new String[]{"remark:kfc* remark:\"早 餐\""}, query.getArgs());
+
+        // 空白关键字不加条件
+        BillQueryCompiler.CompiledQuery blank = compiler.compile(new BillFilter.Builder()
+                .remarkContains("  ").build());
+        assertFalse(blank.getSql().contains("WHERE"));
+        assertEquals(0, blank.getArgs().length);
+    }
+
+    @Test
+    public void punctuationOnlyKeyword_fallsBackToLike() {
+        BillQueryCompiler compiler = new BillQueryCompiler();
+        BillQueryCompiler.CompiledQuery comma = compiler.compile(new BillFilter.Builder()
+                .remarkContains(" ，").billType(0).build());
+        assertFalse(comma.getSql().contains("MATCH"));
+        assertTrue(comma.getSql().contains("remark LIKE ? ESCAPE '\\'"));
+        assertArrayEquals(new String[]{"0", "%，%"}, comma.getArgs());
+
+        // 通配符按原文匹配
+        BillQueryCompiler.CompiledQuery percent = compiler.compile(new BillFilter.Builder()
+                .remarkContains("%_\\").billType(1).build());
+        assertSame(comma.getSql(), percent.getSql());
+        assertArrayEquals(new String[]{"1", "%\\%\\_\\\\%"}, percent.getArgs());
+        assertNotEquals(compiler.shapeOf(new BillFilter.Builder().remarkContains("，").build()),
+                compiler.shapeOf(new BillFilter.Builder().remarkContains("外卖").build()));
+    }
+
+    @Test
+    public void keyset_continuesAfterLastBill() {
+        Bill last = new Bill();
+        last.setId(42);
+        last.setDate("2024-03-15");
+        last.setCreateTime(1700000000000L);
+        BillFilter first = new BillFilter.Builder().billType(0).limit(20).build();
+        BillQueryCompiler.CompiledQuery next = new BillQueryCompiler().compile(first.nextPage(last));
+        assertTrue(next.getSql().contains("date <= ?"));
+        assertArrayEquals(new String[]{"0", "2024-03-15", "2024-03-15", "2024-03-15",
+                "1700000000000", "1700000000000", "42", "20"}, next.getArgs());
+    }
+
+    @Test
+    public void planCache_isBounded() {
+        BillQueryCompiler compiler = new BillQueryCompiler();
+        for (int mask = 0; mask < SHAPE_COUNT; mask++) {
+            compiler.compile(shape(mask));
+        }
+        assertTrue(compiler.cachedPlanCount() <= 32);
+    }
+
+    /**
+     * 按位组合查询条件，每一位对应一个可选条件
+     */
+    private static BillFilter shape(int mask) {
+        BillFilter.Builder builder = new BillFilter.Builder();
+        builder.dateBetween((mask & 1) != 0 ? "2024-01-01" : null, (mask & 2) != 0 ? "2024-12-31" : null);
+        if ((mask & 4) != 0) {
+            builder.billType(0);
+        }
+        if ((mask & 8) != 0) {
+            builder.categories("餐饮", "交通", "购物");
+        }
+        if ((mask & 16) != 0) {
+            builder.amountBetween(1.0, 100.0);
+        }
+        if ((mask & 32) != 0) {
+            builder.remarkContains("外卖");
+        }
+        if ((mask & 64) != 0) {
+            Bill last = new Bill();
+            last.setId(5);
+            last.setDate("2024-03-01");
+            last.setCreateTime(100);
+            builder.after(last).limit(50);
+        }
+        if ((mask & 128) != 0) {
+            builder.sort(BillFilter.SORT_OLDEST_FIRST);
+        }
+        return builder.build();
+    }
+
+    private static int countPlaceholders(String sql) {
+        int count = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.personalaccounting.benchmark;
+
+import com.example.personalaccounting.model.CategoryStatistics;
+import com.example.personalaccounting.model.StatisticsEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分类统计的占比计算，每次查询分类统计后都会执行一次
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CategoryPercentageBenchmark {
+
+    @Param({"8", "64"})
+    public int categories;
+
+    private List<CategoryStatistics> mCategoryList;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+        mCategoryList = new ArrayList<>(categories);
+        for (int i = 0; i < categories; i++) {
+            mCategoryList.add(new CategoryStatistics("分类" + i, random.nextInt(1000000) / 100.0, 1 + random.nextInt(500), 0));
+        }
+    }
+
+    @Benchmark
+    public List<CategoryStatistics> fillPercentages() {
+        StatisticsEngine.fillPercentages(mCategoryList);
+        return mCategoryList;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.personalaccounting.benchmark;
+
+import com.example.personalaccounting.model.DateRange;
+import com.example.personalaccounting.model.EpochDays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日期解析、格式化和统计区间计算
+ * <p>
+ * simpleDateFormat* 是对照组，按每次调用新建 SimpleDateFormat 的旧写法测量。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateBenchmark {
+
+    // 不用final，避免JIT把整个调用常量折叠掉
+    private String mDate = "2024-02-29";
+    private long mEpochDay = EpochDays.parse(mDate);
+    private DateRange mWeek = DateRange.weekOf(mEpochDay, Calendar.MONDAY);
+
+    @Benchmark
+    public long epochDaysParse() {
+        return EpochDays.parse(mDate);
+    }
+
+    @Benchmark
+    public String epochDaysFormat() {
+        return EpochDays.format(mEpochDay);
+    }
+
+    @Benchmark
+    public Date simpleDateFormatParse() throws ParseException {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).parse(mDate);
+    }
+
+    @Benchmark
+    public String simpleDateFormatFormat() {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date(mEpochDay * 86400000L));
+    }
+
+    /**
+     * 统计页切换到上一周时的区间计算和查询参数
+     */
+    @Benchmark
+    public String previousWeekRange() {
+        DateRange previous = mWeek.previous();
+        return previous.getStartDate() + previous.getEndDate();
+    }
+
+    @Benchmark
+    public String monthRangeLabel() {
+        return DateRange.of(DateRange.DIMENSION_MONTH, mEpochDay, Calendar.MONDAY).getLabel();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.personalaccounting.benchmark;
+
+import com.example.personalaccounting.model.Bill;
+import com.example.personalaccounting.model.BillDiff;
+import com.example.personalaccounting.model.BillListItem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列表刷新时 DiffUtil 回调的开销
+ * <p>
+ * 新旧列表内容相同但对象不同（重新查询的结果），DiffUtil 在这种最常见的情况下对每一项
+ * 各调用一次 areItemsTheSame 和 areContentsTheSame，这里按同样的次数调用。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiffBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private List<Bill> mOldBills;
+    private List<Bill> mNewBills;
+    private List<BillListItem> mOldItems;
+    private List<BillListItem> mNewItems;
+
+    @Setup
+    public void setUp() {
+        mOldBills = Ledgers.year(size, 2024, 42L);
+        mNewBills = Ledgers.year(size, 2024, 42L);
+        mOldItems = listItems(mOldBills);
+        mNewItems = listItems(mNewBills);
+    }
+
+    @Benchmark
+    public int recentBillCallbacks() {
+        int same = 0;
+        for (int i = 0; i < mOldBills.size(); i++) {
+            Bill oldBill = mOldBills.get(i);
+            Bill newBill = mNewBills.get(i);
+            if (BillDiff.areBillsTheSame(oldBill, newBill) && BillDiff.areBillContentsTheSame(oldBill, newBill)) {
+                same++;
+            }
+        }
+        return same;
+    }
+
+    @Benchmark
+    public int billListCallbacks() {
+        int same = 0;
+        for (int i = 0; i < mOldItems.size(); i++) {
+            BillListItem oldItem = mOldItems.get(i);
+            BillListItem newItem = mNewItems.get(i);
+            if (BillDiff.areItemsTheSame(oldItem, newItem) && BillDiff.areContentsTheSame(oldItem, newItem)) {
+                same++;
+            }
+        }
+        return same;
+    }
+
+    /**
+     * 按日期分组，每组前插入带小计的分组头，与账单列表一致
+     */
+    private static List<BillListItem> listItems(List<Bill> bills) {
+        List<BillListItem> items = new ArrayList<>(bills.size() + 366);
+        int start = 0;
+        while (start < bills.size()) {
+            String date = bills.get(start).getDate();
+            int end = start;
+            double income = 0;
+            double expense = 0;
+            while (end < bills.size() && bills.get(end).getDate().equals(date)) {
+                if (bills.get(end).getBillType() == 1) {
+                    income += bills.get(end).getAmount();
+                } else {
+                    expense += bills.get(end).getAmount();
+                }
+                end++;
+            }
+            items.add(BillListItem.header(date, income, expense));
+            for (int i = start; i < end; i++) {
+                items.add(BillListItem.bill(bills.get(i)));
+            }
+            start = end;
+        }
+        return items;
+    }
+}
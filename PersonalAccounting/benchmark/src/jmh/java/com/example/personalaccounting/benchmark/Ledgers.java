@@ -0,0 +1,24 @@
+package com.example.personalaccounting.benchmark;
+
+import com.example.personalaccounting.model.Bill;
+import com.example.personalaccounting.model.LedgerGenerator;
+
+import java.util.List;
+
+/**
+ * 基准用的合成账本，同一个种子每次生成相同的数据
+ */
+final class Ledgers {
+
+    private Ledgers() {
+    }
+
+    /**
+     * 生成一整年的账本，分类占比和收支比例用生成器的默认值
+     * @param size 账单条数
+     * @param year 账单所在年份
+     */
+    static List<Bill> year(int size, int year, long seed) {
+        return new LedgerGenerator.Builder().seed(seed).years(year, 1).billCount(size).build().nextBatch(size);
+    }
+}
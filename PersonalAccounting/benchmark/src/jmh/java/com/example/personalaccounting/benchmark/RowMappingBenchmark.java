@@ -0,0 +1,93 @@
+package com.example.personalaccounting.benchmark;
+
+import com.example.personalaccounting.model.BackupBlock;
+import com.example.personalaccounting.model.Bill;
+import com.example.personalaccounting.model.BillBackupReader;
+import com.example.personalaccounting.model.BillBackupWriter;
+import com.example.personalaccounting.model.CsvRecordReader;
+import com.example.personalaccounting.model.CsvWriter;
+import com.example.personalaccounting.model.EpochDays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把一行数据映射成 Bill 的开销
+ * <p>
+ * 数据库游标的映射循环依赖 android.database，不能在 JVM 上运行；这里测的是同样逐行
+ * 建对象的两条纯 Java 路径：备份文件按块解码和 CSV 导入的逐条解析。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RowMappingBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private byte[] mBackup;
+    private String mCsv;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Bill> bills = Ledgers.year(size, 2024, 42L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BillBackupWriter writer = new BillBackupWriter(out)) {
+            for (Bill bill : bills) {
+                writer.write(bill);
+            }
+        }
+        mBackup = out.toByteArray();
+
+        StringWriter csv = new StringWriter();
+        CsvWriter writer = new CsvWriter(csv);
+        for (Bill bill : bills) {
+            writer.field(bill.getDate()).field(bill.getBillType() == 1 ? "收入" : "支出").field(bill.getType())
+                    .amount(bill.getAmount()).field(bill.getRemark()).endRow();
+        }
+        writer.flush();
+        mCsv = csv.toString();
+    }
+
+    @Benchmark
+    public List<Bill> decodeBackup() throws IOException {
+        List<Bill> bills = new ArrayList<>(size);
+        BillBackupReader reader = new BillBackupReader(ByteBuffer.wrap(mBackup));
+        BackupBlock block = BillBackupReader.newBlock();
+        while (reader.next(block)) {
+            for (int i = 0; i < block.size(); i++) {
+                bills.add(new Bill((int) block.getId(i), block.getCategory(i), block.getCents(i) / 100.0,
+                        block.getBillType(i), block.getRemark(i), EpochDays.format(block.getEpochDay(i)),
+                        block.getCreateTime(i)));
+            }
+        }
+        return bills;
+    }
+
+    @Benchmark
+    public List<Bill> parseCsv() throws IOException {
+        List<Bill> bills = new ArrayList<>(size);
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(mCsv));
+        while (reader.next()) {
+            bills.add(new Bill(0, reader.field(2), reader.parseCents(3) / 100.0, "收入".equals(reader.field(1)) ? 1 : 0,
+                    reader.field(4), reader.field(0), 0));
+        }
+        return bills;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.personalaccounting.benchmark;
+
+import com.example.personalaccounting.model.Bill;
+import com.example.personalaccounting.model.StatisticsEngine;
+import com.example.personalaccounting.model.StatisticsStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 年度收支汇总，对应 BillRepository.calculateYearStatistics 去掉数据库读取后的部分
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatisticsBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private List<Bill> mBills;
+    private StatisticsEngine mEngine;
+
+    @Setup
+    public void setUp() {
+        mBills = Ledgers.year(size, 2024, 42L);
+        // 存储直接返回内存中的账单，只测汇总本身
+        mEngine = new StatisticsEngine(new StatisticsStore() {
+            @Override
+            public List<Bill> queryTodayBill(String todayDate) {
+                return mBills;
+            }
+
+            @Override
+            public List<Bill> queryWeekBill(String startDate, String endDate) {
+                return mBills;
+            }
+
+            @Override
+            public List<Bill> queryMonthBill(String month) {
+                return mBills;
+            }
+
+            @Override
+            public List<Bill> queryYearBill(String year) {
+                return mBills;
+            }
+        });
+    }
+
+    @Benchmark
+    public StatisticsEngine.YearStatistics yearStatistics() {
+        return mEngine.calculateYearStatistics("2024");
+    }
+
+    @Benchmark
+    public double[] sumByBillType() {
+        return StatisticsEngine.sumByBillType(mBills);
+    }
+}
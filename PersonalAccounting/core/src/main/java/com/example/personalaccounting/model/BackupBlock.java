@@ -0,0 +1,98 @@
+package com.example.personalaccounting.model;
+
+/**
+ * 备份文件中的一个数据块
+ * <p>
+ * 按列保存一批账单，字段都是基本类型数组；恢复时直接从这些数组绑定插入语句，
+ * 不经过 {@link Bill} 对象。同一个实例在读取下一块时复用。
+ * </p>
+ */
+public class BackupBlock {
+    int size;
+    long[] ids;
+    // 增量备份中的删除记录，只有ids有效
+    boolean[] deleted;
+    long[] epochDays;
+    int[] billTypes;
+    int[] categoryIds;
+    long[] cents;
+    String[] remarks;
+    long[] createTimes;
+    String[] syncIds;
+    long[] versions;
+    // 分类字典，跨数据块累积
+    String[] dictionary;
+
+    BackupBlock(int capacity) {
+        ensureCapacity(capacity);
+    }
+
+    void ensureCapacity(int capacity) {
+        if (epochDays != null && epochDays.length >= capacity) {
+            return;
+        }
+        ids = new long[capacity];
+        deleted = new boolean[capacity];
+        epochDays = new long[capacity];
+        billTypes = new int[capacity];
+        categoryIds = new int[capacity];
+        cents = new long[capacity];
+        remarks = new String[capacity];
+        createTimes = new long[capacity];
+        syncIds = new String[capacity];
+        versions = new long[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 账单编号，版本1的备份没有编号，返回0
+     */
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public boolean isDeleted(int row) {
+        return deleted[row];
+    }
+
+    public long getEpochDay(int row) {
+        return epochDays[row];
+    }
+
+    public int getBillType(int row) {
+        return billTypes[row];
+    }
+
+    public String getCategory(int row) {
+        return dictionary[categoryIds[row]];
+    }
+
+    public long getCents(int row) {
+        return cents[row];
+    }
+
+    public String getRemark(int row) {
+        return remarks[row];
+    }
+
+    public long getCreateTime(int row) {
+        return createTimes[row];
+    }
+
+    /**
+     * 同步编号，版本3之前的备份没有，返回null
+     */
+    public String getSyncId(int row) {
+        return syncIds[row];
+    }
+
+    /**
+     * 同步版本号，版本3之前的备份没有，返回1
+     */
+    public long getVersion(int row) {
+        return versions[row];
+    }
+}
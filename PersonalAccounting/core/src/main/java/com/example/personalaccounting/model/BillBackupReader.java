@@ -0,0 +1,302 @@
+package com.example.personalaccounting.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * 二进制备份读取器
+ * <p>
+ * 格式见 {@link BillBackupWriter}，兼容版本1到版本3。文件通过 {@link FileChannel#map} 映射后按块解码，
+ * 每块先整体拷贝到可复用的数组再校验CRC32并按列解码到 {@link BackupBlock}，
+ * 校验失败或结构不符时抛出IOException，不会写入半截数据。
+ * </p>
+ */
+public class BillBackupReader {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private final ByteBuffer mBuffer;
+    private final CRC32 mCrc = new CRC32();
+    private byte[] mPayload = new byte[64 * 1024];
+    private String[] mDictionary = new String[16];
+    private int mDictionarySize;
+    private final int mVersion;
+    private final int mKind;
+    private final long mChainId;
+    private final long mFromSeq;
+    private final long mToSeq;
+    private long mRowsRead;
+    private boolean mFinished;
+    // 解码位置
+    private int mPos;
+
+    public BillBackupReader(ByteBuffer buffer) throws IOException {
+        mBuffer = buffer;
+        if (buffer.remaining() < BillBackupWriter.MAGIC.length + 2) {
+            throw new IOException("备份文件过短");
+        }
+        for (byte b : BillBackupWriter.MAGIC) {
+            if (buffer.get() != b) {
+                throw new IOException("不是账单备份文件");
+            }
+        }
+        mVersion = buffer.get() & 0xFF;
+        if (mVersion != BillBackupWriter.VERSION && mVersion != BillBackupWriter.VERSION_1
+                && mVersion != BillBackupWriter.VERSION_2) {
+            throw new IOException("不支持的备份版本：" + mVersion);
+        }
+        mKind = buffer.get();
+        if (mVersion == BillBackupWriter.VERSION_1) {
+            mChainId = 0;
+            mFromSeq = 0;
+            mToSeq = 0;
+        } else {
+            if (buffer.remaining() < 24) {
+                throw new IOException("备份文件过短");
+            }
+            mChainId = buffer.getLong();
+            mFromSeq = buffer.getLong();
+            mToSeq = buffer.getLong();
+        }
+        if (mKind != BillBackupWriter.KIND_FULL && mKind != BillBackupWriter.KIND_INCREMENTAL) {
+            throw new IOException("未知的备份类型：" + mKind);
+        }
+    }
+
+    /**
+     * 以只读方式映射整个文件
+     * @param channel 文件通道
+     */
+    public static BillBackupReader map(FileChannel channel) throws IOException {
+        return new BillBackupReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+
+    public static BackupBlock newBlock() {
+        return new BackupBlock(BillBackupWriter.BLOCK_ROWS);
+    }
+
+    /**
+     * 读取下一个数据块
+     * @param block 复用的数据块
+     * @return 读到结束块时返回false
+     */
+    public boolean next(BackupBlock block) throws IOException {
+        if (mFinished) {
+            return false;
+        }
+        if (mBuffer.remaining() < 4) {
+            throw new IOException("备份文件不完整");
+        }
+        int length = mBuffer.getInt();
+        if (length == 0) {
+            if (mBuffer.remaining() < 8) {
+                throw new IOException("备份文件不完整");
+            }
+            long totalRows = mBuffer.getLong();
+            if (totalRows != mRowsRead) {
+                throw new IOException("备份行数不一致：" + mRowsRead + "/" + totalRows);
+            }
+            mFinished = true;
+            return false;
+        }
+        if (length < 0 || mBuffer.remaining() < 4 + length) {
+            throw new IOException("数据块长度无效");
+        }
+        int expectedCrc = mBuffer.getInt();
+        if (mPayload.length < length) {
+            mPayload = new byte[Math.max(length, mPayload.length * 2)];
+        }
+        mBuffer.get(mPayload, 0, length);
+        mCrc.reset();
+        mCrc.update(mPayload, 0, length);
+        if ((int) mCrc.getValue() != expectedCrc) {
+            throw new IOException("数据块校验失败");
+        }
+
+        mPos = 0;
+        try {
+            decode(block, length);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("数据块结构无效");
+        }
+        if (mPos != length) {
+            throw new IOException("数据块结构无效");
+        }
+        mRowsRead += block.size;
+        return true;
+    }
+
+    public long getRowsRead() {
+        return mRowsRead;
+    }
+
+    /**
+     * @return {@link BillBackupWriter#KIND_FULL} 或 {@link BillBackupWriter#KIND_INCREMENTAL}
+     */
+    public int getKind() {
+        return mKind;
+    }
+
+    public boolean isIncremental() {
+        return mKind == BillBackupWriter.KIND_INCREMENTAL;
+    }
+
+    public long getChainId() {
+        return mChainId;
+    }
+
+    public long getFromSeq() {
+        return mFromSeq;
+    }
+
+    public long getToSeq() {
+        return mToSeq;
+    }
+
+    private void decode(BackupBlock block, int length) throws IOException {
+        int n = (int) readVarint();
+        if (n <= 0 || n > length) {
+            throw new IOException("数据块行数无效");
+        }
+        block.ensureCapacity(n);
+        block.size = n;
+
+        int added = (int) readVarint();
+        if (mDictionarySize + added > mDictionary.length) {
+            mDictionary = Arrays.copyOf(mDictionary, Math.max(mDictionary.length * 2, mDictionarySize + added));
+        }
+        for (int i = 0; i < added; i++) {
+            mDictionary[mDictionarySize++] = readString((int) readVarint());
+        }
+        block.dictionary = mDictionary;
+
+        long previous = 0;
+        if (mVersion == BillBackupWriter.VERSION_1) {
+            Arrays.fill(block.ids, 0, n, 0L);
+            Arrays.fill(block.deleted, 0, n, false);
+        } else {
+            for (int i = 0; i < n; i++) {
+                previous += readZigzag();
+                block.ids[i] = previous;
+            }
+            for (int i = 0; i < n; i += 8) {
+                int deletedBits = mPayload[mPos++];
+                for (int j = 0; j < 8 && i + j < n; j++) {
+                    block.deleted[i + j] = ((deletedBits >>> j) & 1) != 0;
+                }
+            }
+        }
+
+        // 以下各列只包含未删除的行
+        previous = 0;
+        for (int i = 0; i < n; i++) {
+            if (block.deleted[i]) {
+                continue;
+            }
+            previous += readZigzag();
+            block.epochDays[i] = previous;
+        }
+        int bits = 0;
+        int bit = 0;
+        for (int i = 0; i < n; i++) {
+            if (block.deleted[i]) {
+                continue;
+            }
+            if (bit % 8 == 0) {
+                bits = mPayload[mPos++];
+            }
+            block.billTypes[i] = (bits >>> (bit++ % 8)) & 1;
+        }
+        for (int i = 0; i < n; i++) {
+            if (block.deleted[i]) {
+                continue;
+            }
+            int id = (int) readVarint();
+            if (id >= mDictionarySize) {
+                throw new IOException("分类编号无效");
+            }
+            block.categoryIds[i] = id;
+        }
+        for (int i = 0; i < n; i++) {
+            if (!block.deleted[i]) {
+                block.cents[i] = readZigzag();
+            }
+        }
+        previous = 0;
+        for (int i = 0; i < n; i++) {
+            if (block.deleted[i]) {
+                continue;
+            }
+            previous += readZigzag();
+            block.createTimes[i] = previous;
+        }
+        for (int i = 0; i < n; i++) {
+            if (block.deleted[i]) {
+                block.remarks[i] = null;
+                continue;
+            }
+            block.remarks[i] = readNullableString();
+        }
+        if (mVersion < BillBackupWriter.VERSION) {
+            Arrays.fill(block.syncIds, 0, n, null);
+            Arrays.fill(block.versions, 0, n, 1L);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            block.syncIds[i] = block.deleted[i] ? null : readSyncId();
+        }
+        for (int i = 0; i < n; i++) {
+            if (!block.deleted[i]) {
+                block.versions[i] = readVarint();
+            }
+        }
+    }
+
+    private long readVarint() {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = mPayload[mPos++];
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+
+    private long readZigzag() {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private String readNullableString() {
+        long length = readVarint();
+        return length == 0 ? null : readString((int) (length - 1));
+    }
+
+    private String readSyncId() {
+        long tag = readVarint();
+        if (tag == 0) {
+            return null;
+        }
+        if (tag > 1) {
+            return readString((int) (tag - 2));
+        }
+        char[] hex = new char[BillBackupWriter.SYNC_ID_BYTES * 2];
+        for (int i = 0; i < BillBackupWriter.SYNC_ID_BYTES; i++) {
+            int b = mPayload[mPos++] & 0xFF;
+            hex[2 * i] = HEX_DIGITS[b >>> 4];
+            hex[2 * i + 1] = HEX_DIGITS[b & 0x0F];
+        }
+        return new String(hex);
+    }
+
+    private String readString(int length) {
+        String value = new String(mPayload, mPos, length, StandardCharsets.UTF_8);
+        mPos += length;
+        return value;
+    }
+}
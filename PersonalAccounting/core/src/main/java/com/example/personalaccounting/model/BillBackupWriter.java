@@ -0,0 +1,374 @@
+package com.example.personalaccounting.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 二进制备份写入器
+ * <p>
+ * 文件格式（版本3）：
+ * <pre>
+ * 文件头   "PABK" + 版本号(1字节) + 类型(1字节，0=完整，1=增量)
+ *          + 备份链编号(8字节) + 起始变更序号(8字节) + 截止变更序号(8字节)
+ * 数据块   载荷长度(4字节) + CRC32(4字节) + 载荷
+ * 结束块   载荷长度=0(4字节) + 总行数(8字节)
+ * </pre>
+ * 每个载荷按列存放最多 {@link #BLOCK_ROWS} 条账单：行数、本块新增的分类字典项、
+ * 账单编号（差值）、删除位图，以及未删除行的日期（首个绝对值，其余为差值）、收支位图、
+ * 分类编号、金额（分）、创建时间（差值）、备注、同步编号（32位十六进制的编号按16字节存放）、版本号。
+ * 整数一律为zigzag变长编码；完整备份按日期和创建时间升序写入，差值大多只占1字节。
+ * 版本1没有编号列、删除位图和链信息，版本2没有同步编号和版本号，读取器仍然兼容。
+ * </p>
+ * <p>
+ * 增量备份只包含起始序号之后变更过的账单：仍存在的写当前内容，已删除的只写编号。
+ * 恢复时先导入同一条链上的完整备份，再按序号依次重放增量。
+ * </p>
+ */
+public class BillBackupWriter implements Closeable {
+    static final byte[] MAGIC = {'P', 'A', 'B', 'K'};
+    static final int VERSION = 3;
+    static final int VERSION_1 = 1;
+    static final int VERSION_2 = 2;
+    public static final int KIND_FULL = 0;
+    public static final int KIND_INCREMENTAL = 1;
+    // 每个数据块的行数
+    static final int BLOCK_ROWS = 4096;
+    // 数据库生成的同步编号 lower(hex(randomblob(16))) 的字节数
+    static final int SYNC_ID_BYTES = 16;
+
+    private final OutputStream mOut;
+    private final BackupBlock mBlock = new BackupBlock(BLOCK_ROWS);
+    private final Map<String, Integer> mDictionary = new HashMap<>();
+    private final List<String> mPendingDictionary = new ArrayList<>();
+    private final ByteSink mPayload = new ByteSink(64 * 1024);
+    private final byte[] mHeader = new byte[8];
+    private final CRC32 mCrc = new CRC32();
+    private long mTotalRows;
+    private boolean mFinished;
+
+    /**
+     * 不属于任何备份链的完整备份
+     * @param out 输出流
+     */
+    public BillBackupWriter(OutputStream out) throws IOException {
+        this(out, KIND_FULL, 0, 0, 0);
+    }
+
+    /**
+     * @param out 输出流
+     * @param kind {@link #KIND_FULL} 或 {@link #KIND_INCREMENTAL}
+     * @param chainId 备份链编号，同一条链上的增量只能叠加到该链的完整备份
+     * @param fromSeq 起始变更序号（不含），完整备份为0
+     * @param toSeq 截止变更序号（含）
+     */
+    public BillBackupWriter(OutputStream out, int kind, long chainId, long fromSeq, long toSeq) throws IOException {
+        mOut = out;
+        mOut.write(MAGIC);
+        mOut.write(VERSION);
+        mOut.write(kind);
+        writeLong(chainId);
+        writeLong(fromSeq);
+        writeLong(toSeq);
+    }
+
+    /**
+     * 写入一条账单
+     * @param id 账单编号
+     * @param epochDay 账单日期（纪元日）
+     * @param billType 0=支出，1=收入
+     * @param category 分类
+     * @param cents 金额（分）
+     * @param remark 备注，可为null
+     * @param createTime 创建时间戳
+     * @param syncId 同步编号，可为null
+     * @param version 同步版本号
+     */
+    public void write(long id, long epochDay, int billType, String category, long cents, String remark,
+                      long createTime, String syncId, long version) throws IOException {
+        Integer categoryId = mDictionary.get(category);
+        if (categoryId == null) {
+            categoryId = mDictionary.size();
+            mDictionary.put(category, categoryId);
+            mPendingDictionary.add(category);
+        }
+        int row = mBlock.size++;
+        mBlock.ids[row] = id;
+        mBlock.deleted[row] = false;
+        mBlock.epochDays[row] = epochDay;
+        mBlock.billTypes[row] = billType;
+        mBlock.categoryIds[row] = categoryId;
+        mBlock.cents[row] = cents;
+        mBlock.remarks[row] = remark;
+        mBlock.createTimes[row] = createTime;
+        mBlock.syncIds[row] = syncId;
+        mBlock.versions[row] = version;
+        if (mBlock.size == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * 写入一条尚未同步过的账单，恢复时分配新的同步编号
+     */
+    public void write(Bill bill) throws IOException {
+        write(bill.getId(), EpochDays.parse(bill.getDate()), bill.getBillType(), bill.getType(),
+                Math.round(bill.getAmount() * 100), bill.getRemark(), bill.getCreateTime(), null, 1);
+    }
+
+    /**
+     * 写入一条删除记录，仅用于增量备份
+     * @param id 已删除的账单编号
+     */
+    public void writeDelete(long id) throws IOException {
+        int row = mBlock.size++;
+        mBlock.ids[row] = id;
+        mBlock.deleted[row] = true;
+        if (mBlock.size == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * 写出剩余数据和结束块
+     * @return 写入的总行数
+     */
+    public long finish() throws IOException {
+        if (!mFinished) {
+            flushBlock();
+            writeInt(mHeader, 0, 0);
+            mOut.write(mHeader, 0, 4);
+            writeLong(mTotalRows);
+            mOut.flush();
+            mFinished = true;
+        }
+        return mTotalRows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            mOut.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        int n = mBlock.size;
+        if (n == 0) {
+            return;
+        }
+        ByteSink sink = mPayload;
+        sink.reset();
+        sink.writeVarint(n);
+
+        sink.writeVarint(mPendingDictionary.size());
+        for (String entry : mPendingDictionary) {
+            sink.writeString(entry);
+        }
+        mPendingDictionary.clear();
+
+        long previous = 0;
+        for (int i = 0; i < n; i++) {
+            sink.writeZigzag(mBlock.ids[i] - previous);
+            previous = mBlock.ids[i];
+        }
+        for (int i = 0; i < n; i += 8) {
+            int bits = 0;
+            for (int j = 0; j < 8 && i + j < n; j++) {
+                if (mBlock.deleted[i + j]) {
+                    bits |= 1 << j;
+                }
+            }
+            sink.writeByte(bits);
+        }
+
+        // 以下各列只包含未删除的行
+        int live = 0;
+        previous = 0;
+        for (int i = 0; i < n; i++) {
+            if (mBlock.deleted[i]) {
+                continue;
+            }
+            sink.writeZigzag(mBlock.epochDays[i] - previous);
+            previous = mBlock.epochDays[i];
+            mBlock.billTypes[live++] = mBlock.billTypes[i];
+        }
+        for (int i = 0; i < live; i += 8) {
+            int bits = 0;
+            for (int j = 0; j < 8 && i + j < live; j++) {
+                if (mBlock.billTypes[i + j] == 1) {
+                    bits |= 1 << j;
+                }
+            }
+            sink.writeByte(bits);
+        }
+        for (int i = 0; i < n; i++) {
+            if (!mBlock.deleted[i]) {
+                sink.writeVarint(mBlock.categoryIds[i]);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (!mBlock.deleted[i]) {
+                sink.writeZigzag(mBlock.cents[i]);
+            }
+        }
+        previous = 0;
+        for (int i = 0; i < n; i++) {
+            if (mBlock.deleted[i]) {
+                continue;
+            }
+            sink.writeZigzag(mBlock.createTimes[i] - previous);
+            previous = mBlock.createTimes[i];
+        }
+        for (int i = 0; i < n; i++) {
+            if (mBlock.deleted[i]) {
+                continue;
+            }
+            sink.writeNullableString(mBlock.remarks[i]);
+            mBlock.remarks[i] = null;
+        }
+        for (int i = 0; i < n; i++) {
+            if (mBlock.deleted[i]) {
+                continue;
+            }
+            sink.writeSyncId(mBlock.syncIds[i]);
+            mBlock.syncIds[i] = null;
+        }
+        for (int i = 0; i < n; i++) {
+            if (!mBlock.deleted[i]) {
+                sink.writeVarint(mBlock.versions[i]);
+            }
+        }
+
+        mCrc.reset();
+        mCrc.update(sink.buffer, 0, sink.length);
+        writeInt(mHeader, 0, sink.length);
+        writeInt(mHeader, 4, (int) mCrc.getValue());
+        mOut.write(mHeader, 0, 8);
+        mOut.write(sink.buffer, 0, sink.length);
+        mTotalRows += n;
+        mBlock.size = 0;
+    }
+
+    private void writeLong(long value) throws IOException {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            mOut.write((int) (value >>> shift));
+        }
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    /**
+     * 可增长的字节缓冲，提供变长整数编码
+     */
+    static final class ByteSink {
+        byte[] buffer;
+        int length;
+
+        ByteSink(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[length++] = (byte) value;
+        }
+
+        void write(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void writeZigzag(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            write(bytes);
+        }
+
+        /**
+         * 长度加1后写出，0表示null
+         */
+        void writeNullableString(String value) {
+            if (value == null) {
+                writeVarint(0);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length + 1L);
+                write(bytes);
+            }
+        }
+
+        /**
+         * 同步编号：0表示null，1表示随后16字节为32位小写十六进制编号的原始字节，
+         * 其余情况为其他格式的编号，长度加2后按字符串写出
+         */
+        void writeSyncId(String value) {
+            if (value == null) {
+                writeVarint(0);
+            } else if (isPackedSyncId(value)) {
+                writeVarint(1);
+                ensure(SYNC_ID_BYTES);
+                for (int i = 0; i < SYNC_ID_BYTES; i++) {
+                    buffer[length++] = (byte) (Character.digit(value.charAt(2 * i), 16) << 4
+                            | Character.digit(value.charAt(2 * i + 1), 16));
+                }
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length + 2L);
+                write(bytes);
+            }
+        }
+
+        private static boolean isPackedSyncId(String value) {
+            if (value.length() != SYNC_ID_BYTES * 2) {
+                return false;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > buffer.length) {
+                byte[] larger = new byte[Math.max(buffer.length * 2, length + extra)];
+                System.arraycopy(buffer, 0, larger, 0, length);
+                buffer = larger;
+            }
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.personalaccounting.model;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 账单CSV解析
+ * <p>
+ * 支持本应用导出的CSV以及常见银行/记账软件导出的流水：按表头识别日期、金额、收支、分类和备注列，
+ * 没有收支列时按收入/支出金额列或金额正负判断。文件编码按开头内容在UTF-8和GBK之间判断。
+ * 逐条记录流式解析，内存占用与文件大小无关；无法识别的记录跳过，并记下起始行号。
+ * </p>
+ */
+public class BillCsvParser {
+    // 判断文件编码时读取的字节数
+    static final int SNIFF_SIZE = 8 * 1024;
+    // 最多记录的无法识别行号
+    public static final int MAX_INVALID_LINES = 100;
+    // 没有分类列时使用的分类
+    static final String DEFAULT_CATEGORY = "其他";
+
+    private static final String[] DATE_COLUMNS = {"日期", "交易日期", "记账日期", "交易时间", "时间", "date", "transaction date"};
+    private static final String[] AMOUNT_COLUMNS = {"金额", "交易金额", "金额(元)", "金额（元）", "amount"};
+    private static final String[] INCOME_COLUMNS = {"收入金额", "收入", "贷方金额", "credit"};
+    private static final String[] EXPENSE_COLUMNS = {"支出金额", "支出", "借方金额", "debit"};
+    private static final String[] TYPE_COLUMNS = {"收支", "收/支", "收支类型", "type"};
+    private static final String[] CATEGORY_COLUMNS = {"分类", "类别", "交易分类", "category"};
+    private static final String[] REMARK_COLUMNS = {"备注", "摘要", "说明", "交易对方", "商品", "remark", "description", "memo"};
+
+    private final CountingInputStream mCounting;
+    private final Charset mCharset;
+    private final CsvRecordReader mReader;
+    // 空文件时为null
+    private final ColumnMapping mMapping;
+    private final long mBaseTime;
+    private int mInvalid;
+    private final List<Long> mInvalidLines = new ArrayList<>();
+
+    /**
+     * 判断编码并读取表头
+     * @param in 输入流，由调用方关闭
+     * @param baseTime 账单创建时间的基准，第N条记录的创建时间为 baseTime+N，保持文件内的先后顺序
+     * @throws IOException 读取失败或缺少日期、金额列
+     */
+    public BillCsvParser(InputStream in, long baseTime) throws IOException {
+        mCounting = new CountingInputStream(in);
+        BufferedInputStream buffered = new BufferedInputStream(mCounting, SNIFF_SIZE * 2);
+        mCharset = detectCharset(buffered);
+        mReader = new CsvRecordReader(new InputStreamReader(buffered, mCharset));
+        mBaseTime = baseTime;
+        if (!mReader.next()) {
+            mMapping = null;
+            return;
+        }
+        mMapping = ColumnMapping.fromHeader(mReader);
+        if (mMapping.date < 0 || (mMapping.amount < 0 && mMapping.income < 0 && mMapping.expense < 0)) {
+            throw new IOException("缺少日期或金额列");
+        }
+    }
+
+    /**
+     * 读取下一条账单，跳过无法识别的记录
+     * @return 账单，没有更多记录时返回null
+     */
+    public Bill next() throws IOException {
+        if (mMapping == null) {
+            return null;
+        }
+        while (mReader.next()) {
+            Bill bill = toBill(mReader, mMapping, mBaseTime + mReader.recordCount());
+            if (bill != null) {
+                return bill;
+            }
+            mInvalid++;
+            if (mInvalidLines.size() < MAX_INVALID_LINES) {
+                mInvalidLines.add(mReader.lineNumber());
+            }
+        }
+        return null;
+    }
+
+    public Charset getCharset() {
+        return mCharset;
+    }
+
+    /**
+     * 已从输入流读取的字节数，用于进度显示
+     */
+    public long getBytesRead() {
+        return mCounting.count;
+    }
+
+    /**
+     * 无法识别的记录数
+     */
+    public int getInvalidCount() {
+        return mInvalid;
+    }
+
+    /**
+     * 无法识别的记录的起始行号，最多 {@link #MAX_INVALID_LINES} 个
+     */
+    public List<Long> getInvalidLines() {
+        return Collections.unmodifiableList(mInvalidLines);
+    }
+
+    /**
+     * 把当前记录转换为账单
+     * @return 账单，日期或金额无效时返回null
+     */
+    private static Bill toBill(CsvRecordReader reader, ColumnMapping mapping, long createTime) {
+        String date = parseDate(reader, mapping.date);
+        if (date == null) {
+            return null;
+        }
+
+        long cents;
+        int billType;
+        if (mapping.amount >= 0) {
+            cents = reader.parseCents(mapping.amount);
+            if (cents == CsvRecordReader.INVALID_CENTS) {
+                return null;
+            }
+            billType = mapping.type >= 0 ? parseBillType(reader.field(mapping.type), cents) : (cents < 0 ? 0 : 1);
+        } else {
+            long income = reader.parseCents(mapping.income);
+            long expense = reader.parseCents(mapping.expense);
+            if (income != CsvRecordReader.INVALID_CENTS && income != 0) {
+                cents = income;
+                billType = 1;
+            } else if (expense != CsvRecordReader.INVALID_CENTS && expense != 0) {
+                cents = expense;
+                billType = 0;
+            } else {
+                return null;
+            }
+        }
+        cents = Math.abs(cents);
+        if (cents == 0) {
+            return null;
+        }
+
+        String category = mapping.category >= 0 ? reader.field(mapping.category) : "";
+        String remark = mapping.remark >= 0 ? reader.field(mapping.remark) : "";
+        return new Bill(0, category.isEmpty() ? DEFAULT_CATEGORY : category, cents / 100.0, billType,
+                remark.isEmpty() ? null : remark, date, createTime);
+    }
+
+    /**
+     * 收支列文本转为账单类型，无法识别时按金额正负判断
+     */
+    private static int parseBillType(String text, long cents) {
+        if (text.contains("收") || text.equalsIgnoreCase("income") || text.equalsIgnoreCase("credit")) {
+            return 1;
+        }
+        if (text.contains("支") || text.equalsIgnoreCase("expense") || text.equalsIgnoreCase("debit")) {
+            return 0;
+        }
+        return cents < 0 ? 0 : 1;
+    }
+
+    /**
+     * 解析日期字段，支持 yyyy-MM-dd、yyyy/M/d、yyyy.M.d、yyyy年M月d日、yyyyMMdd，可带时间部分
+     * @return yyyy-MM-dd，无法解析时返回null
+     */
+    static String parseDate(CsvRecordReader reader, int index) {
+        int length = reader.fieldLength(index);
+        // 最多三组数字：年月日，或一组8位的yyyyMMdd
+        int first = 0;
+        int second = 0;
+        int third = 0;
+        int firstDigits = 0;
+        int secondDigits = 0;
+        int thirdDigits = 0;
+        int part = 0;
+        int i = 0;
+        while (i < length && reader.charAt(index, i) <= ' ') {
+            i++;
+        }
+        for (; i < length && part < 3; i++) {
+            char c = reader.charAt(index, i);
+            if (c >= '0' && c <= '9') {
+                int digit = c - '0';
+                if (part == 0) {
+                    first = first * 10 + digit;
+                    firstDigits++;
+                } else if (part == 1) {
+                    second = second * 10 + digit;
+                    secondDigits++;
+                } else {
+                    third = third * 10 + digit;
+                    thirdDigits++;
+                }
+            } else if ((part == 0 ? firstDigits : part == 1 ? secondDigits : thirdDigits) > 0) {
+                part++;
+                if (c == ' ' || c == 'T') {
+                    break;
+                }
+            } else {
+                return null;
+            }
+        }
+        int year;
+        int month;
+        int day;
+        if (firstDigits == 8 && secondDigits == 0) {
+            year = first / 10000;
+            month = first / 100 % 100;
+            day = first % 100;
+        } else if (firstDigits == 4 && secondDigits > 0 && thirdDigits > 0) {
+            year = first;
+            month = second;
+            day = third;
+        } else {
+            return null;
+        }
+        if (month < 1 || month > 12 || day < 1 || day > EpochDays.lengthOfMonth(year, month)) {
+            return null;
+        }
+        return EpochDays.format(EpochDays.of(year, month, day));
+    }
+
+    /**
+     * 根据文件开头判断编码：合法UTF-8按UTF-8读取，否则按GBK（国内银行导出常用）
+     */
+    static Charset detectCharset(BufferedInputStream in) throws IOException {
+        in.mark(SNIFF_SIZE);
+        byte[] head = new byte[SNIFF_SIZE];
+        int length = 0;
+        int read;
+        while (length < head.length && (read = in.read(head, length, head.length - length)) > 0) {
+            length += read;
+        }
+        in.reset();
+        // 截到最后一个ASCII字节，避免多字节字符被截断误判
+        int end = length;
+        if (length == head.length) {
+            while (end > 0 && (head[end - 1] & 0x80) != 0) {
+                end--;
+            }
+        }
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(head, 0, end));
+            return StandardCharsets.UTF_8;
+        } catch (CharacterCodingException e) {
+            return Charset.forName("GBK");
+        }
+    }
+
+    /**
+     * 表头到字段下标的映射，-1表示没有该列
+     */
+    static class ColumnMapping {
+        int date = -1;
+        int amount = -1;
+        int income = -1;
+        int expense = -1;
+        int type = -1;
+        int category = -1;
+        int remark = -1;
+
+        static ColumnMapping fromHeader(CsvRecordReader reader) {
+            ColumnMapping mapping = new ColumnMapping();
+            for (int i = 0; i < reader.fieldCount(); i++) {
+                String name = reader.field(i).toLowerCase(Locale.ROOT);
+                if (mapping.date < 0 && matches(name, DATE_COLUMNS)) {
+                    mapping.date = i;
+                } else if (mapping.amount < 0 && matches(name, AMOUNT_COLUMNS)) {
+                    mapping.amount = i;
+                } else if (mapping.income < 0 && matches(name, INCOME_COLUMNS)) {
+                    mapping.income = i;
+                } else if (mapping.expense < 0 && matches(name, EXPENSE_COLUMNS)) {
+                    mapping.expense = i;
+                } else if (mapping.type < 0 && matches(name, TYPE_COLUMNS)) {
+                    mapping.type = i;
+                } else if (mapping.category < 0 && matches(name, CATEGORY_COLUMNS)) {
+                    mapping.category = i;
+                } else if (mapping.remark < 0 && matches(name, REMARK_COLUMNS)) {
+                    mapping.remark = i;
+                }
+            }
+            // 只有收入或只有支出列时无法判断另一种，退化为缺少金额列
+            if (mapping.amount < 0 && (mapping.income < 0 || mapping.expense < 0)) {
+                mapping.income = -1;
+                mapping.expense = -1;
+            }
+            return mapping;
+        }
+
+        private static boolean matches(String name, String[] candidates) {
+            for (String candidate : candidates) {
+                if (name.equals(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 统计已读取字节数，用于进度显示
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.personalaccounting.model;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 账单CSV写出格式
+ * <p>
+ * 列为 日期、收支、分类、金额、备注、创建时间，文件开头写UTF-8 BOM，便于表格软件正确识别中文。
+ * 表头名称都在 {@link BillCsvParser} 的识别范围内，导出的文件可以原样导回。
+ * </p>
+ */
+public class BillCsvWriter {
+    // UTF-8 BOM
+    private static final char BOM = '\uFEFF';
+    static final String[] HEADER = {"日期", "收支", "分类", "金额", "备注", "创建时间"};
+    static final String INCOME_LABEL = "收入";
+    static final String EXPENSE_LABEL = "支出";
+
+    private final Writer mWriter;
+    private final CsvWriter mCsv;
+
+    /**
+     * @param writer 下层Writer，由调用方负责缓冲和关闭
+     */
+    public BillCsvWriter(Writer writer) {
+        mWriter = writer;
+        mCsv = new CsvWriter(writer);
+    }
+
+    /**
+     * 写出BOM和表头
+     */
+    public void writeHeader() throws IOException {
+        mWriter.write(BOM);
+        for (String column : HEADER) {
+            mCsv.field(column);
+        }
+        mCsv.endRow();
+    }
+
+    /**
+     * 写出一行账单，参数直接取自游标列，不创建 {@link Bill} 对象
+     * @param date 日期（yyyy-MM-dd格式）
+     * @param billType 账单类型（0=支出，1=收入）
+     * @param category 分类
+     * @param amount 金额，按分四舍五入
+     * @param remark 备注，可为null
+     * @param createTime 创建时间（毫秒）
+     */
+    public void writeRow(String date, int billType, String category, double amount, String remark,
+                         long createTime) throws IOException {
+        mCsv.field(date)
+                .field(billType == 1 ? INCOME_LABEL : EXPENSE_LABEL)
+                .field(category)
+                .amount(amount)
+                .field(remark)
+                .field(createTime);
+        mCsv.endRow();
+    }
+
+    public void writeBill(Bill bill) throws IOException {
+        writeRow(bill.getDate(), bill.getBillType(), bill.getType(), bill.getAmount(), bill.getRemark(),
+                bill.getCreateTime());
+    }
+
+    public void flush() throws IOException {
+        mCsv.flush();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.personalaccounting.model;
+
+/**
+ * 列表差异比较的判断规则，供适配器的 DiffUtil 回调使用
+ * <p>
+ * 放在这里是为了让判断逻辑不依赖 RecyclerView，可以在 JVM 上测试和做基准。
+ * </p>
+ */
+public final class BillDiff {
+
+    private BillDiff() {
+    }
+
+    /**
+     * 是否是同一条账单（按ID判断）
+     */
+    public static boolean areBillsTheSame(Bill oldItem, Bill newItem) {
+        return oldItem.getId() == newItem.getId();
+    }
+
+    /**
+     * 首页近期账单显示的内容是否相同，不显示备注所以不比较备注
+     */
+    public static boolean areBillContentsTheSame(Bill oldItem, Bill newItem) {
+        return oldItem.getType().equals(newItem.getType())
+                && oldItem.getAmount() == newItem.getAmount()
+                && oldItem.getBillType() == newItem.getBillType()
+                && oldItem.getDate().equals(newItem.getDate());
+    }
+
+    /**
+     * 是否是同一个列表项：分组头以日期作为唯一标识，账单行按ID判断
+     */
+    public static boolean areItemsTheSame(BillListItem oldListItem, BillListItem newListItem) {
+        if (oldListItem.getItemType() != newListItem.getItemType()) {
+            return false;
+        }
+        if (oldListItem.isHeader()) {
+            return oldListItem.getDate().equals(newListItem.getDate());
+        }
+        return areBillsTheSame(oldListItem.getBill(), newListItem.getBill());
+    }
+
+    /**
+     * 列表项的显示内容是否相同：分组头比较当日小计，账单行还要比较备注
+     */
+    public static boolean areContentsTheSame(BillListItem oldListItem, BillListItem newListItem) {
+        if (oldListItem.isHeader()) {
+            return oldListItem.getDayIncome() == newListItem.getDayIncome()
+                    && oldListItem.getDayExpense() == newListItem.getDayExpense();
+        }
+        Bill oldItem = oldListItem.getBill();
+        Bill newItem = newListItem.getBill();
+        String oldRemark = oldItem.getRemark();
+        return areBillContentsTheSame(oldItem, newItem)
+                && (oldRemark == null ? newItem.getRemark() == null : oldRemark.equals(newItem.getRemark()));
+    }
+}
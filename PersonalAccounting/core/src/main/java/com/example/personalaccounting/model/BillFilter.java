@@ -0,0 +1,229 @@
+package com.example.personalaccounting.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 账单查询条件
+ * <p>
+ * 日期区间、收支类型、分类、金额区间、备注关键字、排序和键集分页都是可选的，
+ * 由 {@code BillQueryCompiler} 编译成一条带参数的 SQL。新页面组合条件即可，
+ * 不必再为每种组合手写查询方法。
+ * </p>
+ */
+public final class BillFilter {
+    // 按日期从新到旧（同一天按创建时间、编号倒序）
+    public static final int SORT_NEWEST_FIRST = 0;
+    // 按日期从旧到新
+    public static final int SORT_OLDEST_FIRST = 1;
+
+    private final String startDate;
+    private final String endDate;
+    private final int billType;
+    private final List<String> categories;
+    private final Double minAmount;
+    private final Double maxAmount;
+    private final String remarkKeyword;
+    private final int sort;
+    private final Bill after;
+    private final int limit;
+
+    private BillFilter(Builder builder) {
+        startDate = builder.startDate;
+        endDate = builder.endDate;
+        billType = builder.billType;
+        categories = Collections.unmodifiableList(new ArrayList<>(builder.categories));
+        minAmount = builder.minAmount;
+        maxAmount = builder.maxAmount;
+        remarkKeyword = builder.remarkKeyword;
+        sort = builder.sort;
+        after = builder.after;
+        limit = builder.limit;
+    }
+
+    /**
+     * @return 开始日期（yyyy-MM-dd，包含），null表示不限
+     */
+    public String getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * @return 结束日期（yyyy-MM-dd，包含），null表示不限
+     */
+    public String getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * @return 账单类型：-1=全部，0=支出，1=收入
+     */
+    public int getBillType() {
+        return billType;
+    }
+
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    public Double getMinAmount() {
+        return minAmount;
+    }
+
+    public Double getMaxAmount() {
+        return maxAmount;
+    }
+
+    public String getRemarkKeyword() {
+        return remarkKeyword;
+    }
+
+    public int getSort() {
+        return sort;
+    }
+
+    /**
+     * @return 键集分页的起点（上一页最后一条账单），null表示从头开始
+     */
+    public Bill getAfter() {
+        return after;
+    }
+
+    /**
+     * @return 最多返回条数，0表示不限
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 以当前条件为基础，从指定账单之后取下一页
+     * @param lastBill 上一页最后一条账单
+     * @return 新的查询条件
+     */
+    public BillFilter nextPage(Bill lastBill) {
+        return toBuilder().after(lastBill).build();
+    }
+
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.startDate = startDate;
+        builder.endDate = endDate;
+        builder.billType = billType;
+        builder.categories.addAll(categories);
+        builder.minAmount = minAmount;
+        builder.maxAmount = maxAmount;
+        builder.remarkKeyword = remarkKeyword;
+        builder.sort = sort;
+        builder.after = after;
+        builder.limit = limit;
+        return builder;
+    }
+
+    /**
+     * 查询条件构造器
+     */
+    public static final class Builder {
+        private String startDate;
+        private String endDate;
+        private int billType = -1;
+        private final List<String> categories = new ArrayList<>();
+        private Double minAmount;
+        private Double maxAmount;
+        private String remarkKeyword;
+        private int sort = SORT_NEWEST_FIRST;
+        private Bill after;
+        private int limit;
+
+        /**
+         * 日期区间，两端都包含
+         * @param startDate 开始日期（yyyy-MM-dd），null表示不限
+         * @param endDate 结束日期（yyyy-MM-dd），null表示不限
+         */
+        public Builder dateBetween(String startDate, String endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            return this;
+        }
+
+        public Builder dateRange(DateRange range) {
+            return dateBetween(range.getStartDate(), range.getEndDate());
+        }
+
+        /**
+         * @param billType -1=全部，0=支出，1=收入
+         */
+        public Builder billType(int billType) {
+            this.billType = billType;
+            return this;
+        }
+
+        /**
+         * 只查询这些分类，可多次调用累加
+         */
+        public Builder categories(String... categories) {
+            return categories(Arrays.asList(categories));
+        }
+
+        public Builder categories(Collection<String> categories) {
+            for (String category : categories) {
+                if (category != null && !this.categories.contains(category)) {
+                    this.categories.add(category);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * 金额区间（元），两端都包含
+         * @param minAmount 最小金额，null表示不限
+         * @param maxAmount 最大金额，null表示不限
+         */
+        public Builder amountBetween(Double minAmount, Double maxAmount) {
+            this.minAmount = minAmount;
+            this.maxAmount = maxAmount;
+            return this;
+        }
+
+        /**
+         * 备注包含关键字，走全文索引（规则同 {@link BillSearch#toMatchQuery}）
+         * @param keyword 关键字，null或没有可搜索的文字时不限
+         */
+        public Builder remarkContains(String keyword) {
+            this.remarkKeyword = keyword;
+            return this;
+        }
+
+        /**
+         * @param sort {@link #SORT_NEWEST_FIRST} 或 {@link #SORT_OLDEST_FIRST}
+         */
+        public Builder sort(int sort) {
+            this.sort = sort;
+            return this;
+        }
+
+        /**
+         * 键集分页：只取按当前排序排在指定账单之后的记录
+         * @param lastBill 上一页最后一条账单，null表示从头开始
+         */
+        public Builder after(Bill lastBill) {
+            this.after = lastBill;
+            return this;
+        }
+
+        /**
+         * @param limit 最多返回条数，0表示不限
+         */
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public BillFilter build() {
+            return new BillFilter(this);
+        }
+    }
+}
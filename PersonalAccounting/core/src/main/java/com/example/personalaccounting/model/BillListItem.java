@@ -0,0 +1,78 @@
+package com.example.personalaccounting.model;
+
+/**
+ * 账单列表项
+ * <p>
+ * 全部账单页面按日期分组展示，列表中既有日期分组头，也有账单行。
+ * 分组头携带当天的收入/支出小计，由数据库在分页查询时一并计算，
+ * 适配器只负责渲染，不再遍历整个列表求和。
+ * </p>
+ */
+public class BillListItem {
+    // 日期分组头
+    public static final int TYPE_HEADER = 0;
+    // 账单行
+    public static final int TYPE_BILL = 1;
+
+    private final int itemType;
+    // 所属日期，格式：yyyy-MM-dd
+    private final String date;
+    // 当天收入小计（仅分组头有效）
+    private final double dayIncome;
+    // 当天支出小计（仅分组头有效）
+    private final double dayExpense;
+    // 账单数据（仅账单行有效）
+    private final Bill bill;
+
+    private BillListItem(int itemType, String date, double dayIncome, double dayExpense, Bill bill) {
+        this.itemType = itemType;
+        this.date = date;
+        this.dayIncome = dayIncome;
+        this.dayExpense = dayExpense;
+        this.bill = bill;
+    }
+
+    /**
+     * 创建日期分组头
+     * @param date 日期
+     * @param dayIncome 当天收入小计
+     * @param dayExpense 当天支出小计
+     * @return 分组头列表项
+     */
+    public static BillListItem header(String date, double dayIncome, double dayExpense) {
+        return new BillListItem(TYPE_HEADER, date, dayIncome, dayExpense, null);
+    }
+
+    /**
+     * 创建账单行
+     * @param bill 账单对象
+     * @return 账单列表项
+     */
+    public static BillListItem bill(Bill bill) {
+        return new BillListItem(TYPE_BILL, bill.getDate(), 0, 0, bill);
+    }
+
+    public int getItemType() {
+        return itemType;
+    }
+
+    public boolean isHeader() {
+        return itemType == TYPE_HEADER;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public double getDayIncome() {
+        return dayIncome;
+    }
+
+    public double getDayExpense() {
+        return dayExpense;
+    }
+
+    public Bill getBill() {
+        return bill;
+    }
+}
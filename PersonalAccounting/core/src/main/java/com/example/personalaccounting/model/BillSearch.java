@@ -0,0 +1,173 @@
+package com.example.personalaccounting.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 账单全文搜索的分词、查询构造和排序
+ * <p>
+ * 全文索引使用 FTS4 自带的 simple 分词器，它不会切分中文，一整段汉字只算一个词。
+ * 因此写入索引前先在 Java 里分好词：连续的 ASCII 字母数字为一个词（转小写），
+ * 其他文字每个字单独成词，词之间用空格隔开。查询时一段汉字变成逐字的短语查询，
+ * 效果等同于子串匹配；英文和数字按词前缀匹配，边输入边出结果。
+ * </p>
+ */
+public final class BillSearch {
+    // 全文索引的列：分类、备注
+    public static final int COLUMN_CATEGORY = 0;
+    public static final int COLUMN_REMARK = 1;
+    // 命中分类比命中备注更相关
+    private static final int WEIGHT_CATEGORY = 3;
+    private static final int WEIGHT_REMARK = 1;
+    // 一次查询最多使用的词数，避免粘贴长文本时生成过大的查询
+    private static final int MAX_TERMS = 16;
+
+    private BillSearch() {
+    }
+
+    /**
+     * 把分类或备注转换为写入全文索引的文本
+     * @param text 原文，可为null
+     * @return 空格分隔的词
+     */
+    public static String tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length() * 2);
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isAsciiWordChar(cp)) {
+                if (!inWord && out.length() > 0) {
+                    out.append(' ');
+                }
+                out.append((char) Character.toLowerCase(cp));
+                inWord = true;
+            } else if (Character.isLetterOrDigit(cp)) {
+                if (out.length() > 0) {
+                    out.append(' ');
+                }
+                out.appendCodePoint(Character.toLowerCase(cp));
+                inWord = false;
+            } else {
+                inWord = false;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * 把用户输入转换为 MATCH 查询
+     * <p>
+     * 英文和数字词加 * 做前缀匹配，连续的汉字组成逐字短语，各部分之间是“且”的关系。
+     * 输入里的引号、减号、OR 等都不会被当作查询语法。
+     * </p>
+     * @param keyword 用户输入
+     * @return MATCH 查询串，输入中没有可搜索的文字时返回null
+     */
+    public static String toMatchQuery(String keyword) {
+        return toMatchQuery(keyword, null);
+    }
+
+    /**
+     * 把用户输入转换为只匹配一列的 MATCH 查询
+     * @param keyword 用户输入
+     * @param column 列名，null表示分类和备注都匹配
+     * @return MATCH 查询串，输入中没有可搜索的文字时返回null
+     */
+    public static String toMatchQuery(String keyword, String column) {
+        String prefix = column != null ? column + ":" : "";
+        if (keyword == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        int terms = 0;
+        // 0=不在词中，1=英文词中，2=汉字短语中
+        int state = 0;
+        for (int i = 0; i < keyword.length(); ) {
+            int cp = keyword.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isAsciiWordChar(cp)) {
+                if (state != 1) {
+                    if (terms == MAX_TERMS) {
+                        break;
+                    }
+                    state = closeTerm(query, state);
+                    if (query.length() > 0) {
+                        query.append(' ');
+                    }
+                    query.append(prefix);
+                    terms++;
+                }
+                query.append((char) Character.toLowerCase(cp));
+                state = 1;
+            } else if (Character.isLetterOrDigit(cp)) {
+                if (state != 2) {
+                    if (terms == MAX_TERMS) {
+                        break;
+                    }
+                    state = closeTerm(query, state);
+                    if (query.length() > 0) {
+                        query.append(' ');
+                    }
+                    query.append(prefix).append('"');
+                    terms++;
+                } else {
+                    query.append(' ');
+                }
+                query.appendCodePoint(Character.toLowerCase(cp));
+                state = 2;
+            } else {
+                state = closeTerm(query, state);
+            }
+        }
+        closeTerm(query, state);
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    /**
+     * 根据 matchinfo(bill_fts, 'pcy') 计算相关度
+     * <p>
+     * 每个查询短语在分类、备注中的命中次数按列加权求和。只用本行的命中次数（'y'），
+     * 不用需要读取整条倒排表的全局统计（'x'），常见字的查询也不会变慢。
+     * </p>
+     * @param matchinfo matchinfo返回的BLOB（本机字节序的32位整数）
+     * @return 相关度，越大越相关
+     */
+    public static int score(byte[] matchinfo) {
+        if (matchinfo == null || matchinfo.length < 8) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phrases = buffer.getInt(0);
+        int columns = buffer.getInt(4);
+        int score = 0;
+        for (int p = 0; p < phrases; p++) {
+            for (int c = 0; c < columns; c++) {
+                // 每个短语、每列一个整数：本行命中次数
+                int offset = 8 + (p * columns + c) * 4;
+                if (offset + 4 > matchinfo.length) {
+                    return score;
+                }
+                int hits = buffer.getInt(offset);
+                score += hits * (c == COLUMN_CATEGORY ? WEIGHT_CATEGORY : WEIGHT_REMARK);
+            }
+        }
+        return score;
+    }
+
+    private static int closeTerm(StringBuilder query, int state) {
+        if (state == 1) {
+            query.append('*');
+        } else if (state == 2) {
+            query.append('"');
+        }
+        return 0;
+    }
+
+    private static boolean isAsciiWordChar(int cp) {
+        return (cp >= 'a' && cp <= 'z') || (cp >= 'A' && cp <= 'Z') || (cp >= '0' && cp <= '9');
+    }
+}
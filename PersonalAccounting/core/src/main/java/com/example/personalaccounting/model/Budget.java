@@ -0,0 +1,101 @@
+package com.example.personalaccounting.model;
+
+/**
+ * 月度预算
+ * <p>
+ * 每个分类最多一个预算，分类为 {@link #ALL_CATEGORIES} 时是全部支出的总预算。
+ * 金额以分为单位，避免累加时产生浮点误差。
+ * </p>
+ */
+public final class Budget {
+    // 总预算的分类名
+    public static final String ALL_CATEGORIES = "";
+    // 提醒级别：未达到提醒比例
+    public static final int LEVEL_NORMAL = 0;
+    // 提醒级别：达到提醒比例
+    public static final int LEVEL_WARNING = 1;
+    // 提醒级别：超出预算
+    public static final int LEVEL_EXCEEDED = 2;
+    // 默认在用掉80%时提醒
+    public static final int DEFAULT_WARN_PERCENT = 80;
+
+    private final String category;
+    private final long limitCents;
+    private final int warnPercent;
+
+    /**
+     * @param category 分类，{@link #ALL_CATEGORIES} 表示总预算
+     * @param limitCents 每月预算（分），至少1分
+     * @param warnPercent 提醒比例（1~100）
+     */
+    public Budget(String category, long limitCents, int warnPercent) {
+        this.category = category == null ? ALL_CATEGORIES : category;
+        this.limitCents = Math.max(1, limitCents);
+        this.warnPercent = Math.max(1, Math.min(100, warnPercent));
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public long getLimitCents() {
+        return limitCents;
+    }
+
+    public int getWarnPercent() {
+        return warnPercent;
+    }
+
+    public boolean isOverall() {
+        return ALL_CATEGORIES.equals(category);
+    }
+
+    /**
+     * 按已支出金额计算提醒级别
+     * @param spentCents 本月已支出（分）
+     * @return {@link #LEVEL_NORMAL}、{@link #LEVEL_WARNING} 或 {@link #LEVEL_EXCEEDED}
+     */
+    public int levelOf(long spentCents) {
+        if (spentCents > limitCents) {
+            return LEVEL_EXCEEDED;
+        }
+        if (spentCents * 100 >= limitCents * warnPercent) {
+            return LEVEL_WARNING;
+        }
+        return LEVEL_NORMAL;
+    }
+
+    /**
+     * 预算在某个月的执行情况
+     */
+    public static final class Status {
+        private final Budget budget;
+        private final long spentCents;
+        private final int level;
+
+        public Status(Budget budget, long spentCents, int level) {
+            this.budget = budget;
+            this.spentCents = spentCents;
+            this.level = level;
+        }
+
+        public Budget getBudget() {
+            return budget;
+        }
+
+        public long getSpentCents() {
+            return spentCents;
+        }
+
+        /**
+         * @return 剩余金额（分），超支时为负数
+         */
+        public long getRemainingCents() {
+            return budget.getLimitCents() - spentCents;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+    }
+}
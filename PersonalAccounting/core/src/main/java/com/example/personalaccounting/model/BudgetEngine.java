@@ -0,0 +1,248 @@
+package com.example.personalaccounting.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 月度预算引擎
+ * <p>
+ * 内存中保存每个预算本月的累计支出。每次新增、修改、删除账单只按账单新旧两个分类和总预算
+ * 调整至多三个累计值，并把变化的累计值连同当前变更序号写回预算表，与账单数量无关。
+ * 累计值跨过提醒比例或预算上限时通知 {@link AlertListener}，回落后再次跨过会再次提醒。
+ * </p>
+ * <p>
+ * 只有以下情况才按分类汇总本月支出重算：启动时保存的序号落后于变更日志（上次退出前
+ * 有写入没来得及记账，或者恢复了备份）、进入新的月份、批量写入后调用了 {@link #invalidate()}、
+ * 预算本身被修改。重算都是在下一次用到时才做。
+ * </p>
+ */
+public class BudgetEngine {
+    private static final String TAG = "BudgetEngine";
+    // 账单类型：支出
+    private static final int BILL_TYPE_EXPENSE = 0;
+
+    /**
+     * 预算提醒监听，在写入账单的线程上回调
+     */
+    public interface AlertListener {
+        /**
+         * @param status 提醒级别升高了的预算
+         */
+        void onBudgetAlert(Budget.Status status);
+    }
+
+    /**
+     * 一个预算的累计值
+     */
+    private static final class Entry {
+        final Budget budget;
+        long spentCents;
+        int level;
+
+        Entry(Budget.Status status) {
+            budget = status.getBudget();
+            spentCents = status.getSpentCents();
+            level = status.getLevel();
+        }
+
+        Budget.Status toStatus() {
+            return new Budget.Status(budget, spentCents, level);
+        }
+    }
+
+    private final BudgetStore mStore;
+    private final List<AlertListener> mListeners = new CopyOnWriteArrayList<>();
+    // 分类 -> 累计值，总预算的键是 Budget.ALL_CATEGORIES
+    private final Map<String, Entry> mEntries = new HashMap<>();
+    // 内存中累计值所属的月份，null表示需要重新加载
+    private String mMonth;
+    // 只有进程内第一次加载可以直接使用保存的累计值
+    private boolean mTrustSaved = true;
+
+    public BudgetEngine(BudgetStore store) {
+        mStore = store;
+    }
+
+    public void addAlertListener(AlertListener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeAlertListener(AlertListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * 账单写入成功后调用，按新旧内容的差额调整累计值
+     * <p>
+     * 调用方需要保证账单写入和这次调用之间没有其他写入插进来，否则保存的变更序号会
+     * 超前于累计值。
+     * </p>
+     * @param month 当前月份（yyyy-MM），与累计值的月份不同时先重算
+     * @param oldBill 修改或删除前的账单，新增时为null
+     * @param newBill 新增或修改后的账单，删除时为null
+     */
+    public void onBillChanged(String month, Bill oldBill, Bill newBill) {
+        List<Budget.Status> alerts = new ArrayList<>();
+        synchronized (this) {
+            try {
+                applyChange(month, oldBill, newBill, alerts);
+            } catch (RuntimeException e) {
+                // 预算记账失败不影响账单本身已经写入，下次用到时重算
+                EngineLog.e(TAG, "onBillChanged: 预算记账失败: {}", e.getMessage());
+                alerts.clear();
+                invalidate();
+            }
+        }
+        notifyAlerts(alerts);
+    }
+
+    private void applyChange(String month, Bill oldBill, Bill newBill, List<Budget.Status> alerts) {
+        // 重算时账单已经写入，汇总里已经包含这次的变化
+        if (ensureLoaded(month, alerts) || mEntries.isEmpty()) {
+            return;
+        }
+        List<Entry> changed = new ArrayList<>(2);
+        int[] before = new int[4];
+        apply(oldBill, -1, changed, before);
+        apply(newBill, 1, changed, before);
+        if (changed.isEmpty()) {
+            // 收入、其他月份或没有预算的账单不改变累计值，但序号照样前进，否则下次启动会误判为有写入没有记账
+            mStore.saveBudgetTotals(mMonth, mStore.queryChangeLogHead(), Collections.<Budget.Status>emptyList());
+            return;
+        }
+        List<Budget.Status> statuses = new ArrayList<>(changed.size());
+        for (int i = 0; i < changed.size(); i++) {
+            Entry entry = changed.get(i);
+            entry.level = entry.budget.levelOf(entry.spentCents);
+            if (entry.level > before[i]) {
+                alerts.add(entry.toStatus());
+            }
+            statuses.add(entry.toStatus());
+        }
+        mStore.saveBudgetTotals(mMonth, mStore.queryChangeLogHead(), statuses);
+    }
+
+    /**
+     * 查询本月全部预算的执行情况，总预算在最前，其余按分类名排序
+     * @param month 当前月份（yyyy-MM）
+     */
+    public List<Budget.Status> getStatuses(String month) {
+        List<Budget.Status> alerts = new ArrayList<>();
+        List<Budget.Status> statuses = new ArrayList<>();
+        synchronized (this) {
+            ensureLoaded(month, alerts);
+            for (Entry entry : mEntries.values()) {
+                statuses.add(entry.toStatus());
+            }
+        }
+        notifyAlerts(alerts);
+        Collections.sort(statuses, (a, b) -> a.getBudget().getCategory().compareTo(b.getBudget().getCategory()));
+        return statuses;
+    }
+
+    /**
+     * 新增或修改预算，下次用到时重算
+     */
+    public synchronized void setBudget(Budget budget) {
+        mStore.saveBudget(budget);
+        invalidate();
+    }
+
+    public synchronized void removeBudget(String category) {
+        mStore.deleteBudget(category);
+        mEntries.remove(category);
+    }
+
+    /**
+     * 批量写入（导入、恢复、同步）之后调用，下次用到时按汇总重算
+     */
+    public synchronized void invalidate() {
+        mMonth = null;
+        mTrustSaved = false;
+    }
+
+    /**
+     * 把一条账单按符号计入它的分类预算和总预算
+     * @param changed 变化了的累计值，同一个只出现一次
+     * @param before 与changed对应的变化前的提醒级别
+     */
+    private void apply(Bill bill, int sign, List<Entry> changed, int[] before) {
+        if (bill == null || bill.getBillType() != BILL_TYPE_EXPENSE || bill.getDate() == null
+                || !bill.getDate().startsWith(mMonth)) {
+            return;
+        }
+        long cents = Math.round(bill.getAmount() * 100) * sign;
+        add(mEntries.get(bill.getType()), cents, changed, before);
+        add(mEntries.get(Budget.ALL_CATEGORIES), cents, changed, before);
+    }
+
+    private static void add(Entry entry, long cents, List<Entry> changed, int[] before) {
+        if (entry == null) {
+            return;
+        }
+        if (!changed.contains(entry)) {
+            before[changed.size()] = entry.level;
+            changed.add(entry);
+        }
+        entry.spentCents += cents;
+    }
+
+    /**
+     * 确保内存中是指定月份的累计值
+     * @param alerts 重算后提醒级别升高的预算
+     * @return 是否按汇总重算了
+     */
+    private boolean ensureLoaded(String month, List<Budget.Status> alerts) {
+        if (month.equals(mMonth)) {
+            return false;
+        }
+        BudgetStore.Snapshot snapshot = mStore.loadBudgets();
+        mEntries.clear();
+        for (Budget.Status status : snapshot.getStatuses()) {
+            mEntries.put(status.getBudget().getCategory(), new Entry(status));
+        }
+        boolean sameMonth = month.equals(snapshot.getMonth());
+        // 先取序号再汇总，汇总期间有写入时保存的序号偏旧，下次启动会多重算一次而不会漏算
+        long head = mStore.queryChangeLogHead();
+        boolean trustSaved = mTrustSaved;
+        mTrustSaved = false;
+        mMonth = month;
+        if (mEntries.isEmpty() || (trustSaved && sameMonth && snapshot.getSeq() == head)) {
+            EngineLog.d(TAG, "ensureLoaded: 使用保存的累计值，月份={}，预算{}个", month, mEntries.size());
+            return false;
+        }
+
+        Map<String, Long> expense = mStore.queryMonthExpense(month);
+        long total = 0;
+        for (long cents : expense.values()) {
+            total += cents;
+        }
+        List<Budget.Status> statuses = new ArrayList<>(mEntries.size());
+        for (Entry entry : mEntries.values()) {
+            // 新的月份从头提醒
+            int before = sameMonth ? entry.level : Budget.LEVEL_NORMAL;
+            Long spent = entry.budget.isOverall() ? Long.valueOf(total) : expense.get(entry.budget.getCategory());
+            entry.spentCents = spent != null ? spent : 0;
+            entry.level = entry.budget.levelOf(entry.spentCents);
+            if (entry.level > before) {
+                alerts.add(entry.toStatus());
+            }
+            statuses.add(entry.toStatus());
+        }
+        mStore.saveBudgetTotals(month, head, statuses);
+        EngineLog.d(TAG, "ensureLoaded: 重算累计值，月份={}，预算{}个", month, mEntries.size());
+        return true;
+    }
+
+    private void notifyAlerts(List<Budget.Status> alerts) {
+        for (Budget.Status status : alerts) {
+            for (AlertListener listener : mListeners) {
+                listener.onBudgetAlert(status);
+            }
+        }
+    }
+}
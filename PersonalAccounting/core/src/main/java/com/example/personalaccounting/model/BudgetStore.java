@@ -0,0 +1,76 @@
+package com.example.personalaccounting.model;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预算引擎读写本地账本的接口，由 {@code BillDbHelper} 实现
+ */
+public interface BudgetStore {
+
+    /**
+     * 保存的预算和上次持久化的累计值
+     */
+    class Snapshot {
+        private final String month;
+        private final long seq;
+        private final List<Budget.Status> statuses;
+
+        public Snapshot(String month, long seq, List<Budget.Status> statuses) {
+            this.month = month;
+            this.seq = seq;
+            this.statuses = statuses;
+        }
+
+        /**
+         * 累计值所属的月份（yyyy-MM），从未计算过时为null
+         */
+        public String getMonth() {
+            return month;
+        }
+
+        /**
+         * 累计值对应的变更序号，与当前最新序号相同时累计值可以直接使用
+         */
+        public long getSeq() {
+            return seq;
+        }
+
+        public List<Budget.Status> getStatuses() {
+            return statuses;
+        }
+    }
+
+    /**
+     * 读取全部预算和上次保存的累计值
+     */
+    Snapshot loadBudgets();
+
+    /**
+     * 按分类汇总一个月的支出
+     * @param month 月份（yyyy-MM）
+     * @return 分类 -> 支出（分）
+     */
+    Map<String, Long> queryMonthExpense(String month);
+
+    /**
+     * 当前最新的本地变更序号
+     */
+    long queryChangeLogHead();
+
+    /**
+     * 新增或修改预算，累计值清零等待重算
+     */
+    void saveBudget(Budget budget);
+
+    void deleteBudget(String category);
+
+    /**
+     * 在一个事务里保存变化了的累计值和它们对应的月份、变更序号
+     * @param month 月份（yyyy-MM）
+     * @param seq 累计值已包含到的变更序号
+     * @param changed 变化了的预算
+     */
+    void saveBudgetTotals(String month, long seq, Collection<Budget.Status> changed);
+}
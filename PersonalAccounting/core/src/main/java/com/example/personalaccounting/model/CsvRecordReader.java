@@ -0,0 +1,305 @@
+package com.example.personalaccounting.model;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * CSV记录读取器
+ * <p>
+ * 在一块可复用的字符缓冲区上就地解析，每条记录只记录各字段的起止下标，
+ * 引号转义也在缓冲区内原地完成。字段内容只有在调用 {@link #field(int)} 时才生成字符串，
+ * 金额等数字字段可以直接从缓冲区解析，不产生中间对象。
+ * 支持引号内的逗号和换行、\r\n 行尾以及文件开头的UTF-8 BOM；记录跨多行时按起始行号报告位置。
+ * </p>
+ */
+public class CsvRecordReader {
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    // 金额解析失败时的返回值
+    public static final long INVALID_CENTS = Long.MIN_VALUE;
+
+    private final Reader mReader;
+    private char[] mBuffer = new char[INITIAL_BUFFER_SIZE];
+    // 缓冲区中有效字符数
+    private int mLength;
+    // 下一条记录的起始位置
+    private int mPos;
+    private boolean mEof;
+    private boolean mFirstRead = true;
+
+    private int[] mStarts = new int[16];
+    private int[] mEnds = new int[16];
+    private int mFieldCount;
+    private long mRecordCount;
+    // 下一条记录的起始行号，以及当前记录的起始行号（从1开始，引号内的换行也计入）
+    private long mNextLine = 1;
+    private long mLineNumber;
+
+    public CsvRecordReader(Reader reader) {
+        mReader = reader;
+    }
+
+    /**
+     * 读取下一条记录，跳过空行
+     * @return 没有更多记录时返回false
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int end = findRecordEnd();
+            if (end < 0) {
+                mFieldCount = 0;
+                return false;
+            }
+            int start = mPos;
+            // 记录结尾之后的换行符
+            int next = end;
+            if (next < mLength && mBuffer[next] == '\r') {
+                next++;
+            }
+            if (next < mLength && mBuffer[next] == '\n') {
+                next++;
+            }
+            mPos = next;
+            long line = mNextLine;
+            mNextLine += countLineBreaks(start, next);
+            if (end == start) {
+                continue;
+            }
+            mLineNumber = line;
+            parseFields(start, end);
+            mRecordCount++;
+            return true;
+        }
+    }
+
+    public int fieldCount() {
+        return mFieldCount;
+    }
+
+    /**
+     * 已读取的记录数（含表头）
+     */
+    public long recordCount() {
+        return mRecordCount;
+    }
+
+    /**
+     * 当前记录在文件中的起始行号（从1开始），用于报告无法识别的记录
+     */
+    public long lineNumber() {
+        return mLineNumber;
+    }
+
+    public int fieldLength(int index) {
+        return index < mFieldCount ? mEnds[index] - mStarts[index] : 0;
+    }
+
+    public char charAt(int index, int offset) {
+        return mBuffer[mStarts[index] + offset];
+    }
+
+    /**
+     * 字段内容
+     * @param index 字段下标
+     * @return 去掉首尾空白后的字符串，字段不存在时返回空字符串
+     */
+    public String field(int index) {
+        if (index < 0 || index >= mFieldCount) {
+            return "";
+        }
+        int start = mStarts[index];
+        int end = mEnds[index];
+        while (start < end && mBuffer[start] <= ' ') {
+            start++;
+        }
+        while (end > start && mBuffer[end - 1] <= ' ') {
+            end--;
+        }
+        return new String(mBuffer, start, end - start);
+    }
+
+    /**
+     * 把字段解析为以分为单位的金额
+     * <p>
+     * 允许正负号、货币符号、千分位逗号和空白，小数超过两位时四舍五入。
+     * </p>
+     * @param index 字段下标
+     * @return 金额（分），无法解析时返回 {@link #INVALID_CENTS}
+     */
+    public long parseCents(int index) {
+        if (index < 0 || index >= mFieldCount) {
+            return INVALID_CENTS;
+        }
+        long value = 0;
+        boolean negative = false;
+        boolean hasDigit = false;
+        int fractionDigits = -1;
+        boolean roundUp = false;
+        for (int i = mStarts[index]; i < mEnds[index]; i++) {
+            char c = mBuffer[i];
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+                if (fractionDigits >= 2) {
+                    if (fractionDigits == 2) {
+                        roundUp = c >= '5';
+                    }
+                    fractionDigits++;
+                    continue;
+                }
+                value = value * 10 + (c - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.') {
+                if (fractionDigits >= 0) {
+                    return INVALID_CENTS;
+                }
+                fractionDigits = 0;
+            } else if (c == '-' || c == '(') {
+                negative = true;
+            } else if (c != ',' && c != '+' && c != ')' && c != '¥' && c != '￥' && c != '$' && c > ' ') {
+                return INVALID_CENTS;
+            }
+        }
+        if (!hasDigit) {
+            return INVALID_CENTS;
+        }
+        int scale = fractionDigits < 0 ? 0 : Math.min(fractionDigits, 2);
+        for (int i = scale; i < 2; i++) {
+            value *= 10;
+        }
+        if (roundUp) {
+            value++;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * 查找当前记录的结尾（不含换行符），必要时从Reader补充缓冲区
+     * @return 结尾下标，没有更多数据时返回-1
+     */
+    private int findRecordEnd() throws IOException {
+        while (true) {
+            boolean inQuotes = false;
+            for (int i = mPos; i < mLength; i++) {
+                char c = mBuffer[i];
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                } else if (!inQuotes && (c == '\n' || c == '\r')) {
+                    // \r 后面的 \n 需要在缓冲区内，才能一起跳过
+                    if (c == '\r' && i + 1 == mLength && !mEof) {
+                        break;
+                    }
+                    return i;
+                }
+            }
+            if (mEof) {
+                return mPos < mLength ? mLength : -1;
+            }
+            // 当前记录不完整：移到缓冲区开头，读入更多字符后从记录开头重新扫描
+            if (fill() < 0) {
+                mEof = true;
+            }
+        }
+    }
+
+    /**
+     * 统计 [start, end) 内的换行数，\r\n 和单独的 \r、\n 各算一行
+     */
+    private int countLineBreaks(int start, int end) {
+        int lines = 0;
+        for (int i = start; i < end; i++) {
+            char c = mBuffer[i];
+            if (c == '\n' || (c == '\r' && (i + 1 == end || mBuffer[i + 1] != '\n'))) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 压缩缓冲区并读入更多字符
+     * @return 读入的字符数，流结束时返回-1
+     */
+    private int fill() throws IOException {
+        if (mPos > 0) {
+            System.arraycopy(mBuffer, mPos, mBuffer, 0, mLength - mPos);
+            mLength -= mPos;
+            mPos = 0;
+        }
+        if (mLength == mBuffer.length) {
+            char[] larger = new char[mBuffer.length * 2];
+            System.arraycopy(mBuffer, 0, larger, 0, mLength);
+            mBuffer = larger;
+        }
+        int read = mReader.read(mBuffer, mLength, mBuffer.length - mLength);
+        if (read > 0) {
+            if (mFirstRead && mBuffer[0] == '\uFEFF') {
+                System.arraycopy(mBuffer, 1, mBuffer, 0, read - 1);
+                read--;
+            }
+            mFirstRead = false;
+            mLength += read;
+        }
+        return read;
+    }
+
+    /**
+     * 就地拆分字段并去掉引号转义
+     */
+    private void parseFields(int start, int end) {
+        mFieldCount = 0;
+        int i = start;
+        while (true) {
+            ensureFieldCapacity();
+            if (i < end && mBuffer[i] == '"') {
+                // 引号字段：把内容向前压缩，"" 还原为 "
+                int write = i;
+                int read = i + 1;
+                mStarts[mFieldCount] = write;
+                while (read < end) {
+                    char c = mBuffer[read];
+                    if (c == '"') {
+                        if (read + 1 < end && mBuffer[read + 1] == '"') {
+                            mBuffer[write++] = '"';
+                            read += 2;
+                            continue;
+                        }
+                        read++;
+                        break;
+                    }
+                    mBuffer[write++] = c;
+                    read++;
+                }
+                mEnds[mFieldCount] = write;
+                // 跳过引号后到下一个分隔符之间的内容
+                while (read < end && mBuffer[read] != ',') {
+                    read++;
+                }
+                i = read;
+            } else {
+                mStarts[mFieldCount] = i;
+                while (i < end && mBuffer[i] != ',') {
+                    i++;
+                }
+                mEnds[mFieldCount] = i;
+            }
+            mFieldCount++;
+            if (i >= end) {
+                return;
+            }
+            // 跳过逗号
+            i++;
+        }
+    }
+
+    private void ensureFieldCapacity() {
+        if (mFieldCount == mStarts.length) {
+            int[] starts = new int[mStarts.length * 2];
+            int[] ends = new int[mEnds.length * 2];
+            System.arraycopy(mStarts, 0, starts, 0, mFieldCount);
+            System.arraycopy(mEnds, 0, ends, 0, mFieldCount);
+            mStarts = starts;
+            mEnds = ends;
+        }
+    }
+}
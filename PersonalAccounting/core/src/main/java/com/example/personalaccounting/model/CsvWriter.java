@@ -0,0 +1,121 @@
+package com.example.personalaccounting.model;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * CSV行写入器
+ * <p>
+ * 按RFC 4180转义字段，直接写入下层Writer，不拼接整行字符串；
+ * 金额按分取整后用整数运算输出两位小数，避免每行创建DecimalFormat结果。
+ * </p>
+ */
+public class CsvWriter {
+    private final Writer mWriter;
+    private final char[] mNumberBuffer = new char[24];
+    private boolean mLineStart = true;
+
+    public CsvWriter(Writer writer) {
+        mWriter = writer;
+    }
+
+    /**
+     * 写入文本字段，包含逗号、引号或换行时加引号并转义
+     * @param value 字段值，null按空字段写出
+     */
+    public CsvWriter field(String value) throws IOException {
+        separator();
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+        if (!needsQuote(value)) {
+            mWriter.write(value);
+            return this;
+        }
+        mWriter.write('"');
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) == '"') {
+                mWriter.write(value, start, i - start + 1);
+                mWriter.write('"');
+                start = i + 1;
+            }
+        }
+        mWriter.write(value, start, length - start);
+        mWriter.write('"');
+        return this;
+    }
+
+    /**
+     * 写入整数字段
+     */
+    public CsvWriter field(long value) throws IOException {
+        separator();
+        writeLong(value, 0);
+        return this;
+    }
+
+    /**
+     * 写入金额字段，四舍五入到分，固定两位小数
+     */
+    public CsvWriter amount(double value) throws IOException {
+        separator();
+        writeLong(Math.round(value * 100), 2);
+        return this;
+    }
+
+    /**
+     * 结束当前行
+     */
+    public void endRow() throws IOException {
+        mWriter.write("\r\n");
+        mLineStart = true;
+    }
+
+    public void flush() throws IOException {
+        mWriter.flush();
+    }
+
+    private void separator() throws IOException {
+        if (mLineStart) {
+            mLineStart = false;
+        } else {
+            mWriter.write(',');
+        }
+    }
+
+    /**
+     * 把整数写成十进制，scale>0 时在倒数第scale位前插入小数点
+     */
+    private void writeLong(long value, int scale) throws IOException {
+        boolean negative = value < 0;
+        // Long.MIN_VALUE 取反溢出，按无符号处理
+        long remaining = negative ? -value : value;
+        int pos = mNumberBuffer.length;
+        int digits = 0;
+        do {
+            if (scale > 0 && digits == scale) {
+                mNumberBuffer[--pos] = '.';
+            }
+            mNumberBuffer[--pos] = (char) ('0' + Long.remainderUnsigned(remaining, 10));
+            remaining = Long.divideUnsigned(remaining, 10);
+            digits++;
+        } while (remaining != 0 || digits <= scale);
+        if (negative) {
+            mNumberBuffer[--pos] = '-';
+        }
+        mWriter.write(mNumberBuffer, pos, mNumberBuffer.length - pos);
+    }
+
+    private static boolean needsQuote(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
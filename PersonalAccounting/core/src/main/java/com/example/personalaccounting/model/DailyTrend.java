@@ -0,0 +1,54 @@
+package com.example.personalaccounting.model;
+
+/**
+ * 按日趋势数据
+ * <p>
+ * 区间内每天一个值（没有账单的日期为0），下标0对应开始日期。
+ * 由一次 GROUP BY date 查询填充，供统计页趋势折线使用。
+ * </p>
+ */
+public class DailyTrend {
+    // 开始日期对应的纪元日
+    private final long startEpochDay;
+    // 每日合计
+    private final double[] values;
+    // 区间内单日最大值
+    private double maxValue;
+
+    public DailyTrend(long startEpochDay, int days) {
+        this.startEpochDay = startEpochDay;
+        this.values = new double[Math.max(days, 0)];
+    }
+
+    /**
+     * 写入某天的合计
+     * @param epochDay 纪元日
+     * @param value 当天合计
+     */
+    public void setValue(long epochDay, double value) {
+        int index = (int) (epochDay - startEpochDay);
+        if (index < 0 || index >= values.length) {
+            return;
+        }
+        values[index] = value;
+        if (value > maxValue) {
+            maxValue = value;
+        }
+    }
+
+    public long getStartEpochDay() {
+        return startEpochDay;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public double getMaxValue() {
+        return maxValue;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.personalaccounting.model;
+
+/**
+ * 统计日期区间
+ * <p>
+ * 以纪元日保存起止日期（均包含），前后翻页只做整数加减。
+ * 查询用的 yyyy-MM-dd / yyyy-MM / yyyy 字符串和显示文字在第一次使用时生成并缓存，
+ * 同一个区间对象反复取值不会重复格式化。
+ * </p>
+ */
+public final class DateRange {
+    public static final int DIMENSION_WEEK = 1;
+    public static final int DIMENSION_MONTH = 2;
+    public static final int DIMENSION_YEAR = 3;
+
+    private final int dimension;
+    private final long startEpochDay;
+    private final long endEpochDay;
+    // 一周的第一天（ISO：1=周一 … 7=周日），只对周区间有意义
+    private final int firstDayOfWeek;
+
+    private String startDate;
+    private String endDate;
+    private String label;
+
+    private DateRange(int dimension, long startEpochDay, long endEpochDay, int firstDayOfWeek) {
+        this.dimension = dimension;
+        this.startEpochDay = startEpochDay;
+        this.endEpochDay = endEpochDay;
+        this.firstDayOfWeek = firstDayOfWeek;
+    }
+
+    /**
+     * 包含指定日期的周
+     * @param epochDay 纪元日
+     * @param firstDayOfWeek 一周的第一天（ISO：1=周一 … 7=周日）
+     */
+    public static DateRange weekOf(long epochDay, int firstDayOfWeek) {
+        int offset = Math.floorMod(EpochDays.dayOfWeek(epochDay) - firstDayOfWeek, 7);
+        long start = epochDay - offset;
+        return new DateRange(DIMENSION_WEEK, start, start + 6, firstDayOfWeek);
+    }
+
+    /**
+     * 指定月份
+     * @param year 年
+     * @param month 月（1-12）
+     */
+    public static DateRange monthOf(int year, int month) {
+        long start = EpochDays.of(year, month, 1);
+        return new DateRange(DIMENSION_MONTH, start, start + EpochDays.lengthOfMonth(year, month) - 1, 1);
+    }
+
+    public static DateRange yearOf(int year) {
+        long start = EpochDays.of(year, 1, 1);
+        return new DateRange(DIMENSION_YEAR, start, EpochDays.of(year, 12, 31), 1);
+    }
+
+    /**
+     * 按维度取包含指定日期的区间
+     * @param dimension 维度（1=周，2=月，3=年）
+     * @param epochDay 纪元日
+     * @param firstDayOfWeek 一周的第一天（ISO：1=周一 … 7=周日）
+     */
+    public static DateRange of(int dimension, long epochDay, int firstDayOfWeek) {
+        switch (dimension) {
+            case DIMENSION_WEEK:
+                return weekOf(epochDay, firstDayOfWeek);
+            case DIMENSION_YEAR:
+                return yearOf(EpochDays.year(epochDay));
+            default:
+                return monthOf(EpochDays.year(epochDay), EpochDays.month(epochDay));
+        }
+    }
+
+    /**
+     * 相邻区间
+     * @param delta -1=上一个，1=下一个
+     */
+    public DateRange shift(int delta) {
+        switch (dimension) {
+            case DIMENSION_WEEK:
+                return new DateRange(DIMENSION_WEEK, startEpochDay + 7L * delta, endEpochDay + 7L * delta, firstDayOfWeek);
+            case DIMENSION_YEAR:
+                return yearOf(getYear() + delta);
+            default:
+                int monthIndex = getYear() * 12 + EpochDays.month(startEpochDay) - 1 + delta;
+                return monthOf(Math.floorDiv(monthIndex, 12), Math.floorMod(monthIndex, 12) + 1);
+        }
+    }
+
+    public DateRange previous() {
+        return shift(-1);
+    }
+
+    public DateRange next() {
+        return shift(1);
+    }
+
+    public boolean contains(long epochDay) {
+        return epochDay >= startEpochDay && epochDay <= endEpochDay;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public long getStartEpochDay() {
+        return startEpochDay;
+    }
+
+    public long getEndEpochDay() {
+        return endEpochDay;
+    }
+
+    public int getDays() {
+        return (int) (endEpochDay - startEpochDay + 1);
+    }
+
+    public int getYear() {
+        return EpochDays.year(startEpochDay);
+    }
+
+    /**
+     * 开始日期
+     * @return yyyy-MM-dd
+     */
+    public String getStartDate() {
+        if (startDate == null) {
+            startDate = EpochDays.format(startEpochDay);
+        }
+        return startDate;
+    }
+
+    /**
+     * 结束日期
+     * @return yyyy-MM-dd
+     */
+    public String getEndDate() {
+        if (endDate == null) {
+            endDate = EpochDays.format(endEpochDay);
+        }
+        return endDate;
+    }
+
+    /**
+     * 月份值，用于月统计查询
+     * @return yyyy-MM
+     */
+    public String getMonthValue() {
+        return getStartDate().substring(0, 7);
+    }
+
+    /**
+     * 年份值，用于年统计查询
+     * @return yyyy
+     */
+    public String getYearValue() {
+        return getStartDate().substring(0, 4);
+    }
+
+    /**
+     * 显示文字：周为"M月d日 ~ M月d日"，月为"yyyy年M月"，年为"yyyy年"
+     */
+    public String getLabel() {
+        if (label == null) {
+            StringBuilder builder = new StringBuilder(16);
+            switch (dimension) {
+                case DIMENSION_WEEK:
+                    builder.append(EpochDays.month(startEpochDay)).append('月')
+                            .append(EpochDays.dayOfMonth(startEpochDay)).append("日 ~ ")
+                            .append(EpochDays.month(endEpochDay)).append('月')
+                            .append(EpochDays.dayOfMonth(endEpochDay)).append('日');
+                    break;
+                case DIMENSION_YEAR:
+                    builder.append(getYear()).append('年');
+                    break;
+                default:
+                    builder.append(getYear()).append('年')
+                            .append(EpochDays.month(startEpochDay)).append('月');
+                    break;
+            }
+            label = builder.toString();
+        }
+        return label;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DateRange)) {
+            return false;
+        }
+        DateRange other = (DateRange) o;
+        return dimension == other.dimension && startEpochDay == other.startEpochDay && endEpochDay == other.endEpochDay;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * dimension + Long.hashCode(startEpochDay)) + Long.hashCode(endEpochDay);
+    }
+
+    @Override
+    public String toString() {
+        return getStartDate() + "~" + getEndDate();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.personalaccounting.model;
+
+/**
+ * 导入去重索引
+ * <p>
+ * 以 (日期, 金额, 收支类型, 备注) 的64位哈希为键、已有条数为值的开放寻址哈希表，
+ * 只保存基本类型数组，每条已有账单约占16字节。
+ * 同一天同金额同备注的多条账单按条数匹配：文件里第N条相同记录只有在库里也有N条时才算重复。
+ * </p>
+ */
+public class DuplicateIndex {
+    // 0 作为空槽标记，真实哈希为0时改写为1
+    private static final long EMPTY = 0L;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long[] mKeys;
+    private int[] mCounts;
+    private int mSize;
+    private int mMask;
+
+    public DuplicateIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        mKeys = new long[capacity];
+        mCounts = new int[capacity];
+        mMask = capacity - 1;
+    }
+
+    /**
+     * 计算账单去重键
+     * @param date 日期（yyyy-MM-dd格式）
+     * @param cents 金额（分）
+     * @param billType 账单类型（0=支出，1=收入）
+     * @param remark 备注，可为null
+     */
+    public static long key(String date, long cents, int billType, String remark) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < date.length(); i++) {
+            hash = (hash ^ date.charAt(i)) * FNV_PRIME;
+        }
+        hash = (hash ^ cents) * FNV_PRIME;
+        hash = (hash ^ billType) * FNV_PRIME;
+        if (remark != null) {
+            for (int i = 0; i < remark.length(); i++) {
+                hash = (hash ^ remark.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return hash == EMPTY ? 1L : hash;
+    }
+
+    /**
+     * 计算账单去重键，金额按分四舍五入
+     */
+    public static long key(Bill bill) {
+        return key(bill.getDate(), Math.round(bill.getAmount() * 100), bill.getBillType(), bill.getRemark());
+    }
+
+    /**
+     * 记录一条已有账单
+     */
+    public void add(long key) {
+        if ((mSize + 1) * 2 > mKeys.length) {
+            resize();
+        }
+        int slot = slotOf(key);
+        if (mKeys[slot] == EMPTY) {
+            mKeys[slot] = key;
+            mSize++;
+        }
+        mCounts[slot]++;
+    }
+
+    /**
+     * 匹配一条导入记录，匹配成功时消耗一次计数
+     * @return 是否为重复记录
+     */
+    public boolean consume(long key) {
+        int slot = slotOf(key);
+        if (mKeys[slot] == EMPTY || mCounts[slot] == 0) {
+            return false;
+        }
+        mCounts[slot]--;
+        return true;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    private int slotOf(long key) {
+        int slot = (int) (key ^ (key >>> 32)) & mMask;
+        while (mKeys[slot] != EMPTY && mKeys[slot] != key) {
+            slot = (slot + 1) & mMask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = mKeys;
+        int[] oldCounts = mCounts;
+        mKeys = new long[oldKeys.length * 2];
+        mCounts = new int[oldKeys.length * 2];
+        mMask = mKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                mKeys[slot] = oldKeys[i];
+                mCounts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
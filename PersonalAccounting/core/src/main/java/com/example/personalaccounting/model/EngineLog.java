@@ -0,0 +1,156 @@
+package com.example.personalaccounting.model;
+
+/**
+ * 引擎层的日志出口
+ * <p>
+ * core 模块不依赖 Android，引擎里的日志先交给这里，由应用启动时通过 {@link #setSink(Sink, int)}
+ * 接到 android.util.Log。没有设置时丢弃，纯 JVM 的测试和基准不会输出日志。
+ * 级别取值与 android.util.Log 相同。
+ * </p>
+ * <p>
+ * 与 {@code AppLog} 一样用 {} 占位，先按设置出口时给定的级别判断，低于该级别或没有出口时
+ * 直接返回，参数不会被拼接。
+ * </p>
+ */
+public final class EngineLog {
+    public static final int DEBUG = 3;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    // 没有出口时的级别，任何日志都不输出
+    private static final int SILENT = Integer.MAX_VALUE;
+
+    /**
+     * 日志的实际输出
+     */
+    public interface Sink {
+        void println(int priority, String tag, String message);
+    }
+
+    private static volatile Sink sSink;
+    private static volatile int sLevel = SILENT;
+
+    private EngineLog() {
+    }
+
+    /**
+     * @param sink 日志出口，null表示丢弃
+     * @param level 输出的最低级别，通常与出口自身的级别一致
+     */
+    public static void setSink(Sink sink, int level) {
+        // 先关闭再换出口，并发的日志调用不会用新级别写到旧出口
+        sLevel = SILENT;
+        sSink = sink;
+        if (sink != null) {
+            sLevel = level;
+        }
+    }
+
+    /**
+     * @return 指定级别的日志是否会输出
+     */
+    public static boolean isLoggable(int priority) {
+        return priority >= sLevel;
+    }
+
+    public static void d(String tag, String message) {
+        if (isLoggable(DEBUG)) {
+            println(DEBUG, tag, message);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg) {
+        if (isLoggable(DEBUG)) {
+            println(DEBUG, tag, format(format, arg));
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        if (isLoggable(DEBUG)) {
+            println(DEBUG, tag, format(format, arg1, arg2));
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(DEBUG)) {
+            println(DEBUG, tag, format(format, arg1, arg2, arg3));
+        }
+    }
+
+    public static void d(String tag, String format, Object... args) {
+        if (isLoggable(DEBUG)) {
+            println(DEBUG, tag, format(format, args));
+        }
+    }
+
+    public static void w(String tag, String message) {
+        if (isLoggable(WARN)) {
+            println(WARN, tag, message);
+        }
+    }
+
+    public static void w(String tag, String format, Object arg) {
+        if (isLoggable(WARN)) {
+            println(WARN, tag, format(format, arg));
+        }
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2) {
+        if (isLoggable(WARN)) {
+            println(WARN, tag, format(format, arg1, arg2));
+        }
+    }
+
+    public static void w(String tag, String format, Object... args) {
+        if (isLoggable(WARN)) {
+            println(WARN, tag, format(format, args));
+        }
+    }
+
+    public static void e(String tag, String message) {
+        if (isLoggable(ERROR)) {
+            println(ERROR, tag, message);
+        }
+    }
+
+    public static void e(String tag, String format, Object arg) {
+        if (isLoggable(ERROR)) {
+            println(ERROR, tag, format(format, arg));
+        }
+    }
+
+    public static void e(String tag, String format, Object arg1, Object arg2) {
+        if (isLoggable(ERROR)) {
+            println(ERROR, tag, format(format, arg1, arg2));
+        }
+    }
+
+    public static void e(String tag, String format, Object... args) {
+        if (isLoggable(ERROR)) {
+            println(ERROR, tag, format(format, args));
+        }
+    }
+
+    /**
+     * 依次用参数替换格式串中的 {}，参数多于占位符时忽略多余的
+     */
+    static String format(String format, Object... args) {
+        StringBuilder builder = new StringBuilder(format.length() + 16 * args.length);
+        int from = 0;
+        for (Object arg : args) {
+            int index = format.indexOf("{}", from);
+            if (index < 0) {
+                break;
+            }
+            builder.append(format, from, index).append(arg);
+            from = index + 2;
+        }
+        return builder.append(format, from, format.length()).toString();
+    }
+
+    private static void println(int priority, String tag, String message) {
+        Sink sink = sSink;
+        if (sink != null) {
+            sink.println(priority, tag, message);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.personalaccounting.model;
+
+import java.util.Calendar;
+
+/**
+ * 纪元日（1970-01-01起的天数）换算工具
+ * <p>
+ * 账单日期统一存成 yyyy-MM-dd 字符串，按天做区间运算时换算成纪元日整数，
+ * 只用整数运算，不创建Calendar/SimpleDateFormat，也不受时区和夏令时影响。
+ * </p>
+ */
+public final class EpochDays {
+
+    private EpochDays() {
+    }
+
+    /**
+     * 公历日期转纪元日
+     * @param year 年
+     * @param month 月（1-12）
+     * @param day 日（1-31）
+     * @return 纪元日
+     */
+    public static long of(int year, int month, int day) {
+        // Howard Hinnant 的 days_from_civil 算法
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int mp = (month + 9) % 12;
+        int doy = (153 * mp + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468;
+    }
+
+    /**
+     * 本地时区的今天
+     * @return 纪元日
+     */
+    public static long today() {
+        Calendar calendar = Calendar.getInstance();
+        return of(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * 解析 yyyy-MM-dd 字符串为纪元日
+     * @param date 日期字符串
+     * @return 纪元日
+     */
+    public static long parse(String date) {
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        return of(year, month, day);
+    }
+
+    /**
+     * 纪元日格式化为 yyyy-MM-dd 字符串
+     * @param epochDay 纪元日
+     * @return 日期字符串
+     */
+    public static String format(long epochDay) {
+        long packed = toCivil(epochDay);
+        int year = (int) (packed >> 9);
+        int month = (int) ((packed >> 5) & 0xF);
+        int day = (int) (packed & 0x1F);
+        char[] chars = new char[10];
+        chars[0] = (char) ('0' + year / 1000 % 10);
+        chars[1] = (char) ('0' + year / 100 % 10);
+        chars[2] = (char) ('0' + year / 10 % 10);
+        chars[3] = (char) ('0' + year % 10);
+        chars[4] = '-';
+        chars[5] = (char) ('0' + month / 10);
+        chars[6] = (char) ('0' + month % 10);
+        chars[7] = '-';
+        chars[8] = (char) ('0' + day / 10);
+        chars[9] = (char) ('0' + day % 10);
+        return new String(chars);
+    }
+
+    public static int year(long epochDay) {
+        return (int) (toCivil(epochDay) >> 9);
+    }
+
+    public static int month(long epochDay) {
+        return (int) ((toCivil(epochDay) >> 5) & 0xF);
+    }
+
+    public static int dayOfMonth(long epochDay) {
+        return (int) (toCivil(epochDay) & 0x1F);
+    }
+
+    /**
+     * 星期几
+     * @param epochDay 纪元日
+     * @return 1=周一 … 7=周日（ISO-8601）
+     */
+    public static int dayOfWeek(long epochDay) {
+        // 1970-01-01 是周四
+        return (int) Math.floorMod(epochDay + 3, 7L) + 1;
+    }
+
+    /**
+     * 指定月份的天数
+     * @param year 年
+     * @param month 月（1-12）
+     * @return 天数
+     */
+    public static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    public static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+    /**
+     * 纪元日转公历，结果打包为 year<<9 | month<<5 | day
+     */
+    private static long toCivil(long epochDay) {
+        long z = epochDay + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long y = yoe + era * 400;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long d = doy - (153 * mp + 2) / 5 + 1;
+        long m = mp < 10 ? mp + 3 : mp - 9;
+        if (m <= 2) {
+            y++;
+        }
+        return (y << 9) | (m << 5) | d;
+    }
+
+    private static int digits(String s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.personalaccounting.model;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按页面和交互分组的帧耗时统计
+ * <p>
+ * 每一帧记为（页面，交互）下的一次耗时：超过当前刷新率一帧预算的算慢帧，超过
+ * {@link #FROZEN_FRAME_NANOS} 的算冻结帧（冻结帧同时也是慢帧），耗时分布用 {@link LatencyHistogram}。
+ * 没有进行中的交互时交互记为 {@link #INTERACTION_IDLE}，主要是数据加载后的重绘。
+ * </p>
+ * <p>
+ * 记录不加锁，可在帧回调线程调用；{@link #dumpCsv} 输出固定列的 CSV，便于不同版本之间对比。
+ * </p>
+ */
+public final class FrameStats {
+    // 冻结帧阈值，与 Android vitals 一致
+    public static final long FROZEN_FRAME_NANOS = 700_000_000L;
+    public static final String INTERACTION_IDLE = "静止";
+    public static final String INTERACTION_SCROLL = "滚动";
+    public static final String INTERACTION_TAB_SWITCH = "切换标签";
+    public static final String INTERACTION_PERIOD_CHANGE = "切换区间";
+
+    private final Map<String, Bucket> mBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一帧
+     * @param screen 页面名
+     * @param interaction 交互名，没有交互时传 {@link #INTERACTION_IDLE}
+     * @param durationNanos 这一帧从输入处理到交给合成器的总耗时
+     * @param budgetNanos 当前刷新率下的一帧预算
+     */
+    public void record(String screen, String interaction, long durationNanos, long budgetNanos) {
+        Bucket bucket = bucket(screen, interaction);
+        bucket.durations.recordNanos(durationNanos);
+        if (durationNanos > budgetNanos) {
+            bucket.slow.increment();
+        }
+        if (durationNanos > FROZEN_FRAME_NANOS) {
+            bucket.frozen.increment();
+        }
+    }
+
+    private Bucket bucket(String screen, String interaction) {
+        String key = screen + '\u0000' + interaction;
+        Bucket bucket = mBuckets.get(key);
+        if (bucket == null) {
+            bucket = mBuckets.computeIfAbsent(key, k -> new Bucket(screen, interaction));
+        }
+        return bucket;
+    }
+
+    /**
+     * @return 各分组的统计，按页面、交互排序
+     */
+    public List<Bucket> getBuckets() {
+        List<Bucket> buckets = new ArrayList<>(mBuckets.values());
+        buckets.sort((a, b) -> {
+            int result = a.screen.compareTo(b.screen);
+            return result != 0 ? result : a.interaction.compareTo(b.interaction);
+        });
+        return buckets;
+    }
+
+    /**
+     * 清空所有分组
+     */
+    public void reset() {
+        mBuckets.clear();
+    }
+
+    /**
+     * 输出文本报告：各页面、交互的帧数、慢帧率、冻结帧数和耗时分位数
+     */
+    public void dump(PrintWriter writer) {
+        List<Bucket> buckets = getBuckets();
+        writer.printf(Locale.ROOT, "帧耗时：共 %d 组%n", buckets.size());
+        writer.printf(Locale.ROOT, "  %-8s %-8s %7s %6s %7s %6s %8s %8s %8s %8s%n",
+                "页面", "交互", "帧数", "慢帧", "慢帧率", "冻结", "p50", "p90", "p99", "最大");
+        for (Bucket bucket : buckets) {
+            long frames = bucket.getFrames();
+            writer.printf(Locale.ROOT, "  %-8s %-8s %7d %6d %7s %6d %8s %8s %8s %8s%n",
+                    bucket.screen, bucket.interaction, frames, bucket.getSlow(),
+                    frames == 0 ? "-" : String.format(Locale.ROOT, "%.1f%%", bucket.getSlowRatio() * 100),
+                    bucket.getFrozen(),
+                    formatMillis(bucket.durations.getPercentileMicros(50)),
+                    formatMillis(bucket.durations.getPercentileMicros(90)),
+                    formatMillis(bucket.durations.getPercentileMicros(99)),
+                    formatMillis(bucket.durations.getMaxMicros()));
+        }
+    }
+
+    /**
+     * 输出 CSV，第一行为表头，耗时单位为微秒
+     */
+    public void dumpCsv(PrintWriter writer) {
+        writer.println("screen,interaction,frames,slow,frozen,p50_us,p90_us,p99_us,max_us");
+        for (Bucket bucket : getBuckets()) {
+            writer.printf(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%d,%d,%d%n",
+                    bucket.screen, bucket.interaction, bucket.getFrames(), bucket.getSlow(), bucket.getFrozen(),
+                    bucket.durations.getPercentileMicros(50),
+                    bucket.durations.getPercentileMicros(90),
+                    bucket.durations.getPercentileMicros(99),
+                    bucket.durations.getMaxMicros());
+        }
+    }
+
+    /**
+     * @return {@link #dump} 的文本
+     */
+    public String report() {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        dump(writer);
+        writer.flush();
+        return out.toString();
+    }
+
+    /**
+     * @return {@link #dumpCsv} 的文本
+     */
+    public String csv() {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        dumpCsv(writer);
+        writer.flush();
+        return out.toString();
+    }
+
+    private static String formatMillis(long micros) {
+        return String.format(Locale.ROOT, "%.1fms", micros / 1000.0);
+    }
+
+    /**
+     * 一个（页面，交互）分组的累计统计，各字段独立累加，读取时不保证彼此一致
+     */
+    public static final class Bucket {
+        private final String screen;
+        private final String interaction;
+        private final LatencyHistogram durations = new LatencyHistogram();
+        private final LongAdder slow = new LongAdder();
+        private final LongAdder frozen = new LongAdder();
+
+        Bucket(String screen, String interaction) {
+            this.screen = screen;
+            this.interaction = interaction;
+        }
+
+        public String getScreen() {
+            return screen;
+        }
+
+        public String getInteraction() {
+            return interaction;
+        }
+
+        public LatencyHistogram getDurations() {
+            return durations;
+        }
+
+        public long getFrames() {
+            return durations.getCount();
+        }
+
+        public long getSlow() {
+            return slow.sum();
+        }
+
+        public long getFrozen() {
+            return frozen.sum();
+        }
+
+        /**
+         * @return 慢帧占比，0～1，没有帧时为0
+         */
+        public double getSlowRatio() {
+            long frames = getFrames();
+            return frames == 0 ? 0 : (double) getSlow() / frames;
+        }
+    }
+}
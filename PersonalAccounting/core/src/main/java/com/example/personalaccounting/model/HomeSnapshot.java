@@ -0,0 +1,193 @@
+package com.example.personalaccounting.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 首页最近一次显示的内容：当日收支和最近账单
+ * <p>
+ * 冷启动时先同步读出快照画首页，不等数据库打开和查询，新数据到了再替换。
+ * 文件格式：
+ * <pre>
+ * 文件头   "PAHS" + 版本号(1字节) + 载荷长度(4字节) + CRC32(4字节)
+ * 载荷     保存时间(8字节) + 日期 + 天数(4字节) + 收入、支出、结余(各8字节)
+ *          + 账单数(4字节) + 每条账单的编号、分类、金额、收支类型、备注、日期、创建时间
+ * </pre>
+ * 字符串按 DataOutputStream 的 UTF 编码，前面加1字节标记是否为null。
+ * 最多保存 {@link #MAX_BILLS} 条账单，足够铺满首屏。
+ * </p>
+ */
+public final class HomeSnapshot {
+    static final byte[] MAGIC = {'P', 'A', 'H', 'S'};
+    static final int VERSION = 1;
+    // 文件头长度：MAGIC、版本号、载荷长度、CRC32
+    private static final int HEADER_SIZE = 13;
+    public static final int MAX_BILLS = 50;
+
+    private final long savedAt;
+    private final String date;
+    private final int days;
+    private final double income;
+    private final double expense;
+    private final double balance;
+    private final List<Bill> bills;
+
+    /**
+     * @param savedAt 保存时间（毫秒）
+     * @param date 当日收支对应的日期（yyyy-MM-dd）
+     * @param days 最近账单的天数筛选
+     * @param bills 最近账单，超过 {@link #MAX_BILLS} 条时只保留前面的
+     */
+    public HomeSnapshot(long savedAt, String date, int days, double income, double expense, double balance,
+                        List<Bill> bills) {
+        this.savedAt = savedAt;
+        this.date = date;
+        this.days = days;
+        this.income = income;
+        this.expense = expense;
+        this.balance = balance;
+        this.bills = Collections.unmodifiableList(
+                new ArrayList<>(bills.size() > MAX_BILLS ? bills.subList(0, MAX_BILLS) : bills));
+    }
+
+    public long getSavedAt() {
+        return savedAt;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public double getIncome() {
+        return income;
+    }
+
+    public double getExpense() {
+        return expense;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public List<Bill> getBills() {
+        return bills;
+    }
+
+    /**
+     * @return 序列化后的完整文件内容
+     */
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(256 + bills.size() * 64);
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeLong(savedAt);
+            writeString(out, date);
+            out.writeInt(days);
+            out.writeDouble(income);
+            out.writeDouble(expense);
+            out.writeDouble(balance);
+            out.writeInt(bills.size());
+            for (Bill bill : bills) {
+                out.writeInt(bill.getId());
+                writeString(out, bill.getType());
+                out.writeDouble(bill.getAmount());
+                out.writeInt(bill.getBillType());
+                writeString(out, bill.getRemark());
+                writeString(out, bill.getDate());
+                out.writeLong(bill.getCreateTime());
+            }
+            out.flush();
+            byte[] body = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(body);
+
+            ByteArrayOutputStream file = new ByteArrayOutputStream(body.length + HEADER_SIZE);
+            DataOutputStream header = new DataOutputStream(file);
+            header.write(MAGIC);
+            header.writeByte(VERSION);
+            header.writeInt(body.length);
+            header.writeInt((int) crc.getValue());
+            header.write(body);
+            header.flush();
+            return file.toByteArray();
+        } catch (IOException e) {
+            // 只写内存，不会发生
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 解析快照文件
+     * @param data 文件内容
+     * @throws IOException 文件头、版本或校验和不对，或内容被截断
+     */
+    public static HomeSnapshot fromBytes(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("不是首页快照文件");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("不支持的快照版本: " + version);
+        }
+        int length = in.readInt();
+        int expectedCrc = in.readInt();
+        if (length < 0 || length != data.length - HEADER_SIZE) {
+            throw new IOException("快照长度不符: " + length);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, HEADER_SIZE, length);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("快照校验失败");
+        }
+
+        long savedAt = in.readLong();
+        String date = readString(in);
+        int days = in.readInt();
+        double income = in.readDouble();
+        double expense = in.readDouble();
+        double balance = in.readDouble();
+        int count = in.readInt();
+        if (count < 0 || count > MAX_BILLS) {
+            throw new IOException("快照账单数不对: " + count);
+        }
+        List<Bill> bills = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = in.readInt();
+            String type = readString(in);
+            double amount = in.readDouble();
+            int billType = in.readInt();
+            String remark = readString(in);
+            String billDate = readString(in);
+            long createTime = in.readLong();
+            bills.add(new Bill(id, type, amount, billType, remark, billDate, createTime));
+        }
+        return new HomeSnapshot(savedAt, date, days, income, expense, balance, bills);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.personalaccounting.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * 通过HTTP POST与自建账本服务器交换同步消息
+ * <p>
+ * 每次请求把消息字节作为请求体发往 {@code <服务器地址>/sync}，响应体即应答消息。
+ * 消息本身已经gzip压缩，这里不再声明Content-Encoding。
+ * </p>
+ */
+public class HttpSyncTransport implements SyncTransport {
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+
+    private final URL mUrl;
+
+    /**
+     * @param serverUrl 服务器地址，例如 https://ledger.example.com
+     */
+    public HttpSyncTransport(String serverUrl) throws IOException {
+        String base = serverUrl.endsWith("/") ? serverUrl.substring(0, serverUrl.length() - 1) : serverUrl;
+        mUrl = new URL(base + "/sync");
+    }
+
+    @Override
+    public byte[] exchange(byte[] request) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) mUrl.openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(request.length);
+            connection.setRequestProperty("Content-Type", "application/octet-stream");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(request);
+            }
+            int code = connection.getResponseCode();
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException("服务器返回错误：" + code);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream response = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    response.write(buffer, 0, read);
+                }
+                return response.toByteArray();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.personalaccounting.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数分桶延迟直方图
+ * <p>
+ * 按 HdrHistogram 的分桶方式以微秒计：0～15 微秒每个值一个桶，之后每个 2 的幂区间再均分成
+ * 16 个子桶，分位数的相对误差不超过 1/16，桶数固定为 592 个，可记录到约 12 天。
+ * 记录只做几次原子加，任意线程可以并发调用；读取分位数时把桶数组复制一遍再累加，不阻塞记录，
+ * 读到的是近似一致的快照。
+ * </p>
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // 最高位不超过第39位，即约 2^40 微秒
+    private static final int MAX_MAGNITUDE = 39;
+    private static final long MAX_MICROS = (1L << (MAX_MAGNITUDE + 1)) - 1;
+    private static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder mTotalMicros = new LongAdder();
+    private final AtomicLong mMaxMicros = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     * @param nanos 纳秒，负数按0计
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.min(Math.max(nanos, 0) / 1000, MAX_MICROS);
+        mCounts.incrementAndGet(bucketOf(micros));
+        mTotalMicros.add(micros);
+        long max = mMaxMicros.get();
+        while (micros > max && !mMaxMicros.compareAndSet(max, micros)) {
+            max = mMaxMicros.get();
+        }
+    }
+
+    /**
+     * @return 记录次数
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += mCounts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return 最大耗时（微秒），精确值
+     */
+    public long getMaxMicros() {
+        return mMaxMicros.get();
+    }
+
+    /**
+     * @return 平均耗时（微秒），没有记录时为0
+     */
+    public double getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) mTotalMicros.sum() / count;
+    }
+
+    /**
+     * @return 耗时总和（微秒）
+     */
+    public long getTotalMicros() {
+        return mTotalMicros.sum();
+    }
+
+    /**
+     * 分位数，取所在桶的上界，不超过最大值
+     * @param percentile 0～100
+     * @return 耗时（微秒），没有记录时为0
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mCounts.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     * 清空所有记录，与并发的记录之间不保证原子性
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mTotalMicros.reset();
+        mMaxMicros.set(0);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int sub = (int) (micros >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        long lower = (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.personalaccounting.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 账本摘要（按月分桶的Merkle树）
+ * <p>
+ * 每条账单按内容（日期、收支、分类、金额、备注、创建时间）算一个64位哈希，
+ * 月摘要是当月所有账单哈希之和（模2^64），与顺序无关，增删一条只需加减一次。
+ * 月摘要按年合成年摘要，年摘要再合成根摘要。比较两份账本时先比根，
+ * 不同再逐年、逐月向下找，只比较有差异的分支，最后得到需要传输的月份。
+ * </p>
+ * <p>
+ * 哈希不包含本地ID和同步编号，设备、备份文件和服务器上的同一份账本摘要相同。
+ * </p>
+ */
+public final class LedgerDigest {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // 月份键 yyyyMM，升序
+    private final int[] mMonths;
+    private final long[] mMonthDigests;
+    private final int[] mMonthCounts;
+    // 年份及其在月份数组中的起止位置
+    private final int[] mYears;
+    private final int[] mYearStarts;
+    private final long[] mYearDigests;
+    private final long mRoot;
+    private final int mBillCount;
+
+    private LedgerDigest(int[] months, long[] monthDigests, int[] monthCounts) {
+        mMonths = months;
+        mMonthDigests = monthDigests;
+        mMonthCounts = monthCounts;
+
+        int yearCount = 0;
+        for (int i = 0; i < months.length; i++) {
+            if (i == 0 || months[i] / 100 != months[i - 1] / 100) {
+                yearCount++;
+            }
+        }
+        mYears = new int[yearCount];
+        mYearStarts = new int[yearCount + 1];
+        mYearDigests = new long[yearCount];
+        int count = 0;
+        int y = -1;
+        for (int i = 0; i < months.length; i++) {
+            count += monthCounts[i];
+            if (i == 0 || months[i] / 100 != months[i - 1] / 100) {
+                y++;
+                mYears[y] = months[i] / 100;
+                mYearStarts[y] = i;
+                mYearDigests[y] = FNV_OFFSET;
+            }
+            mYearDigests[y] = combine(mYearDigests[y], months[i], monthDigests[i], monthCounts[i]);
+        }
+        mYearStarts[yearCount] = months.length;
+        mBillCount = count;
+
+        long root = FNV_OFFSET;
+        for (int i = 0; i < yearCount; i++) {
+            root = combine(root, mYears[i], mYearDigests[i], mYearStarts[i + 1] - mYearStarts[i]);
+        }
+        mRoot = root;
+    }
+
+    /**
+     * 单条账单的内容哈希
+     */
+    public static long rowHash(long epochDay, int billType, String category, long cents, String remark, long createTime) {
+        long h = FNV_OFFSET;
+        h = (h ^ epochDay) * FNV_PRIME;
+        h = (h ^ billType) * FNV_PRIME;
+        h = (h ^ cents) * FNV_PRIME;
+        h = (h ^ createTime) * FNV_PRIME;
+        h = hashString(h, category);
+        // null和空备注区分开
+        h = remark == null ? (h ^ 0xFF) * FNV_PRIME : hashString(h, remark);
+        return mix(h);
+    }
+
+    /**
+     * 按账单逐条累加，用于从备份文件等外部来源计算摘要
+     */
+    public static final class Builder {
+        private final TreeMap<Integer, long[]> mBuckets = new TreeMap<>();
+        private int mLastMonth = -1;
+        private long[] mLastBucket;
+
+        public Builder addRow(long epochDay, int billType, String category, long cents, String remark, long createTime) {
+            int month = EpochDays.year(epochDay) * 100 + EpochDays.month(epochDay);
+            // 输入大多按日期有序，连续同月时不查表
+            if (month != mLastMonth) {
+                mLastMonth = month;
+                mLastBucket = mBuckets.get(month);
+                if (mLastBucket == null) {
+                    mLastBucket = new long[2];
+                    mBuckets.put(month, mLastBucket);
+                }
+            }
+            mLastBucket[0] += rowHash(epochDay, billType, category, cents, remark, createTime);
+            mLastBucket[1]++;
+            return this;
+        }
+
+        /**
+         * 直接加入已算好的月摘要
+         * @param month 月份（yyyy-MM格式）
+         */
+        public Builder addMonth(String month, long digest, int count) {
+            if (count > 0) {
+                mBuckets.put(parseMonth(month), new long[]{digest, count});
+                mLastMonth = -1;
+            }
+            return this;
+        }
+
+        public LedgerDigest build() {
+            int n = mBuckets.size();
+            int[] months = new int[n];
+            long[] digests = new long[n];
+            int[] counts = new int[n];
+            int i = 0;
+            for (Map.Entry<Integer, long[]> entry : mBuckets.entrySet()) {
+                months[i] = entry.getKey();
+                digests[i] = entry.getValue()[0];
+                counts[i] = (int) entry.getValue()[1];
+                i++;
+            }
+            return new LedgerDigest(months, digests, counts);
+        }
+    }
+
+    public long getRoot() {
+        return mRoot;
+    }
+
+    public int getBillCount() {
+        return mBillCount;
+    }
+
+    public int getMonthCount() {
+        return mMonths.length;
+    }
+
+    /**
+     * 找出两份账本内容不同的月份
+     * <p>
+     * 根摘要相同时直接返回；否则只下探摘要不同的年份，比较次数与差异分支数成正比。
+     * </p>
+     * @param other 另一份账本的摘要
+     * @return 不一致的月份（yyyy-MM格式，升序），任一方缺少的月份也算
+     */
+    public List<String> diff(LedgerDigest other) {
+        List<String> months = new ArrayList<>();
+        if (mRoot == other.mRoot) {
+            return months;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < mYears.length || j < other.mYears.length) {
+            int a = i < mYears.length ? mYears[i] : Integer.MAX_VALUE;
+            int b = j < other.mYears.length ? other.mYears[j] : Integer.MAX_VALUE;
+            if (a < b) {
+                addMonths(months, this, i++);
+            } else if (b < a) {
+                addMonths(months, other, j++);
+            } else {
+                if (mYearDigests[i] != other.mYearDigests[j]) {
+                    diffYear(months, other, i, j);
+                }
+                i++;
+                j++;
+            }
+        }
+        return months;
+    }
+
+    private void diffYear(List<String> months, LedgerDigest other, int year, int otherYear) {
+        int i = mYearStarts[year];
+        int j = other.mYearStarts[otherYear];
+        int end = mYearStarts[year + 1];
+        int otherEnd = other.mYearStarts[otherYear + 1];
+        while (i < end || j < otherEnd) {
+            int a = i < end ? mMonths[i] : Integer.MAX_VALUE;
+            int b = j < otherEnd ? other.mMonths[j] : Integer.MAX_VALUE;
+            if (a < b) {
+                months.add(formatMonth(a));
+                i++;
+            } else if (b < a) {
+                months.add(formatMonth(b));
+                j++;
+            } else {
+                if (mMonthDigests[i] != other.mMonthDigests[j] || mMonthCounts[i] != other.mMonthCounts[j]) {
+                    months.add(formatMonth(a));
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private static void addMonths(List<String> months, LedgerDigest digest, int year) {
+        for (int k = digest.mYearStarts[year]; k < digest.mYearStarts[year + 1]; k++) {
+            months.add(formatMonth(digest.mMonths[k]));
+        }
+    }
+
+    private static long combine(long h, int key, long digest, int count) {
+        h = (h ^ key) * FNV_PRIME;
+        h = (h ^ count) * FNV_PRIME;
+        return mix(h ^ digest);
+    }
+
+    private static long hashString(long h, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // 长度作为分隔，避免相邻字段拼接后相同
+        return (h ^ value.length()) * FNV_PRIME;
+    }
+
+    /**
+     * splitmix64 的收尾混合，让求和前的各条哈希分布均匀
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int parseMonth(String month) {
+        return Integer.parseInt(month.substring(0, 4)) * 100 + Integer.parseInt(month.substring(5, 7));
+    }
+
+    private static String formatMonth(int month) {
+        int m = month % 100;
+        return (month / 100) + (m < 10 ? "-0" : "-") + m;
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.personalaccounting.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * 按种子生成合成账本，用于测试、基准和调试菜单
+ * <p>
+ * 同样的参数和种子在任何机器上都生成完全相同的账单。账单数量是精确的，按权重分到每一天：
+ * 每天的权重随机浮动，周末更多；每条账单按分类占比选分类，金额在分类的典型区间内按对数均匀分布，
+ * 一部分带备注。账单按日期、创建时间升序逐条产生，不需要把整个账本放进内存，
+ * 可以分批交给批量插入，也可以直接写成备份文件。
+ * </p>
+ */
+public final class LedgerGenerator implements Iterator<Bill> {
+    /**
+     * 与记账页的类型列表一致
+     */
+    public static final String[] EXPENSE_TYPES = {"餐饮", "水果", "零食", "美妆", "购物", "交通", "娱乐", "其他"};
+    public static final String[] INCOME_TYPES = {"工资", "理财", "兼职", "其他"};
+    private static final int[] EXPENSE_WEIGHTS = {30, 8, 8, 4, 15, 20, 8, 7};
+    private static final int[] INCOME_WEIGHTS = {40, 20, 30, 10};
+    // 各分类的典型金额区间（分），没有列出的分类用 DEFAULT_RANGE
+    private static final Map<String, long[]> EXPENSE_RANGES = new HashMap<>();
+    private static final Map<String, long[]> INCOME_RANGES = new HashMap<>();
+    private static final long[] DEFAULT_RANGE = {100, 50000};
+    private static final Map<String, String[]> REMARKS = new HashMap<>();
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    // 账单的创建时间分布在每天 7:00 之后的 16 个小时内
+    private static final long DAY_START_MILLIS = 7 * 3_600_000L;
+    private static final long DAY_SPAN_MILLIS = 16 * 3_600_000L;
+
+    static {
+        EXPENSE_RANGES.put("餐饮", new long[]{800, 30000});
+        EXPENSE_RANGES.put("水果", new long[]{500, 10000});
+        EXPENSE_RANGES.put("零食", new long[]{300, 5000});
+        EXPENSE_RANGES.put("美妆", new long[]{3000, 100000});
+        EXPENSE_RANGES.put("购物", new long[]{2000, 200000});
+        EXPENSE_RANGES.put("交通", new long[]{200, 15000});
+        EXPENSE_RANGES.put("娱乐", new long[]{1500, 50000});
+        INCOME_RANGES.put("工资", new long[]{500000, 3000000});
+        INCOME_RANGES.put("理财", new long[]{100, 50000});
+        INCOME_RANGES.put("兼职", new long[]{5000, 200000});
+        REMARKS.put("餐饮", new String[]{"早饭", "午饭", "晚饭", "外卖", "和同事聚餐", "咖啡"});
+        REMARKS.put("水果", new String[]{"苹果", "西瓜", "超市水果"});
+        REMARKS.put("零食", new String[]{"便利店", "奶茶", "饼干"});
+        REMARKS.put("美妆", new String[]{"面霜", "口红", "洗面奶"});
+        REMARKS.put("购物", new String[]{"超市采购", "网购衣服", "日用品", "数码配件"});
+        REMARKS.put("交通", new String[]{"地铁", "打车回家", "公交", "加油", "停车费"});
+        REMARKS.put("娱乐", new String[]{"电影", "游戏充值", "KTV", "视频会员"});
+        REMARKS.put("工资", new String[]{"月薪", "奖金"});
+        REMARKS.put("理财", new String[]{"基金收益", "利息"});
+        REMARKS.put("兼职", new String[]{"设计稿费", "家教"});
+        REMARKS.put("其他", new String[]{"杂项", "红包"});
+    }
+
+    private final long mSeed;
+    private final long mStartEpochDay;
+    private final int mBillCount;
+    private final int mIncomePercent;
+    private final int mRemarkPercent;
+    private final String[] mExpenseTypes;
+    private final int[] mExpenseWeights;
+    private final String[] mIncomeTypes;
+    private final int[] mIncomeWeights;
+    private final Random mRandom;
+    // 每天的账单数
+    private final int[] mDayCounts;
+    private int mDay;
+    private int mIndexInDay;
+    private int mGenerated;
+
+    private LedgerGenerator(Builder builder) {
+        mSeed = builder.seed;
+        mStartEpochDay = builder.startEpochDay;
+        mBillCount = builder.billCount;
+        mIncomePercent = builder.incomePercent;
+        mRemarkPercent = builder.remarkPercent;
+        mExpenseTypes = builder.expenseTypes;
+        mExpenseWeights = builder.expenseWeights;
+        mIncomeTypes = builder.incomeTypes;
+        mIncomeWeights = builder.incomeWeights;
+        mRandom = new Random(builder.seed);
+        mDayCounts = distribute(mRandom, mStartEpochDay, builder.days, mBillCount, builder.weekendPercent);
+    }
+
+    public long getSeed() {
+        return mSeed;
+    }
+
+    /**
+     * @return 总共要生成的账单数
+     */
+    public int getBillCount() {
+        return mBillCount;
+    }
+
+    /**
+     * @return 已经生成的账单数
+     */
+    public int getGenerated() {
+        return mGenerated;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return mGenerated < mBillCount;
+    }
+
+    /**
+     * 生成下一条账单，编号从1开始连续递增
+     */
+    @Override
+    public Bill next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        while (mIndexInDay == mDayCounts[mDay]) {
+            mDay++;
+            mIndexInDay = 0;
+        }
+        long epochDay = mStartEpochDay + mDay;
+        int billType = mRandom.nextInt(100) < mIncomePercent ? 1 : 0;
+        String category = billType == 1 ? pick(mIncomeTypes, mIncomeWeights) : pick(mExpenseTypes, mExpenseWeights);
+        long[] range = (billType == 1 ? INCOME_RANGES : EXPENSE_RANGES).getOrDefault(category, DEFAULT_RANGE);
+        long cents = logUniform(range[0], range[1]);
+        String remark = null;
+        if (mRandom.nextInt(100) < mRemarkPercent) {
+            String[] remarks = REMARKS.get(category);
+            remark = remarks != null ? remarks[mRandom.nextInt(remarks.length)] : "";
+        }
+        long createTime = epochDay * MILLIS_PER_DAY + DAY_START_MILLIS
+                + DAY_SPAN_MILLIS * mIndexInDay / mDayCounts[mDay] + mRandom.nextInt(60_000);
+        mIndexInDay++;
+        mGenerated++;
+        return new Bill(mGenerated, category, cents / 100.0, billType, remark, EpochDays.format(epochDay), createTime);
+    }
+
+    /**
+     * 生成接下来的一批账单，用于分批插入
+     * @param max 最多条数
+     * @return 没有剩余时返回空列表
+     */
+    public List<Bill> nextBatch(int max) {
+        List<Bill> batch = new ArrayList<>(Math.min(max, mBillCount - mGenerated));
+        while (batch.size() < max && hasNext()) {
+            batch.add(next());
+        }
+        return batch;
+    }
+
+    /**
+     * 把剩余的账单写成完整备份
+     * @param out 输出流，写完后关闭
+     * @return 写入的行数
+     */
+    public long writeBackup(OutputStream out) throws IOException {
+        try (BillBackupWriter writer = new BillBackupWriter(out)) {
+            while (hasNext()) {
+                writer.write(next());
+            }
+            return writer.finish();
+        }
+    }
+
+    private String pick(String[] types, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int r = mRandom.nextInt(total);
+        for (int i = 0; i < types.length; i++) {
+            r -= weights[i];
+            if (r < 0) {
+                return types[i];
+            }
+        }
+        return types[types.length - 1];
+    }
+
+    private long logUniform(long min, long max) {
+        // StrictMath 在各平台结果一致，保证同一种子生成相同金额
+        double log = StrictMath.log(min) + mRandom.nextDouble() * (StrictMath.log(max) - StrictMath.log(min));
+        return Math.max(1, Math.round(StrictMath.exp(log)));
+    }
+
+    /**
+     * 按每天的权重把账单数分到每一天，总数精确等于 billCount
+     */
+    private static int[] distribute(Random random, long startEpochDay, int days, int billCount, int weekendPercent) {
+        double[] weights = new double[days];
+        double total = 0;
+        for (int i = 0; i < days; i++) {
+            // 6=周六，7=周日
+            boolean weekend = EpochDays.dayOfWeek(startEpochDay + i) >= 6;
+            weights[i] = (0.5 + random.nextDouble()) * (weekend ? weekendPercent : 100);
+            total += weights[i];
+        }
+        int[] counts = new int[days];
+        int assigned = 0;
+        for (int i = 0; i < days; i++) {
+            counts[i] = (int) (billCount * (weights[i] / total));
+            assigned += counts[i];
+        }
+        // 取整剩下的随机补到各天
+        while (assigned < billCount) {
+            counts[random.nextInt(days)]++;
+            assigned++;
+        }
+        return counts;
+    }
+
+    /**
+     * 账本参数构造器
+     */
+    public static final class Builder {
+        private long seed = 1;
+        private long startEpochDay = EpochDays.of(2024, 1, 1);
+        private int days = 366;
+        private int billCount = 10000;
+        private int incomePercent = 10;
+        private int remarkPercent = 40;
+        private int weekendPercent = 150;
+        private String[] expenseTypes = EXPENSE_TYPES;
+        private int[] expenseWeights = EXPENSE_WEIGHTS;
+        private String[] incomeTypes = INCOME_TYPES;
+        private int[] incomeWeights = INCOME_WEIGHTS;
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * 从 startYear 的1月1日开始，连续 years 个整年
+         */
+        public Builder years(int startYear, int years) {
+            long start = EpochDays.of(startYear, 1, 1);
+            return dateRange(start, (int) (EpochDays.of(startYear + years, 1, 1) - start));
+        }
+
+        /**
+         * @param startEpochDay 第一天（纪元日）
+         * @param days 天数
+         */
+        public Builder dateRange(long startEpochDay, int days) {
+            if (days < 1) {
+                throw new IllegalArgumentException("天数必须大于0");
+            }
+            this.startEpochDay = startEpochDay;
+            this.days = days;
+            return this;
+        }
+
+        public Builder billCount(int billCount) {
+            if (billCount < 0) {
+                throw new IllegalArgumentException("账单数不能为负数");
+            }
+            this.billCount = billCount;
+            return this;
+        }
+
+        /**
+         * @param incomePercent 收入账单占的百分比（按条数）
+         */
+        public Builder incomePercent(int incomePercent) {
+            this.incomePercent = clampPercent(incomePercent);
+            return this;
+        }
+
+        /**
+         * @param remarkPercent 带备注的账单占的百分比
+         */
+        public Builder remarkPercent(int remarkPercent) {
+            this.remarkPercent = clampPercent(remarkPercent);
+            return this;
+        }
+
+        /**
+         * @param weekendPercent 周末每天的账单数相对工作日的百分比，默认150
+         */
+        public Builder weekendPercent(int weekendPercent) {
+            this.weekendPercent = Math.max(1, weekendPercent);
+            return this;
+        }
+
+        /**
+         * 支出分类和各自的占比权重
+         */
+        public Builder expenseMix(String[] types, int[] weights) {
+            checkMix(types, weights);
+            this.expenseTypes = types.clone();
+            this.expenseWeights = weights.clone();
+            return this;
+        }
+
+        /**
+         * 收入分类和各自的占比权重
+         */
+        public Builder incomeMix(String[] types, int[] weights) {
+            checkMix(types, weights);
+            this.incomeTypes = types.clone();
+            this.incomeWeights = weights.clone();
+            return this;
+        }
+
+        public LedgerGenerator build() {
+            return new LedgerGenerator(this);
+        }
+
+        private static int clampPercent(int percent) {
+            return Math.max(0, Math.min(100, percent));
+        }
+
+        private static void checkMix(String[] types, int[] weights) {
+            if (types.length == 0 || types.length != weights.length || Arrays.stream(weights).sum() <= 0
+                    || Arrays.stream(weights).anyMatch(weight -> weight < 0)) {
+                throw new IllegalArgumentException("分类和权重不匹配");
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.personalaccounting.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 月历数据
+ * <p>
+ * 保存某个月每天的收支合计（由一次 GROUP BY date 查询得到），用于绘制热力图；
+ * 当月账单明细按需加载后也缓存在这里，点击某一天时直接从内存取，不再查询数据库。
+ * 放进缓存后不再修改，加载明细时用 {@link #withBills} 生成新对象替换缓存项。
+ * </p>
+ */
+public class MonthCalendarData {
+    // 月份，格式：yyyy-MM
+    private final String month;
+    // 每天收入合计，下标为 日-1
+    private final double[] dayIncome = new double[31];
+    // 每天支出合计，下标为 日-1
+    private final double[] dayExpense = new double[31];
+    // 每天账单笔数，下标为 日-1
+    private final int[] dayCount = new int[31];
+    // 当月单日最大支出，用于计算热力强度
+    private double maxDayExpense;
+    // 当月账单明细，未加载时为null
+    private final List<Bill> bills;
+
+    public MonthCalendarData(String month) {
+        this(month, null);
+    }
+
+    private MonthCalendarData(String month, List<Bill> bills) {
+        this.month = month;
+        this.bills = bills;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    /**
+     * 写入某天的合计，供数据库查询时填充
+     * @param day 日（1-31）
+     * @param income 收入合计
+     * @param expense 支出合计
+     * @param count 账单笔数
+     */
+    public void setDayTotals(int day, double income, double expense, int count) {
+        if (day < 1 || day > 31) {
+            return;
+        }
+        dayIncome[day - 1] = income;
+        dayExpense[day - 1] = expense;
+        dayCount[day - 1] = count;
+        if (expense > maxDayExpense) {
+            maxDayExpense = expense;
+        }
+    }
+
+    public double getDayIncome(int day) {
+        return dayIncome[day - 1];
+    }
+
+    public double getDayExpense(int day) {
+        return dayExpense[day - 1];
+    }
+
+    public int getDayCount(int day) {
+        return dayCount[day - 1];
+    }
+
+    public double getMaxDayExpense() {
+        return maxDayExpense;
+    }
+
+    /**
+     * 某天的支出强度，0表示无支出，1表示当月支出最多的一天
+     * @param day 日（1-31）
+     * @return 强度（0~1）
+     */
+    public float getExpenseIntensity(int day) {
+        if (maxDayExpense <= 0) {
+            return 0f;
+        }
+        return (float) (dayExpense[day - 1] / maxDayExpense);
+    }
+
+    public boolean hasBills() {
+        return bills != null;
+    }
+
+    public List<Bill> getBills() {
+        return bills;
+    }
+
+    /**
+     * 复制每天的合计并带上当月明细，原对象不变
+     * @param bills 当月账单明细
+     * @return 带明细的新月历数据
+     */
+    public MonthCalendarData withBills(List<Bill> bills) {
+        MonthCalendarData data = new MonthCalendarData(month, bills);
+        System.arraycopy(dayIncome, 0, data.dayIncome, 0, dayIncome.length);
+        System.arraycopy(dayExpense, 0, data.dayExpense, 0, dayExpense.length);
+        System.arraycopy(dayCount, 0, data.dayCount, 0, dayCount.length);
+        data.maxDayExpense = maxDayExpense;
+        return data;
+    }
+
+    /**
+     * 从已缓存的当月明细中取出某天的账单
+     * @param date 日期，格式：yyyy-MM-dd
+     * @return 当天账单，明细未加载时返回null
+     */
+    public List<Bill> getBillsForDate(String date) {
+        if (bills == null) {
+            return null;
+        }
+        List<Bill> result = new ArrayList<>();
+        for (Bill bill : bills) {
+            if (date.equals(bill.getDate())) {
+                result.add(bill);
+            }
+        }
+        return result;
+    }
+}
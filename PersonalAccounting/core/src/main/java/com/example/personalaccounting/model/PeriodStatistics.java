@@ -0,0 +1,53 @@
+package com.example.personalaccounting.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 统计页一个区间的完整数据
+ * <p>
+ * 收支合计和分类明细一起计算、一起缓存，前后翻页命中缓存时可以一次性渲染。
+ * 创建后不再修改，可以在线程之间共享。
+ * </p>
+ */
+public class PeriodStatistics {
+    private final DateRange range;
+    // 分类明细的账单类型（0=支出，1=收入，-1=不统计分类）
+    private final int categoryBillType;
+    private final double income;
+    private final double expense;
+    private final List<CategoryStatistics> categoryList;
+
+    public PeriodStatistics(DateRange range, int categoryBillType, double income, double expense,
+                            List<CategoryStatistics> categoryList) {
+        this.range = range;
+        this.categoryBillType = categoryBillType;
+        this.income = income;
+        this.expense = expense;
+        this.categoryList = Collections.unmodifiableList(categoryList);
+    }
+
+    public DateRange getRange() {
+        return range;
+    }
+
+    public int getCategoryBillType() {
+        return categoryBillType;
+    }
+
+    public double getIncome() {
+        return income;
+    }
+
+    public double getExpense() {
+        return expense;
+    }
+
+    public double getBalance() {
+        return income - expense;
+    }
+
+    public List<CategoryStatistics> getCategoryList() {
+        return categoryList;
+    }
+}
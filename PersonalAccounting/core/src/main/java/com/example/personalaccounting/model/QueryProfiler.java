@@ -0,0 +1,364 @@
+package com.example.personalaccounting.model;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 数据库查询的耗时统计
+ * <p>
+ * 调用方在每次数据库操作前后调用 {@link #begin()} 和 {@link #end}，按查询形状
+ * （方法名，组合查询再加上条件形状）分别累计耗时直方图、返回行数、扫描行数和主线程调用次数。
+ * 关闭时 begin() 只读一次 volatile 字段，end() 第一行就返回，不取时间也不分配对象。
+ * </p>
+ * <p>
+ * 超过慢查询阈值的调用额外记下线程、行数和 EXPLAIN QUERY PLAN，保留最近 {@value #SLOW_LOG_SIZE} 条。
+ * 同一形状的执行计划只在第一次变慢时取一次，之后复用。执行计划由 {@link Explainer} 提供，
+ * 这里不依赖 SQLite。
+ * </p>
+ */
+public final class QueryProfiler {
+    private static final String TAG = "QueryProfiler";
+    public static final long DEFAULT_SLOW_THRESHOLD_MILLIS = 50;
+    static final int SLOW_LOG_SIZE = 20;
+    // begin() 在关闭时返回的标记值，System.nanoTime() 可能为负，不能用0或-1
+    private static final long DISABLED = Long.MIN_VALUE;
+
+    /**
+     * 取一条 SQL 的执行计划
+     */
+    public interface Explainer {
+        /**
+         * @return EXPLAIN QUERY PLAN 每一行的 detail 列
+         */
+        List<String> explain(String sql, String[] args);
+    }
+
+    private volatile boolean mEnabled;
+    private volatile long mSlowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_THRESHOLD_MILLIS);
+    private volatile Explainer mExplainer;
+    private volatile Thread mMainThread;
+    private final Map<String, ShapeStats> mShapes = new ConcurrentHashMap<>();
+    // 最近的慢查询，新的在前；只在慢路径上加锁
+    private final ArrayDeque<SlowQuery> mSlowQueries = new ArrayDeque<>();
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+        EngineLog.d(TAG, "setEnabled: 查询耗时统计{}", enabled ? "开启" : "关闭");
+    }
+
+    public long getSlowThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(mSlowThresholdNanos);
+    }
+
+    public void setSlowThresholdMillis(long millis) {
+        mSlowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+    }
+
+    public void setExplainer(Explainer explainer) {
+        mExplainer = explainer;
+    }
+
+    /**
+     * 指定主线程，之后在主线程上的调用单独计数
+     */
+    public void setMainThread(Thread thread) {
+        mMainThread = thread;
+    }
+
+    /**
+     * 开始一次数据库操作
+     * @return 传给 {@link #end} 的起始时间，关闭时为标记值
+     */
+    public long begin() {
+        return mEnabled ? System.nanoTime() : DISABLED;
+    }
+
+    /**
+     * 结束一次数据库操作
+     * @param start {@link #begin()} 的返回值
+     * @param shape 查询形状，同一形状的调用合并统计
+     * @param sql 执行的 SQL，变慢时用来取执行计划；写入或没有单条 SQL 时传null
+     * @param args SQL 参数，可为null
+     * @param rowsReturned 返回或写入的行数
+     * @param rowsScanned 参与计算的行数（如聚合查询 COUNT(*) 的合计），未知时传-1
+     */
+    public void end(long start, String shape, String sql, String[] args, long rowsReturned, long rowsScanned) {
+        if (start == DISABLED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        ShapeStats stats = mShapes.get(shape);
+        if (stats == null) {
+            stats = mShapes.computeIfAbsent(shape, ShapeStats::new);
+        }
+        boolean mainThread = Thread.currentThread() == mMainThread;
+        stats.record(elapsed, rowsReturned, rowsScanned, mainThread);
+        if (elapsed >= mSlowThresholdNanos) {
+            recordSlow(stats, elapsed, sql, args, rowsReturned, rowsScanned);
+        }
+    }
+
+    /**
+     * 结束一次数据库操作，形状为 method[variant]，只在开启时拼接
+     * @param variant 同一方法下的细分形状，如组合查询的条件形状
+     */
+    public void end(long start, String method, String variant, String sql, String[] args,
+                    long rowsReturned, long rowsScanned) {
+        if (start == DISABLED) {
+            return;
+        }
+        end(start, method + "[" + variant + "]", sql, args, rowsReturned, rowsScanned);
+    }
+
+    private void recordSlow(ShapeStats stats, long elapsed, String sql, String[] args,
+                            long rowsReturned, long rowsScanned) {
+        stats.slowCount.increment();
+        List<String> plan = stats.plan;
+        Explainer explainer = mExplainer;
+        if (plan == null && sql != null && explainer != null) {
+            try {
+                plan = Collections.unmodifiableList(new ArrayList<>(explainer.explain(sql, args)));
+            } catch (Exception e) {
+                plan = Collections.singletonList("执行计划获取失败: " + e.getMessage());
+            }
+            stats.plan = plan;
+        }
+        SlowQuery slow = new SlowQuery(stats.shape, System.currentTimeMillis(), elapsed / 1000,
+                Thread.currentThread().getName(), rowsReturned, rowsScanned, plan);
+        synchronized (mSlowQueries) {
+            mSlowQueries.addFirst(slow);
+            if (mSlowQueries.size() > SLOW_LOG_SIZE) {
+                mSlowQueries.removeLast();
+            }
+        }
+        EngineLog.w(TAG, "慢查询: {}，{}ms，线程={}，返回{}行", stats.shape, elapsed / 1_000_000, slow.getThread(),
+                rowsReturned);
+    }
+
+    /**
+     * @return 各形状的统计，按累计耗时从多到少
+     */
+    public List<ShapeStats> getShapes() {
+        List<ShapeStats> shapes = new ArrayList<>(mShapes.values());
+        shapes.sort((a, b) -> Long.compare(b.histogram.getTotalMicros(), a.histogram.getTotalMicros()));
+        return shapes;
+    }
+
+    /**
+     * @return 最近的慢查询，新的在前
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (mSlowQueries) {
+            return new ArrayList<>(mSlowQueries);
+        }
+    }
+
+    /**
+     * 清空所有统计和慢查询记录
+     */
+    public void reset() {
+        mShapes.clear();
+        synchronized (mSlowQueries) {
+            mSlowQueries.clear();
+        }
+    }
+
+    /**
+     * 输出文本报告：各形状的分位数耗时，以及最近的慢查询和执行计划
+     */
+    public void dump(PrintWriter writer) {
+        List<ShapeStats> shapes = getShapes();
+        writer.printf(Locale.ROOT, "数据库查询统计：%s，慢查询阈值 %dms，共 %d 种形状%n",
+                mEnabled ? "记录中" : "已关闭", getSlowThresholdMillis(), shapes.size());
+        writer.printf(Locale.ROOT, "%-44s %7s %9s %9s %9s %9s %9s %8s %8s %6s %6s%n",
+                "形状", "次数", "p50", "p90", "p99", "最大", "累计", "返回行", "扫描行", "慢", "主线程");
+        for (ShapeStats stats : shapes) {
+            LatencyHistogram histogram = stats.histogram;
+            long count = histogram.getCount();
+            writer.printf(Locale.ROOT, "%-44s %7d %9s %9s %9s %9s %9s %8s %8s %6d %6d%n",
+                    stats.shape, count,
+                    formatMicros(histogram.getPercentileMicros(50)),
+                    formatMicros(histogram.getPercentileMicros(90)),
+                    formatMicros(histogram.getPercentileMicros(99)),
+                    formatMicros(histogram.getMaxMicros()),
+                    formatMicros(histogram.getTotalMicros()),
+                    formatAverage(stats.rowsReturned.sum(), count),
+                    formatAverage(stats.rowsScanned.sum(), stats.scannedCount.sum()),
+                    stats.slowCount.sum(), stats.mainThreadCount.sum());
+        }
+        List<SlowQuery> slowQueries = getSlowQueries();
+        if (slowQueries.isEmpty()) {
+            return;
+        }
+        SimpleDateFormat format = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.ROOT);
+        writer.println();
+        writer.println("最近的慢查询：");
+        for (SlowQuery slow : slowQueries) {
+            writer.printf(Locale.ROOT, "%s %s %s 线程=%s 返回=%d 扫描=%s%n",
+                    format.format(new Date(slow.getTimeMillis())), slow.getShape(),
+                    formatMicros(slow.getElapsedMicros()), slow.getThread(), slow.getRowsReturned(),
+                    slow.getRowsScanned() < 0 ? "-" : String.valueOf(slow.getRowsScanned()));
+            if (slow.getPlan() != null) {
+                for (String detail : slow.getPlan()) {
+                    writer.println("    " + detail);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@link #dump} 的文本
+     */
+    public String report() {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        dump(writer);
+        writer.flush();
+        return out.toString();
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros < 1000) {
+            return micros + "µs";
+        }
+        if (micros < 1_000_000) {
+            return String.format(Locale.ROOT, "%.1fms", micros / 1000.0);
+        }
+        return String.format(Locale.ROOT, "%.2fs", micros / 1_000_000.0);
+    }
+
+    private static String formatAverage(long sum, long count) {
+        return count == 0 ? "-" : String.valueOf(Math.round((double) sum / count));
+    }
+
+    /**
+     * 一种查询形状的累计统计，各字段独立累加，读取时不保证彼此一致
+     */
+    public static final class ShapeStats {
+        private final String shape;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder rowsReturned = new LongAdder();
+        private final LongAdder rowsScanned = new LongAdder();
+        // 报告了扫描行数的调用次数
+        private final LongAdder scannedCount = new LongAdder();
+        private final LongAdder slowCount = new LongAdder();
+        private final LongAdder mainThreadCount = new LongAdder();
+        private volatile List<String> plan;
+
+        ShapeStats(String shape) {
+            this.shape = shape;
+        }
+
+        void record(long elapsedNanos, long rowsReturned, long rowsScanned, boolean mainThread) {
+            histogram.recordNanos(elapsedNanos);
+            this.rowsReturned.add(rowsReturned);
+            if (rowsScanned >= 0) {
+                this.rowsScanned.add(rowsScanned);
+                scannedCount.increment();
+            }
+            if (mainThread) {
+                mainThreadCount.increment();
+            }
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+
+        public long getRowsReturned() {
+            return rowsReturned.sum();
+        }
+
+        public long getSlowCount() {
+            return slowCount.sum();
+        }
+
+        public long getMainThreadCount() {
+            return mainThreadCount.sum();
+        }
+
+        /**
+         * @return 第一次变慢时取到的执行计划，没有变慢过时为null
+         */
+        public List<String> getPlan() {
+            return plan;
+        }
+    }
+
+    /**
+     * 一次慢查询
+     */
+    public static final class SlowQuery {
+        private final String shape;
+        private final long timeMillis;
+        private final long elapsedMicros;
+        private final String thread;
+        private final long rowsReturned;
+        private final long rowsScanned;
+        private final List<String> plan;
+
+        SlowQuery(String shape, long timeMillis, long elapsedMicros, String thread, long rowsReturned,
+                  long rowsScanned, List<String> plan) {
+            this.shape = shape;
+            this.timeMillis = timeMillis;
+            this.elapsedMicros = elapsedMicros;
+            this.thread = thread;
+            this.rowsReturned = rowsReturned;
+            this.rowsScanned = rowsScanned;
+            this.plan = plan;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        public long getElapsedMicros() {
+            return elapsedMicros;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public long getRowsReturned() {
+            return rowsReturned;
+        }
+
+        /**
+         * @return 参与计算的行数，未知时为-1
+         */
+        public long getRowsScanned() {
+            return rowsScanned;
+        }
+
+        /**
+         * @return 执行计划，没有 SQL 或未设置 Explainer 时为null
+         */
+        public List<String> getPlan() {
+            return plan;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.personalaccounting.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 周期账单检测
+ * <p>
+ * 同一收支类型、同一分类下金额相差不超过5%的账单归为一个序列，每个序列按日期保存最近
+ * {@link #MAX_POINTS} 次发生日。最近几次的间隔都落在某个周期的容差窗口内（每周 6~8 天、
+ * 每月 27~34 天、每年 358~372 天），并且最后一次还没有过去两个周期，就认为是周期账单。
+ * </p>
+ * <p>
+ * 检测是增量的：只按编号顺序读取水位之后新增的账单，序列和水位每批保存一次，不重新扫描历史。
+ * 每个分类最多跟踪 {@link #MAX_SERIES_PER_CATEGORY} 个序列，超出时淘汰最久没有出现的，
+ * 所以每条账单的处理时间和内存都有上限；一次最多处理的账单数由调用方给定，
+ * 大账本第一次检测可以分几次完成。修改和删除旧账单不会回溯，旧的发生日会随新账单被挤出序列。
+ * </p>
+ */
+public class RecurringDetector {
+    private static final String TAG = "RecurringDetector";
+    public static final int CADENCE_WEEKLY = 0;
+    public static final int CADENCE_MONTHLY = 1;
+    public static final int CADENCE_YEARLY = 2;
+    // 每个序列保留的最近发生日数
+    static final int MAX_POINTS = 12;
+    // 每个分类最多跟踪的序列数
+    static final int MAX_SERIES_PER_CATEGORY = 32;
+    // 每批从账单表读取的条数
+    static final int BATCH_SIZE = 1000;
+    // 金额容差（百分比）
+    private static final int AMOUNT_TOLERANCE_PERCENT = 5;
+    // 至少出现几次才算周期
+    private static final int MIN_OCCURRENCES = 3;
+    // 只看最近几个间隔，早年的习惯变化不影响判断
+    private static final int MAX_INTERVALS = 5;
+    // 各周期的间隔容差窗口（天）和名义长度
+    private static final int[][] CADENCE_WINDOWS = {{6, 8}, {27, 34}, {358, 372}};
+    private static final int[] CADENCE_DAYS = {7, 30, 365};
+
+    /**
+     * 一个金额序列
+     */
+    public static final class Series {
+        final String category;
+        final int billType;
+        // 序列的基准金额（分），用于归类
+        final long cents;
+        long lastCents;
+        // 按日期升序的最近发生日
+        long[] days;
+        int size;
+        int occurrences;
+        // 用户忽略过的预计日期，这一天及之前不再提示
+        long dismissedDay;
+
+        public Series(String category, int billType, long cents, long lastCents, long[] days, int occurrences,
+                      long dismissedDay) {
+            this.category = category;
+            this.billType = billType;
+            this.cents = cents;
+            this.lastCents = lastCents;
+            this.days = Arrays.copyOf(days, MAX_POINTS);
+            this.size = Math.min(days.length, MAX_POINTS);
+            this.occurrences = occurrences;
+            this.dismissedDay = dismissedDay;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public int getBillType() {
+            return billType;
+        }
+
+        public long getCents() {
+            return cents;
+        }
+
+        public long getLastCents() {
+            return lastCents;
+        }
+
+        /**
+         * @return 按日期升序的最近发生日
+         */
+        public long[] getDays() {
+            return Arrays.copyOf(days, size);
+        }
+
+        public int getOccurrences() {
+            return occurrences;
+        }
+
+        public long getDismissedDay() {
+            return dismissedDay;
+        }
+
+        long lastDay() {
+            return days[size - 1];
+        }
+
+        /**
+         * 按日期插入一次发生，窗口已满时挤掉最早的；比窗口内全部日期都早的直接丢弃
+         */
+        void insert(long day, long amountCents) {
+            occurrences++;
+            if (size == MAX_POINTS) {
+                if (day <= days[0]) {
+                    return;
+                }
+                System.arraycopy(days, 1, days, 0, size - 1);
+                size--;
+            }
+            int i = size;
+            while (i > 0 && days[i - 1] > day) {
+                days[i] = days[i - 1];
+                i--;
+            }
+            days[i] = day;
+            size++;
+            if (i == size - 1) {
+                lastCents = amountCents;
+            }
+        }
+    }
+
+    private final RecurringStore mStore;
+    // 收支类型和分类 -> 序列，null表示还没有加载
+    private Map<String, List<Series>> mSeries;
+    private long mWatermark;
+
+    public RecurringDetector(RecurringStore store) {
+        mStore = store;
+    }
+
+    /**
+     * 处理新增账单并返回当前的周期账单
+     * @param today 今天（纪元日）
+     * @param maxBills 本次最多处理的新增账单数，剩下的留给下次
+     * @return 仍在持续的周期账单，按预计日期排序
+     */
+    public synchronized List<RecurringPattern> detect(long today, int maxBills) {
+        catchUp(maxBills);
+        List<RecurringPattern> patterns = new ArrayList<>();
+        for (List<Series> list : mSeries.values()) {
+            for (Series series : list) {
+                RecurringPattern pattern = patternOf(series, today);
+                if (pattern != null && pattern.getNextEpochDay() > series.dismissedDay) {
+                    patterns.add(pattern);
+                }
+            }
+        }
+        Collections.sort(patterns, (a, b) -> Long.compare(a.getNextEpochDay(), b.getNextEpochDay()));
+        return patterns;
+    }
+
+    /**
+     * 用户忽略这一次的提示，到下一次预计日期前不再提示
+     */
+    public synchronized void dismiss(RecurringPattern pattern) {
+        if (mSeries == null) {
+            load();
+        }
+        Series series = find(pattern.getBillType(), pattern.getCategory(), pattern.getCents());
+        if (series != null) {
+            series.dismissedDay = pattern.getNextEpochDay();
+            mStore.saveRecurringState(mWatermark, Collections.singletonList(series), Collections.emptyList());
+        }
+    }
+
+    /**
+     * 恢复备份后调用，下次检测时重新加载
+     */
+    public synchronized void reset() {
+        mSeries = null;
+    }
+
+    /**
+     * 按编号顺序处理水位之后的新增账单
+     * @return 处理的条数
+     */
+    synchronized int catchUp(int maxBills) {
+        if (mSeries == null) {
+            load();
+        }
+        int processed = 0;
+        while (processed < maxBills) {
+            List<Bill> bills = mStore.queryBillsAfter(mWatermark, Math.min(BATCH_SIZE, maxBills - processed));
+            if (bills.isEmpty()) {
+                break;
+            }
+            Set<Series> changed = new LinkedHashSet<>();
+            List<Series> removed = new ArrayList<>();
+            for (Bill bill : bills) {
+                add(bill, changed, removed);
+                mWatermark = Math.max(mWatermark, bill.getId());
+            }
+            changed.removeAll(removed);
+            mStore.saveRecurringState(mWatermark, changed, removed);
+            processed += bills.size();
+        }
+        if (processed > 0) {
+            EngineLog.d(TAG, "catchUp: 处理新增账单{}条，水位={}", processed, mWatermark);
+        }
+        return processed;
+    }
+
+    private void load() {
+        RecurringStore.State state = mStore.loadRecurringState();
+        mSeries = new HashMap<>();
+        mWatermark = state.getWatermark();
+        for (Series series : state.getSeries()) {
+            listOf(series.billType, series.category).add(series);
+        }
+    }
+
+    private void add(Bill bill, Set<Series> changed, List<Series> removed) {
+        long amountCents = Math.round(bill.getAmount() * 100);
+        if (amountCents <= 0 || bill.getType() == null || bill.getDate() == null) {
+            return;
+        }
+        List<Series> list = listOf(bill.getBillType(), bill.getType());
+        Series target = null;
+        long bestDiff = Long.MAX_VALUE;
+        for (Series series : list) {
+            long diff = Math.abs(series.cents - amountCents);
+            if (diff * 100 <= series.cents * AMOUNT_TOLERANCE_PERCENT && diff < bestDiff) {
+                target = series;
+                bestDiff = diff;
+            }
+        }
+        if (target == null) {
+            if (list.size() >= MAX_SERIES_PER_CATEGORY) {
+                Series stalest = list.get(0);
+                for (Series series : list) {
+                    if (series.lastDay() < stalest.lastDay()) {
+                        stalest = series;
+                    }
+                }
+                list.remove(stalest);
+                removed.add(stalest);
+            }
+            target = new Series(bill.getType(), bill.getBillType(), amountCents, amountCents, new long[0], 0, 0);
+            list.add(target);
+        }
+        target.insert(EpochDays.parse(bill.getDate()), amountCents);
+        changed.add(target);
+    }
+
+    private List<Series> listOf(int billType, String category) {
+        String key = billType + "|" + category;
+        List<Series> list = mSeries.get(key);
+        if (list == null) {
+            list = new ArrayList<>();
+            mSeries.put(key, list);
+        }
+        return list;
+    }
+
+    private Series find(int billType, String category, long cents) {
+        List<Series> list = mSeries.get(billType + "|" + category);
+        if (list != null) {
+            for (Series series : list) {
+                if (series.lastCents == cents) {
+                    return series;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 判断序列是否周期性出现
+     * @return 周期账单，不是周期或已经中断时返回null
+     */
+    static RecurringPattern patternOf(Series series, long today) {
+        if (series.size < MIN_OCCURRENCES) {
+            return null;
+        }
+        int first = Math.max(1, series.size - MAX_INTERVALS);
+        for (int cadence = 0; cadence < CADENCE_WINDOWS.length; cadence++) {
+            boolean matches = true;
+            for (int i = first; i < series.size && matches; i++) {
+                long interval = series.days[i] - series.days[i - 1];
+                matches = interval >= CADENCE_WINDOWS[cadence][0] && interval <= CADENCE_WINDOWS[cadence][1];
+            }
+            if (!matches) {
+                continue;
+            }
+            long last = series.lastDay();
+            if (today - last > 2L * CADENCE_DAYS[cadence]) {
+                return null;
+            }
+            return new RecurringPattern(series.category, series.billType, series.lastCents, cadence,
+                    series.occurrences, last, nextDay(last, cadence));
+        }
+        return null;
+    }
+
+    /**
+     * 预计下一次的日期：每周加7天，每月和每年取下个月/下一年的同一天，没有这一天时取月末
+     */
+    static long nextDay(long last, int cadence) {
+        if (cadence == CADENCE_WEEKLY) {
+            return last + 7;
+        }
+        int year = EpochDays.year(last);
+        int month = EpochDays.month(last);
+        int day = EpochDays.dayOfMonth(last);
+        if (cadence == CADENCE_MONTHLY) {
+            month++;
+            if (month > 12) {
+                month = 1;
+                year++;
+            }
+        } else {
+            year++;
+        }
+        return EpochDays.of(year, month, Math.min(day, EpochDays.lengthOfMonth(year, month)));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.personalaccounting.model;
+
+/**
+ * 检测到的周期账单，例如每月的房租、工资和订阅
+ */
+public final class RecurringPattern {
+    private final String category;
+    private final int billType;
+    private final long cents;
+    private final int cadence;
+    private final int occurrences;
+    private final long lastEpochDay;
+    private final long nextEpochDay;
+
+    public RecurringPattern(String category, int billType, long cents, int cadence, int occurrences,
+                            long lastEpochDay, long nextEpochDay) {
+        this.category = category;
+        this.billType = billType;
+        this.cents = cents;
+        this.cadence = cadence;
+        this.occurrences = occurrences;
+        this.lastEpochDay = lastEpochDay;
+        this.nextEpochDay = nextEpochDay;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * @return 0=支出，1=收入
+     */
+    public int getBillType() {
+        return billType;
+    }
+
+    /**
+     * @return 最近一次的金额（分）
+     */
+    public long getCents() {
+        return cents;
+    }
+
+    /**
+     * @return {@link RecurringDetector#CADENCE_WEEKLY}、{@link RecurringDetector#CADENCE_MONTHLY}
+     * 或 {@link RecurringDetector#CADENCE_YEARLY}
+     */
+    public int getCadence() {
+        return cadence;
+    }
+
+    /**
+     * @return 累计出现的次数
+     */
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public long getLastEpochDay() {
+        return lastEpochDay;
+    }
+
+    /**
+     * @return 预计下一次的日期（纪元日）
+     */
+    public long getNextEpochDay() {
+        return nextEpochDay;
+    }
+
+    /**
+     * 按预计日期生成下一笔账单
+     * @param createTime 创建时间戳
+     */
+    public Bill toBill(long createTime) {
+        Bill bill = new Bill();
+        bill.setType(category);
+        bill.setAmount(cents / 100.0);
+        bill.setBillType(billType);
+        bill.setRemark("");
+        bill.setDate(EpochDays.format(nextEpochDay));
+        bill.setCreateTime(createTime);
+        return bill;
+    }
+}
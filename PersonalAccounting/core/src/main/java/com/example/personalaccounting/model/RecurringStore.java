@@ -0,0 +1,52 @@
+package com.example.personalaccounting.model;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 周期账单检测读写本地账本的接口，由 {@code BillDbHelper} 实现
+ */
+public interface RecurringStore {
+
+    /**
+     * 保存的检测进度
+     */
+    class State {
+        private final long watermark;
+        private final List<RecurringDetector.Series> series;
+
+        public State(long watermark, List<RecurringDetector.Series> series) {
+            this.watermark = watermark;
+            this.series = series;
+        }
+
+        /**
+         * 已处理到的账单编号，编号更大的账单还没有计入序列
+         */
+        public long getWatermark() {
+            return watermark;
+        }
+
+        public List<RecurringDetector.Series> getSeries() {
+            return series;
+        }
+    }
+
+    /**
+     * 读取检测进度，从未检测过时水位为0、序列为空
+     */
+    State loadRecurringState();
+
+    /**
+     * 按编号顺序读取水位之后新增的账单
+     * @param afterId 水位（不含）
+     * @param limit 最多条数
+     */
+    List<Bill> queryBillsAfter(long afterId, int limit);
+
+    /**
+     * 在一个事务里保存变化了的序列、淘汰的序列和新的水位
+     */
+    void saveRecurringState(long watermark, Collection<RecurringDetector.Series> changed,
+                            Collection<RecurringDetector.Series> removed);
+}
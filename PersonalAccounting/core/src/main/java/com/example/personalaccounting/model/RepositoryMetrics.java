@@ -0,0 +1,343 @@
+package com.example.personalaccounting.model;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 仓库层的运行指标：线程池排队、各异步操作的排队与执行耗时、取消和缓存命中
+ * <p>
+ * 异步操作通过 {@link MeteredExecutor} 提交，提交时记下时间，开始执行时记录排队耗时，
+ * 结束时记录执行耗时。任务在开始前发现请求已取消时调用 {@link #recordCancelled}，
+ * 这次的执行耗时不计入直方图；算完才发现已取消、结果被丢弃时调用 {@link #recordDropped}。
+ * </p>
+ * <p>
+ * 所有计数都是 LongAdder 或原子变量，直方图用 {@link LatencyHistogram}，记录时不加锁，
+ * 始终开启。读取时各计数之间不保证一致。
+ * </p>
+ */
+public final class RepositoryMetrics {
+    // 当前线程正在执行的任务，开始前已取消的任务不记执行耗时
+    private static final ThreadLocal<Task> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, OperationStats> mOperations = new ConcurrentHashMap<>();
+    private final List<MeteredExecutor> mExecutors = new CopyOnWriteArrayList<>();
+    private final List<CacheStats> mCaches = new CopyOnWriteArrayList<>();
+
+    /**
+     * 包装一个线程池，之后通过返回值提交的任务都会被记录
+     * @param name 线程池名称，用于报告
+     */
+    public MeteredExecutor wrap(String name, ExecutorService delegate) {
+        MeteredExecutor executor = new MeteredExecutor(this, name, delegate);
+        mExecutors.add(executor);
+        return executor;
+    }
+
+    /**
+     * 登记一个缓存，调用方在每次查找后记录命中或未命中
+     * @param name 缓存名称，用于报告
+     */
+    public CacheStats cache(String name) {
+        CacheStats cache = new CacheStats(name);
+        mCaches.add(cache);
+        return cache;
+    }
+
+    /**
+     * 任务开始前发现请求已被取消
+     * @param operation 操作名，与提交时一致
+     */
+    public void recordCancelled(String operation) {
+        operation(operation).cancelled.increment();
+        Task task = CURRENT.get();
+        if (task != null) {
+            task.cancelled = true;
+        }
+    }
+
+    /**
+     * 任务已经执行，但请求在完成前被取消，结果没有回调
+     * @param operation 操作名，与提交时一致
+     */
+    public void recordDropped(String operation) {
+        operation(operation).dropped.increment();
+    }
+
+    OperationStats operation(String operation) {
+        OperationStats stats = mOperations.get(operation);
+        if (stats == null) {
+            stats = mOperations.computeIfAbsent(operation, OperationStats::new);
+        }
+        return stats;
+    }
+
+    /**
+     * @return 各操作的统计，按累计执行耗时从多到少
+     */
+    public List<OperationStats> getOperations() {
+        List<OperationStats> operations = new ArrayList<>(mOperations.values());
+        operations.sort((a, b) -> Long.compare(b.runTime.getTotalMicros(), a.runTime.getTotalMicros()));
+        return operations;
+    }
+
+    public List<MeteredExecutor> getExecutors() {
+        return new ArrayList<>(mExecutors);
+    }
+
+    public List<CacheStats> getCaches() {
+        return new ArrayList<>(mCaches);
+    }
+
+    /**
+     * 清空操作统计、缓存计数和线程池的峰值，当前排队数保留
+     */
+    public void reset() {
+        mOperations.clear();
+        for (MeteredExecutor executor : mExecutors) {
+            executor.maxQueued.set(executor.queued.get());
+            executor.submitted.reset();
+        }
+        for (CacheStats cache : mCaches) {
+            cache.hits.reset();
+            cache.misses.reset();
+        }
+    }
+
+    /**
+     * 输出文本报告：线程池、缓存和各操作的排队/执行耗时
+     */
+    public void dump(PrintWriter writer) {
+        writer.println("线程池：");
+        writer.printf(Locale.ROOT, "  %-8s %8s %8s %8s%n", "名称", "提交", "排队中", "排队峰值");
+        for (MeteredExecutor executor : mExecutors) {
+            writer.printf(Locale.ROOT, "  %-8s %8d %8d %8d%n", executor.name, executor.getSubmitted(),
+                    executor.getQueued(), executor.getMaxQueued());
+        }
+        writer.println("缓存：");
+        writer.printf(Locale.ROOT, "  %-8s %8s %8s %8s%n", "名称", "命中", "未命中", "命中率");
+        for (CacheStats cache : mCaches) {
+            long hits = cache.getHits();
+            long misses = cache.getMisses();
+            writer.printf(Locale.ROOT, "  %-8s %8d %8d %8s%n", cache.name, hits, misses,
+                    hits + misses == 0 ? "-" : String.format(Locale.ROOT, "%.1f%%", cache.getHitRatio() * 100));
+        }
+        writer.println("异步操作：");
+        writer.printf(Locale.ROOT, "  %-34s %6s %6s %6s %9s %9s %9s %9s %9s%n",
+                "操作", "提交", "取消", "丢弃", "排队p50", "排队p99", "执行p50", "执行p99", "执行最大");
+        for (OperationStats stats : getOperations()) {
+            writer.printf(Locale.ROOT, "  %-34s %6d %6d %6d %9s %9s %9s %9s %9s%n",
+                    stats.operation, stats.getSubmitted(), stats.getCancelled(), stats.getDropped(),
+                    formatMicros(stats.waitTime.getPercentileMicros(50)),
+                    formatMicros(stats.waitTime.getPercentileMicros(99)),
+                    formatMicros(stats.runTime.getPercentileMicros(50)),
+                    formatMicros(stats.runTime.getPercentileMicros(99)),
+                    formatMicros(stats.runTime.getMaxMicros()));
+        }
+    }
+
+    /**
+     * @return {@link #dump} 的文本
+     */
+    public String report() {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        dump(writer);
+        writer.flush();
+        return out.toString();
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros < 1000) {
+            return micros + "µs";
+        }
+        if (micros < 1_000_000) {
+            return String.format(Locale.ROOT, "%.1fms", micros / 1000.0);
+        }
+        return String.format(Locale.ROOT, "%.2fs", micros / 1_000_000.0);
+    }
+
+    /**
+     * 记录排队和执行耗时的线程池包装
+     */
+    public static final class MeteredExecutor {
+        private final RepositoryMetrics metrics;
+        private final String name;
+        private final ExecutorService delegate;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger maxQueued = new AtomicInteger();
+        private final LongAdder submitted = new LongAdder();
+
+        MeteredExecutor(RepositoryMetrics metrics, String name, ExecutorService delegate) {
+            this.metrics = metrics;
+            this.name = name;
+            this.delegate = delegate;
+        }
+
+        /**
+         * 提交一个任务
+         * @param operation 操作名，同名的任务合并统计
+         */
+        public void execute(String operation, Runnable runnable) {
+            OperationStats stats = metrics.operation(operation);
+            stats.submitted.increment();
+            submitted.increment();
+            int depth = queued.incrementAndGet();
+            int max = maxQueued.get();
+            while (depth > max && !maxQueued.compareAndSet(max, depth)) {
+                max = maxQueued.get();
+            }
+            try {
+                delegate.execute(new Task(stats, queued, runnable));
+            } catch (RuntimeException e) {
+                queued.decrementAndGet();
+                throw e;
+            }
+        }
+
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 已提交但还没开始执行的任务数
+         */
+        public int getQueued() {
+            return queued.get();
+        }
+
+        public int getMaxQueued() {
+            return maxQueued.get();
+        }
+
+        public long getSubmitted() {
+            return submitted.sum();
+        }
+    }
+
+    private static final class Task implements Runnable {
+        private final OperationStats stats;
+        private final AtomicInteger queued;
+        private final Runnable runnable;
+        private final long submitNanos = System.nanoTime();
+        boolean cancelled;
+
+        Task(OperationStats stats, AtomicInteger queued, Runnable runnable) {
+            this.stats = stats;
+            this.queued = queued;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            queued.decrementAndGet();
+            long start = System.nanoTime();
+            stats.waitTime.recordNanos(start - submitNanos);
+            CURRENT.set(this);
+            try {
+                runnable.run();
+            } finally {
+                CURRENT.remove();
+                if (!cancelled) {
+                    stats.runTime.recordNanos(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    /**
+     * 一种异步操作的累计统计
+     */
+    public static final class OperationStats {
+        private final String operation;
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder cancelled = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        // 从提交到开始执行
+        private final LatencyHistogram waitTime = new LatencyHistogram();
+        // 从开始到结束，不含开始前就已取消的任务
+        private final LatencyHistogram runTime = new LatencyHistogram();
+
+        OperationStats(String operation) {
+            this.operation = operation;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getSubmitted() {
+            return submitted.sum();
+        }
+
+        public long getCancelled() {
+            return cancelled.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        public LatencyHistogram getWaitTime() {
+            return waitTime;
+        }
+
+        public LatencyHistogram getRunTime() {
+            return runTime;
+        }
+    }
+
+    /**
+     * 一个缓存的命中计数
+     */
+    public static final class CacheStats {
+        private final String name;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        CacheStats(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 记录一次查找
+         * @param hit 是否命中
+         */
+        public void record(boolean hit) {
+            (hit ? hits : misses).increment();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        /**
+         * @return 命中率，0～1，没有查找时为0
+         */
+        public double getHitRatio() {
+            long hits = getHits();
+            long total = hits + getMisses();
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
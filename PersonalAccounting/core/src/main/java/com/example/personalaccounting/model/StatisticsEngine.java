@@ -0,0 +1,243 @@
+package com.example.personalaccounting.model;
+
+import java.util.List;
+
+/**
+ * 今日、本周、本月、年份的收支统计
+ * <p>
+ * 账单由 {@link StatisticsStore} 按日期区间读出，这里只做汇总，不依赖数据库，
+ * 可以直接在 JVM 上测试和做基准。
+ * </p>
+ */
+public class StatisticsEngine {
+    // 账单类型：收入
+    private static final int BILL_TYPE_INCOME = 1;
+
+    private final StatisticsStore mStore;
+
+    public StatisticsEngine(StatisticsStore store) {
+        mStore = store;
+    }
+
+    /**
+     * 计算今日统计数据
+     * @param todayDate 今日日期（yyyy-MM-dd格式）
+     */
+    public TodayStatistics calculateTodayStatistics(String todayDate) {
+        double[] totals = sumByBillType(mStore.queryTodayBill(todayDate));
+        TodayStatistics statistics = new TodayStatistics();
+        statistics.setIncome(totals[0]);
+        statistics.setExpense(totals[1]);
+        statistics.setBalance(totals[0] - totals[1]);
+        return statistics;
+    }
+
+    /**
+     * 计算本周统计数据
+     * @param startDate 开始日期（yyyy-MM-dd格式）
+     * @param endDate 结束日期（yyyy-MM-dd格式）
+     */
+    public WeekStatistics calculateWeekStatistics(String startDate, String endDate) {
+        double[] totals = sumByBillType(mStore.queryWeekBill(startDate, endDate));
+        WeekStatistics statistics = new WeekStatistics();
+        statistics.setIncome(totals[0]);
+        statistics.setExpense(totals[1]);
+        statistics.setBalance(totals[0] - totals[1]);
+        return statistics;
+    }
+
+    /**
+     * 计算本月统计数据
+     * @param month 月份字符串（yyyy-MM格式）
+     */
+    public MonthStatistics calculateMonthStatistics(String month) {
+        double[] totals = sumByBillType(mStore.queryMonthBill(month));
+        MonthStatistics statistics = new MonthStatistics();
+        statistics.setIncome(totals[0]);
+        statistics.setExpense(totals[1]);
+        statistics.setBalance(totals[0] - totals[1]);
+        return statistics;
+    }
+
+    /**
+     * 计算年份统计数据
+     * @param year 年份字符串（yyyy格式）
+     */
+    public YearStatistics calculateYearStatistics(String year) {
+        double[] totals = sumByBillType(mStore.queryYearBill(year));
+        YearStatistics statistics = new YearStatistics();
+        statistics.setIncome(totals[0]);
+        statistics.setExpense(totals[1]);
+        statistics.setBalance(totals[0] - totals[1]);
+        return statistics;
+    }
+
+    /**
+     * 按收支类型汇总金额
+     * @return {收入, 支出}
+     */
+    public static double[] sumByBillType(List<Bill> bills) {
+        double income = 0.0;
+        double expense = 0.0;
+        for (Bill bill : bills) {
+            if (bill.getBillType() == BILL_TYPE_INCOME) {
+                income += bill.getAmount();
+            } else {
+                expense += bill.getAmount();
+            }
+        }
+        return new double[]{income, expense};
+    }
+
+    /**
+     * 按各分类金额占合计的比例填写百分比，合计为0时保持不变
+     */
+    public static void fillPercentages(List<CategoryStatistics> categoryList) {
+        double totalAmount = 0;
+        for (CategoryStatistics category : categoryList) {
+            totalAmount += category.getAmount();
+        }
+        if (totalAmount <= 0) {
+            return;
+        }
+        for (CategoryStatistics category : categoryList) {
+            category.setPercentage(category.getAmount() / totalAmount * 100);
+        }
+    }
+
+    /**
+     * 今日统计数据类
+     * 用于封装今日收入、支出和结余信息
+     */
+    public static class TodayStatistics {
+        private double income;
+        private double expense;
+        private double balance;
+
+        public double getIncome() {
+            return income;
+        }
+
+        public void setIncome(double income) {
+            this.income = income;
+        }
+
+        public double getExpense() {
+            return expense;
+        }
+
+        public void setExpense(double expense) {
+            this.expense = expense;
+        }
+
+        public double getBalance() {
+            return balance;
+        }
+
+        public void setBalance(double balance) {
+            this.balance = balance;
+        }
+    }
+
+    /**
+     * 本周统计数据类
+     * 用于封装本周收入、支出和结余信息
+     */
+    public static class WeekStatistics {
+        private double income;
+        private double expense;
+        private double balance;
+
+        public double getIncome() {
+            return income;
+        }
+
+        public void setIncome(double income) {
+            this.income = income;
+        }
+
+        public double getExpense() {
+            return expense;
+        }
+
+        public void setExpense(double expense) {
+            this.expense = expense;
+        }
+
+        public double getBalance() {
+            return balance;
+        }
+
+        public void setBalance(double balance) {
+            this.balance = balance;
+        }
+    }
+
+    /**
+     * 本月统计数据类
+     * 用于封装本月收入、支出和结余信息
+     */
+    public static class MonthStatistics {
+        private double income;
+        private double expense;
+        private double balance;
+
+        public double getIncome() {
+            return income;
+        }
+
+        public void setIncome(double income) {
+            this.income = income;
+        }
+
+        public double getExpense() {
+            return expense;
+        }
+
+        public void setExpense(double expense) {
+            this.expense = expense;
+        }
+
+        public double getBalance() {
+            return balance;
+        }
+
+        public void setBalance(double balance) {
+            this.balance = balance;
+        }
+    }
+
+    /**
+     * 年份统计数据类
+     * 用于封装年份收入、支出和结余信息
+     */
+    public static class YearStatistics {
+        private double income;
+        private double expense;
+        private double balance;
+
+        public double getIncome() {
+            return income;
+        }
+
+        public void setIncome(double income) {
+            this.income = income;
+        }
+
+        public double getExpense() {
+            return expense;
+        }
+
+        public void setExpense(double expense) {
+            this.expense = expense;
+        }
+
+        public double getBalance() {
+            return balance;
+        }
+
+        public void setBalance(double balance) {
+            this.balance = balance;
+        }
+    }
+}
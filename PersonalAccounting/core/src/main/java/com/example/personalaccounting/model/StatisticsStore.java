@@ -0,0 +1,34 @@
+package com.example.personalaccounting.model;
+
+import java.util.List;
+
+/**
+ * 收支统计读取本地账本的接口，由 {@code BillDbHelper} 实现
+ */
+public interface StatisticsStore {
+
+    /**
+     * 查询某一天的账单
+     * @param todayDate 日期，格式：yyyy-MM-dd
+     */
+    List<Bill> queryTodayBill(String todayDate);
+
+    /**
+     * 查询日期区间内的账单
+     * @param startDate 开始日期（yyyy-MM-dd格式）
+     * @param endDate 结束日期（yyyy-MM-dd格式）
+     */
+    List<Bill> queryWeekBill(String startDate, String endDate);
+
+    /**
+     * 查询某个月的账单
+     * @param month 月份，格式：yyyy-MM
+     */
+    List<Bill> queryMonthBill(String month);
+
+    /**
+     * 查询某一年的账单
+     * @param year 年份，格式：yyyy
+     */
+    List<Bill> queryYearBill(String year);
+}
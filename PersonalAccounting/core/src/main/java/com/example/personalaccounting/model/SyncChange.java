@@ -0,0 +1,89 @@
+package com.example.personalaccounting.model;
+
+/**
+ * 同步时交换的一条账单变更
+ * <p>
+ * 账单在各设备间用 syncId（32位十六进制的随机编号）标识，本地自增ID只在本机有效。
+ * version 每次本地修改加1，删除以墓碑形式传播，只带 syncId 和删除后的版本号。
+ * </p>
+ */
+public final class SyncChange {
+    private final String syncId;
+    private final long version;
+    private final boolean deleted;
+    private final long epochDay;
+    private final int billType;
+    private final String category;
+    private final long cents;
+    private final String remark;
+    private final long createTime;
+
+    public SyncChange(String syncId, long version, long epochDay, int billType, String category,
+                      long cents, String remark, long createTime) {
+        this(syncId, version, false, epochDay, billType, category, cents, remark, createTime);
+    }
+
+    private SyncChange(String syncId, long version, boolean deleted, long epochDay, int billType,
+                       String category, long cents, String remark, long createTime) {
+        this.syncId = syncId;
+        this.version = version;
+        this.deleted = deleted;
+        this.epochDay = epochDay;
+        this.billType = billType;
+        this.category = category;
+        this.cents = cents;
+        this.remark = remark;
+        this.createTime = createTime;
+    }
+
+    /**
+     * 删除记录
+     * @param syncId 账单同步编号
+     * @param version 删除后的版本号
+     */
+    public static SyncChange tombstone(String syncId, long version) {
+        return new SyncChange(syncId, version, true, 0, 0, null, 0, null, 0);
+    }
+
+    public String getSyncId() {
+        return syncId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public long getEpochDay() {
+        return epochDay;
+    }
+
+    public int getBillType() {
+        return billType;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncChange{" + syncId + " v" + version + (deleted ? " deleted}" :
+                " " + EpochDays.format(epochDay) + " " + category + " " + cents + "}");
+    }
+}
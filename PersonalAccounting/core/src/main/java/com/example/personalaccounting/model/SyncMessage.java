@@ -0,0 +1,235 @@
+package com.example.personalaccounting.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 同步协议消息
+ * <p>
+ * 一次往返只有两种：推送（PUSH → PUSH_ACK）和拉取（PULL → PULL_RESULT）。
+ * 编码为定长二进制字段后整体gzip压缩；syncId按16字节原始值写出，
+ * 分类名等重复字符串交给gzip消除，一周的变更通常只有几KB。
+ * </p>
+ */
+public final class SyncMessage {
+    public static final int TYPE_PUSH = 1;
+    public static final int TYPE_PUSH_ACK = 2;
+    public static final int TYPE_PULL = 3;
+    public static final int TYPE_PULL_RESULT = 4;
+
+    private static final int MAGIC = 0x50415359; // "PASY"
+    private static final int VERSION = 1;
+    private static final int FLAG_DELETED = 1;
+    private static final int FLAG_INCOME = 1 << 1;
+    private static final int FLAG_REMARK = 1 << 2;
+
+    private final int type;
+    private final String deviceId;
+    private final long cursor;
+    private final int limit;
+    private final boolean hasMore;
+    private final int accepted;
+    private final List<SyncChange> changes;
+
+    private SyncMessage(int type, String deviceId, long cursor, int limit, boolean hasMore,
+                        int accepted, List<SyncChange> changes) {
+        this.type = type;
+        this.deviceId = deviceId;
+        this.cursor = cursor;
+        this.limit = limit;
+        this.hasMore = hasMore;
+        this.accepted = accepted;
+        this.changes = changes;
+    }
+
+    /**
+     * 推送一批本地变更
+     */
+    public static SyncMessage push(String deviceId, List<SyncChange> changes) {
+        return new SyncMessage(TYPE_PUSH, deviceId, 0, 0, false, 0, changes);
+    }
+
+    /**
+     * 推送应答
+     * @param accepted 被服务器采纳的条数，其余因版本冲突落败，之后拉取时会收到胜出的版本
+     */
+    public static SyncMessage pushAck(int accepted) {
+        return new SyncMessage(TYPE_PUSH_ACK, "", 0, 0, false, accepted, Collections.<SyncChange>emptyList());
+    }
+
+    /**
+     * 拉取游标之后其他设备的变更
+     */
+    public static SyncMessage pull(String deviceId, long cursor, int limit) {
+        return new SyncMessage(TYPE_PULL, deviceId, cursor, limit, false, 0, Collections.<SyncChange>emptyList());
+    }
+
+    /**
+     * 拉取结果
+     * @param changes 变更
+     * @param cursor 下次拉取的游标
+     * @param hasMore 是否还有下一页
+     */
+    public static SyncMessage pullResult(List<SyncChange> changes, long cursor, boolean hasMore) {
+        return new SyncMessage(TYPE_PULL_RESULT, "", cursor, 0, hasMore, 0, changes);
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public List<SyncChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * 编码并压缩
+     */
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(type);
+            out.writeUTF(deviceId);
+            out.writeLong(cursor);
+            out.writeInt(limit);
+            out.writeBoolean(hasMore);
+            out.writeInt(accepted);
+            out.writeInt(changes.size());
+            for (SyncChange change : changes) {
+                writeChange(out, change);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解压并解码
+     * @throws IOException 数据不完整或不是同步消息
+     */
+    public static SyncMessage decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("不是同步消息");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("不支持的同步协议版本：" + version);
+            }
+            int type = in.readUnsignedByte();
+            String deviceId = in.readUTF();
+            long cursor = in.readLong();
+            int limit = in.readInt();
+            boolean hasMore = in.readBoolean();
+            int accepted = in.readInt();
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("同步消息结构无效");
+            }
+            List<SyncChange> changes = new ArrayList<>(Math.min(count, 4096));
+            for (int i = 0; i < count; i++) {
+                changes.add(readChange(in));
+            }
+            return new SyncMessage(type, deviceId, cursor, limit, hasMore, accepted, changes);
+        }
+    }
+
+    private static void writeChange(DataOutputStream out, SyncChange change) throws IOException {
+        writeSyncId(out, change.getSyncId());
+        int flags = 0;
+        if (change.isDeleted()) {
+            flags |= FLAG_DELETED;
+        } else {
+            if (change.getBillType() == 1) {
+                flags |= FLAG_INCOME;
+            }
+            if (change.getRemark() != null) {
+                flags |= FLAG_REMARK;
+            }
+        }
+        out.writeByte(flags);
+        out.writeLong(change.getVersion());
+        if (change.isDeleted()) {
+            return;
+        }
+        out.writeInt((int) change.getEpochDay());
+        out.writeUTF(change.getCategory());
+        out.writeLong(change.getCents());
+        out.writeLong(change.getCreateTime());
+        if (change.getRemark() != null) {
+            out.writeUTF(change.getRemark());
+        }
+    }
+
+    private static SyncChange readChange(DataInputStream in) throws IOException {
+        String syncId = readSyncId(in);
+        int flags = in.readUnsignedByte();
+        long version = in.readLong();
+        if ((flags & FLAG_DELETED) != 0) {
+            return SyncChange.tombstone(syncId, version);
+        }
+        long epochDay = in.readInt();
+        String category = in.readUTF();
+        long cents = in.readLong();
+        long createTime = in.readLong();
+        String remark = (flags & FLAG_REMARK) != 0 ? in.readUTF() : null;
+        return new SyncChange(syncId, version, epochDay, (flags & FLAG_INCOME) != 0 ? 1 : 0,
+                category, cents, remark, createTime);
+    }
+
+    /**
+     * syncId是32位小写十六进制，按16字节写出
+     */
+    private static void writeSyncId(DataOutputStream out, String syncId) throws IOException {
+        if (syncId.length() != 32) {
+            throw new IOException("同步编号无效：" + syncId);
+        }
+        for (int i = 0; i < 32; i += 2) {
+            int high = Character.digit(syncId.charAt(i), 16);
+            int low = Character.digit(syncId.charAt(i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IOException("同步编号无效：" + syncId);
+            }
+            out.writeByte(high << 4 | low);
+        }
+    }
+
+    private static String readSyncId(DataInputStream in) throws IOException {
+        char[] chars = new char[32];
+        for (int i = 0; i < 32; i += 2) {
+            int b = in.readUnsignedByte();
+            chars[i] = Character.forDigit(b >>> 4, 16);
+            chars[i + 1] = Character.forDigit(b & 0xF, 16);
+        }
+        return new String(chars);
+    }
+}
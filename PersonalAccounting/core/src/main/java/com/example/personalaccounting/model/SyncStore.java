@@ -0,0 +1,111 @@
+package com.example.personalaccounting.model;
+
+import java.util.List;
+
+/**
+ * 同步引擎读写本地账本的接口，由 {@code BillDbHelper} 实现
+ */
+public interface SyncStore {
+
+    /**
+     * 本地同步状态
+     */
+    class State {
+        private final String deviceId;
+        private final long localSeq;
+        private final long remoteCursor;
+
+        public State(String deviceId, long localSeq, long remoteCursor) {
+            this.deviceId = deviceId;
+            this.localSeq = localSeq;
+            this.remoteCursor = remoteCursor;
+        }
+
+        /**
+         * 本设备编号，服务器据此识别变更来源，拉取时不回传自己的变更
+         */
+        public String getDeviceId() {
+            return deviceId;
+        }
+
+        /**
+         * 已推送到的本地变更序号，小于0表示从未同步过，需要推送全部账单
+         */
+        public long getLocalSeq() {
+            return localSeq;
+        }
+
+        /**
+         * 已拉取到的服务器游标
+         */
+        public long getRemoteCursor() {
+            return remoteCursor;
+        }
+    }
+
+    /**
+     * 一页本地变更
+     */
+    class Page {
+        private final List<SyncChange> changes;
+        private final long lastBillId;
+        private final boolean hasMore;
+
+        public Page(List<SyncChange> changes, long lastBillId, boolean hasMore) {
+            this.changes = changes;
+            this.lastBillId = lastBillId;
+            this.hasMore = hasMore;
+        }
+
+        public List<SyncChange> getChanges() {
+            return changes;
+        }
+
+        /**
+         * 本页最后一个账单的本地编号，作为下一页的起点
+         */
+        public long getLastBillId() {
+            return lastBillId;
+        }
+
+        public boolean hasMore() {
+            return hasMore;
+        }
+    }
+
+    /**
+     * 读取同步状态，从未同步过时生成新的设备编号
+     */
+    State loadSyncState();
+
+    /**
+     * 当前最新的本地变更序号
+     */
+    long queryChangeLogHead();
+
+    /**
+     * 按账单编号分页读取序号区间内变更过的账单，每个账单只出现一次，带当前内容；已删除的返回墓碑
+     * @param fromSeq 起始序号（不含），小于0时返回全部账单
+     * @param toSeq 截止序号（含）
+     * @param afterBillId 从编号大于它的账单开始读，第一页传0
+     * @param limit 每页最多读取的账单数
+     */
+    Page readLocalChanges(long fromSeq, long toSeq, long afterBillId, int limit);
+
+    /**
+     * 推送成功后记录已推送到的序号
+     */
+    void commitPushed(long localSeq);
+
+    /**
+     * 在一个事务里应用服务器下发的变更并保存新的服务器游标
+     * <p>
+     * 应用前没有未推送的本地变更时，把已推送序号推进到应用后的最新序号，
+     * 避免刚拉下来的变更在下次同步时又被推回去。
+     * </p>
+     * @param changes 服务器下发的变更，以服务器为准直接覆盖
+     * @param remoteCursor 新的服务器游标
+     * @return 应用的条数
+     */
+    int applyRemoteChanges(List<SyncChange> changes, long remoteCursor);
+}
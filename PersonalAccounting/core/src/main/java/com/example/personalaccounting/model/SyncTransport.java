@@ -0,0 +1,20 @@
+package com.example.personalaccounting.model;
+
+import java.io.IOException;
+
+/**
+ * 同步传输通道
+ * <p>
+ * 请求和响应都是 {@link SyncMessage#encode()} 编码后的字节。正式环境通过
+ * {@link HttpSyncTransport} 发往自建服务器，测试时可直接接到进程内的替身服务器。
+ * </p>
+ */
+public interface SyncTransport {
+    /**
+     * 发送一次请求并等待响应
+     * @param request 请求字节
+     * @return 响应字节
+     * @throws IOException 网络错误或服务器返回错误
+     */
+    byte[] exchange(byte[] request) throws IOException;
+}
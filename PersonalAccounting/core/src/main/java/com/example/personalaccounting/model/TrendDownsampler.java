@@ -0,0 +1,74 @@
+package com.example.personalaccounting.model;
+
+/**
+ * 趋势数据降采样
+ * <p>
+ * 使用 LTTB（Largest-Triangle-Three-Buckets）算法把长序列压缩到指定点数，
+ * 保留峰值和拐点形状。一年的按日数据压到图表像素宽度后再绘制，路径点数与数据量无关。
+ * </p>
+ */
+public final class TrendDownsampler {
+
+    private TrendDownsampler() {
+    }
+
+    /**
+     * LTTB降采样，横坐标取数组下标
+     * @param values 原始序列
+     * @param threshold 目标点数
+     * @return 选中点在原序列中的下标（升序）
+     */
+    public static int[] lttb(double[] values, int threshold) {
+        int n = values.length;
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] sampled = new int[threshold];
+        int sampledIndex = 0;
+        // 首尾两个点固定保留，中间 n-2 个点分成 threshold-2 个桶
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        sampled[sampledIndex++] = a;
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // 下一个桶的平均点
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += j;
+                avgY += values[j];
+            }
+            int avgLength = avgEnd - avgStart;
+            avgX /= avgLength;
+            avgY /= avgLength;
+
+            // 当前桶中与上一个选中点、下一个桶平均点构成最大三角形的点
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double pointAX = a;
+            double pointAY = values[a];
+            double maxArea = -1;
+            int maxIndex = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((pointAX - avgX) * (values[j] - pointAY)
+                        - (pointAX - j) * (avgY - pointAY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = j;
+                }
+            }
+            sampled[sampledIndex++] = maxIndex;
+            a = maxIndex;
+        }
+
+        sampled[sampledIndex] = n - 1;
+        return sampled;
+    }
+}
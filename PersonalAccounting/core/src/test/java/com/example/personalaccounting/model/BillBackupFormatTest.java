@@ -0,0 +1,322 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 二进制备份格式的往返测试
+ */
+public class BillBackupFormatTest {
+    private static final String[] CATEGORIES = {"餐饮", "水果", "零食", "美妆", "购物", "交通", "娱乐", "工资", "理财", "其他"};
+    private static final String[] REMARKS = {null, "", "午饭", "打车回家", "含逗号,和\"引号\"", "emoji 😀", "很长的备注很长的备注很长的备注很长的备注"};
+
+    @Test
+    public void roundTrip_syntheticLedger() throws IOException {
+        List<Bill> bills = syntheticLedger(20000, 42L);
+        byte[] backup = write(bills);
+
+        assertEquals(rows(bills), readAll(ByteBuffer.wrap(backup)));
+    }
+
+    @Test
+    public void roundTrip_memoryMappedFile() throws IOException {
+        List<Bill> bills = syntheticLedger(BillBackupWriter.BLOCK_ROWS * 3 + 17, 7L);
+        File file = File.createTempFile("bill", ".pabk");
+        try {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(write(bills));
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+                BillBackupReader reader = BillBackupReader.map(channel);
+                assertEquals(rows(bills), readAll(reader));
+                assertEquals(bills.size(), reader.getRowsRead());
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void roundTrip_emptyLedger() throws IOException {
+        byte[] backup = write(new ArrayList<>());
+
+        BillBackupReader reader = new BillBackupReader(ByteBuffer.wrap(backup));
+        assertFalse(reader.next(BillBackupReader.newBlock()));
+        assertEquals(0, reader.getRowsRead());
+    }
+
+    @Test
+    public void roundTrip_incrementalWithDeletes() throws IOException {
+        List<Bill> changed = syntheticLedger(BillBackupWriter.BLOCK_ROWS + 500, 11L);
+        List<String> expected = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BillBackupWriter writer = new BillBackupWriter(out, BillBackupWriter.KIND_INCREMENTAL, 123L, 40L, 97L)) {
+            for (int i = 0; i < changed.size(); i++) {
+                Bill bill = changed.get(i);
+                // 每隔几行夹一条删除记录，验证删除行不占用其余各列
+                if (i % 3 == 0) {
+                    writer.writeDelete(100_000 + i);
+                    expected.add("-" + (100_000 + i));
+                }
+                writer.write(bill);
+                expected.addAll(rows(Collections.singletonList(bill)));
+            }
+        }
+
+        BillBackupReader reader = new BillBackupReader(ByteBuffer.wrap(out.toByteArray()));
+        assertTrue(reader.isIncremental());
+        assertEquals(123L, reader.getChainId());
+        assertEquals(40L, reader.getFromSeq());
+        assertEquals(97L, reader.getToSeq());
+        assertEquals(expected, readAll(reader));
+    }
+
+    @Test
+    public void readsVersion1() throws IOException {
+        // 手工构造版本1文件：一条账单，没有编号列和链信息
+        BillBackupWriter.ByteSink payload = new BillBackupWriter.ByteSink(64);
+        payload.writeVarint(1);
+        payload.writeVarint(1);
+        payload.writeString("餐饮");
+        payload.writeZigzag(EpochDays.of(2024, 2, 29));
+        payload.writeByte(0);
+        payload.writeVarint(0);
+        payload.writeZigzag(1250);
+        payload.writeZigzag(1709193600000L);
+        payload.writeVarint(0);
+        CRC32 crc = new CRC32();
+        crc.update(payload.buffer, 0, payload.length);
+        ByteBuffer file = ByteBuffer.allocate(6 + 8 + payload.length + 12);
+        file.put(BillBackupWriter.MAGIC).put((byte) BillBackupWriter.VERSION_1).put((byte) 0);
+        file.putInt(payload.length).putInt((int) crc.getValue()).put(payload.buffer, 0, payload.length);
+        file.putInt(0).putLong(1);
+        file.flip();
+
+        BillBackupReader reader = new BillBackupReader(file);
+        assertFalse(reader.isIncremental());
+        assertEquals(0L, reader.getChainId());
+        assertEquals(Collections.singletonList(row(0, "2024-02-29", 0, "餐饮", 1250, null, 1709193600000L)),
+                readAll(reader));
+    }
+
+    @Test
+    public void roundTrip_keepsSyncIdentity() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BillBackupWriter writer = new BillBackupWriter(out, BillBackupWriter.KIND_INCREMENTAL, 9L, 0L, 5L)) {
+            writer.write(1, EpochDays.of(2024, 3, 8), 0, "餐饮", 3550, null, 1000, "0123456789abcdef0123456789abcdef", 3);
+            writer.writeDelete(2);
+            // 从未同步过的账单没有同步编号
+            writer.write(3, EpochDays.of(2024, 3, 8), 1, "工资", 800000, "三月", 2000, null, 1);
+            // 其他格式的编号按字符串原样保存
+            writer.write(4, EpochDays.of(2024, 3, 9), 0, "交通", 400, null, 3000, "0123456789ABCDEF0123456789ABCDEF", 7);
+            writer.write(5, EpochDays.of(2024, 3, 9), 0, "交通", 400, null, 4000, "server-42", 1L << 40);
+        }
+
+        BillBackupReader reader = new BillBackupReader(ByteBuffer.wrap(out.toByteArray()));
+        BackupBlock block = BillBackupReader.newBlock();
+        assertTrue(reader.next(block));
+        assertEquals(5, block.size());
+        assertEquals("0123456789abcdef0123456789abcdef", block.getSyncId(0));
+        assertEquals(3, block.getVersion(0));
+        assertTrue(block.isDeleted(1));
+        assertNull(block.getSyncId(2));
+        assertEquals(1, block.getVersion(2));
+        assertEquals("0123456789ABCDEF0123456789ABCDEF", block.getSyncId(3));
+        assertEquals(7, block.getVersion(3));
+        assertEquals("server-42", block.getSyncId(4));
+        assertEquals(1L << 40, block.getVersion(4));
+        assertFalse(reader.next(block));
+    }
+
+    @Test
+    public void readsVersion2() throws IOException {
+        // 手工构造版本2文件：一条账单和一条删除记录，没有同步编号和版本号列
+        BillBackupWriter.ByteSink payload = new BillBackupWriter.ByteSink(64);
+        payload.writeVarint(2);
+        payload.writeVarint(1);
+        payload.writeString("餐饮");
+        payload.writeZigzag(7);
+        payload.writeZigzag(1);
+        payload.writeByte(0b10);
+        payload.writeZigzag(EpochDays.of(2024, 2, 29));
+        payload.writeByte(1);
+        payload.writeVarint(0);
+        payload.writeZigzag(1250);
+        payload.writeZigzag(1709193600000L);
+        byte[] remark = "午饭".getBytes(StandardCharsets.UTF_8);
+        payload.writeVarint(remark.length + 1);
+        payload.write(remark);
+        CRC32 crc = new CRC32();
+        crc.update(payload.buffer, 0, payload.length);
+        ByteBuffer file = ByteBuffer.allocate(6 + 24 + 8 + payload.length + 12);
+        file.put(BillBackupWriter.MAGIC).put((byte) BillBackupWriter.VERSION_2).put((byte) 1);
+        file.putLong(5L).putLong(10L).putLong(20L);
+        file.putInt(payload.length).putInt((int) crc.getValue()).put(payload.buffer, 0, payload.length);
+        file.putInt(0).putLong(2);
+        file.flip();
+
+        BillBackupReader reader = new BillBackupReader(file);
+        assertTrue(reader.isIncremental());
+        assertEquals(20L, reader.getToSeq());
+        BackupBlock block = BillBackupReader.newBlock();
+        assertTrue(reader.next(block));
+        assertEquals(row(7, "2024-02-29", 1, "餐饮", 1250, "午饭", 1709193600000L),
+                row(block.getId(0), EpochDays.format(block.getEpochDay(0)), block.getBillType(0),
+                        block.getCategory(0), block.getCents(0), block.getRemark(0), block.getCreateTime(0)));
+        // 旧备份没有同步身份，恢复时重新分配
+        assertNull(block.getSyncId(0));
+        assertEquals(1, block.getVersion(0));
+        assertTrue(block.isDeleted(1));
+        assertEquals(8, block.getId(1));
+        assertFalse(reader.next(block));
+    }
+
+    @Test
+    public void backup_isCompact() throws IOException {
+        List<Bill> bills = syntheticLedger(50000, 1L);
+        // 已同步过的账单：随机同步编号，版本号大多为1
+        Random random = new Random(1L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BillBackupWriter writer = new BillBackupWriter(out)) {
+            for (Bill bill : bills) {
+                writer.write(bill.getId(), EpochDays.parse(bill.getDate()), bill.getBillType(), bill.getType(),
+                        Math.round(bill.getAmount() * 100), bill.getRemark(), bill.getCreateTime(),
+                        String.format("%016x%016x", random.nextLong(), random.nextLong()), 1 + random.nextInt(2));
+            }
+        }
+        byte[] backup = out.toByteArray();
+
+        // 备注按原样存UTF-8，同步编号是16字节随机数，除去这两项后其余各列应当远小于SQLite中每行约50-70字节的开销；
+        // 同步编号的标记和版本号各占1字节
+        long incompressibleBytes = (long) bills.size() * BillBackupWriter.SYNC_ID_BYTES;
+        for (Bill bill : bills) {
+            if (bill.getRemark() != null) {
+                incompressibleBytes += bill.getRemark().getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        double bytesPerRow = (double) (backup.length - incompressibleBytes) / bills.size();
+        assertTrue("每行" + bytesPerRow + "字节", bytesPerRow < 14);
+    }
+
+    @Test
+    public void corruptedBlock_isRejected() throws IOException {
+        byte[] backup = write(syntheticLedger(1000, 3L));
+        // 文件头30字节 + 块头8字节之后是第一个块的载荷
+        backup[30 + 8 + 20] ^= 0x55;
+
+        try {
+            readAll(ByteBuffer.wrap(backup));
+            fail("损坏的数据块应当被拒绝");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("校验"));
+        }
+    }
+
+    @Test
+    public void truncatedFile_isRejected() throws IOException {
+        byte[] backup = write(syntheticLedger(BillBackupWriter.BLOCK_ROWS + 10, 5L));
+        byte[] truncated = Arrays.copyOf(backup, backup.length - 100);
+
+        try {
+            readAll(ByteBuffer.wrap(truncated));
+            fail("不完整的文件应当被拒绝");
+        } catch (IOException expected) {
+            // 预期异常
+        }
+    }
+
+    @Test
+    public void wrongMagic_isRejected() {
+        try {
+            new BillBackupReader(ByteBuffer.wrap("SQLite format 3".getBytes()));
+            fail("非备份文件应当被拒绝");
+        } catch (IOException expected) {
+            // 预期异常
+        }
+    }
+
+    /**
+     * 生成按日期、创建时间升序的合成账本
+     */
+    static List<Bill> syntheticLedger(int rows, long seed) {
+        Random random = new Random(seed);
+        List<Bill> bills = new ArrayList<>(rows);
+        long epochDay = EpochDays.of(2016, 1, 1);
+        long createTime = 1451606400000L;
+        for (int i = 0; i < rows; i++) {
+            if (random.nextInt(4) == 0) {
+                epochDay += 1 + random.nextInt(2);
+            }
+            createTime += 1000 + random.nextInt(3_600_000);
+            int billType = random.nextInt(10) == 0 ? 1 : 0;
+            long cents = billType == 1 ? 100_000 + random.nextInt(2_000_000) : 100 + random.nextInt(50_000);
+            bills.add(new Bill(i + 1, CATEGORIES[random.nextInt(CATEGORIES.length)], cents / 100.0, billType,
+                    REMARKS[random.nextInt(REMARKS.length)], EpochDays.format(epochDay), createTime));
+        }
+        return bills;
+    }
+
+    private static byte[] write(List<Bill> bills) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BillBackupWriter writer = new BillBackupWriter(out)) {
+            for (Bill bill : bills) {
+                writer.write(bill);
+            }
+            assertEquals(bills.size(), writer.finish());
+        }
+        return out.toByteArray();
+    }
+
+    private static List<String> readAll(ByteBuffer buffer) throws IOException {
+        return readAll(new BillBackupReader(buffer));
+    }
+
+    private static List<String> readAll(BillBackupReader reader) throws IOException {
+        List<String> rows = new ArrayList<>();
+        BackupBlock block = BillBackupReader.newBlock();
+        while (reader.next(block)) {
+            for (int i = 0; i < block.size(); i++) {
+                if (block.isDeleted(i)) {
+                    rows.add("-" + block.getId(i));
+                } else {
+                    rows.add(row(block.getId(i), EpochDays.format(block.getEpochDay(i)), block.getBillType(i),
+                            block.getCategory(i), block.getCents(i), block.getRemark(i), block.getCreateTime(i)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> rows(List<Bill> bills) {
+        List<String> rows = new ArrayList<>(bills.size());
+        for (Bill bill : bills) {
+            rows.add(row(bill.getId(), bill.getDate(), bill.getBillType(), bill.getType(),
+                    Math.round(bill.getAmount() * 100), bill.getRemark(), bill.getCreateTime()));
+        }
+        return rows;
+    }
+
+    private static String row(long id, String date, int billType, String category, long cents, String remark, long createTime) {
+        return id + "|" + date + '|' + billType + '|' + category + '|' + cents + '|' + remark + '|' + createTime;
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 账单CSV解析测试
+ */
+public class BillCsvParserTest {
+    private static final Charset GBK = Charset.forName("GBK");
+
+    @Test
+    public void appExport_mapsEveryColumn() throws IOException {
+        BillCsvParser parser = parser("\uFEFF日期,收支,分类,金额,备注,创建时间\r\n"
+                + "2024-03-08,支出,餐饮,35.50,\"午饭, 两人\",1709870400000\r\n"
+                + "2024-03-07,收入,工资,8000.00,,1709784000000\r\n", StandardCharsets.UTF_8, 1000);
+        assertEquals(StandardCharsets.UTF_8, parser.getCharset());
+
+        Bill lunch = parser.next();
+        assertEquals("2024-03-08", lunch.getDate());
+        assertEquals(0, lunch.getBillType());
+        assertEquals("餐饮", lunch.getType());
+        assertEquals(35.5, lunch.getAmount(), 0);
+        assertEquals("午饭, 两人", lunch.getRemark());
+        // 创建时间按文件内顺序递增，原文件的创建时间列不使用
+        assertEquals(1002, lunch.getCreateTime());
+
+        Bill salary = parser.next();
+        assertEquals(1, salary.getBillType());
+        assertEquals(8000, salary.getAmount(), 0);
+        assertNull(salary.getRemark());
+        assertNull(parser.next());
+        assertEquals(0, parser.getInvalidCount());
+    }
+
+    @Test
+    public void bankStatement_inGbkWithAliasedColumns() throws IOException {
+        // 借方/贷方分列，没有收支列和分类列，大小写和空白不影响识别
+        BillCsvParser parser = parser(" 交易日期 ,摘要,借方金额,贷方金额,余额\n"
+                + "2024/3/8 12:30:00,超市购物,\"1,234.50\",,8765.50\n"
+                + "20240309,转账收入,,500,9265.50\n", GBK, 0);
+        assertEquals(GBK, parser.getCharset());
+
+        Bill shopping = parser.next();
+        assertEquals("2024-03-08", shopping.getDate());
+        assertEquals(0, shopping.getBillType());
+        assertEquals(1234.5, shopping.getAmount(), 0);
+        assertEquals("超市购物", shopping.getRemark());
+        assertEquals(BillCsvParser.DEFAULT_CATEGORY, shopping.getType());
+
+        Bill transfer = parser.next();
+        assertEquals("2024-03-09", transfer.getDate());
+        assertEquals(1, transfer.getBillType());
+        assertEquals(500, transfer.getAmount(), 0);
+        assertNull(parser.next());
+    }
+
+    @Test
+    public void signedAmount_decidesTypeWithoutTypeColumn() throws IOException {
+        BillCsvParser parser = parser("Date,Amount,Category,Memo\n"
+                + "2024.1.5,-12.80,Food,coffee\n"
+                + "2024年1月6日,(3.00),Food,\n"
+                + "2024-01-07T08:00:00,2500,Salary,\n", StandardCharsets.UTF_8, 0);
+        Bill coffee = parser.next();
+        assertEquals("2024-01-05", coffee.getDate());
+        assertEquals(0, coffee.getBillType());
+        assertEquals(12.8, coffee.getAmount(), 0);
+        assertEquals("Food", coffee.getType());
+        assertEquals("coffee", coffee.getRemark());
+        assertEquals(0, parser.next().getBillType());
+        Bill salary = parser.next();
+        assertEquals("2024-01-07", salary.getDate());
+        assertEquals(1, salary.getBillType());
+    }
+
+    @Test
+    public void typeColumn_overridesSign() throws IOException {
+        BillCsvParser parser = parser("日期,收/支,金额\n"
+                + "2024-03-08,支出,12\n"
+                + "2024-03-08,income,-5\n"
+                + "2024-03-08,其他,-7\n", StandardCharsets.UTF_8, 0);
+        assertEquals(0, parser.next().getBillType());
+        assertEquals(1, parser.next().getBillType());
+        // 收支列无法识别时按正负判断
+        assertEquals(0, parser.next().getBillType());
+    }
+
+    @Test
+    public void badRows_areSkippedAndReportedByLine() throws IOException {
+        BillCsvParser parser = parser("日期,金额,备注\n"
+                + "2024-03-08,10,正常\n"
+                + "2024-02-30,10,日期不存在\n"
+                + "\n"
+                + "03/08/2024,10,月日年\n"
+                + "2024-03-08,十元,金额不是数字\n"
+                + "2024-03-08,\"多行\n备注\",金额跨行\n"
+                + "2024-03-08,0,金额为零\n"
+                + "2024-03-09,20,正常\n", StandardCharsets.UTF_8, 0);
+        assertEquals("正常", parser.next().getRemark());
+        assertEquals("2024-03-09", parser.next().getDate());
+        assertNull(parser.next());
+        assertEquals(5, parser.getInvalidCount());
+        assertEquals(Arrays.asList(3L, 5L, 6L, 7L, 9L), parser.getInvalidLines());
+    }
+
+    @Test
+    public void invalidLines_areCapped() throws IOException {
+        StringBuilder csv = new StringBuilder("日期,金额\n");
+        for (int i = 0; i < BillCsvParser.MAX_INVALID_LINES + 50; i++) {
+            csv.append("bad,1\n");
+        }
+        BillCsvParser parser = parser(csv.toString(), StandardCharsets.UTF_8, 0);
+        assertNull(parser.next());
+        assertEquals(BillCsvParser.MAX_INVALID_LINES + 50, parser.getInvalidCount());
+        assertEquals(BillCsvParser.MAX_INVALID_LINES, parser.getInvalidLines().size());
+    }
+
+    @Test
+    public void missingColumns_areRejected() throws IOException {
+        assertRejected("日期,备注\n2024-03-08,午饭\n");
+        assertRejected("金额,备注\n10,午饭\n");
+        // 只有支出列时无法判断收入，视为缺少金额列
+        assertRejected("日期,支出\n2024-03-08,10\n");
+        // 空文件不算错误
+        assertNull(parser("", StandardCharsets.UTF_8, 0).next());
+    }
+
+    @Test
+    public void parseDate_edgeCases() throws IOException {
+        assertEquals("2024-02-29", date("2024-02-29"));
+        assertEquals("2000-02-29", date("2000/2/29"));
+        assertEquals("1999-12-31", date(" 19991231 "));
+        assertEquals("2024-03-08", date("2024-03-08 23:59:59"));
+        assertNull(date("2023-02-29"));
+        assertNull(date("1900-02-29"));
+        assertNull(date("2024-13-01"));
+        assertNull(date("2024-00-10"));
+        assertNull(date("24-03-08"));
+        assertNull(date("2024-03"));
+        assertNull(date("昨天"));
+        assertNull(date(""));
+    }
+
+    @Test
+    public void utf8_detectedWhenMultibyteCharStraddlesSniffWindow() throws IOException {
+        // 中文字符跨过编码判断的8KB边界，仍按UTF-8识别
+        StringBuilder csv = new StringBuilder("日期,金额,备注\n");
+        while (csv.length() < BillCsvParser.SNIFF_SIZE) {
+            csv.append("2024-03-08,1,中文备注测试\n");
+        }
+        BillCsvParser parser = parser(csv.toString(), StandardCharsets.UTF_8, 0);
+        assertEquals(StandardCharsets.UTF_8, parser.getCharset());
+        assertEquals("中文备注测试", parser.next().getRemark());
+    }
+
+    @Test
+    public void largeStatement_streamsInBoundedMemory() throws IOException {
+        int rows = 200_000;
+        BillCsvParser parser = new BillCsvParser(new GeneratedStatement(rows), 0);
+        long count = 0;
+        long totalCents = 0;
+        Bill bill;
+        while ((bill = parser.next()) != null) {
+            count++;
+            totalCents += Math.round(bill.getAmount() * 100);
+        }
+        assertEquals(rows, count);
+        assertEquals(expectedTotalCents(rows), totalCents);
+        assertEquals(0, parser.getInvalidCount());
+        assertTrue(parser.getBytesRead() > rows * 30L);
+    }
+
+    private static long expectedTotalCents(int rows) {
+        long total = 0;
+        for (int i = 0; i < rows; i++) {
+            total += GeneratedStatement.cents(i);
+        }
+        return total;
+    }
+
+    private static BillCsvParser parser(String csv, Charset charset, long baseTime) throws IOException {
+        return new BillCsvParser(new ByteArrayInputStream(csv.getBytes(charset)), baseTime);
+    }
+
+    private static void assertRejected(String csv) {
+        try {
+            parser(csv, StandardCharsets.UTF_8, 0);
+            fail("应当拒绝缺少必需列的文件");
+        } catch (IOException expected) {
+            // 调用方提示缺少的列
+        }
+    }
+
+    private static String date(String field) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(field + ",x\n"));
+        assertTrue(reader.next());
+        return BillCsvParser.parseDate(reader, 0);
+    }
+
+    /**
+     * 按需生成的银行流水，不在内存中保存整个文件
+     */
+    private static class GeneratedStatement extends InputStream {
+        private final int mRows;
+        private int mRow = -1;
+        private byte[] mLine = "交易日期,交易金额,收支,摘要\r\n".getBytes(StandardCharsets.UTF_8);
+        private int mPos;
+
+        GeneratedStatement(int rows) {
+            mRows = rows;
+        }
+
+        static long cents(int row) {
+            return 100 + (row * 7919L) % 100_000;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (mPos == mLine.length) {
+                if (++mRow >= mRows) {
+                    return -1;
+                }
+                long cents = cents(mRow);
+                String line = EpochDays.format(EpochDays.parse("2020-01-01") + mRow % 1500) + ","
+                        + (cents / 100) + "." + String.format("%02d", cents % 100) + ","
+                        + (mRow % 5 == 0 ? "收入" : "支出") + ",\"商户" + mRow % 300 + ", 分店\"\r\n";
+                mLine = line.getBytes(StandardCharsets.UTF_8);
+                mPos = 0;
+            }
+            int count = Math.min(length, mLine.length - mPos);
+            System.arraycopy(mLine, mPos, buffer, offset, count);
+            mPos += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 账单CSV导出测试：导出的文件应能原样导回
+ */
+public class BillCsvWriterTest {
+
+    @Test
+    public void roundTrip_keepsRemarksWithCommasQuotesAndNewlines() throws IOException {
+        List<Bill> bills = Arrays.asList(
+                new Bill(1, "餐饮", 35.5, 0, "午饭, 两人", "2024-03-08", 1),
+                new Bill(2, "购物", 99, 0, "买了\"好\"东西", "2024-03-08", 2),
+                new Bill(3, "工资", 8000, 1, "三月\r\n含奖金\n备注", "2024-03-09", 3),
+                new Bill(4, "交通, 出行", 4, 0, null, "2024-03-10", 4),
+                new Bill(5, "其他", 1, 1, "", "2024-03-11", 5));
+
+        List<Bill> read = roundTrip(bills);
+        assertEquals(bills.size(), read.size());
+        for (int i = 0; i < bills.size(); i++) {
+            Bill expected = bills.get(i);
+            Bill actual = read.get(i);
+            assertEquals(expected.getDate(), actual.getDate());
+            assertEquals(expected.getBillType(), actual.getBillType());
+            assertEquals(expected.getType(), actual.getType());
+            assertEquals(expected.getAmount(), actual.getAmount(), 0);
+        }
+        assertEquals("午饭, 两人", read.get(0).getRemark());
+        assertEquals("买了\"好\"东西", read.get(1).getRemark());
+        assertEquals("三月\r\n含奖金\n备注", read.get(2).getRemark());
+        // 空备注和null都导出为空字段，导回后为null
+        assertNull(read.get(3).getRemark());
+        assertNull(read.get(4).getRemark());
+    }
+
+    @Test
+    public void roundTrip_keepsCentPrecision() throws IOException {
+        double[] amounts = {0.01, 0.1 + 0.2, 19.999, 1234567.89, 0.005, 100, 2.675, 99999999.99};
+        List<Bill> bills = new ArrayList<>();
+        for (int i = 0; i < amounts.length; i++) {
+            bills.add(new Bill(i, "餐饮", amounts[i], i & 1, null, "2024-03-08", i));
+        }
+        List<Bill> read = roundTrip(bills);
+        for (int i = 0; i < amounts.length; i++) {
+            assertEquals(Math.round(amounts[i] * 100), Math.round(read.get(i).getAmount() * 100));
+        }
+    }
+
+    @Test
+    public void rows_useFixedTwoDecimalAmounts() throws IOException {
+        StringWriter out = new StringWriter();
+        BillCsvWriter writer = new BillCsvWriter(out);
+        writer.writeHeader();
+        writer.writeRow("2024-03-08", 1, "工资", 8000, "三月", 1709870400000L);
+        writer.writeRow("2024-03-08", 0, "餐饮", 0.1 + 0.2, null, 0);
+        writer.flush();
+        assertEquals("\uFEFF日期,收支,分类,金额,备注,创建时间\r\n"
+                + "2024-03-08,收入,工资,8000.00,三月,1709870400000\r\n"
+                + "2024-03-08,支出,餐饮,0.30,,0\r\n", out.toString());
+    }
+
+    @Test
+    public void millionRows_exportWithoutBuffering() throws IOException {
+        int rows = 1_000_000;
+        CountingWriter out = new CountingWriter();
+        BillCsvWriter writer = new BillCsvWriter(out);
+        writer.writeHeader();
+        long day = EpochDays.parse("2020-01-01");
+        for (int i = 0; i < rows; i++) {
+            writer.writeRow(EpochDays.format(day + i % 2000), i % 5 == 0 ? 1 : 0, "餐饮",
+                    (i % 100_000) / 100.0, i % 3 == 0 ? null : "备注, " + i, 1577836800000L + i);
+        }
+        writer.flush();
+        assertEquals(rows + 1, out.lines);
+        assertTrue(out.chars > rows * 30L);
+    }
+
+    private static List<Bill> roundTrip(List<Bill> bills) throws IOException {
+        StringWriter out = new StringWriter();
+        BillCsvWriter writer = new BillCsvWriter(out);
+        writer.writeHeader();
+        for (Bill bill : bills) {
+            writer.writeBill(bill);
+        }
+        writer.flush();
+
+        BillCsvParser parser = new BillCsvParser(
+                new ByteArrayInputStream(out.toString().getBytes(StandardCharsets.UTF_8)), 0);
+        List<Bill> read = new ArrayList<>();
+        Bill bill;
+        while ((bill = parser.next()) != null) {
+            read.add(bill);
+        }
+        assertEquals(0, parser.getInvalidCount());
+        return read;
+    }
+
+    /**
+     * 只统计字符数和行数、不保存内容的Writer
+     */
+    private static class CountingWriter extends Writer {
+        long chars;
+        long lines;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            chars += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+
+        @Override
+        public void write(int c) {
+            chars++;
+            if (c == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(String str, int offset, int length) {
+            chars += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (str.charAt(i) == '\n') {
+                    lines++;
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
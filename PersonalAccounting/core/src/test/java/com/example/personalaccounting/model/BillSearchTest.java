@@ -0,0 +1,79 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 全文搜索分词、查询构造和排序测试
+ */
+public class BillSearchTest {
+
+    @Test
+    public void tokenize_splitsChineseIntoCharacters() {
+        assertEquals("午 餐 外 卖", BillSearch.tokenize("午餐外卖"));
+        assertEquals("kfc 早 餐", BillSearch.tokenize("KFC早餐"));
+        assertEquals("星 巴 克 coffee 2", BillSearch.tokenize("星巴克，Coffee 2"));
+        assertEquals("", BillSearch.tokenize(null));
+        assertEquals("", BillSearch.tokenize("，。！"));
+    }
+
+    @Test
+    public void matchQuery_prefixForWordsAndPhraseForChinese() {
+        assertEquals("\"外 卖\"", BillSearch.toMatchQuery("外卖"));
+        assertEquals("kf*", BillSearch.toMatchQuery("KF"));
+        assertEquals("kfc* \"早 餐\"", BillSearch.toMatchQuery("kfc早餐"));
+        assertEquals("\"打 车\" \"回 家\"", BillSearch.toMatchQuery(" 打车 回家 "));
+        assertNull(BillSearch.toMatchQuery("  "));
+        assertNull(BillSearch.toMatchQuery(null));
+    }
+
+    @Test
+    public void matchQuery_neverProducesQuerySyntax() {
+        // 引号、减号、括号、星号和大写的 OR/AND/NEAR 在 FTS 中都有特殊含义
+        String query = BillSearch.toMatchQuery("\"a\" OR -b NEAR (c*) AND d:e");
+        assertEquals("a* or* b* near* c* and* d* e*", query);
+    }
+
+    @Test
+    public void matchQuery_capsTermCount() {
+        StringBuilder keyword = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            keyword.append("w").append(i).append(' ');
+        }
+        String query = BillSearch.toMatchQuery(keyword.toString());
+        assertEquals(16, query.split(" ").length);
+        assertTrue(query.endsWith("w15*"));
+    }
+
+    @Test
+    public void score_weightsCategoryAboveRemark() {
+        // 一个短语：命中分类一次
+        int categoryHit = BillSearch.score(matchinfo(1, 2, 1, 0));
+        // 一个短语：命中备注一次
+        int remarkHit = BillSearch.score(matchinfo(1, 2, 0, 1));
+        // 两个短语：都只命中备注
+        int twoRemarkHits = BillSearch.score(matchinfo(2, 2, 0, 1, 0, 1));
+        assertTrue(categoryHit > remarkHit);
+        assertTrue(twoRemarkHits > remarkHit);
+        assertEquals(0, BillSearch.score(null));
+        // 截断的数据不越界
+        assertEquals(3, BillSearch.score(matchinfo(2, 2, 1)));
+    }
+
+    /**
+     * 按本机字节序构造 matchinfo(..., 'pcy') 的返回值
+     */
+    private static byte[] matchinfo(int... ints) {
+        ByteBuffer buffer = ByteBuffer.allocate(ints.length * 4).order(ByteOrder.nativeOrder());
+        for (int value : ints) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+}
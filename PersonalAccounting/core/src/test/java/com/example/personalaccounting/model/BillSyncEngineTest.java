@@ -0,0 +1,237 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 同步引擎与替身服务器的端到端测试
+ */
+public class BillSyncEngineTest {
+    private static final String[] CATEGORIES = {"餐饮", "水果", "零食", "购物", "交通", "娱乐", "工资"};
+
+    @Test
+    public void twoDevices_converge() throws IOException {
+        LocalSyncServer server = new LocalSyncServer();
+        InMemorySyncStore phone = new InMemorySyncStore(1L);
+        InMemorySyncStore tablet = new InMemorySyncStore(2L);
+        fill(phone, 300, 10L);
+        fill(tablet, 200, 20L);
+
+        sync(phone, server);
+        sync(tablet, server);
+        sync(phone, server);
+        assertEquals(500, server.size());
+        assertEquals(phone.snapshot(), tablet.snapshot());
+
+        List<Long> ids = phone.ids();
+        phone.updateAmount(ids.get(0), 999);
+        phone.delete(ids.get(1));
+        tablet.delete(tablet.ids().get(5));
+        sync(phone, server);
+        sync(tablet, server);
+        sync(phone, server);
+        assertEquals(498, phone.snapshot().size());
+        assertEquals(phone.snapshot(), tablet.snapshot());
+    }
+
+    @Test
+    public void concurrentEdits_resolveToOneVersion() throws IOException {
+        LocalSyncServer server = new LocalSyncServer();
+        InMemorySyncStore phone = new InMemorySyncStore(3L);
+        InMemorySyncStore tablet = new InMemorySyncStore(4L);
+        phone.insert(EpochDays.of(2024, 5, 1), 0, "餐饮", 1200, "午饭", 1L);
+        sync(phone, server);
+        sync(tablet, server);
+
+        // 两台设备离线时改了同一笔账，版本号都从1变成2
+        phone.updateAmount(phone.ids().get(0), 1500);
+        tablet.updateAmount(tablet.ids().get(0), 1800);
+        sync(phone, server);
+        sync(tablet, server);
+        sync(phone, server);
+        sync(tablet, server);
+
+        assertEquals(phone.snapshot(), tablet.snapshot());
+        assertEquals(1, phone.snapshot().size());
+    }
+
+    @Test
+    public void weekOffline_transfersKilobytes() throws IOException {
+        LocalSyncServer server = new LocalSyncServer();
+        InMemorySyncStore phone = new InMemorySyncStore(5L);
+        InMemorySyncStore tablet = new InMemorySyncStore(6L);
+        fill(phone, 20000, 30L);
+        sync(phone, server);
+        sync(tablet, server);
+        assertEquals(phone.snapshot(), tablet.snapshot());
+
+        // 离线一周：每天记几笔、偶尔改删
+        Random random = new Random(7L);
+        long day = EpochDays.of(2025, 3, 1);
+        for (int i = 0; i < 7; i++) {
+            for (int j = 0; j < 5; j++) {
+                phone.insert(day + i, 0, CATEGORIES[random.nextInt(CATEGORIES.length)],
+                        100 + random.nextInt(10000), "第" + i + "天", 1_740_000_000_000L + i * 86_400_000L + j);
+            }
+        }
+        List<Long> ids = phone.ids();
+        phone.updateAmount(ids.get(random.nextInt(ids.size())), 4321);
+        phone.delete(ids.get(random.nextInt(ids.size())));
+
+        long sentBefore = server.getBytesIn();
+        long receivedBefore = server.getBytesOut();
+        BillSyncEngine.SyncResult pushed = sync(phone, server);
+        BillSyncEngine.SyncResult pulled = sync(tablet, server);
+
+        assertEquals(37, pushed.getPushed());
+        assertEquals(37, pulled.getPulled());
+        long transferred = (server.getBytesIn() - sentBefore) + (server.getBytesOut() - receivedBefore);
+        assertTrue("传输" + transferred + "字节", transferred < 8 * 1024);
+        assertEquals(phone.snapshot(), tablet.snapshot());
+    }
+
+    @Test
+    public void interruptedPush_resumesWithoutDuplicates() throws IOException {
+        LocalSyncServer server = new LocalSyncServer();
+        InMemorySyncStore phone = new InMemorySyncStore(8L);
+        fill(phone, BillSyncEngine.BATCH_SIZE * 3, 40L);
+
+        // 第二批推送时断网
+        SyncTransport flaky = new SyncTransport() {
+            int calls;
+
+            @Override
+            public byte[] exchange(byte[] request) throws IOException {
+                if (++calls == 2) {
+                    throw new IOException("网络中断");
+                }
+                return server.exchange(request);
+            }
+        };
+        try {
+            new BillSyncEngine(phone, flaky).sync();
+            fail("应当抛出网络异常");
+        } catch (IOException expected) {
+            // 预期异常
+        }
+        assertEquals(BillSyncEngine.BATCH_SIZE, server.size());
+
+        sync(phone, server);
+        assertEquals(BillSyncEngine.BATCH_SIZE * 3, server.size());
+        InMemorySyncStore tablet = new InMemorySyncStore(9L);
+        sync(tablet, server);
+        assertEquals(phone.snapshot(), tablet.snapshot());
+    }
+
+    @Test
+    public void largeIncrementalPush_readsOnePageAtATime() throws IOException {
+        LocalSyncServer server = new LocalSyncServer();
+        InMemorySyncStore phone = new InMemorySyncStore(12L);
+        fill(phone, BillSyncEngine.BATCH_SIZE * 2 + 100, 60L);
+        PageCountingStore counting = new PageCountingStore(phone);
+        new BillSyncEngine(counting, server).sync();
+        assertEquals(3, counting.pages);
+
+        // 跨页的修改和删除，墓碑也按账单编号分页
+        List<Long> ids = phone.ids();
+        for (int i = 0; i < ids.size(); i += 2) {
+            phone.updateAmount(ids.get(i), 100 + i);
+        }
+        for (int i = 1; i < ids.size(); i += 3) {
+            phone.delete(ids.get(i));
+        }
+        counting.pages = 0;
+        counting.maxPageSize = 0;
+        new BillSyncEngine(counting, server).sync();
+        assertTrue("读取" + counting.pages + "页", counting.pages >= 2);
+        assertTrue("单页" + counting.maxPageSize + "条", counting.maxPageSize <= BillSyncEngine.BATCH_SIZE);
+
+        InMemorySyncStore tablet = new InMemorySyncStore(13L);
+        sync(tablet, server);
+        assertEquals(phone.snapshot(), tablet.snapshot());
+    }
+
+    @Test
+    public void syncOverLocalhostHttp() throws IOException {
+        LocalSyncServer server = new LocalSyncServer();
+        String url = server.startHttp();
+        try {
+            InMemorySyncStore phone = new InMemorySyncStore(10L);
+            InMemorySyncStore tablet = new InMemorySyncStore(11L);
+            fill(phone, 1200, 50L);
+            new BillSyncEngine(phone, new HttpSyncTransport(url)).sync();
+            BillSyncEngine.SyncResult result = new BillSyncEngine(tablet, new HttpSyncTransport(url)).sync();
+
+            assertEquals(1200, result.getPulled());
+            assertEquals(phone.snapshot(), tablet.snapshot());
+        } finally {
+            server.stopHttp();
+        }
+    }
+
+    private static BillSyncEngine.SyncResult sync(InMemorySyncStore store, LocalSyncServer server) throws IOException {
+        return new BillSyncEngine(store, server).sync();
+    }
+
+    private static void fill(InMemorySyncStore store, int rows, long seed) {
+        Random random = new Random(seed);
+        long day = EpochDays.of(2023, 1, 1);
+        long createTime = 1_672_531_200_000L;
+        for (int i = 0; i < rows; i++) {
+            if (random.nextInt(4) == 0) {
+                day++;
+            }
+            createTime += 1000 + random.nextInt(3_600_000);
+            store.insert(day, random.nextInt(10) == 0 ? 1 : 0, CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    100 + random.nextInt(50000), random.nextBoolean() ? null : "备注" + i, createTime);
+        }
+    }
+
+    /**
+     * 记录引擎读取本地变更的页数和单页大小
+     */
+    private static final class PageCountingStore implements SyncStore {
+        private final SyncStore mDelegate;
+        int pages;
+        int maxPageSize;
+
+        PageCountingStore(SyncStore delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public State loadSyncState() {
+            return mDelegate.loadSyncState();
+        }
+
+        @Override
+        public long queryChangeLogHead() {
+            return mDelegate.queryChangeLogHead();
+        }
+
+        @Override
+        public Page readLocalChanges(long fromSeq, long toSeq, long afterBillId, int limit) {
+            Page page = mDelegate.readLocalChanges(fromSeq, toSeq, afterBillId, limit);
+            pages++;
+            maxPageSize = Math.max(maxPageSize, page.getChanges().size());
+            return page;
+        }
+
+        @Override
+        public void commitPushed(long localSeq) {
+            mDelegate.commitPushed(localSeq);
+        }
+
+        @Override
+        public int applyRemoteChanges(List<SyncChange> changes, long remoteCursor) {
+            return mDelegate.applyRemoteChanges(changes, remoteCursor);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 预算引擎增量记账、提醒和重算时机测试
+ */
+public class BudgetEngineTest {
+    private static final String MARCH = "2024-03";
+    private static final String APRIL = "2024-04";
+
+    private InMemoryBudgetStore mStore;
+    private BudgetEngine mEngine;
+    private List<Budget.Status> mAlerts;
+    private int mNextId = 1;
+
+    @Before
+    public void setUp() {
+        mStore = new InMemoryBudgetStore();
+        mStore.saveBudget(new Budget(Budget.ALL_CATEGORIES, 100000, 80));
+        mStore.saveBudget(new Budget("餐饮", 30000, 80));
+        newEngine();
+    }
+
+    @Test
+    public void writes_updateTotalsWithoutRescanning() {
+        add("餐饮", 100, "2024-03-02");
+        int scans = mStore.scans;
+        add("餐饮", 50.5, "2024-03-03");
+        add("交通", 20, "2024-03-03");
+        add("工资", 5000, "2024-03-03", 1);
+        add("餐饮", 70, "2024-02-28");
+
+        assertEquals(scans, mStore.scans);
+        assertEquals(15050, spent("餐饮"));
+        assertEquals(17050, spent(Budget.ALL_CATEGORIES));
+        assertTrue(mAlerts.isEmpty());
+    }
+
+    @Test
+    public void crossingThresholds_alertsOncePerLevel() {
+        add("餐饮", 230, "2024-03-02");
+        add("餐饮", 10, "2024-03-03");
+        assertEquals(1, mAlerts.size());
+        assertEquals(Budget.LEVEL_WARNING, mAlerts.get(0).getLevel());
+        assertEquals("餐饮", mAlerts.get(0).getBudget().getCategory());
+
+        add("餐饮", 20, "2024-03-04");
+        add("餐饮", 50, "2024-03-05");
+        assertEquals(2, mAlerts.size());
+        assertEquals(Budget.LEVEL_EXCEEDED, mAlerts.get(1).getLevel());
+        assertEquals(-1000, mAlerts.get(1).getRemainingCents());
+
+        add("餐饮", 10, "2024-03-06");
+        assertEquals(2, mAlerts.size());
+    }
+
+    @Test
+    public void updateAndDelete_applyDifference() {
+        Bill lunch = add("餐饮", 250, "2024-03-02");
+        assertEquals(1, mAlerts.size());
+
+        // 改到上个月：本月累计减少，提醒级别回落
+        Bill moved = copy(lunch);
+        moved.setDate("2024-02-28");
+        mStore.bills.put(moved.getId(), moved);
+        mEngine.onBillChanged(MARCH, lunch, moved);
+        assertEquals(0, spent("餐饮"));
+        assertEquals(0, spent(Budget.ALL_CATEGORIES));
+
+        // 再次跨过提醒线时重新提醒
+        Bill dinner = add("餐饮", 260, "2024-03-03");
+        assertEquals(2, mAlerts.size());
+
+        // 换分类：餐饮减少，总预算不变
+        Bill retyped = copy(dinner);
+        retyped.setType("娱乐");
+        mStore.bills.put(retyped.getId(), retyped);
+        mEngine.onBillChanged(MARCH, dinner, retyped);
+        assertEquals(0, spent("餐饮"));
+        assertEquals(26000, spent(Budget.ALL_CATEGORIES));
+
+        mStore.bills.remove(retyped.getId());
+        mEngine.onBillChanged(MARCH, retyped, null);
+        assertEquals(0, spent(Budget.ALL_CATEGORIES));
+    }
+
+    @Test
+    public void restart_reusesSavedTotalsOnlyWhenUpToDate() {
+        add("餐饮", 100, "2024-03-02");
+        add("餐饮", 40, "2024-03-03");
+
+        int scans = mStore.scans;
+        newEngine();
+        assertEquals(14000, spent("餐饮"));
+        assertEquals(scans, mStore.scans);
+
+        // 上次退出前有写入没有记账
+        mStore.bills.put(mNextId, bill(mNextId++, "餐饮", 200, "2024-03-04", 0));
+        mStore.head++;
+        newEngine();
+        assertEquals(34000, spent("餐饮"));
+        assertEquals(scans + 1, mStore.scans);
+        // 重算时跨过的级别也会提醒
+        assertEquals(Budget.LEVEL_EXCEEDED, mAlerts.get(0).getLevel());
+    }
+
+    @Test
+    public void restart_afterWritesOutsideAnyBudget_reusesSavedTotals() {
+        add("餐饮", 100, "2024-03-02");
+        // 收入和上个月的支出都不改变本月的累计值
+        add("工资", 5000, "2024-03-03", 1);
+        add("餐饮", 70, "2024-02-28");
+        assertEquals(mStore.head, mStore.seq);
+
+        int scans = mStore.scans;
+        newEngine();
+        assertEquals(10000, spent("餐饮"));
+        assertEquals(scans, mStore.scans);
+    }
+
+    @Test
+    public void monthRollover_rebuildsAndResetsAlerts() {
+        add("餐饮", 280, "2024-03-30");
+        assertEquals(1, mAlerts.size());
+
+        add("餐饮", 250, "2024-04-01", 0, APRIL);
+        assertEquals(25000, spent("餐饮", APRIL));
+        assertEquals(2, mAlerts.size());
+        assertEquals(Budget.LEVEL_WARNING, mAlerts.get(1).getLevel());
+    }
+
+    @Test
+    public void invalidateAndBudgetChanges_rebuildLazily() {
+        add("餐饮", 100, "2024-03-02");
+        int scans = mStore.scans;
+
+        // 批量导入不经过引擎
+        mStore.bills.put(mNextId, bill(mNextId++, "交通", 30, "2024-03-05", 0));
+        mStore.head++;
+        mEngine.invalidate();
+        assertEquals(scans, mStore.scans);
+        assertEquals(13000, spent(Budget.ALL_CATEGORIES));
+        assertEquals(scans + 1, mStore.scans);
+
+        mEngine.setBudget(new Budget("交通", 2500, 80));
+        assertEquals(3000, spent("交通"));
+        assertEquals(Budget.LEVEL_EXCEEDED, mAlerts.get(mAlerts.size() - 1).getLevel());
+
+        mEngine.removeBudget("交通");
+        assertEquals(2, mEngine.getStatuses(MARCH).size());
+        assertEquals(Budget.ALL_CATEGORIES, mEngine.getStatuses(MARCH).get(0).getBudget().getCategory());
+    }
+
+    private void newEngine() {
+        mEngine = new BudgetEngine(mStore);
+        mAlerts = new ArrayList<>();
+        mEngine.addAlertListener(mAlerts::add);
+    }
+
+    private Bill add(String category, double amount, String date) {
+        return add(category, amount, date, 0);
+    }
+
+    private Bill add(String category, double amount, String date, int billType) {
+        return add(category, amount, date, billType, MARCH);
+    }
+
+    private Bill add(String category, double amount, String date, int billType, String month) {
+        Bill bill = bill(mNextId++, category, amount, date, billType);
+        mStore.bills.put(bill.getId(), bill);
+        mStore.head++;
+        mEngine.onBillChanged(month, null, bill);
+        return bill;
+    }
+
+    private long spent(String category) {
+        return spent(category, MARCH);
+    }
+
+    private long spent(String category, String month) {
+        for (Budget.Status status : mEngine.getStatuses(month)) {
+            if (status.getBudget().getCategory().equals(category)) {
+                return status.getSpentCents();
+            }
+        }
+        return -1;
+    }
+
+    private static Bill bill(int id, String category, double amount, String date, int billType) {
+        return new Bill(id, category, amount, billType, null, date, id);
+    }
+
+    private static Bill copy(Bill bill) {
+        return new Bill(bill.getId(), bill.getType(), bill.getAmount(), bill.getBillType(), bill.getRemark(),
+                bill.getDate(), bill.getCreateTime());
+    }
+
+    /**
+     * 测试用的内存预算表，记录按分类汇总的次数
+     */
+    private static class InMemoryBudgetStore implements BudgetStore {
+        final Map<Integer, Bill> bills = new HashMap<>();
+        final Map<String, Budget.Status> budgets = new LinkedHashMap<>();
+        long head;
+        int scans;
+        String month;
+        long seq = -1;
+
+        @Override
+        public Snapshot loadBudgets() {
+            return new Snapshot(month, seq, new ArrayList<>(budgets.values()));
+        }
+
+        @Override
+        public Map<String, Long> queryMonthExpense(String month) {
+            scans++;
+            Map<String, Long> expense = new HashMap<>();
+            for (Bill bill : bills.values()) {
+                if (bill.getBillType() == 0 && bill.getDate().startsWith(month)) {
+                    expense.merge(bill.getType(), Math.round(bill.getAmount() * 100), Long::sum);
+                }
+            }
+            return expense;
+        }
+
+        @Override
+        public long queryChangeLogHead() {
+            return head;
+        }
+
+        @Override
+        public void saveBudget(Budget budget) {
+            budgets.put(budget.getCategory(), new Budget.Status(budget, 0, Budget.LEVEL_NORMAL));
+        }
+
+        @Override
+        public void deleteBudget(String category) {
+            budgets.remove(category);
+        }
+
+        @Override
+        public void saveBudgetTotals(String month, long seq, Collection<Budget.Status> changed) {
+            for (Budget.Status status : changed) {
+                budgets.put(status.getBudget().getCategory(), status);
+            }
+            this.month = month;
+            this.seq = seq;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * CSV记录读取测试
+ */
+public class CsvRecordReaderTest {
+
+    @Test
+    public void quotedFields_keepCommasNewlinesAndEscapedQuotes() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(
+                "日期,备注\r\n"
+                        + "2024-03-08,\"午饭, 两人\"\r\n"
+                        + "2024-03-09,\"第一行\n第二行\"\n"
+                        + "2024-03-10,\"他说\"\"好\"\"\"\n"
+                        + "2024-03-11,\"\"\n"));
+        assertTrue(reader.next());
+        assertEquals(2, reader.fieldCount());
+        assertEquals("备注", reader.field(1));
+
+        assertTrue(reader.next());
+        assertEquals("午饭, 两人", reader.field(1));
+        assertTrue(reader.next());
+        assertEquals("第一行\n第二行", reader.field(1));
+        assertTrue(reader.next());
+        assertEquals("他说\"好\"", reader.field(1));
+        assertTrue(reader.next());
+        assertEquals("", reader.field(1));
+        assertFalse(reader.next());
+        assertEquals(5, reader.recordCount());
+    }
+
+    @Test
+    public void blankLinesAndMissingTrailingNewline() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("a,b\n\n\r\nc,d"));
+        assertTrue(reader.next());
+        assertTrue(reader.next());
+        assertEquals("c", reader.field(0));
+        assertEquals("d", reader.field(1));
+        // 不存在的字段返回空字符串
+        assertEquals("", reader.field(5));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void lineNumbers_countBlankLinesAndEmbeddedNewlines() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(
+                "表头\r\n第二行\r\n\r\n\"跨\r\n两行\"\r\n第六行\r第七行\n"));
+        long[] expected = {1, 2, 4, 6, 7};
+        for (long line : expected) {
+            assertTrue(reader.next());
+            assertEquals(line, reader.lineNumber());
+        }
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void bom_isSkipped() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("\uFEFF日期,金额\n"));
+        assertTrue(reader.next());
+        assertEquals("日期", reader.field(0));
+    }
+
+    @Test
+    public void recordsSpanningBufferRefills_areComplete() throws IOException {
+        // 每次只给出3个字符，记录和 \r\n 都会被切断在缓冲区边界上
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            csv.append(i).append(",\"备注,").append(i).append("\n续\"\r\n");
+        }
+        CsvRecordReader reader = new CsvRecordReader(new TrickleReader(csv.toString(), 3));
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(reader.next());
+            assertEquals(String.valueOf(i), reader.field(0));
+            assertEquals("备注," + i + "\n续", reader.field(1));
+            assertEquals(2L * i + 1, reader.lineNumber());
+        }
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void parseCents_acceptsSignsSeparatorsAndCurrency() throws IOException {
+        assertEquals(123456, cents("1234.56"));
+        assertEquals(-123456, cents("\"-1,234.56\""));
+        assertEquals(-1230, cents("(12.30)"));
+        assertEquals(100000, cents("\"¥1,000\""));
+        assertEquals(100000, cents("\"￥ 1,000.00\""));
+        assertEquals(500, cents("+5"));
+        assertEquals(1230, cents("12.3"));
+        assertEquals(5, cents(".05"));
+        assertEquals(0, cents("0"));
+        // 超过两位小数四舍五入
+        assertEquals(101, cents("1.005"));
+        assertEquals(100, cents("1.0049"));
+        assertEquals(200, cents("1.995"));
+        assertEquals(1234500, cents("\"12,345.00\""));
+    }
+
+    @Test
+    public void parseCents_rejectsMalformedAmounts() throws IOException {
+        assertEquals(CsvRecordReader.INVALID_CENTS, cents(""));
+        assertEquals(CsvRecordReader.INVALID_CENTS, cents("-"));
+        assertEquals(CsvRecordReader.INVALID_CENTS, cents("abc"));
+        assertEquals(CsvRecordReader.INVALID_CENTS, cents("1.2.3"));
+        assertEquals(CsvRecordReader.INVALID_CENTS, cents("12元"));
+    }
+
+    private static long cents(String field) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("x," + field + ",y\n"));
+        assertTrue(reader.next());
+        return reader.parseCents(1);
+    }
+
+    /**
+     * 每次最多返回指定字符数的Reader，模拟慢速输入
+     */
+    private static class TrickleReader extends Reader {
+        private final String mText;
+        private final int mChunk;
+        private int mPos;
+
+        TrickleReader(String text, int chunk) {
+            mText = text;
+            mChunk = chunk;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (mPos >= mText.length()) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, mChunk), mText.length() - mPos);
+            mText.getChars(mPos, mPos + count, buffer, offset);
+            mPos += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
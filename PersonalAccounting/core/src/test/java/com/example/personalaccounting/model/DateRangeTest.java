@@ -0,0 +1,103 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 统计日期区间测试
+ */
+public class DateRangeTest {
+
+    @Test
+    public void isoWeek_spansYearBoundary() {
+        // 2024-12-30（周一）到 2025-01-05（周日）
+        DateRange week = DateRange.weekOf(EpochDays.parse("2025-01-01"), 1);
+        assertEquals(DateRange.DIMENSION_WEEK, week.getDimension());
+        assertEquals("2024-12-30", week.getStartDate());
+        assertEquals("2025-01-05", week.getEndDate());
+        assertEquals(7, week.getDays());
+        assertEquals("12月30日 ~ 1月5日", week.getLabel());
+
+        assertEquals("2024-12-23", week.previous().getStartDate());
+        assertEquals("2025-01-06", week.next().getStartDate());
+        assertEquals(week, week.next().previous());
+    }
+
+    @Test
+    public void week_startsOnConfiguredDay() {
+        // 周日为一周第一天：2025-01-01 所在周为 2024-12-29 到 2025-01-04
+        DateRange week = DateRange.weekOf(EpochDays.parse("2025-01-01"), 7);
+        assertEquals("2024-12-29", week.getStartDate());
+        assertEquals("2025-01-04", week.getEndDate());
+        // 当天就是第一天
+        assertEquals("2024-12-29", DateRange.weekOf(EpochDays.parse("2024-12-29"), 7).getStartDate());
+    }
+
+    @Test
+    public void weekOf_matchesLocalDate() {
+        long first = LocalDate.of(1965, 1, 1).toEpochDay();
+        long last = LocalDate.of(2035, 12, 31).toEpochDay();
+        for (long epochDay = first; epochDay <= last; epochDay++) {
+            LocalDate monday = LocalDate.ofEpochDay(epochDay).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            DateRange week = DateRange.weekOf(epochDay, 1);
+            assertEquals(monday.toEpochDay(), week.getStartEpochDay());
+            assertEquals(monday.plusDays(6).toEpochDay(), week.getEndEpochDay());
+            assertTrue(week.contains(epochDay));
+        }
+    }
+
+    @Test
+    public void month_shiftsFromTheLastDay() {
+        DateRange january = DateRange.of(DateRange.DIMENSION_MONTH, EpochDays.parse("2024-01-31"), 1);
+        assertEquals("2024-01-01", january.getStartDate());
+        assertEquals("2024-01-31", january.getEndDate());
+
+        DateRange february = january.next();
+        assertEquals("2024-02-01", february.getStartDate());
+        assertEquals("2024-02-29", february.getEndDate());
+        assertEquals("2023-02-28", DateRange.monthOf(2023, 2).getEndDate());
+        assertEquals("1900-02-28", DateRange.monthOf(1900, 2).getEndDate());
+        assertEquals("2000-02-29", DateRange.monthOf(2000, 2).getEndDate());
+
+        DateRange december = DateRange.of(DateRange.DIMENSION_MONTH, EpochDays.parse("2023-12-31"), 1);
+        assertEquals("2024-01-01", december.next().getStartDate());
+        assertEquals("2023-11-30", december.previous().getEndDate());
+        assertEquals("2022-12-01", december.shift(-12).getStartDate());
+        assertEquals("2024年1月", december.next().getLabel());
+        assertEquals("2024-01", december.next().getMonthValue());
+    }
+
+    @Test
+    public void monthOf_endsOnLastDayOfMonth() {
+        for (int year = 1899; year <= 2101; year++) {
+            for (int month = 1; month <= 12; month++) {
+                DateRange range = DateRange.monthOf(year, month);
+                LocalDate start = LocalDate.of(year, month, 1);
+                assertEquals(start.toString(), range.getStartDate());
+                assertEquals(start.withDayOfMonth(start.lengthOfMonth()).toString(), range.getEndDate());
+                assertEquals(start.lengthOfMonth(), range.getDays());
+            }
+        }
+    }
+
+    @Test
+    public void year_shiftsAcrossCenturiesAndBefore1970() {
+        DateRange year = DateRange.of(DateRange.DIMENSION_YEAR, EpochDays.parse("2000-12-31"), 1);
+        assertEquals("2000-01-01", year.getStartDate());
+        assertEquals(366, year.getDays());
+        assertEquals(365, year.next().getDays());
+        assertEquals("2001", year.next().getYearValue());
+
+        DateRange old = year.shift(-40);
+        assertEquals("1960-01-01", old.getStartDate());
+        assertEquals("1960-12-31", old.getEndDate());
+        assertEquals("1960年", old.getLabel());
+        assertEquals(365, DateRange.yearOf(1900).getDays());
+    }
+}
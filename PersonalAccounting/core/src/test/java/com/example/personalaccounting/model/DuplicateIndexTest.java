@@ -0,0 +1,99 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 导入去重索引测试
+ */
+public class DuplicateIndexTest {
+    private static final String STATEMENT = "日期,金额,收支,备注\n"
+            + "2024-03-08,35.50,支出,午饭\n"
+            + "2024-03-08,35.50,支出,午饭\n"
+            + "2024-03-08,35.50,支出,晚饭\n"
+            + "2024-03-08,35.50,收入,午饭\n"
+            + "2024-03-09,8000,收入,\n";
+
+    @Test
+    public void reimport_skipsEveryRowAlreadyImported() throws IOException {
+        List<Bill> first = parse(STATEMENT);
+        assertEquals(5, first.size());
+
+        // 第一次导入：库为空，全部写入
+        DuplicateIndex empty = new DuplicateIndex(0);
+        for (Bill bill : first) {
+            assertFalse(empty.consume(DuplicateIndex.key(bill)));
+        }
+
+        // 再次导入同一文件：库里已有第一次写入的账单，全部跳过
+        DuplicateIndex index = new DuplicateIndex(first.size());
+        for (Bill bill : first) {
+            index.add(DuplicateIndex.key(bill));
+        }
+        for (Bill bill : parse(STATEMENT)) {
+            assertTrue(bill.getRemark(), index.consume(DuplicateIndex.key(bill)));
+        }
+    }
+
+    @Test
+    public void identicalRows_matchByCount() throws IOException {
+        // 库里只有一笔午饭，文件里两笔相同的午饭只跳过一笔
+        DuplicateIndex index = new DuplicateIndex(1);
+        index.add(DuplicateIndex.key("2024-03-08", 3550, 0, "午饭"));
+        int duplicates = 0;
+        for (Bill bill : parse(STATEMENT)) {
+            if (index.consume(DuplicateIndex.key(bill))) {
+                duplicates++;
+            }
+        }
+        assertEquals(1, duplicates);
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void key_coversEveryField() {
+        long base = DuplicateIndex.key("2024-03-08", 3550, 0, "午饭");
+        assertNotEquals(base, DuplicateIndex.key("2024-03-09", 3550, 0, "午饭"));
+        assertNotEquals(base, DuplicateIndex.key("2024-03-08", 3551, 0, "午饭"));
+        assertNotEquals(base, DuplicateIndex.key("2024-03-08", 3550, 1, "午饭"));
+        assertNotEquals(base, DuplicateIndex.key("2024-03-08", 3550, 0, "晚饭"));
+        // 空备注与null等价，与数据库中的 NULL 备注匹配
+        assertEquals(DuplicateIndex.key("2024-03-08", 3550, 0, null), DuplicateIndex.key("2024-03-08", 3550, 0, ""));
+        // 浮点金额按分取整
+        assertEquals(base, DuplicateIndex.key(new Bill(0, "餐饮", 35.499999999, 0, "午饭", "2024-03-08", 0)));
+    }
+
+    @Test
+    public void index_growsPastInitialCapacity() {
+        DuplicateIndex index = new DuplicateIndex(4);
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            index.add(DuplicateIndex.key(EpochDays.format(19_000 + i % 365), i, i & 1, null));
+        }
+        assertEquals(count, index.size());
+        for (int i = 0; i < count; i++) {
+            assertTrue(index.consume(DuplicateIndex.key(EpochDays.format(19_000 + i % 365), i, i & 1, null)));
+        }
+        assertFalse(index.consume(DuplicateIndex.key(EpochDays.format(19_000), 0, 0, null)));
+    }
+
+    private static List<Bill> parse(String csv) throws IOException {
+        BillCsvParser parser = new BillCsvParser(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 0);
+        List<Bill> bills = new ArrayList<>();
+        Bill bill;
+        while ((bill = parser.next()) != null) {
+            bills.add(bill);
+        }
+        return bills;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.personalaccounting.model;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 引擎日志出口测试
+ */
+public class EngineLogTest {
+
+    @After
+    public void tearDown() {
+        EngineLog.setSink(null, EngineLog.DEBUG);
+    }
+
+    @Test
+    public void belowSinkLevel_argumentsAreNotFormatted() {
+        List<String> lines = new ArrayList<>();
+        EngineLog.setSink((priority, tag, message) -> lines.add(priority + " " + message), EngineLog.WARN);
+        Object expensive = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("低于级别的日志不应拼接参数");
+            }
+        };
+
+        EngineLog.d("Test", "忽略{}", expensive);
+        EngineLog.w("Test", "慢查询: {}，{}ms", "shape", 120);
+        EngineLog.e("Test", "失败: {}", "原因");
+        assertEquals(2, lines.size());
+        assertEquals(EngineLog.WARN + " 慢查询: shape，120ms", lines.get(0));
+        assertEquals(EngineLog.ERROR + " 失败: 原因", lines.get(1));
+        assertFalse(EngineLog.isLoggable(EngineLog.DEBUG));
+        assertTrue(EngineLog.isLoggable(EngineLog.WARN));
+    }
+
+    @Test
+    public void withoutSink_nothingIsLoggable() {
+        EngineLog.setSink(null, EngineLog.DEBUG);
+        assertFalse(EngineLog.isLoggable(EngineLog.ERROR));
+        // 没有出口时直接丢弃
+        EngineLog.e("Test", "丢弃{}", 1);
+    }
+
+    @Test
+    public void format_replacesPlaceholdersInOrder() {
+        assertEquals("推送3条（采纳2），拉取1条", EngineLog.format("推送{}条（采纳{}），拉取{}条", 3, 2, 1));
+        // 参数少于占位符时保留剩余的占位符，多于时忽略多余的参数
+        assertEquals("a=1, b={}", EngineLog.format("a={}, b={}", 1));
+        assertEquals("a=1", EngineLog.format("a={}", 1, 2));
+        assertEquals("null", EngineLog.format("{}", (Object) null));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 纪元日换算测试，以 java.time 的结果为准
+ */
+public class EpochDaysTest {
+
+    @Test
+    public void everyDay_matchesLocalDate() {
+        // 1600-01-01 到 2400-12-31，覆盖1970年以前、世纪年和400年闰年
+        long first = LocalDate.of(1600, 1, 1).toEpochDay();
+        long last = LocalDate.of(2400, 12, 31).toEpochDay();
+        for (long epochDay = first; epochDay <= last; epochDay++) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            String text = date.toString();
+            assertEquals(text, epochDay, EpochDays.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            assertEquals(text, epochDay, EpochDays.parse(text));
+            assertEquals(text, EpochDays.format(epochDay));
+            assertEquals(text, date.getYear(), EpochDays.year(epochDay));
+            assertEquals(text, date.getMonthValue(), EpochDays.month(epochDay));
+            assertEquals(text, date.getDayOfMonth(), EpochDays.dayOfMonth(epochDay));
+            assertEquals(text, date.getDayOfWeek().getValue(), EpochDays.dayOfWeek(epochDay));
+        }
+    }
+
+    @Test
+    public void knownDates() {
+        assertEquals(0, EpochDays.parse("1970-01-01"));
+        assertEquals(-1, EpochDays.parse("1969-12-31"));
+        assertEquals("1969-12-31", EpochDays.format(-1));
+        // 1970-01-01 是周四
+        assertEquals(4, EpochDays.dayOfWeek(0));
+        assertEquals(3, EpochDays.dayOfWeek(-1));
+        assertEquals("1900-03-01", EpochDays.format(EpochDays.parse("1900-02-28") + 1));
+        assertEquals("2000-02-29", EpochDays.format(EpochDays.parse("2000-02-28") + 1));
+    }
+
+    @Test
+    public void leapYearsAndMonthLengths() {
+        assertTrue(EpochDays.isLeapYear(2000));
+        assertTrue(EpochDays.isLeapYear(2024));
+        assertFalse(EpochDays.isLeapYear(1900));
+        assertFalse(EpochDays.isLeapYear(2100));
+        assertFalse(EpochDays.isLeapYear(2023));
+        for (int year = 1896; year <= 2104; year++) {
+            for (int month = 1; month <= 12; month++) {
+                assertEquals(year + "-" + month, LocalDate.of(year, month, 1).lengthOfMonth(),
+                        EpochDays.lengthOfMonth(year, month));
+            }
+        }
+    }
+}
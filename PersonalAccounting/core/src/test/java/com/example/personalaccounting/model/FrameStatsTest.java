@@ -0,0 +1,77 @@
+package com.example.personalaccounting.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class FrameStatsTest {
+    // 60Hz 的一帧预算
+    private static final long BUDGET = 16_666_667L;
+
+    @Test
+    public void frames_areGroupedByScreenAndInteraction() {
+        FrameStats stats = new FrameStats();
+        for (int i = 0; i < 90; i++) {
+            stats.record("统计", FrameStats.INTERACTION_TAB_SWITCH, 8_000_000L, BUDGET);
+        }
+        for (int i = 0; i < 9; i++) {
+            stats.record("统计", FrameStats.INTERACTION_TAB_SWITCH, 40_000_000L, BUDGET);
+        }
+        stats.record("统计", FrameStats.INTERACTION_TAB_SWITCH, 900_000_000L, BUDGET);
+        stats.record("账单列表", FrameStats.INTERACTION_SCROLL, 5_000_000L, BUDGET);
+
+        List<FrameStats.Bucket> buckets = stats.getBuckets();
+        assertEquals(2, buckets.size());
+        FrameStats.Bucket tabSwitch = find(stats, "统计", FrameStats.INTERACTION_TAB_SWITCH);
+        assertEquals(100, tabSwitch.getFrames());
+        // 冻结帧同时计入慢帧
+        assertEquals(10, tabSwitch.getSlow());
+        assertEquals(1, tabSwitch.getFrozen());
+        assertEquals(0.1, tabSwitch.getSlowRatio(), 1e-9);
+        assertTrue(tabSwitch.getDurations().getPercentileMicros(50) < 9_000);
+        assertTrue(tabSwitch.getDurations().getPercentileMicros(99) >= 37_000);
+        assertEquals(900_000, tabSwitch.getDurations().getMaxMicros());
+
+        FrameStats.Bucket scroll = find(stats, "账单列表", FrameStats.INTERACTION_SCROLL);
+        assertEquals(1, scroll.getFrames());
+        assertEquals(0, scroll.getSlow());
+    }
+
+    @Test
+    public void budget_followsRefreshRate() {
+        FrameStats stats = new FrameStats();
+        // 同样 12ms 的帧，60Hz 下不慢，120Hz 下算慢帧
+        stats.record("首页", FrameStats.INTERACTION_IDLE, 12_000_000L, BUDGET);
+        stats.record("首页", FrameStats.INTERACTION_IDLE, 12_000_000L, BUDGET / 2);
+        assertEquals(1, find(stats, "首页", FrameStats.INTERACTION_IDLE).getSlow());
+    }
+
+    @Test
+    public void csv_hasHeaderAndOneRowPerBucket() {
+        FrameStats stats = new FrameStats();
+        stats.record("日历", FrameStats.INTERACTION_IDLE, 20_000_000L, BUDGET);
+        stats.record("首页", FrameStats.INTERACTION_SCROLL, 10_000_000L, BUDGET);
+
+        String[] lines = stats.csv().split("\\R");
+        assertEquals(3, lines.length);
+        assertEquals("screen,interaction,frames,slow,frozen,p50_us,p90_us,p99_us,max_us", lines[0]);
+        assertTrue(lines[1], lines[1].startsWith("日历,静止,1,1,0,"));
+        assertTrue(lines[1], lines[1].endsWith(",20000"));
+        assertTrue(lines[2], lines[2].startsWith("首页,滚动,1,0,0,"));
+
+        stats.reset();
+        assertTrue(stats.getBuckets().isEmpty());
+    }
+
+    private static FrameStats.Bucket find(FrameStats stats, String screen, String interaction) {
+        for (FrameStats.Bucket bucket : stats.getBuckets()) {
+            if (bucket.getScreen().equals(screen) && bucket.getInteraction().equals(interaction)) {
+                return bucket;
+            }
+        }
+        throw new AssertionError("没有分组 " + screen + "/" + interaction);
+    }
+}
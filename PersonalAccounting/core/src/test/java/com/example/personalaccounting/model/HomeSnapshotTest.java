@@ -0,0 +1,79 @@
+package com.example.personalaccounting.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class HomeSnapshotTest {
+
+    @Test
+    public void roundTrip_keepsTotalsAndBills() throws IOException {
+        List<Bill> bills = Arrays.asList(
+                new Bill(12, "餐饮", 35.5, 0, "午饭", "2024-03-08", 1709870400000L),
+                new Bill(11, "工资", 8000, 1, null, "2024-03-07", 1709784000000L));
+        HomeSnapshot snapshot = new HomeSnapshot(1709900000000L, "2024-03-08", 7, 8000, 35.5, 7964.5, bills);
+
+        HomeSnapshot read = HomeSnapshot.fromBytes(snapshot.toBytes());
+        assertEquals(1709900000000L, read.getSavedAt());
+        assertEquals("2024-03-08", read.getDate());
+        assertEquals(7, read.getDays());
+        assertEquals(8000, read.getIncome(), 0);
+        assertEquals(35.5, read.getExpense(), 0);
+        assertEquals(7964.5, read.getBalance(), 0);
+        assertEquals(2, read.getBills().size());
+        Bill first = read.getBills().get(0);
+        assertEquals(12, first.getId());
+        assertEquals("餐饮", first.getType());
+        assertEquals(35.5, first.getAmount(), 0);
+        assertEquals(0, first.getBillType());
+        assertEquals("午饭", first.getRemark());
+        assertEquals("2024-03-08", first.getDate());
+        assertEquals(1709870400000L, first.getCreateTime());
+        assertNull(read.getBills().get(1).getRemark());
+    }
+
+    @Test
+    public void bills_areCappedAtMax() throws IOException {
+        List<Bill> bills = new ArrayList<>();
+        for (int i = 0; i < HomeSnapshot.MAX_BILLS + 20; i++) {
+            bills.add(new Bill(i, "餐饮", i, 0, "", "2024-03-08", i));
+        }
+        HomeSnapshot snapshot = new HomeSnapshot(0, "2024-03-08", 30, 0, 0, 0, bills);
+        assertEquals(HomeSnapshot.MAX_BILLS, snapshot.getBills().size());
+        assertEquals(HomeSnapshot.MAX_BILLS, HomeSnapshot.fromBytes(snapshot.toBytes()).getBills().size());
+    }
+
+    @Test
+    public void damagedFiles_areRejected() {
+        byte[] data = new HomeSnapshot(0, "2024-03-08", 7, 1, 2, -1,
+                Arrays.asList(new Bill(1, "餐饮", 2, 0, "早饭", "2024-03-08", 0))).toBytes();
+
+        // 截断
+        assertRejected(Arrays.copyOf(data, data.length - 3));
+        assertRejected(Arrays.copyOf(data, 6));
+        // 载荷被改动
+        byte[] flipped = data.clone();
+        flipped[flipped.length - 1] ^= 1;
+        assertRejected(flipped);
+        // 不是快照文件
+        byte[] other = data.clone();
+        other[0] = 'X';
+        assertRejected(other);
+    }
+
+    private static void assertRejected(byte[] data) {
+        try {
+            HomeSnapshot.fromBytes(data);
+            fail("应当拒绝损坏的快照");
+        } catch (IOException expected) {
+            // 调用方忽略快照，等新数据
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.personalaccounting.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * 测试用的内存账本
+ * <p>
+ * 按 {@code BillDbHelper} 的语义模拟账单表、触发器写入的变更日志和同步状态，
+ * 让同步引擎可以在纯JVM上测试。
+ * </p>
+ */
+class InMemorySyncStore implements SyncStore {
+
+    static final class Row {
+        String syncId;
+        long version;
+        long epochDay;
+        int billType;
+        String category;
+        long cents;
+        String remark;
+        long createTime;
+
+        @Override
+        public String toString() {
+            return syncId + "|" + version + "|" + epochDay + "|" + billType + "|" + category + "|" + cents + "|" +
+                    remark + "|" + createTime;
+        }
+    }
+
+    private static final class LogEntry {
+        final long billId;
+        final String deletedSyncId;
+        final long deletedVersion;
+
+        LogEntry(long billId, String deletedSyncId, long deletedVersion) {
+            this.billId = billId;
+            this.deletedSyncId = deletedSyncId;
+            this.deletedVersion = deletedVersion;
+        }
+    }
+
+    private final Map<Long, Row> mRows = new LinkedHashMap<>();
+    private final Map<String, Long> mIdsBySyncId = new HashMap<>();
+    private final TreeMap<Long, LogEntry> mLog = new TreeMap<>();
+    private final Random mRandom;
+    private long mNextId = 1;
+    private long mSeq;
+    private State mState;
+
+    InMemorySyncStore(long seed) {
+        mRandom = new Random(seed);
+    }
+
+    long insert(long epochDay, int billType, String category, long cents, String remark, long createTime) {
+        Row row = new Row();
+        row.syncId = new UUID(mRandom.nextLong(), mRandom.nextLong()).toString().replace("-", "");
+        row.version = 1;
+        row.epochDay = epochDay;
+        row.billType = billType;
+        row.category = category;
+        row.cents = cents;
+        row.remark = remark;
+        row.createTime = createTime;
+        long id = mNextId++;
+        mRows.put(id, row);
+        mIdsBySyncId.put(row.syncId, id);
+        mLog.put(++mSeq, new LogEntry(id, null, 0));
+        return id;
+    }
+
+    void updateAmount(long id, long cents) {
+        Row row = mRows.get(id);
+        row.cents = cents;
+        row.version++;
+        mLog.put(++mSeq, new LogEntry(id, null, 0));
+    }
+
+    void delete(long id) {
+        Row row = mRows.remove(id);
+        mIdsBySyncId.remove(row.syncId);
+        mLog.put(++mSeq, new LogEntry(id, row.syncId, row.version + 1));
+    }
+
+    List<Long> ids() {
+        return new ArrayList<>(mRows.keySet());
+    }
+
+    /**
+     * 按syncId排序的账本快照，用于比较两台设备是否一致
+     */
+    List<String> snapshot() {
+        List<String> rows = new ArrayList<>();
+        for (Row row : mRows.values()) {
+            rows.add(row.toString());
+        }
+        rows.sort(null);
+        return rows;
+    }
+
+    @Override
+    public State loadSyncState() {
+        if (mState == null) {
+            mState = new State(UUID.randomUUID().toString().replace("-", ""), -1, 0);
+        }
+        return mState;
+    }
+
+    @Override
+    public long queryChangeLogHead() {
+        return mSeq;
+    }
+
+    @Override
+    public Page readLocalChanges(long fromSeq, long toSeq, long afterBillId, int limit) {
+        List<SyncChange> changes = new ArrayList<>();
+        long lastBillId = afterBillId;
+        int read = 0;
+        if (fromSeq < 0) {
+            for (Map.Entry<Long, Row> item : new TreeMap<>(mRows).tailMap(afterBillId, false).entrySet()) {
+                if (read == limit) {
+                    break;
+                }
+                changes.add(toChange(item.getValue()));
+                lastBillId = item.getKey();
+                read++;
+            }
+            return new Page(changes, lastBillId, read == limit);
+        }
+        TreeMap<Long, LogEntry> last = new TreeMap<>();
+        for (LogEntry entry : mLog.subMap(fromSeq, false, toSeq, true).values()) {
+            if (entry.billId > afterBillId) {
+                last.put(entry.billId, entry);
+            }
+        }
+        for (Map.Entry<Long, LogEntry> item : last.entrySet()) {
+            if (read == limit) {
+                break;
+            }
+            Row row = mRows.get(item.getKey());
+            if (row != null) {
+                changes.add(toChange(row));
+            } else if (item.getValue().deletedSyncId != null) {
+                changes.add(SyncChange.tombstone(item.getValue().deletedSyncId, item.getValue().deletedVersion));
+            }
+            lastBillId = item.getKey();
+            read++;
+        }
+        return new Page(changes, lastBillId, read == limit);
+    }
+
+    @Override
+    public void commitPushed(long localSeq) {
+        mState = new State(mState.getDeviceId(), localSeq, mState.getRemoteCursor());
+    }
+
+    @Override
+    public int applyRemoteChanges(List<SyncChange> changes, long remoteCursor) {
+        boolean nothingPending = mState.getLocalSeq() == mSeq;
+        for (SyncChange change : changes) {
+            Long id = mIdsBySyncId.get(change.getSyncId());
+            if (change.isDeleted()) {
+                if (id != null) {
+                    delete(id);
+                }
+                continue;
+            }
+            if (id == null) {
+                id = mNextId++;
+                mRows.put(id, new Row());
+                mIdsBySyncId.put(change.getSyncId(), id);
+            }
+            Row row = mRows.get(id);
+            row.syncId = change.getSyncId();
+            row.version = change.getVersion();
+            row.epochDay = change.getEpochDay();
+            row.billType = change.getBillType();
+            row.category = change.getCategory();
+            row.cents = change.getCents();
+            row.remark = change.getRemark();
+            row.createTime = change.getCreateTime();
+            mLog.put(++mSeq, new LogEntry(id, null, 0));
+        }
+        mState = new State(mState.getDeviceId(), nothingPending ? mSeq : mState.getLocalSeq(), remoteCursor);
+        return changes.size();
+    }
+
+    private static SyncChange toChange(Row row) {
+        return new SyncChange(row.syncId, row.version, row.epochDay, row.billType, row.category, row.cents,
+                row.remark, row.createTime);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 延迟直方图测试
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets_coverEveryValueWithinOneSixteenth() {
+        long previousUpper = -1;
+        for (long micros = 0; micros < 1 << 20; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(upper >= micros);
+            assertTrue(upper - micros <= micros / 16);
+            // 桶按值单调排列，相邻的值落在同一个桶或下一个桶
+            assertTrue(upper == previousUpper || LatencyHistogram.bucketOf(micros - 1) == bucket - 1);
+            previousUpper = upper;
+        }
+        assertEquals(591, LatencyHistogram.bucketOf(Long.MAX_VALUE >>> 23));
+    }
+
+    @Test
+    public void percentiles_matchRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMicros(50));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordNanos(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMaxMicros());
+        assertEquals(500.5, histogram.getMeanMicros(), 1e-9);
+        assertEquals(500, histogram.getPercentileMicros(50), 500 / 16);
+        assertEquals(990, histogram.getPercentileMicros(99), 990 / 16);
+        assertEquals(1000, histogram.getPercentileMicros(100));
+        assertEquals(1, histogram.getPercentileMicros(0));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+    }
+
+    @Test
+    public void concurrentRecords_areAllCounted() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    histogram.recordNanos((i % 100 + offset) * 1000L);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.getCount());
+        assertEquals(102, histogram.getMaxMicros());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 账本摘要测试
+ */
+public class LedgerDigestTest {
+    private static final String[] CATEGORIES = {"餐饮", "水果", "零食", "购物", "交通", "娱乐", "工资"};
+
+    @Test
+    public void identicalLedgers_haveNoDiff() {
+        List<long[]> rows = tenYearLedger(1L);
+        LedgerDigest a = build(rows);
+        LedgerDigest b = build(rows);
+
+        assertEquals(a.getRoot(), b.getRoot());
+        assertEquals(rows.size(), a.getBillCount());
+        assertTrue(a.getMonthCount() >= 119);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(a.diff(b).isEmpty());
+        }
+        long perDiffMicros = (System.nanoTime() - start) / 1000 / 1000;
+        assertTrue("每次比对" + perDiffMicros + "微秒", perDiffMicros < 1000);
+    }
+
+    @Test
+    public void digest_isOrderIndependent() {
+        List<long[]> rows = tenYearLedger(2L);
+        List<long[]> shuffled = new ArrayList<>(rows);
+        Collections.shuffle(shuffled, new Random(3L));
+
+        assertEquals(build(rows).getRoot(), build(shuffled).getRoot());
+    }
+
+    @Test
+    public void changedBill_pointsToItsMonth() {
+        List<long[]> rows = tenYearLedger(4L);
+        List<long[]> changed = copy(rows);
+        long[] row = changed.get(rows.size() / 2);
+        row[3] += 1;
+
+        List<String> months = build(rows).diff(build(changed));
+        assertEquals(Collections.singletonList(month(row[0])), months);
+    }
+
+    @Test
+    public void movedAndMissingBills_reportEveryAffectedMonth() {
+        List<long[]> rows = tenYearLedger(5L);
+        List<long[]> changed = copy(rows);
+        // 一条账单改到另一个月，另一条删除，再多出一个对方没有的月份
+        long[] moved = changed.get(10);
+        String from = month(moved[0]);
+        moved[0] = EpochDays.of(2030, 6, 15);
+        long[] removed = changed.remove(changed.size() - 1);
+
+        List<String> months = build(rows).diff(build(changed));
+        List<String> expected = new ArrayList<>(Arrays.asList(from, month(removed[0]), "2030-06"));
+        Collections.sort(expected);
+        assertEquals(expected, months);
+        assertEquals(months, build(changed).diff(build(rows)));
+    }
+
+    @Test
+    public void monthDigests_roundTripThroughBuilder() {
+        LedgerDigest.Builder rows = new LedgerDigest.Builder();
+        rows.addRow(EpochDays.of(2024, 1, 3), 0, "餐饮", 1500, null, 1L);
+        rows.addRow(EpochDays.of(2024, 1, 9), 1, "工资", 800000, "一月", 2L);
+        long digest = LedgerDigest.rowHash(EpochDays.of(2024, 1, 3), 0, "餐饮", 1500, null, 1L)
+                + LedgerDigest.rowHash(EpochDays.of(2024, 1, 9), 1, "工资", 800000, "一月", 2L);
+
+        LedgerDigest fromMonths = new LedgerDigest.Builder().addMonth("2024-01", digest, 2).build();
+        assertEquals(rows.build().getRoot(), fromMonths.getRoot());
+    }
+
+    @Test
+    public void rowHash_distinguishesNullAndEmptyRemark() {
+        long day = EpochDays.of(2024, 1, 1);
+        assertNotEquals(LedgerDigest.rowHash(day, 0, "餐饮", 100, null, 1L),
+                LedgerDigest.rowHash(day, 0, "餐饮", 100, "", 1L));
+        assertNotEquals(LedgerDigest.rowHash(day, 0, "餐饮", 100, "a", 1L),
+                LedgerDigest.rowHash(day, 0, "餐饮a", 100, "", 1L));
+    }
+
+    /**
+     * 十年账本，每行为 {epochDay, billType, categoryIndex, cents, createTime}
+     */
+    private static List<long[]> tenYearLedger(long seed) {
+        Random random = new Random(seed);
+        List<long[]> rows = new ArrayList<>();
+        long end = EpochDays.of(2025, 1, 1);
+        long createTime = 1_420_070_400_000L;
+        for (long day = EpochDays.of(2015, 1, 1); day < end; day++) {
+            int perDay = random.nextInt(5);
+            for (int i = 0; i < perDay; i++) {
+                createTime += 1000 + random.nextInt(100_000);
+                rows.add(new long[]{day, random.nextInt(10) == 0 ? 1 : 0, random.nextInt(CATEGORIES.length),
+                        100 + random.nextInt(50000), createTime});
+            }
+        }
+        return rows;
+    }
+
+    private static LedgerDigest build(List<long[]> rows) {
+        LedgerDigest.Builder builder = new LedgerDigest.Builder();
+        for (long[] row : rows) {
+            builder.addRow(row[0], (int) row[1], CATEGORIES[(int) row[2]], row[3], null, row[4]);
+        }
+        return builder.build();
+    }
+
+    private static List<long[]> copy(List<long[]> rows) {
+        List<long[]> copy = new ArrayList<>(rows.size());
+        for (long[] row : rows) {
+            copy.add(row.clone());
+        }
+        return copy;
+    }
+
+    private static String month(long epochDay) {
+        return EpochDays.format(epochDay).substring(0, 7);
+    }
+}
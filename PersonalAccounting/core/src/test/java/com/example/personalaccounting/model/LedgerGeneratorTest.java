@@ -0,0 +1,110 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 合成账本生成器测试
+ */
+public class LedgerGeneratorTest {
+
+    @Test
+    public void sameSeed_generatesSameLedger() {
+        List<String> first = rows(builder(7L).build().nextBatch(Integer.MAX_VALUE));
+        assertEquals(first, rows(builder(7L).build().nextBatch(Integer.MAX_VALUE)));
+        assertNotEquals(first, rows(builder(8L).build().nextBatch(Integer.MAX_VALUE)));
+
+        // 分批取和逐条取结果相同
+        LedgerGenerator generator = builder(7L).build();
+        List<Bill> batched = new ArrayList<>();
+        List<Bill> batch;
+        while (!(batch = generator.nextBatch(777)).isEmpty()) {
+            batched.addAll(batch);
+        }
+        assertEquals(first, rows(batched));
+    }
+
+    @Test
+    public void ledger_hasExactCountInDateOrder() {
+        List<Bill> bills = new LedgerGenerator.Builder().seed(3L).years(2023, 2).billCount(30001).build()
+                .nextBatch(Integer.MAX_VALUE);
+        assertEquals(30001, bills.size());
+        assertEquals("2023-01-01", bills.get(0).getDate());
+        assertTrue(bills.get(bills.size() - 1).getDate().compareTo("2024-12-31") <= 0);
+        for (int i = 1; i < bills.size(); i++) {
+            Bill previous = bills.get(i - 1);
+            Bill bill = bills.get(i);
+            assertEquals(i + 1, bill.getId());
+            assertTrue(previous.getDate().compareTo(bill.getDate()) <= 0);
+            assertTrue(previous.getCreateTime() < bill.getCreateTime());
+        }
+    }
+
+    @Test
+    public void mix_followsConfiguredRatios() {
+        List<Bill> bills = builder(11L).billCount(50000).incomePercent(20).remarkPercent(50).build()
+                .nextBatch(Integer.MAX_VALUE);
+        int income = 0;
+        int remarks = 0;
+        int weekend = 0;
+        for (Bill bill : bills) {
+            List<String> types = Arrays.asList(bill.getBillType() == 1
+                    ? LedgerGenerator.INCOME_TYPES : LedgerGenerator.EXPENSE_TYPES);
+            assertTrue(bill.getType(), types.contains(bill.getType()));
+            assertTrue(bill.getAmount() > 0);
+            income += bill.getBillType();
+            remarks += bill.getRemark() != null ? 1 : 0;
+            weekend += EpochDays.dayOfWeek(EpochDays.parse(bill.getDate())) >= 6 ? 1 : 0;
+        }
+        assertEquals(0.2, income / 50000.0, 0.01);
+        assertEquals(0.5, remarks / 50000.0, 0.01);
+        // 周末两天按1.5倍权重，约占 3/8
+        assertEquals(3 / 8.0, weekend / 50000.0, 0.02);
+    }
+
+    @Test
+    public void writeBackup_roundTrips() throws IOException {
+        List<Bill> bills = builder(5L).build().nextBatch(Integer.MAX_VALUE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(bills.size(), builder(5L).build().writeBackup(out));
+
+        BillBackupReader reader = new BillBackupReader(ByteBuffer.wrap(out.toByteArray()));
+        BackupBlock block = BillBackupReader.newBlock();
+        int row = 0;
+        while (reader.next(block)) {
+            for (int i = 0; i < block.size(); i++, row++) {
+                Bill bill = bills.get(row);
+                assertEquals(bill.getId(), block.getId(i));
+                assertEquals(bill.getDate(), EpochDays.format(block.getEpochDay(i)));
+                assertEquals(Math.round(bill.getAmount() * 100), block.getCents(i));
+                assertEquals(bill.getType(), block.getCategory(i));
+            }
+        }
+        assertEquals(bills.size(), row);
+        assertFalse(builder(5L).billCount(0).build().hasNext());
+    }
+
+    private static LedgerGenerator.Builder builder(long seed) {
+        return new LedgerGenerator.Builder().seed(seed).years(2024, 1).billCount(5000);
+    }
+
+    private static List<String> rows(List<Bill> bills) {
+        List<String> rows = new ArrayList<>(bills.size());
+        for (Bill bill : bills) {
+            rows.add(bill.getId() + "|" + bill.getDate() + "|" + bill.getBillType() + "|" + bill.getType() + "|"
+                    + bill.getAmount() + "|" + bill.getRemark() + "|" + bill.getCreateTime());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 查询耗时统计测试
+ */
+public class QueryProfilerTest {
+
+    @Test
+    public void disabled_recordsNothing() {
+        QueryProfiler profiler = new QueryProfiler();
+        profiler.end(profiler.begin(), "queryAllBill", "SELECT 1", null, 10, -1);
+        assertTrue(profiler.getShapes().isEmpty());
+    }
+
+    @Test
+    public void shapes_areRecordedSeparately() {
+        QueryProfiler profiler = new QueryProfiler();
+        profiler.setEnabled(true);
+        profiler.setMainThread(Thread.currentThread());
+        for (int i = 0; i < 3; i++) {
+            profiler.end(profiler.begin(), "queryBillById", null, null, 1, -1);
+        }
+        profiler.end(profiler.begin(), "queryMonthDailyTotals", null, null, 30, 900);
+        profiler.end(profiler.begin(), "queryBills", "SE-", null, null, 5, -1);
+
+        List<QueryProfiler.ShapeStats> shapes = profiler.getShapes();
+        assertEquals(3, shapes.size());
+        QueryProfiler.ShapeStats byId = null;
+        for (QueryProfiler.ShapeStats stats : shapes) {
+            if (stats.getShape().equals("queryBillById")) {
+                byId = stats;
+            }
+        }
+        assertEquals(3, byId.getHistogram().getCount());
+        assertEquals(3, byId.getRowsReturned());
+        assertEquals(3, byId.getMainThreadCount());
+        assertEquals(0, byId.getSlowCount());
+        assertNull(byId.getPlan());
+
+        String report = profiler.report();
+        assertTrue(report, report.contains("queryBillById"));
+        assertTrue(report, report.contains("queryMonthDailyTotals"));
+        assertTrue(report, report.contains("queryBills[SE-]"));
+
+        profiler.reset();
+        assertTrue(profiler.getShapes().isEmpty());
+    }
+
+    @Test
+    public void slowQueries_captureThePlanOncePerShape() {
+        QueryProfiler profiler = new QueryProfiler();
+        profiler.setEnabled(true);
+        profiler.setSlowThresholdMillis(0);
+        AtomicInteger explained = new AtomicInteger();
+        profiler.setExplainer((sql, args) -> {
+            explained.incrementAndGet();
+            return Arrays.asList("SCAN bill_table", sql);
+        });
+        for (int i = 0; i < QueryProfiler.SLOW_LOG_SIZE + 5; i++) {
+            profiler.end(profiler.begin(), "queryAllBill", "SELECT * FROM bill_table", null, 100, -1);
+        }
+        // 写入没有 SQL，不取执行计划
+        profiler.end(profiler.begin(), "insertBill", null, null, 1, -1);
+
+        assertEquals(1, explained.get());
+        List<QueryProfiler.SlowQuery> slowQueries = profiler.getSlowQueries();
+        assertEquals(QueryProfiler.SLOW_LOG_SIZE, slowQueries.size());
+        assertEquals("insertBill", slowQueries.get(0).getShape());
+        assertNull(slowQueries.get(0).getPlan());
+        assertEquals(Arrays.asList("SCAN bill_table", "SELECT * FROM bill_table"), slowQueries.get(1).getPlan());
+        assertEquals(Thread.currentThread().getName(), slowQueries.get(1).getThread());
+        assertTrue(profiler.report().contains("    SCAN bill_table"));
+    }
+
+    @Test
+    public void explainerFailure_isRecordedInsteadOfThrown() {
+        QueryProfiler profiler = new QueryProfiler();
+        profiler.setEnabled(true);
+        profiler.setSlowThresholdMillis(0);
+        profiler.setExplainer((sql, args) -> {
+            throw new IllegalStateException("数据库已关闭");
+        });
+        profiler.end(profiler.begin(), "queryBills", "SELECT 1", null, 0, -1);
+        assertEquals(1, profiler.getSlowQueries().get(0).getPlan().size());
+        assertTrue(profiler.getSlowQueries().get(0).getPlan().get(0).contains("数据库已关闭"));
+    }
+}
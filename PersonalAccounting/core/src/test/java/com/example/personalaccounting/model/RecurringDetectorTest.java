@@ -0,0 +1,192 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 周期账单检测测试
+ */
+public class RecurringDetectorTest {
+
+    @Test
+    public void monthlyAndWeeklyPatterns_foundAmongNoise() {
+        InMemoryRecurringStore store = new InMemoryRecurringStore();
+        Random random = new Random(7);
+        // 每天几笔金额随机的餐饮
+        for (long day = EpochDays.parse("2024-01-01"); day <= EpochDays.parse("2024-04-30"); day++) {
+            for (int i = 0; i < 3; i++) {
+                store.add("餐饮", 0, 5 + random.nextInt(6000) / 100.0, EpochDays.format(day));
+            }
+        }
+        // 房租在月底，工资金额有小幅波动，订阅每周一次
+        store.add("住房", 0, 3000, "2024-01-31");
+        store.add("住房", 0, 3000, "2024-02-29");
+        store.add("住房", 0, 3000, "2024-03-31");
+        store.add("工资", 1, 12000, "2024-02-10");
+        store.add("工资", 1, 12150.5, "2024-03-10");
+        store.add("工资", 1, 11980, "2024-04-09");
+        for (long day = EpochDays.parse("2024-03-04"); day <= EpochDays.parse("2024-04-29"); day += 7) {
+            store.add("娱乐", 0, 15, EpochDays.format(day));
+        }
+
+        List<RecurringPattern> patterns = new RecurringDetector(store).detect(EpochDays.parse("2024-04-30"), 100000);
+        Map<String, RecurringPattern> byCategory = new LinkedHashMap<>();
+        for (RecurringPattern pattern : patterns) {
+            byCategory.put(pattern.getCategory(), pattern);
+        }
+        assertEquals(3, byCategory.size());
+        assertTrue(!byCategory.containsKey("餐饮"));
+
+        RecurringPattern rent = byCategory.get("住房");
+        assertEquals(RecurringDetector.CADENCE_MONTHLY, rent.getCadence());
+        assertEquals("2024-04-30", EpochDays.format(rent.getNextEpochDay()));
+        assertEquals(300000, rent.getCents());
+
+        RecurringPattern salary = byCategory.get("工资");
+        assertEquals(1, salary.getBillType());
+        assertEquals(1198000, salary.getCents());
+        assertEquals("2024-05-09", EpochDays.format(salary.getNextEpochDay()));
+
+        RecurringPattern subscription = byCategory.get("娱乐");
+        assertEquals(RecurringDetector.CADENCE_WEEKLY, subscription.getCadence());
+        assertEquals("2024-05-06", EpochDays.format(subscription.getNextEpochDay()));
+        assertEquals(9, subscription.getOccurrences());
+    }
+
+    @Test
+    public void detection_readsOnlyBillsAfterWatermark() {
+        InMemoryRecurringStore store = new InMemoryRecurringStore();
+        store.add("住房", 0, 3000, "2024-01-05");
+        store.add("住房", 0, 3000, "2024-02-05");
+        RecurringDetector detector = new RecurringDetector(store);
+        assertTrue(detector.detect(EpochDays.parse("2024-02-10"), 1000).isEmpty());
+        assertEquals(2, store.rowsRead);
+
+        store.add("住房", 0, 3000, "2024-03-05");
+        assertEquals(1, detector.detect(EpochDays.parse("2024-03-10"), 1000).size());
+        assertEquals(3, store.rowsRead);
+
+        // 重启后从保存的水位继续
+        store.add("住房", 0, 3000, "2024-04-05");
+        List<RecurringPattern> patterns = new RecurringDetector(store).detect(EpochDays.parse("2024-04-10"), 1000);
+        assertEquals(4, store.rowsRead);
+        assertEquals("2024-05-05", EpochDays.format(patterns.get(0).getNextEpochDay()));
+    }
+
+    @Test
+    public void perRunBudget_andSeriesCap_boundTheWork() {
+        InMemoryRecurringStore store = new InMemoryRecurringStore();
+        for (int i = 0; i < 5000; i++) {
+            store.add("购物", 0, 1 + i * 0.37, EpochDays.format(EpochDays.parse("2024-01-01") + i % 90));
+        }
+        RecurringDetector detector = new RecurringDetector(store);
+        assertEquals(2000, detector.catchUp(2000));
+        assertEquals(2000, store.rowsRead);
+        assertEquals(3000, detector.catchUp(100000));
+        assertTrue(store.series.size() <= RecurringDetector.MAX_SERIES_PER_CATEGORY);
+        assertEquals(5000, store.watermark);
+    }
+
+    @Test
+    public void backdatedBills_areKeptInDateOrder() {
+        InMemoryRecurringStore store = new InMemoryRecurringStore();
+        store.add("住房", 0, 3000, "2024-03-05");
+        store.add("住房", 0, 3000, "2024-01-05");
+        store.add("住房", 0, 3000, "2024-02-05");
+        List<RecurringPattern> patterns = new RecurringDetector(store).detect(EpochDays.parse("2024-03-20"), 1000);
+        assertEquals(1, patterns.size());
+        assertEquals("2024-03-05", EpochDays.format(patterns.get(0).getLastEpochDay()));
+    }
+
+    @Test
+    public void dismissedAndLapsedPatterns_areHidden() {
+        InMemoryRecurringStore store = new InMemoryRecurringStore();
+        store.add("住房", 0, 3000, "2024-01-05");
+        store.add("住房", 0, 3000, "2024-02-05");
+        store.add("住房", 0, 3000, "2024-03-05");
+        RecurringDetector detector = new RecurringDetector(store);
+        RecurringPattern rent = detector.detect(EpochDays.parse("2024-04-03"), 1000).get(0);
+
+        detector.dismiss(rent);
+        assertTrue(detector.detect(EpochDays.parse("2024-04-04"), 1000).isEmpty());
+        assertTrue(new RecurringDetector(store).detect(EpochDays.parse("2024-04-04"), 1000).isEmpty());
+
+        // 下一次照常出现后再次提示
+        store.add("住房", 0, 3000, "2024-04-05");
+        assertEquals(1, detector.detect(EpochDays.parse("2024-05-01"), 1000).size());
+
+        // 两个周期都没有出现，不再认为是周期账单
+        assertTrue(detector.detect(EpochDays.parse("2024-06-30"), 1000).isEmpty());
+    }
+
+    @Test
+    public void irregularIntervals_areNotPatterns() {
+        RecurringDetector.Series series = new RecurringDetector.Series("交通", 0, 500, 500, new long[]{
+                EpochDays.parse("2024-01-01"), EpochDays.parse("2024-01-09"), EpochDays.parse("2024-02-20")},
+                3, 0);
+        assertNull(RecurringDetector.patternOf(series, EpochDays.parse("2024-02-21")));
+        assertEquals(EpochDays.parse("2025-02-28"),
+                RecurringDetector.nextDay(EpochDays.parse("2024-02-29"), RecurringDetector.CADENCE_YEARLY));
+    }
+
+    /**
+     * 测试用的内存账单表和检测进度，记录读取的账单行数
+     */
+    private static class InMemoryRecurringStore implements RecurringStore {
+        final List<Bill> bills = new ArrayList<>();
+        final Map<String, RecurringDetector.Series> series = new LinkedHashMap<>();
+        long watermark;
+        int rowsRead;
+
+        void add(String category, int billType, double amount, String date) {
+            bills.add(new Bill(bills.size() + 1, category, amount, billType, null, date, bills.size() + 1));
+        }
+
+        @Override
+        public State loadRecurringState() {
+            // 和数据库一样返回副本
+            List<RecurringDetector.Series> copies = new ArrayList<>();
+            for (RecurringDetector.Series s : series.values()) {
+                copies.add(new RecurringDetector.Series(s.getCategory(), s.getBillType(), s.getCents(),
+                        s.getLastCents(), s.getDays(), s.getOccurrences(), s.getDismissedDay()));
+            }
+            return new State(watermark, copies);
+        }
+
+        @Override
+        public List<Bill> queryBillsAfter(long afterId, int limit) {
+            List<Bill> result = new ArrayList<>();
+            for (int i = (int) afterId; i < bills.size() && result.size() < limit; i++) {
+                result.add(bills.get(i));
+            }
+            rowsRead += result.size();
+            return result;
+        }
+
+        @Override
+        public void saveRecurringState(long watermark, Collection<RecurringDetector.Series> changed,
+                                       Collection<RecurringDetector.Series> removed) {
+            for (RecurringDetector.Series s : removed) {
+                series.remove(key(s));
+            }
+            for (RecurringDetector.Series s : changed) {
+                series.put(key(s), s);
+            }
+            this.watermark = watermark;
+        }
+
+        private static String key(RecurringDetector.Series s) {
+            return s.getBillType() + "|" + s.getCategory() + "|" + s.getCents();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.personalaccounting.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class RepositoryMetricsTest {
+    private ExecutorService mPool;
+    private RepositoryMetrics mMetrics;
+    private RepositoryMetrics.MeteredExecutor mExecutor;
+
+    @Before
+    public void setUp() {
+        mPool = Executors.newSingleThreadExecutor();
+        mMetrics = new RepositoryMetrics();
+        mExecutor = mMetrics.wrap("查询", mPool);
+    }
+
+    @After
+    public void tearDown() {
+        mPool.shutdownNow();
+    }
+
+    @Test
+    public void queuedTasks_recordWaitSeparatelyFromRun() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        mExecutor.execute("blocker", () -> {
+            started.countDown();
+            await(release);
+            done.countDown();
+        });
+        // 第一个任务占住唯一的线程后再提交，后两个排队
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        mExecutor.execute("queued", done::countDown);
+        mExecutor.execute("queued", done::countDown);
+        Thread.sleep(20);
+        assertEquals(2, mExecutor.getQueued());
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        mPool.shutdown();
+        assertTrue(mPool.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(0, mExecutor.getQueued());
+        assertEquals(2, mExecutor.getMaxQueued());
+        assertEquals(3, mExecutor.getSubmitted());
+        RepositoryMetrics.OperationStats queued = find("queued");
+        assertEquals(2, queued.getSubmitted());
+        assertEquals(2, queued.getWaitTime().getCount());
+        // 排队等了至少20ms，执行几乎不耗时
+        assertTrue(queued.getWaitTime().getMaxMicros() >= 20_000);
+        assertTrue(queued.getRunTime().getMaxMicros() < queued.getWaitTime().getMaxMicros());
+        assertTrue(find("blocker").getRunTime().getMaxMicros() >= 20_000);
+    }
+
+    @Test
+    public void cancelledTasks_areCountedButNotTimed() throws Exception {
+        mExecutor.execute("page", () -> mMetrics.recordCancelled("page"));
+        mExecutor.execute("page", () -> mMetrics.recordDropped("page"));
+        mPool.shutdown();
+        assertTrue(mPool.awaitTermination(5, TimeUnit.SECONDS));
+
+        RepositoryMetrics.OperationStats page = find("page");
+        assertEquals(2, page.getSubmitted());
+        assertEquals(1, page.getCancelled());
+        assertEquals(1, page.getDropped());
+        assertEquals(2, page.getWaitTime().getCount());
+        assertEquals(1, page.getRunTime().getCount());
+    }
+
+    @Test
+    public void cacheStats_reportHitRatio() {
+        RepositoryMetrics.CacheStats cache = mMetrics.cache("月历");
+        assertEquals(0, cache.getHitRatio(), 0);
+        cache.record(true);
+        cache.record(true);
+        cache.record(true);
+        cache.record(false);
+        assertEquals(0.75, cache.getHitRatio(), 1e-9);
+
+        String report = mMetrics.report();
+        assertTrue(report, report.contains("月历"));
+        assertTrue(report, report.contains("75.0%"));
+
+        mMetrics.reset();
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    private RepositoryMetrics.OperationStats find(String operation) {
+        for (RepositoryMetrics.OperationStats stats : mMetrics.getOperations()) {
+            if (stats.getOperation().equals(operation)) {
+                return stats;
+            }
+        }
+        throw new AssertionError("没有操作 " + operation);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
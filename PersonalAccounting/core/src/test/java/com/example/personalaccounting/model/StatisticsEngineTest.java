@@ -0,0 +1,104 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 收支统计和分类占比测试
+ */
+public class StatisticsEngineTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void periods_sumIncomeAndExpenseInRange() {
+        InMemoryStatisticsStore store = new InMemoryStatisticsStore();
+        store.add(0, 25.5, "2024-03-04");
+        store.add(0, 10, "2024-03-05");
+        store.add(1, 8000, "2024-03-05");
+        store.add(0, 300, "2024-03-31");
+        store.add(0, 99, "2024-04-01");
+        store.add(1, 500, "2023-12-31");
+        StatisticsEngine engine = new StatisticsEngine(store);
+
+        StatisticsEngine.TodayStatistics today = engine.calculateTodayStatistics("2024-03-05");
+        assertEquals(8000, today.getIncome(), DELTA);
+        assertEquals(10, today.getExpense(), DELTA);
+        assertEquals(7990, today.getBalance(), DELTA);
+
+        StatisticsEngine.WeekStatistics week = engine.calculateWeekStatistics("2024-03-04", "2024-03-10");
+        assertEquals(35.5, week.getExpense(), DELTA);
+
+        StatisticsEngine.MonthStatistics month = engine.calculateMonthStatistics("2024-03");
+        assertEquals(335.5, month.getExpense(), DELTA);
+        assertEquals(8000 - 335.5, month.getBalance(), DELTA);
+
+        StatisticsEngine.YearStatistics year = engine.calculateYearStatistics("2024");
+        assertEquals(8000, year.getIncome(), DELTA);
+        assertEquals(434.5, year.getExpense(), DELTA);
+    }
+
+    @Test
+    public void emptyPeriod_isAllZero() {
+        StatisticsEngine.YearStatistics year = new StatisticsEngine(new InMemoryStatisticsStore())
+                .calculateYearStatistics("2024");
+        assertEquals(0, year.getIncome(), DELTA);
+        assertEquals(0, year.getExpense(), DELTA);
+        assertEquals(0, year.getBalance(), DELTA);
+    }
+
+    @Test
+    public void percentages_shareOfTotal() {
+        List<CategoryStatistics> categories = Arrays.asList(
+                new CategoryStatistics("餐饮", 300, 12, 0),
+                new CategoryStatistics("交通", 100, 4, 0));
+        StatisticsEngine.fillPercentages(categories);
+        assertEquals(75, categories.get(0).getPercentage(), DELTA);
+        assertEquals(25, categories.get(1).getPercentage(), DELTA);
+
+        List<CategoryStatistics> zero = Arrays.asList(new CategoryStatistics("餐饮", 0, 1, 0));
+        StatisticsEngine.fillPercentages(zero);
+        assertEquals(0, zero.get(0).getPercentage(), DELTA);
+    }
+
+    /**
+     * 测试用的内存账单表，按日期字符串比较筛选，与数据库一致
+     */
+    private static class InMemoryStatisticsStore implements StatisticsStore {
+        final List<Bill> bills = new ArrayList<>();
+
+        void add(int billType, double amount, String date) {
+            bills.add(new Bill(bills.size() + 1, "其他", amount, billType, null, date, bills.size() + 1));
+        }
+
+        @Override
+        public List<Bill> queryTodayBill(String todayDate) {
+            return queryWeekBill(todayDate, todayDate);
+        }
+
+        @Override
+        public List<Bill> queryWeekBill(String startDate, String endDate) {
+            List<Bill> result = new ArrayList<>();
+            for (Bill bill : bills) {
+                if (bill.getDate().compareTo(startDate) >= 0 && bill.getDate().compareTo(endDate) <= 0) {
+                    result.add(bill);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public List<Bill> queryMonthBill(String month) {
+            return queryWeekBill(month + "-01", month + "-31");
+        }
+
+        @Override
+        public List<Bill> queryYearBill(String year) {
+            return queryWeekBill(year + "-01-01", year + "-12-31");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.personalaccounting.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 趋势降采样测试
+ */
+public class TrendDownsamplerTest {
+
+    @Test
+    public void lttb_returnsExactlyThresholdPointsInOrder() {
+        double[] values = yearOfDays();
+        for (int threshold : new int[]{3, 50, 180, 364}) {
+            int[] sampled = TrendDownsampler.lttb(values, threshold);
+            assertEquals(threshold, sampled.length);
+            // 首尾点固定保留
+            assertEquals(0, sampled[0]);
+            assertEquals(values.length - 1, sampled[threshold - 1]);
+            for (int i = 1; i < sampled.length; i++) {
+                assertTrue("下标应严格递增", sampled[i] > sampled[i - 1]);
+            }
+        }
+    }
+
+    @Test
+    public void lttb_keepsInputWhenThresholdCoversIt() {
+        double[] values = {3, 1, 4, 1, 5};
+        int[] all = {0, 1, 2, 3, 4};
+        assertArrayEquals(all, TrendDownsampler.lttb(values, 5));
+        assertArrayEquals(all, TrendDownsampler.lttb(values, 400));
+        // 少于3个点无法分桶，同样原样返回
+        assertArrayEquals(all, TrendDownsampler.lttb(values, 2));
+        assertEquals(0, TrendDownsampler.lttb(new double[0], 10).length);
+    }
+
+    @Test
+    public void lttb_keepsSpikes() {
+        double[] values = new double[1000];
+        values[437] = 500;
+        values[811] = 300;
+        int[] sampled = TrendDownsampler.lttb(values, 20);
+        assertTrue(contains(sampled, 437));
+        assertTrue(contains(sampled, 811));
+    }
+
+    /**
+     * 一年的按日支出：工作日小额、周末偏高，月初有一笔房租
+     */
+    private static double[] yearOfDays() {
+        double[] values = new double[365];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (i % 7 >= 5 ? 120 : 40) + (i % 30 == 0 ? 3000 : 0);
+        }
+        return values;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
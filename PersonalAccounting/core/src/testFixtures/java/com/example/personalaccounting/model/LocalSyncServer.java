@@ -0,0 +1,168 @@
+package com.example.personalaccounting.model;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 测试用的账本服务器替身
+ * <p>
+ * 实现与自建服务器相同的协议：按 syncId 保存每个账单的最新版本和写入设备，
+ * 每次采纳的写入分配一个全局递增序号，拉取时按序号分页返回其他设备的写入。
+ * 冲突规则：版本号大的胜出，版本相同时设备编号大的胜出；同一设备重复推送同一版本视为幂等。
+ * </p>
+ * <p>
+ * 既可以作为 {@link SyncTransport} 在进程内直接调用，也可以用 {@link #startHttp()}
+ * 在localhost上提供 {@code /sync} 接口，配合 {@link HttpSyncTransport} 测试真实的HTTP往返。
+ * </p>
+ */
+public class LocalSyncServer implements SyncTransport {
+
+    private static final class Entry {
+        SyncChange change;
+        String origin;
+        long seq;
+    }
+
+    private final Map<String, Entry> mEntries = new HashMap<>();
+    // 序号 -> syncId，只保留每个账单最近一次写入的序号
+    private final TreeMap<Long, String> mLog = new TreeMap<>();
+    private long mSeq;
+    private long mBytesIn;
+    private long mBytesOut;
+    private int mRequests;
+    private HttpServer mHttpServer;
+
+    @Override
+    public synchronized byte[] exchange(byte[] request) throws IOException {
+        mRequests++;
+        mBytesIn += request.length;
+        SyncMessage message = SyncMessage.decode(request);
+        SyncMessage response;
+        switch (message.getType()) {
+            case SyncMessage.TYPE_PUSH:
+                response = SyncMessage.pushAck(push(message.getDeviceId(), message.getChanges()));
+                break;
+            case SyncMessage.TYPE_PULL:
+                response = pull(message.getDeviceId(), message.getCursor(), message.getLimit());
+                break;
+            default:
+                throw new IOException("未知的请求类型：" + message.getType());
+        }
+        byte[] bytes = response.encode();
+        mBytesOut += bytes.length;
+        return bytes;
+    }
+
+    private int push(String deviceId, List<SyncChange> changes) {
+        int accepted = 0;
+        for (SyncChange change : changes) {
+            Entry entry = mEntries.get(change.getSyncId());
+            if (entry == null) {
+                if (change.isDeleted()) {
+                    // 其他设备从未见过的账单，删除无需传播
+                    accepted++;
+                    continue;
+                }
+                entry = new Entry();
+                mEntries.put(change.getSyncId(), entry);
+            } else {
+                long version = entry.change.getVersion();
+                if (change.getVersion() == version && deviceId.equals(entry.origin)) {
+                    accepted++;
+                    continue;
+                }
+                boolean wins = change.getVersion() > version
+                        || (change.getVersion() == version && deviceId.compareTo(entry.origin) > 0);
+                if (!wins) {
+                    continue;
+                }
+                mLog.remove(entry.seq);
+            }
+            entry.change = change;
+            entry.origin = deviceId;
+            entry.seq = ++mSeq;
+            mLog.put(entry.seq, change.getSyncId());
+            accepted++;
+        }
+        return accepted;
+    }
+
+    private SyncMessage pull(String deviceId, long cursor, int limit) {
+        List<SyncChange> changes = new ArrayList<>();
+        long next = cursor;
+        for (Map.Entry<Long, String> item : mLog.tailMap(cursor, false).entrySet()) {
+            if (changes.size() >= limit) {
+                return SyncMessage.pullResult(changes, next, true);
+            }
+            next = item.getKey();
+            Entry entry = mEntries.get(item.getValue());
+            if (!deviceId.equals(entry.origin)) {
+                changes.add(entry.change);
+            }
+        }
+        return SyncMessage.pullResult(changes, next, false);
+    }
+
+    /**
+     * 在localhost的随机端口上启动HTTP服务
+     * @return 服务器地址，可直接传给 {@link HttpSyncTransport}
+     */
+    public String startHttp() throws IOException {
+        mHttpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        mHttpServer.createContext("/sync", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
+                }
+                byte[] response = exchange(body.toByteArray());
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response);
+                }
+            } catch (IOException e) {
+                exchange.sendResponseHeaders(400, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        mHttpServer.start();
+        return "http://" + mHttpServer.getAddress().getHostString() + ":" + mHttpServer.getAddress().getPort();
+    }
+
+    public void stopHttp() {
+        if (mHttpServer != null) {
+            mHttpServer.stop(0);
+            mHttpServer = null;
+        }
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    public synchronized long getBytesIn() {
+        return mBytesIn;
+    }
+
+    public synchronized long getBytesOut() {
+        return mBytesOut;
+    }
+
+    public synchronized int getRequests() {
+        return mRequests;
+    }
+}